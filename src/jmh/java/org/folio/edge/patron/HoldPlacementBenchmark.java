@@ -0,0 +1,63 @@
+package org.folio.edge.patron;
+
+import static org.folio.edge.patron.Constants.FIELD_EXPIRATION_DATE;
+import static org.folio.edge.patron.Constants.FIELD_REQUEST_DATE;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Rewrites the dates of a hold request body as the hold endpoints do before
+ * forwarding it, against the {@link SimpleDateFormat} version it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HoldPlacementBenchmark {
+
+  private static final String HOLD = new JsonObject()
+    .put("item", new JsonObject()
+      .put("itemId", "0f6d9fca-bd7b-4f2b-9a4c-b1f5d8e5ea3e")
+      .put("title", "Some Book"))
+    .put("pickupLocationId", "3a40852d-49fd-4df2-a1f9-6e2641a6e91f")
+    .put(FIELD_EXPIRATION_DATE, "2019-09-20T10:00:00.000+0000")
+    .put("patronComments", "Please hold at the front desk")
+    .encode();
+
+  @Benchmark
+  public String checkDates() {
+    return PatronHandler.checkDates(new JsonObject(HOLD));
+  }
+
+  @Benchmark
+  public String checkDatesBaseline() {
+    JsonObject requestMessage = new JsonObject(HOLD);
+    String requestExpirationDate = requestMessage.getString(FIELD_EXPIRATION_DATE);
+    try {
+      new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").parse(requestExpirationDate);
+    } catch (Exception e) {
+      requestMessage.remove(FIELD_EXPIRATION_DATE);
+    }
+    final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+    sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+    requestMessage.put(FIELD_REQUEST_DATE, sdf.format(new Date()));
+    return requestMessage.encodePrettily();
+  }
+}
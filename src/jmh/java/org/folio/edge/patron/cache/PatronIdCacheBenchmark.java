@@ -0,0 +1,85 @@
+package org.folio.edge.patron.cache;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Patron ID lookups and insertions, as the event loops make them
+ * concurrently: alone, from several threads at once, and mixed with a
+ * writer, as when patrons are looked up for the first time. Patrons are
+ * picked at random from a population larger than the cache, so some lookups
+ * miss and some insertions evict.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatronIdCacheBenchmark {
+
+  private static final String TENANT = "diku";
+
+  @Param({ "1000" })
+  private int capacity;
+
+  private String[] extPatronIds;
+  private String[] patronIds;
+  private PatronIdCache cache;
+
+  @Setup
+  public void setUp() {
+    cache = PatronIdCache.initialize(TimeUnit.HOURS.toMillis(1), TimeUnit.SECONDS.toMillis(30), capacity);
+    extPatronIds = new String[capacity * 2];
+    patronIds = new String[extPatronIds.length];
+    for (int i = 0; i < extPatronIds.length; i++) {
+      extPatronIds[i] = UUID.randomUUID().toString();
+      patronIds[i] = UUID.randomUUID().toString();
+      if (i < capacity) {
+        cache.put(TENANT, extPatronIds[i], patronIds[i]);
+      }
+    }
+  }
+
+  @Benchmark
+  public String get() {
+    return cache.get(TENANT, extPatronIds[ThreadLocalRandom.current().nextInt(extPatronIds.length)]);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public String getContended() {
+    return get();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  public String mixedGet() {
+    return get();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  public Object mixedPut() {
+    int i = ThreadLocalRandom.current().nextInt(extPatronIds.length);
+    return cache.put(TENANT, extPatronIds[i], patronIds[i]);
+  }
+}
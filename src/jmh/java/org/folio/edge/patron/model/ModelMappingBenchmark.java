@@ -0,0 +1,167 @@
+package org.folio.edge.patron.model;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.folio.edge.patron.model.Hold.Status;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+/**
+ * JSON and XML round trips of an account, a hold and a loan through the
+ * Jackson mappers of edge-common, as account responses and hold requests
+ * are converted. The account has a few loans, holds and charges, about the
+ * size of a typical patron's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelMappingBenchmark {
+
+  private static final int ITEMS = 5;
+
+  private Account account;
+  private Hold hold;
+  private Loan loan;
+
+  private String accountJson;
+  private String accountXml;
+  private String holdJson;
+  private String holdXml;
+  private String loanJson;
+  private String loanXml;
+
+  @Setup
+  public void setUp() throws JsonProcessingException {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    List<Charge> charges = new ArrayList<>();
+    List<Hold> holds = new ArrayList<>();
+    List<Loan> loans = new ArrayList<>();
+    for (int i = 0; i < ITEMS; i++) {
+      Item item = Item.builder()
+        .author("Herbert, Frank")
+        .title("Dune, volume " + i)
+        .instanceId(UUID.randomUUID().toString())
+        .itemId(UUID.randomUUID().toString())
+        .isbn("0441172717")
+        .build();
+      loans.add(Loan.builder()
+        .item(item)
+        .overdue(i % 2 == 0)
+        .loanDate(now.minus(30L + i, ChronoUnit.DAYS))
+        .dueDate(now.minus(2L + i, ChronoUnit.DAYS))
+        .build());
+      holds.add(Hold.builder()
+        .item(item)
+        .pickupLocationId(UUID.randomUUID().toString())
+        .expirationDate(now.plus(60, ChronoUnit.DAYS))
+        .queuePosition(i + 1)
+        .requestDate(now)
+        .requestId(UUID.randomUUID().toString())
+        .status(Status.OPEN_NOT_YET_FILLED)
+        .build());
+      charges.add(Charge.builder()
+        .item(item)
+        .feeFineId(UUID.randomUUID().toString())
+        .accrualDate(now.minus(i, ChronoUnit.DAYS))
+        .chargeAmount(new Money(1.25f, "USD"))
+        .description("late fee")
+        .reason("item overdue")
+        .state("outstanding")
+        .build());
+    }
+    account = Account.builder()
+      .charges(charges)
+      .holds(holds)
+      .loans(loans)
+      .id(UUID.randomUUID().toString())
+      .build();
+    hold = holds.get(0);
+    loan = loans.get(0);
+
+    accountJson = account.toJson();
+    accountXml = account.toXml();
+    holdJson = hold.toJson();
+    holdXml = hold.toXml();
+    loanJson = loan.toJson();
+    loanXml = loan.toXml();
+  }
+
+  @Benchmark
+  public String accountToJson() throws JsonProcessingException {
+    return account.toJson();
+  }
+
+  @Benchmark
+  public Account accountFromJson() throws IOException {
+    return Account.fromJson(accountJson);
+  }
+
+  @Benchmark
+  public String accountToXml() throws JsonProcessingException {
+    return account.toXml();
+  }
+
+  @Benchmark
+  public Account accountFromXml() throws IOException {
+    return Account.fromXml(accountXml);
+  }
+
+  @Benchmark
+  public String holdToJson() throws JsonProcessingException {
+    return hold.toJson();
+  }
+
+  @Benchmark
+  public Hold holdFromJson() throws IOException {
+    return Hold.fromJson(holdJson);
+  }
+
+  @Benchmark
+  public String holdToXml() throws JsonProcessingException {
+    return hold.toXml();
+  }
+
+  @Benchmark
+  public Hold holdFromXml() throws IOException {
+    return Hold.fromXml(holdXml);
+  }
+
+  @Benchmark
+  public String loanToJson() throws JsonProcessingException {
+    return loan.toJson();
+  }
+
+  @Benchmark
+  public Loan loanFromJson() throws IOException {
+    return Loan.fromJson(loanJson);
+  }
+
+  @Benchmark
+  public String loanToXml() throws JsonProcessingException {
+    return loan.toXml();
+  }
+
+  @Benchmark
+  public Loan loanFromXml() throws IOException {
+    return Loan.fromXml(loanXml);
+  }
+}
@@ -0,0 +1,64 @@
+package org.folio.edge.patron.utils;
+
+import static org.folio.edge.patron.Constants.FIELD_CANCELED_DATE;
+import static org.folio.edge.patron.Constants.FIELD_CANCELLATION_REASON_ID;
+import static org.folio.edge.patron.Constants.FIELD_HOLD_ID;
+
+import java.util.concurrent.TimeUnit;
+
+import org.folio.edge.patron.cache.RequestMetadataCache.RequestMetadata;
+import org.folio.edge.patron.model.Hold;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Builds and serializes the hold sent to mod-patron to cancel a hold, against
+ * the Joda-Time parsing it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HoldCancellationBenchmark {
+
+  private static final String PATRON_ID = "1a6d4e6a-2f8b-4ef3-9f57-1b1f0c2d9a31";
+
+  private final JsonObject cancellation = new JsonObject()
+    .put(FIELD_HOLD_ID, "d3b8e8c6-5a4e-4b8a-9e0f-2c6a3f1b7d42")
+    .put(FIELD_CANCELLATION_REASON_ID, "75187e8d-e25a-47a7-89ad-23ba612338de")
+    .put(FIELD_CANCELED_DATE, "2019-12-06T16:05:16.216Z");
+
+  private final RequestMetadata request = new RequestMetadata("d3b8e8c6-5a4e-4b8a-9e0f-2c6a3f1b7d42",
+      "3a40852d-49fd-4df2-a1f9-6e2641a6e91f", "2019-09-19T19:47:11.732+0000");
+
+  @Benchmark
+  public String cancellationHold() throws Exception {
+    return PatronOkapiClient.createCancellationHoldRequest(cancellation, request, PATRON_ID).toJson();
+  }
+
+  @Benchmark
+  public String cancellationHoldBaseline() throws Exception {
+    return Hold.builder()
+      .cancellationReasonId(cancellation.getString(FIELD_CANCELLATION_REASON_ID))
+      .canceledByUserId(PATRON_ID)
+      .canceledDate(new DateTime(cancellation.getString(FIELD_CANCELED_DATE), DateTimeZone.UTC).toDate().toInstant())
+      .requestId(request.requestId)
+      .pickupLocationId(request.pickupServicePointId)
+      .requestDate(new DateTime(request.requestDate, DateTimeZone.UTC).toDate().toInstant())
+      .build()
+      .toJson();
+  }
+}
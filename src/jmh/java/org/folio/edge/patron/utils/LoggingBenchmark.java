@@ -0,0 +1,100 @@
+package org.folio.edge.patron.utils;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilder;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilderFactory;
+import org.apache.logging.log4j.core.config.builder.impl.BuiltConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The logging of one patron lookup, as on every request, written to a file:
+ * sampled, parameterized and through the asynchronous loggers, against the
+ * formatted messages and synchronous loggers it replaced. Run with several
+ * threads, as the event loops log concurrently.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class LoggingBenchmark {
+
+  private static final String LOG_FILE = "target/jmh-logging.log";
+
+  private static final String EXT_PATRON_ID = UUID.randomUUID().toString();
+  private static final String PATRON_ID = UUID.randomUUID().toString();
+  private static final String USERS = "{\"users\":[{\"username\":\"patron\",\"id\":\"" + PATRON_ID + "\","
+      + "\"externalSystemId\":\"" + EXT_PATRON_ID + "\",\"active\":true,\"patronGroup\":"
+      + "\"3684a786-6671-4268-8ed0-9db82ebca60b\",\"personal\":{\"lastName\":\"Patron\",\"firstName\":\"Some\","
+      + "\"email\":\"patron@example.org\"}}],\"totalRecords\":1}";
+
+  private static final Logger logger = LogManager.getLogger(LoggingBenchmark.class);
+
+  private static final LogSampler LOOKUP_LOG = new LogSampler();
+
+  @Setup
+  public void setUp() {
+    ConfigurationBuilder<BuiltConfiguration> builder = ConfigurationBuilderFactory.newConfigurationBuilder();
+    builder.add(builder.newAppender("file", "File")
+      .addAttribute("fileName", LOG_FILE)
+      .addAttribute("append", false)
+      .add(builder.newLayout("PatternLayout").addAttribute("pattern", "%d{ISO8601} %-5p %c{1} %m%n")));
+    builder.add(builder.newRootLogger(Level.INFO).add(builder.newAppenderRef("file")));
+    Configurator.reconfigure(builder.build());
+    LogSampler.setMaxPerSecond(10);
+  }
+
+  @TearDown
+  public void tearDown() {
+    LogManager.shutdown();
+  }
+
+  @Benchmark
+  public void patronLookup() {
+    logger.debug("Response from mod-users: ({})", 200);
+    long suppressed = logger.isInfoEnabled() ? LOOKUP_LOG.sample() : -1;
+    if (suppressed >= 0) {
+      logger.info("Patron lookup successful: {} -> {} ({} more not logged)", PatronIdHelper.redact(EXT_PATRON_ID),
+          PatronIdHelper.redact(PATRON_ID), suppressed);
+    }
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = {
+      "-Dlog4j2.contextSelector=org.apache.logging.log4j.core.selector.ClassLoaderContextSelector" })
+  public void patronLookupBaseline() {
+    logger.info(String.format("Response from mod-users: (%s) body: %s", 200, USERS));
+    logger.info("Patron lookup successful: {} -> {}", EXT_PATRON_ID, PATRON_ID);
+  }
+
+  @Benchmark
+  public void patronLookupCached() {
+    logger.debug("Using cached patronId");
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = {
+      "-Dlog4j2.contextSelector=org.apache.logging.log4j.core.selector.ClassLoaderContextSelector" })
+  public void patronLookupCachedBaseline() {
+    logger.info("Using cached patronId");
+  }
+}
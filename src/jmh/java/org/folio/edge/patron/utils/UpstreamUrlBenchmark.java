@@ -0,0 +1,63 @@
+package org.folio.edge.patron.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds the URLs of the account and patron lookup calls to FOLIO, against
+ * the repeated {@link String#format} they replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpstreamUrlBenchmark {
+
+  private static final String OKAPI_URL = "http://okapi.folio.svc.cluster.local:9130";
+  private static final String PATRON_ID = "1a6d4e6a-2f8b-4ef3-9f57-1b1f0c2d9a31";
+  private static final String EXT_PATRON_ID = "b6e1a9c4-7d3f-4e2a-8c5b-0f9d2e7a1c63";
+  private static final String SORT_BY = "loanDate/sort.descending";
+
+  private String limit = "10";
+  private String offset = "20";
+
+  @Benchmark
+  public String accountUrl() {
+    return PatronOkapiClient.accountUrl(OKAPI_URL, PATRON_ID, true, true, true, SORT_BY, limit, offset);
+  }
+
+  @Benchmark
+  public String accountUrlBaseline() {
+    String url = String.format("%s/patron/account/%s?includeLoans=%s&includeCharges=%s&includeHolds=%s",
+      OKAPI_URL,
+      PATRON_ID,
+      true,
+      true,
+      true);
+    url = String.format(url + "&sortBy=%s", SORT_BY);
+    url = String.format(url + "&limit=%s", limit);
+    url = String.format(url + "&offset=%s", offset);
+    return url;
+  }
+
+  @Benchmark
+  public String usersUrl() {
+    return PatronOkapiClient.usersUrl(OKAPI_URL, EXT_PATRON_ID);
+  }
+
+  @Benchmark
+  public String usersUrlBaseline() {
+    return String.format("%s/users?query=externalSystemId==%s", OKAPI_URL, EXT_PATRON_ID);
+  }
+}
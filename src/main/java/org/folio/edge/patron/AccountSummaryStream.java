@@ -0,0 +1,306 @@
+package org.folio.edge.patron;
+
+import static org.folio.edge.patron.Constants.APPLICATION_NDJSON;
+import static org.folio.edge.patron.Constants.FIELD_ACCOUNT;
+import static org.folio.edge.patron.Constants.FIELD_ERROR;
+import static org.folio.edge.patron.Constants.FIELD_PATRON_ID;
+import static org.folio.edge.patron.Constants.FIELD_STATUS;
+import static org.folio.edge.patron.Constants.MSG_BULK_INVALID_INPUT;
+import static org.folio.edge.patron.Constants.MSG_PATRON_NOT_FOUND;
+import static org.folio.edge.patron.Constants.PARAM_INCLUDE_CHARGES;
+import static org.folio.edge.patron.Constants.PARAM_INCLUDE_HOLDS;
+import static org.folio.edge.patron.Constants.PARAM_INCLUDE_LOANS;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.core.utils.OkapiClient;
+import org.folio.edge.patron.resilience.Deadline;
+import org.folio.edge.patron.utils.LogSampler;
+import org.folio.edge.patron.utils.PatronIdHelper;
+import org.folio.edge.patron.utils.PatronOkapiClient;
+
+/**
+ * Answers a bulk account summary request: reads newline separated external
+ * patron IDs from the request body as they arrive, resolves them in batches
+ * and writes one account summary per line (NDJSON) as each one completes.
+ *
+ * Only a bounded number of patrons are held at a time: the request is paused
+ * while enough IDs are queued, and no further accounts are fetched while the
+ * response's write queue is full.
+ *
+ * All methods run on the context of the request.
+ */
+class AccountSummaryStream {
+
+  private static final Logger logger = LogManager.getLogger(AccountSummaryStream.class);
+
+  private static final LogSampler ACCOUNT_EXCEPTION_LOG = new LogSampler();
+
+  static final int MAX_LINE_LENGTH = 1024;
+
+  private final PatronHandler handler;
+  private final HttpServerRequest request;
+  private final HttpServerResponse response;
+  private final OkapiClient client;
+  private final String requestId;
+  private final long budgetMs;
+  private final int batchSize;
+  private final int concurrency;
+  private final boolean includeLoans;
+  private final boolean includeCharges;
+  private final boolean includeHolds;
+
+  /** external IDs read but not yet looked up */
+  private final Deque<String> queue = new ArrayDeque<>();
+  /** external and internal IDs of patrons whose accounts are still to fetch */
+  private final Deque<String[]> ready = new ArrayDeque<>();
+
+  private Buffer partial = Buffer.buffer();
+  private boolean inputEnded;
+  private boolean inputPaused = true;
+  private boolean lookupInFlight;
+  private int inFlight;
+  private int written;
+  private boolean finished;
+
+  /**
+   * @param budgetMs
+   *          time budget for each batch lookup and each account
+   */
+  AccountSummaryStream(PatronHandler handler, RoutingContext ctx, OkapiClient client, long budgetMs,
+      int batchSize, int concurrency) {
+    this.handler = handler;
+    this.request = ctx.request();
+    this.response = ctx.response();
+    this.client = client;
+    this.requestId = PatronHandler.getRequestId(ctx);
+    this.budgetMs = budgetMs;
+    this.batchSize = Math.max(1, batchSize);
+    this.concurrency = Math.max(1, concurrency);
+    this.includeLoans = Boolean.parseBoolean(request.getParam(PARAM_INCLUDE_LOANS));
+    this.includeCharges = Boolean.parseBoolean(request.getParam(PARAM_INCLUDE_CHARGES));
+    this.includeHolds = Boolean.parseBoolean(request.getParam(PARAM_INCLUDE_HOLDS));
+  }
+
+  /**
+   * Starts the response and reads the request body, which must be paused.
+   */
+  void start() {
+    response.setStatusCode(200)
+      .setChunked(true)
+      .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_NDJSON);
+    response.drainHandler(v -> pump());
+    response.closeHandler(v -> {
+      if (!finished) {
+        logger.info("Client went away after {} account summaries", written);
+        finished = true;
+      }
+    });
+
+    request.handler(this::onData);
+    request.exceptionHandler(this::onInputError);
+    request.endHandler(v -> {
+      if (partial.length() > 0) {
+        onLine(partial.toString(StandardCharsets.UTF_8));
+        partial = Buffer.buffer();
+      }
+      inputEnded = true;
+      pump();
+    });
+    pump();
+  }
+
+  private void onData(Buffer data) {
+    if (inputEnded) {
+      return;
+    }
+    int start = 0;
+    for (int i = 0; i < data.length(); i++) {
+      if (data.getByte(i) == '\n') {
+        partial.appendBuffer(data, start, i - start);
+        onLine(partial.toString(StandardCharsets.UTF_8));
+        if (inputEnded) {
+          return;
+        }
+        partial = Buffer.buffer();
+        start = i + 1;
+      }
+    }
+    partial.appendBuffer(data, start, data.length() - start);
+    if (partial.length() > MAX_LINE_LENGTH) {
+      onInputError(new IllegalArgumentException("line longer than " + MAX_LINE_LENGTH + " bytes"));
+      return;
+    }
+    pump();
+  }
+
+  private void onLine(String line) {
+    if (line.length() > MAX_LINE_LENGTH) {
+      onInputError(new IllegalArgumentException("line longer than " + MAX_LINE_LENGTH + " bytes"));
+      return;
+    }
+    String extPatronId = line.trim();
+    if (!inputEnded && !extPatronId.isEmpty()) {
+      queue.add(extPatronId);
+    }
+  }
+
+  /**
+   * Writes an error line for the rest of the input, and finishes once the
+   * patrons already read are answered.
+   */
+  private void onInputError(Throwable t) {
+    if (inputEnded) {
+      return;
+    }
+    logger.warn("Error reading bulk account summary request", t);
+    write(new JsonObject()
+      .put(FIELD_STATUS, 400)
+      .put(FIELD_ERROR, handler.errorJson(400, String.format(MSG_BULK_INVALID_INPUT, t.getMessage()))));
+    inputEnded = true;
+    request.pause();
+    pump();
+  }
+
+  /**
+   * Starts whatever work there is room for, and pauses or resumes reading the
+   * request accordingly.
+   */
+  private void pump() {
+    if (finished) {
+      return;
+    }
+
+    if (!lookupInFlight && !queue.isEmpty() && ready.size() < concurrency
+        && (queue.size() >= batchSize || inputEnded)) {
+      lookupBatch();
+    }
+
+    while (inFlight < concurrency && !ready.isEmpty() && !response.writeQueueFull()) {
+      fetchAccount(ready.poll());
+    }
+
+    boolean full = queue.size() >= 2 * batchSize || response.writeQueueFull();
+    if (!inputEnded && full != inputPaused) {
+      inputPaused = full;
+      if (full) {
+        request.pause();
+      } else {
+        request.resume();
+      }
+    }
+
+    // a lookup answered from the cache may have pumped and finished already
+    if (!finished && inputEnded && queue.isEmpty() && ready.isEmpty() && !lookupInFlight && inFlight == 0) {
+      finished = true;
+      logger.info("Wrote {} account summaries", written);
+      response.end();
+    }
+  }
+
+  /**
+   * @return a client for one lookup or account, with its own deadline
+   */
+  private PatronOkapiClient newPatronClient() {
+    return new PatronOkapiClient.Builder(client)
+      .withDeadline(Deadline.after(budgetMs))
+      .withRequestId(requestId)
+      .build();
+  }
+
+  private void lookupBatch() {
+    final List<String> batch = new ArrayList<>(batchSize);
+    while (batch.size() < batchSize && !queue.isEmpty()) {
+      batch.add(queue.poll());
+    }
+    lookupInFlight = true;
+
+    PatronIdHelper.lookupPatrons(newPatronClient(), client.tenant, batch)
+      .onSuccess(patronIds -> onPatrons(batch, patronIds))
+      .onFailure(t -> {
+        int statusCode = handler.getStatusCode(t);
+        JsonObject error = handler.errorJson(statusCode, handler.getErrorMessage(t));
+        for (String extPatronId : batch) {
+          writeError(extPatronId, statusCode, error);
+        }
+      })
+      .onComplete(ar -> {
+        lookupInFlight = false;
+        pump();
+      });
+  }
+
+  private void onPatrons(List<String> batch, Map<String, String> patronIds) {
+    for (String extPatronId : batch) {
+      String patronId = patronIds.get(extPatronId);
+      if (patronId != null) {
+        ready.add(new String[] { extPatronId, patronId });
+      } else {
+        writeError(extPatronId, 404, handler.errorJson(404, String.format(MSG_PATRON_NOT_FOUND, extPatronId)));
+      }
+    }
+  }
+
+  private void fetchAccount(String[] patron) {
+    final String extPatronId = patron[0];
+    inFlight++;
+
+    newPatronClient().getAccount(patron[1],
+        includeLoans,
+        includeCharges,
+        includeHolds,
+        null,
+        null,
+        null,
+        resp -> {
+          if (resp.statusCode() < 400) {
+            write(new JsonObject()
+              .put(FIELD_PATRON_ID, extPatronId)
+              .put(FIELD_STATUS, resp.statusCode())
+              .put(FIELD_ACCOUNT, PatronHandler.parseJson(resp.bodyAsString())));
+          } else {
+            writeError(extPatronId, resp.statusCode(),
+                new JsonObject(handler.getErrorMessage(resp.statusCode(), resp.bodyAsString())));
+          }
+          inFlight--;
+          pump();
+        },
+        t -> {
+          long suppressed = ACCOUNT_EXCEPTION_LOG.sample();
+          if (suppressed >= 0) {
+            logger.error("Exception retrieving account summary ({} more not logged):", suppressed, t);
+          }
+          int statusCode = handler.getStatusCode(t);
+          writeError(extPatronId, statusCode, handler.errorJson(statusCode, handler.getErrorMessage(t)));
+          inFlight--;
+          pump();
+        });
+  }
+
+  private void writeError(String extPatronId, int statusCode, JsonObject error) {
+    write(new JsonObject()
+      .put(FIELD_PATRON_ID, extPatronId)
+      .put(FIELD_STATUS, statusCode)
+      .put(FIELD_ERROR, error));
+  }
+
+  private void write(JsonObject line) {
+    if (finished) {
+      return;
+    }
+    written++;
+    response.write(line.encode() + "\n");
+  }
+}
@@ -7,11 +7,102 @@ public class Constants {
   public static final String SYS_PATRON_ID_CACHE_TTL_MS = "patron_id_cache_ttl_ms";
   public static final String SYS_NULL_PATRON_ID_CACHE_TTL_MS = "null_patron_id_cache_ttl_ms";
   public static final String SYS_PATRON_ID_CACHE_CAPACITY = "patron_id_cache_capacity";
+  public static final String SYS_REQUEST_METADATA_CACHE_TTL_MS = "request_metadata_cache_ttl_ms";
+  public static final String SYS_REQUEST_METADATA_CACHE_CAPACITY = "request_metadata_cache_capacity";
+  public static final String SYS_REJECT_UNKNOWN_HOLD_CANCELLATION = "reject_unknown_hold_cancellation";
+  public static final String SYS_CIRCUIT_BREAKER_WINDOW_SIZE = "circuit_breaker_window_size";
+  public static final String SYS_CIRCUIT_BREAKER_MINIMUM_CALLS = "circuit_breaker_minimum_calls";
+  public static final String SYS_CIRCUIT_BREAKER_FAILURE_RATE = "circuit_breaker_failure_rate_threshold";
+  public static final String SYS_CIRCUIT_BREAKER_SLOW_CALL_RATE = "circuit_breaker_slow_call_rate_threshold";
+  public static final String SYS_CIRCUIT_BREAKER_SLOW_CALL_MS = "circuit_breaker_slow_call_duration_ms";
+  public static final String SYS_CIRCUIT_BREAKER_OPEN_MS = "circuit_breaker_open_duration_ms";
+  public static final String SYS_MAX_CONCURRENT_CALLS_PER_TENANT = "max_concurrent_calls_per_tenant";
+  public static final String SYS_CONCURRENCY_LIMIT_INITIAL = "concurrency_limit_initial";
+  public static final String SYS_CONCURRENCY_LIMIT_MIN = "concurrency_limit_min";
+  public static final String SYS_CONCURRENCY_LIMIT_MAX = "concurrency_limit_max";
+  public static final String SYS_CONCURRENCY_LIMIT_RTT_THRESHOLD_MS = "concurrency_limit_rtt_threshold_ms";
+  public static final String SYS_CONCURRENCY_LIMIT_QUEUE_SIZE = "concurrency_limit_queue_size";
+  public static final String SYS_CONCURRENCY_LIMIT_QUEUE_WAIT_MS = "concurrency_limit_queue_wait_ms";
+  public static final String SYS_HEDGING_ENABLED = "hedging_enabled";
+  public static final String SYS_HEDGING_BUDGET_PERCENT = "hedging_budget_percent";
+  public static final String SYS_HEDGING_MIN_DELAY_MS = "hedging_min_delay_ms";
+  public static final String SYS_RETRY_MAX_ATTEMPTS = "retry_max_attempts";
+  public static final String SYS_RETRY_BASE_DELAY_MS = "retry_base_delay_ms";
+  public static final String SYS_RETRY_MAX_DELAY_MS = "retry_max_delay_ms";
+  public static final String SYS_RETRY_BUDGET_PERCENT = "retry_budget_percent";
+  public static final String SYS_TOKEN_REFRESH_AHEAD_MS = "token_refresh_ahead_ms";
+  public static final String SYS_TOKEN_DEFAULT_LIFETIME_MS = "token_default_lifetime_ms";
+  public static final String SYS_TOKEN_PREFETCH_ENABLED = "token_prefetch_enabled";
+  public static final String SYS_TOKEN_PREFETCH_API_KEYS = "token_prefetch_api_keys";
+  public static final String SYS_CREDENTIAL_CACHE_TTL_MS = "credential_cache_ttl_ms";
+  public static final String SYS_INVALID_API_KEY_CACHE_TTL_MS = "invalid_api_key_cache_ttl_ms";
+  public static final String SYS_CREDENTIAL_CACHE_CAPACITY = "credential_cache_capacity";
+  public static final String SYS_SECURE_STORE_POOL_SIZE = "secure_store_pool_size";
+  public static final String SYS_BATCH_MAX_OPERATIONS = "batch_max_operations";
+  public static final String SYS_BATCH_PARALLELISM = "batch_parallelism";
+  public static final String SYS_BULK_BATCH_SIZE = "bulk_batch_size";
+  public static final String SYS_BULK_CONCURRENCY = "bulk_concurrency";
+  public static final String SYS_IDEMPOTENCY_TTL_MS = "idempotency_ttl_ms";
+  public static final String SYS_IDEMPOTENCY_CAPACITY = "idempotency_capacity";
+  public static final String SYS_RATE_LIMIT_PER_API_KEY = "rate_limit_per_api_key";
+  public static final String SYS_RATE_LIMIT_PER_API_KEY_BURST = "rate_limit_per_api_key_burst";
+  public static final String SYS_RATE_LIMIT_PER_TENANT = "rate_limit_per_tenant";
+  public static final String SYS_RATE_LIMIT_PER_TENANT_BURST = "rate_limit_per_tenant_burst";
+  public static final String SYS_EVENT_LOOP_LAG_INTERVAL_MS = "event_loop_lag_interval_ms";
+  public static final String SYS_EVENT_LOOP_LAG_THRESHOLD_MS = "event_loop_lag_threshold_ms";
+  public static final String SYS_MAX_BODY_SIZE_BYTES = "max_body_size_bytes";
+  public static final String SYS_LOG_SAMPLES_PER_SECOND = "log_samples_per_second";
+  public static final String SYS_SERVER_TIMING_API_KEYS = "server_timing_api_keys";
+  public static final String SYS_ADMIN_TOKEN = "admin_token";
+  public static final String SYS_TRACE_SLOWEST_REQUESTS = "trace_slowest_requests";
 
   public static final String DEFAULT_CURRENCY_CODE = Currency.getInstance("USD").getCurrencyCode();
   public static final long DEFAULT_PATRON_ID_CACHE_TTL_MS = 60 * 60 * 1000L;
   public static final long DEFAULT_NULL_PATRON_ID_CACHE_TTL_MS = 30 * 1000L;
   public static final int DEFAULT_PATRON_ID_CACHE_CAPACITY = 1000;
+  public static final long DEFAULT_REQUEST_METADATA_CACHE_TTL_MS = 5 * 60 * 1000L;
+  public static final int DEFAULT_REQUEST_METADATA_CACHE_CAPACITY = 10000;
+  public static final int DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE = 50;
+  public static final int DEFAULT_CIRCUIT_BREAKER_MINIMUM_CALLS = 20;
+  public static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE = 50;
+  public static final int DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_RATE = 80;
+  public static final long DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_MS = 10 * 1000L;
+  public static final long DEFAULT_CIRCUIT_BREAKER_OPEN_MS = 30 * 1000L;
+  public static final int DEFAULT_MAX_CONCURRENT_CALLS_PER_TENANT = 200;
+  public static final int DEFAULT_CONCURRENCY_LIMIT_INITIAL = 20;
+  public static final int DEFAULT_CONCURRENCY_LIMIT_MIN = 5;
+  public static final int DEFAULT_CONCURRENCY_LIMIT_MAX = 200;
+  public static final long DEFAULT_CONCURRENCY_LIMIT_RTT_THRESHOLD_MS = 5 * 1000L;
+  public static final int DEFAULT_CONCURRENCY_LIMIT_QUEUE_SIZE = 100;
+  public static final long DEFAULT_CONCURRENCY_LIMIT_QUEUE_WAIT_MS = 2 * 1000L;
+  public static final int DEFAULT_HEDGING_BUDGET_PERCENT = 5;
+  public static final long DEFAULT_HEDGING_MIN_DELAY_MS = 10;
+  public static final int DEFAULT_RETRY_MAX_ATTEMPTS = 3;
+  public static final long DEFAULT_RETRY_BASE_DELAY_MS = 50;
+  public static final long DEFAULT_RETRY_MAX_DELAY_MS = 1000;
+  public static final int DEFAULT_RETRY_BUDGET_PERCENT = 10;
+  public static final long DEFAULT_TOKEN_REFRESH_AHEAD_MS = 60 * 1000L;
+  public static final long DEFAULT_TOKEN_DEFAULT_LIFETIME_MS = 60 * 60 * 1000L;
+  public static final long DEFAULT_CREDENTIAL_CACHE_TTL_MS = 15 * 60 * 1000L;
+  public static final long DEFAULT_INVALID_API_KEY_CACHE_TTL_MS = 10 * 1000L;
+  public static final int DEFAULT_CREDENTIAL_CACHE_CAPACITY = 1000;
+  public static final int DEFAULT_SECURE_STORE_POOL_SIZE = 4;
+  public static final int DEFAULT_BATCH_MAX_OPERATIONS = 50;
+  public static final int DEFAULT_BATCH_PARALLELISM = 4;
+  public static final int DEFAULT_BULK_BATCH_SIZE = 50;
+  public static final int DEFAULT_BULK_CONCURRENCY = 8;
+  public static final long DEFAULT_IDEMPOTENCY_TTL_MS = 60 * 60 * 1000L;
+  public static final int DEFAULT_IDEMPOTENCY_CAPACITY = 10000;
+  public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+  public static final int DEFAULT_RATE_LIMIT_PER_API_KEY = 0;
+  public static final int DEFAULT_RATE_LIMIT_PER_TENANT = 0;
+  public static final long DEFAULT_EVENT_LOOP_LAG_INTERVAL_MS = 100;
+  public static final long DEFAULT_EVENT_LOOP_LAG_THRESHOLD_MS = 1000;
+  public static final long DEFAULT_MAX_BODY_SIZE_BYTES = 64 * 1024L;
+  public static final int DEFAULT_LOG_SAMPLES_PER_SECOND = 10;
+  public static final int DEFAULT_TRACE_SLOWEST_REQUESTS = 20;
+
+  public static final String PROP_SECURE_STORE_TENANTS = "tenants";
 
   public static final String PARAM_SORT_BY = "sortBy";
   public static final String PARAM_LIMIT = "limit";
@@ -28,7 +119,39 @@ public class Constants {
   public static final String MSG_ACCESS_DENIED = "Access Denied";
   public static final String MSG_INTERNAL_SERVER_ERROR = "Internal Server Error";
   public static final String MSG_REQUEST_TIMEOUT = "Request to FOLIO timed out";
+  public static final String MSG_SERVICE_UNAVAILABLE = "FOLIO is temporarily unavailable, please try again later";
   public static final String MSG_HOLD_NOBODY = "No hold data provided";
+  public static final String MSG_INVALID_REQUEST_TIMEOUT =
+      "X-Request-Timeout-Ms header is incorrect: must be an integer, greater than 0";
+  public static final String MSG_HOLD_NOT_FOUND = "request record with ID \"%s\" cannot be found";
+  public static final String MSG_BATCH_NO_OPERATIONS = "No batch operations provided";
+  public static final String MSG_BATCH_TOO_MANY_OPERATIONS = "Too many batch operations: at most %d are allowed";
+  public static final String MSG_BATCH_UNSUPPORTED_OPERATION = "Unsupported batch operation type: %s";
+  public static final String MSG_MISSING_FIELD = "Missing required field: %s";
+  public static final String MSG_INVALID_FIELD = "Invalid value for field: %s";
+  public static final String MSG_UNKNOWN_FIELD = "Unknown field: %s";
+  public static final String MSG_INVALID_UUID_PARAM = "'%s' parameter is incorrect: {%s} is not a valid UUID";
+  public static final String MSG_BATCH_MISSING_FIELD = MSG_MISSING_FIELD;
+  public static final String MSG_PATRON_NOT_FOUND = "Unable to find patron %s";
+  public static final String MSG_BULK_INVALID_INPUT = "Unable to read patron IDs: %s";
+  public static final String MSG_INVALID_IDEMPOTENCY_KEY = "Invalid Idempotency-Key header: must be 1 to %d characters";
+  public static final String MSG_IDEMPOTENCY_KEY_REUSED = "Idempotency-Key already used for a different request";
+  public static final String MSG_TOO_MANY_REQUESTS = "Rate limit exceeded, please try again later";
+  public static final String MSG_EVENT_LOOP_OVERLOADED = "Event loop lag above threshold";
+
+  public static final String HEADER_RETRY_AFTER = "Retry-After";
+  public static final String HEADER_REQUEST_TIMEOUT = "X-Request-Timeout-Ms";
+  public static final String HEADER_IDEMPOTENCY_KEY = "Idempotency-Key";
+  public static final String HEADER_IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+  public static final String HEADER_SERVER_TIMING = "Server-Timing";
+  public static final String HEADER_OKAPI_REQUEST_ID = "X-Okapi-Request-Id";
+  public static final String HEADER_ADMIN_TOKEN = "X-Admin-Token";
+
+  /** in the server timing API keys, enables the header for every API key */
+  public static final String SERVER_TIMING_ALL_API_KEYS = "*";
+
+  public static final String APPLICATION_NDJSON = "application/x-ndjson";
+  public static final String TEXT_PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
 
   public static final String FIELD_EXPIRATION_DATE = "expirationDate";
   public static final String FIELD_REQUEST_DATE = "requestDate";
@@ -37,6 +160,27 @@ public class Constants {
   public static final String FIELD_CANCELLATION_REASON_ID = "cancellationReasonId";
   public static final String FIELD_CANCELLATION_ADDITIONAL_INFO = "cancellationAdditionalInformation";
   public static final String FIELD_CANCELED_DATE = "canceledDate";
+  public static final String FIELD_CANCELED_BY_USER_ID = "canceledByUserId";
+
+  public static final String SCHEMA_HOLD = "ramls/hold.json";
+  public static final String SCHEMA_HOLD_CANCELLATION = "ramls/hold-cancellation.json";
+
+  public static final String FIELD_OPERATIONS = "operations";
+  public static final String FIELD_RESULTS = "results";
+  public static final String FIELD_ID = "id";
+  public static final String FIELD_TYPE = "type";
+  public static final String FIELD_ITEM_ID = "itemId";
+  public static final String FIELD_INSTANCE_ID = "instanceId";
+  public static final String FIELD_HOLD = "hold";
+  public static final String FIELD_STATUS = "status";
+  public static final String FIELD_BODY = "body";
+  public static final String FIELD_ERROR = "error";
+  public static final String FIELD_PATRON_ID = "patronId";
+  public static final String FIELD_ACCOUNT = "account";
+
+  public static final String OP_RENEW = "renew";
+  public static final String OP_ITEM_HOLD = "itemHold";
+  public static final String OP_INSTANCE_HOLD = "instanceHold";
 
   private Constants() {
   }
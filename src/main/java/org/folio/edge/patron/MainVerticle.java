@@ -1,29 +1,193 @@
 package org.folio.edge.patron;
 
+import static org.folio.edge.core.Constants.APPLICATION_JSON;
+import static org.folio.edge.core.Constants.TEXT_PLAIN;
+import static org.folio.edge.patron.Constants.DEFAULT_BATCH_MAX_OPERATIONS;
+import static org.folio.edge.patron.Constants.DEFAULT_BATCH_PARALLELISM;
+import static org.folio.edge.patron.Constants.DEFAULT_BULK_BATCH_SIZE;
+import static org.folio.edge.patron.Constants.DEFAULT_BULK_CONCURRENCY;
+import static org.folio.edge.patron.Constants.DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE;
+import static org.folio.edge.patron.Constants.DEFAULT_CIRCUIT_BREAKER_MINIMUM_CALLS;
+import static org.folio.edge.patron.Constants.DEFAULT_CIRCUIT_BREAKER_OPEN_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_RATE;
+import static org.folio.edge.patron.Constants.DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE;
+import static org.folio.edge.patron.Constants.DEFAULT_CONCURRENCY_LIMIT_INITIAL;
+import static org.folio.edge.patron.Constants.DEFAULT_CONCURRENCY_LIMIT_MAX;
+import static org.folio.edge.patron.Constants.DEFAULT_CONCURRENCY_LIMIT_MIN;
+import static org.folio.edge.patron.Constants.DEFAULT_CONCURRENCY_LIMIT_QUEUE_SIZE;
+import static org.folio.edge.patron.Constants.DEFAULT_CONCURRENCY_LIMIT_QUEUE_WAIT_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_CONCURRENCY_LIMIT_RTT_THRESHOLD_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_CREDENTIAL_CACHE_CAPACITY;
+import static org.folio.edge.patron.Constants.DEFAULT_CREDENTIAL_CACHE_TTL_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_EVENT_LOOP_LAG_INTERVAL_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_EVENT_LOOP_LAG_THRESHOLD_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_HEDGING_BUDGET_PERCENT;
+import static org.folio.edge.patron.Constants.DEFAULT_HEDGING_MIN_DELAY_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_IDEMPOTENCY_CAPACITY;
+import static org.folio.edge.patron.Constants.DEFAULT_IDEMPOTENCY_TTL_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_INVALID_API_KEY_CACHE_TTL_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_LOG_SAMPLES_PER_SECOND;
+import static org.folio.edge.patron.Constants.DEFAULT_MAX_BODY_SIZE_BYTES;
+import static org.folio.edge.patron.Constants.DEFAULT_MAX_CONCURRENT_CALLS_PER_TENANT;
 import static org.folio.edge.patron.Constants.DEFAULT_NULL_PATRON_ID_CACHE_TTL_MS;
 import static org.folio.edge.patron.Constants.DEFAULT_PATRON_ID_CACHE_CAPACITY;
 import static org.folio.edge.patron.Constants.DEFAULT_PATRON_ID_CACHE_TTL_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_RATE_LIMIT_PER_API_KEY;
+import static org.folio.edge.patron.Constants.DEFAULT_RATE_LIMIT_PER_TENANT;
+import static org.folio.edge.patron.Constants.DEFAULT_REQUEST_METADATA_CACHE_CAPACITY;
+import static org.folio.edge.patron.Constants.DEFAULT_REQUEST_METADATA_CACHE_TTL_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_RETRY_BASE_DELAY_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_RETRY_BUDGET_PERCENT;
+import static org.folio.edge.patron.Constants.DEFAULT_RETRY_MAX_ATTEMPTS;
+import static org.folio.edge.patron.Constants.DEFAULT_RETRY_MAX_DELAY_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_SECURE_STORE_POOL_SIZE;
+import static org.folio.edge.patron.Constants.DEFAULT_TOKEN_DEFAULT_LIFETIME_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_TOKEN_REFRESH_AHEAD_MS;
+import static org.folio.edge.patron.Constants.DEFAULT_TRACE_SLOWEST_REQUESTS;
+import static org.folio.edge.patron.Constants.HEADER_ADMIN_TOKEN;
+import static org.folio.edge.patron.Constants.PROP_SECURE_STORE_TENANTS;
+import static org.folio.edge.patron.Constants.SYS_ADMIN_TOKEN;
+import static org.folio.edge.patron.Constants.SYS_BATCH_MAX_OPERATIONS;
+import static org.folio.edge.patron.Constants.SYS_BATCH_PARALLELISM;
+import static org.folio.edge.patron.Constants.SYS_BULK_BATCH_SIZE;
+import static org.folio.edge.patron.Constants.SYS_BULK_CONCURRENCY;
+import static org.folio.edge.patron.Constants.SYS_CIRCUIT_BREAKER_FAILURE_RATE;
+import static org.folio.edge.patron.Constants.SYS_CIRCUIT_BREAKER_MINIMUM_CALLS;
+import static org.folio.edge.patron.Constants.SYS_CIRCUIT_BREAKER_OPEN_MS;
+import static org.folio.edge.patron.Constants.SYS_CIRCUIT_BREAKER_SLOW_CALL_MS;
+import static org.folio.edge.patron.Constants.SYS_CIRCUIT_BREAKER_SLOW_CALL_RATE;
+import static org.folio.edge.patron.Constants.SYS_CIRCUIT_BREAKER_WINDOW_SIZE;
+import static org.folio.edge.patron.Constants.SYS_CONCURRENCY_LIMIT_INITIAL;
+import static org.folio.edge.patron.Constants.SYS_CONCURRENCY_LIMIT_MAX;
+import static org.folio.edge.patron.Constants.SYS_CONCURRENCY_LIMIT_MIN;
+import static org.folio.edge.patron.Constants.SYS_CONCURRENCY_LIMIT_QUEUE_SIZE;
+import static org.folio.edge.patron.Constants.SYS_CONCURRENCY_LIMIT_QUEUE_WAIT_MS;
+import static org.folio.edge.patron.Constants.SYS_CONCURRENCY_LIMIT_RTT_THRESHOLD_MS;
+import static org.folio.edge.patron.Constants.SYS_CREDENTIAL_CACHE_CAPACITY;
+import static org.folio.edge.patron.Constants.SYS_CREDENTIAL_CACHE_TTL_MS;
+import static org.folio.edge.patron.Constants.SYS_EVENT_LOOP_LAG_INTERVAL_MS;
+import static org.folio.edge.patron.Constants.SYS_EVENT_LOOP_LAG_THRESHOLD_MS;
+import static org.folio.edge.patron.Constants.SYS_HEDGING_BUDGET_PERCENT;
+import static org.folio.edge.patron.Constants.SYS_HEDGING_ENABLED;
+import static org.folio.edge.patron.Constants.SYS_HEDGING_MIN_DELAY_MS;
+import static org.folio.edge.patron.Constants.SYS_IDEMPOTENCY_CAPACITY;
+import static org.folio.edge.patron.Constants.SYS_IDEMPOTENCY_TTL_MS;
+import static org.folio.edge.patron.Constants.SYS_INVALID_API_KEY_CACHE_TTL_MS;
+import static org.folio.edge.patron.Constants.SYS_LOG_SAMPLES_PER_SECOND;
+import static org.folio.edge.patron.Constants.SYS_MAX_BODY_SIZE_BYTES;
+import static org.folio.edge.patron.Constants.SYS_MAX_CONCURRENT_CALLS_PER_TENANT;
 import static org.folio.edge.patron.Constants.SYS_NULL_PATRON_ID_CACHE_TTL_MS;
 import static org.folio.edge.patron.Constants.SYS_PATRON_ID_CACHE_CAPACITY;
 import static org.folio.edge.patron.Constants.SYS_PATRON_ID_CACHE_TTL_MS;
+import static org.folio.edge.patron.Constants.SYS_RATE_LIMIT_PER_API_KEY;
+import static org.folio.edge.patron.Constants.SYS_RATE_LIMIT_PER_API_KEY_BURST;
+import static org.folio.edge.patron.Constants.SYS_RATE_LIMIT_PER_TENANT;
+import static org.folio.edge.patron.Constants.SYS_RATE_LIMIT_PER_TENANT_BURST;
+import static org.folio.edge.patron.Constants.SYS_REJECT_UNKNOWN_HOLD_CANCELLATION;
+import static org.folio.edge.patron.Constants.SYS_REQUEST_METADATA_CACHE_CAPACITY;
+import static org.folio.edge.patron.Constants.SYS_REQUEST_METADATA_CACHE_TTL_MS;
+import static org.folio.edge.patron.Constants.SYS_RETRY_BASE_DELAY_MS;
+import static org.folio.edge.patron.Constants.SYS_RETRY_BUDGET_PERCENT;
+import static org.folio.edge.patron.Constants.SYS_RETRY_MAX_ATTEMPTS;
+import static org.folio.edge.patron.Constants.SYS_RETRY_MAX_DELAY_MS;
+import static org.folio.edge.patron.Constants.SYS_SECURE_STORE_POOL_SIZE;
+import static org.folio.edge.patron.Constants.SYS_SERVER_TIMING_API_KEYS;
+import static org.folio.edge.patron.Constants.SYS_TOKEN_DEFAULT_LIFETIME_MS;
+import static org.folio.edge.patron.Constants.SYS_TOKEN_PREFETCH_API_KEYS;
+import static org.folio.edge.patron.Constants.SYS_TOKEN_PREFETCH_ENABLED;
+import static org.folio.edge.patron.Constants.SYS_TOKEN_REFRESH_AHEAD_MS;
+import static org.folio.edge.patron.Constants.SYS_TRACE_SLOWEST_REQUESTS;
+import static org.folio.edge.patron.Constants.TEXT_PROMETHEUS;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.core.EdgeVerticleHttp;
+import org.folio.edge.core.model.ClientInfo;
+import org.folio.edge.core.utils.ApiKeyUtils;
+import org.folio.edge.patron.cache.ClientCredentialCache;
+import org.folio.edge.patron.cache.IdempotencyStore;
 import org.folio.edge.patron.cache.PatronIdCache;
+import org.folio.edge.patron.cache.RequestMetadataCache;
+import org.folio.edge.patron.metrics.RequestMetrics;
+import org.folio.edge.patron.resilience.AdaptiveConcurrencyLimiter;
+import org.folio.edge.patron.resilience.CircuitBreaker;
+import org.folio.edge.patron.resilience.EventLoopLagMonitor;
+import org.folio.edge.patron.resilience.RateLimiter;
+import org.folio.edge.patron.resilience.RequestHedger;
+import org.folio.edge.patron.resilience.RetryPolicy;
+import org.folio.edge.patron.resilience.UpstreamGuard;
+import org.folio.edge.patron.security.SecureStoreLookup;
+import org.folio.edge.patron.security.TokenManager;
+import org.folio.edge.patron.tracing.SpanRecorder;
+import org.folio.edge.patron.utils.LogSampler;
 import org.folio.edge.patron.utils.PatronOkapiClientFactory;
 
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.BodyHandler;
 
 public class MainVerticle extends EdgeVerticleHttp {
 
   private static final Logger logger = LogManager.getLogger(MainVerticle.class);
 
+  private static boolean singletonsInitialized;
+  private static final AtomicBoolean tokensPrefetched = new AtomicBoolean();
+
+  private final boolean rejectUnknownHoldCancellation;
+  private final boolean tokenPrefetchEnabled;
+  private final List<String> tokenPrefetchApiKeys;
+  private final List<String> serverTimingApiKeys;
+  private final String adminToken;
+
   public MainVerticle() {
     super();
 
+    initializeSingletons();
+
+    rejectUnknownHoldCancellation = Boolean.parseBoolean(System.getProperty(SYS_REJECT_UNKNOWN_HOLD_CANCELLATION));
+    logger.info("Rejecting cancellation of holds not in the patron's cached holds: " + rejectUnknownHoldCancellation);
+
+    tokenPrefetchEnabled = Boolean.parseBoolean(System.getProperty(SYS_TOKEN_PREFETCH_ENABLED));
+    logger.info("Prefetching tokens for the tenants in the secure store: " + tokenPrefetchEnabled);
+
+    tokenPrefetchApiKeys = getListProperty(SYS_TOKEN_PREFETCH_API_KEYS);
+    logger.info("Prefetching tokens for " + tokenPrefetchApiKeys.size() + " API keys");
+
+    serverTimingApiKeys = getListProperty(SYS_SERVER_TIMING_API_KEYS);
+    logger.info("Sending Server-Timing headers for " + serverTimingApiKeys.size() + " API keys");
+
+    final String token = System.getProperty(SYS_ADMIN_TOKEN, "").trim();
+    adminToken = token.isEmpty() ? null : token;
+    logger.info("Admin routes needing the admin token enabled: " + (adminToken != null));
+  }
+
+  /**
+   * Initializes the caches, limiters and other singletons shared by all
+   * verticle instances of the process, once; further instances reuse them
+   * rather than dropping their state.
+   */
+  private static synchronized void initializeSingletons() {
+    if (singletonsInitialized) {
+      return;
+    }
+    singletonsInitialized = true;
+
     final String patronIdCacheTtlMs = System.getProperty(SYS_PATRON_ID_CACHE_TTL_MS);
     final long cacheTtlMs = patronIdCacheTtlMs != null ? Long.parseLong(patronIdCacheTtlMs)
         : DEFAULT_PATRON_ID_CACHE_TTL_MS;
@@ -41,20 +205,188 @@ public class MainVerticle extends EdgeVerticleHttp {
 
     // initialize the TokenCache
     PatronIdCache.initialize(cacheTtlMs, failureCacheTtlMs, cacheCapacity);
+
+    final String requestMetadataCacheTtlMs = System.getProperty(SYS_REQUEST_METADATA_CACHE_TTL_MS);
+    final long metadataTtlMs = requestMetadataCacheTtlMs != null ? Long.parseLong(requestMetadataCacheTtlMs)
+        : DEFAULT_REQUEST_METADATA_CACHE_TTL_MS;
+    logger.info("Using request metadata cache TTL (ms): " + metadataTtlMs);
+
+    final String requestMetadataCacheCapacity = System.getProperty(SYS_REQUEST_METADATA_CACHE_CAPACITY);
+    final int metadataCapacity = requestMetadataCacheCapacity != null
+        ? Integer.parseInt(requestMetadataCacheCapacity)
+        : DEFAULT_REQUEST_METADATA_CACHE_CAPACITY;
+    logger.info("Using request metadata cache capacity: " + metadataCapacity);
+
+    RequestMetadataCache.initialize(metadataTtlMs, metadataCapacity);
+
+    IdempotencyStore.initialize(
+      getLongProperty(SYS_IDEMPOTENCY_TTL_MS, DEFAULT_IDEMPOTENCY_TTL_MS),
+      getIntProperty(SYS_IDEMPOTENCY_CAPACITY, DEFAULT_IDEMPOTENCY_CAPACITY));
+
+    ClientCredentialCache.initialize(
+      getLongProperty(SYS_CREDENTIAL_CACHE_TTL_MS, DEFAULT_CREDENTIAL_CACHE_TTL_MS),
+      getLongProperty(SYS_INVALID_API_KEY_CACHE_TTL_MS, DEFAULT_INVALID_API_KEY_CACHE_TTL_MS),
+      getIntProperty(SYS_CREDENTIAL_CACHE_CAPACITY, DEFAULT_CREDENTIAL_CACHE_CAPACITY));
+
+    CircuitBreaker.Builder breakerBuilder = new CircuitBreaker.Builder()
+      .withWindowSize(getIntProperty(SYS_CIRCUIT_BREAKER_WINDOW_SIZE, DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE))
+      .withMinimumCalls(getIntProperty(SYS_CIRCUIT_BREAKER_MINIMUM_CALLS, DEFAULT_CIRCUIT_BREAKER_MINIMUM_CALLS))
+      .withFailureRateThreshold(getIntProperty(SYS_CIRCUIT_BREAKER_FAILURE_RATE, DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE))
+      .withSlowCallRateThreshold(
+        getIntProperty(SYS_CIRCUIT_BREAKER_SLOW_CALL_RATE, DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_RATE))
+      .withSlowCallDurationMs(getLongProperty(SYS_CIRCUIT_BREAKER_SLOW_CALL_MS, DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_MS))
+      .withOpenDurationMs(getLongProperty(SYS_CIRCUIT_BREAKER_OPEN_MS, DEFAULT_CIRCUIT_BREAKER_OPEN_MS));
+    UpstreamGuard.initialize(breakerBuilder,
+      getIntProperty(SYS_MAX_CONCURRENT_CALLS_PER_TENANT, DEFAULT_MAX_CONCURRENT_CALLS_PER_TENANT));
+
+    AdaptiveConcurrencyLimiter.initialize(new AdaptiveConcurrencyLimiter.Builder()
+      .withInitialLimit(getIntProperty(SYS_CONCURRENCY_LIMIT_INITIAL, DEFAULT_CONCURRENCY_LIMIT_INITIAL))
+      .withMinLimit(getIntProperty(SYS_CONCURRENCY_LIMIT_MIN, DEFAULT_CONCURRENCY_LIMIT_MIN))
+      .withMaxLimit(getIntProperty(SYS_CONCURRENCY_LIMIT_MAX, DEFAULT_CONCURRENCY_LIMIT_MAX))
+      .withRttThresholdMs(
+        getLongProperty(SYS_CONCURRENCY_LIMIT_RTT_THRESHOLD_MS, DEFAULT_CONCURRENCY_LIMIT_RTT_THRESHOLD_MS))
+      .withMaxQueueSize(getIntProperty(SYS_CONCURRENCY_LIMIT_QUEUE_SIZE, DEFAULT_CONCURRENCY_LIMIT_QUEUE_SIZE))
+      .withMaxQueueWaitMs(
+        getLongProperty(SYS_CONCURRENCY_LIMIT_QUEUE_WAIT_MS, DEFAULT_CONCURRENCY_LIMIT_QUEUE_WAIT_MS)));
+
+    EventLoopLagMonitor.initialize(
+      getLongProperty(SYS_EVENT_LOOP_LAG_INTERVAL_MS, DEFAULT_EVENT_LOOP_LAG_INTERVAL_MS),
+      getLongProperty(SYS_EVENT_LOOP_LAG_THRESHOLD_MS, DEFAULT_EVENT_LOOP_LAG_THRESHOLD_MS));
+
+    final boolean hedgingEnabled = Boolean.parseBoolean(System.getProperty(SYS_HEDGING_ENABLED));
+    logger.info("Hedging idempotent upstream calls: " + hedgingEnabled);
+    RequestHedger.initialize(new RequestHedger.Builder()
+      .withEnabled(hedgingEnabled)
+      .withBudgetPercent(getIntProperty(SYS_HEDGING_BUDGET_PERCENT, DEFAULT_HEDGING_BUDGET_PERCENT))
+      .withMinDelayMs(getLongProperty(SYS_HEDGING_MIN_DELAY_MS, DEFAULT_HEDGING_MIN_DELAY_MS)));
+
+    RetryPolicy.initialize(new RetryPolicy.Builder()
+      .withMaxAttempts(getIntProperty(SYS_RETRY_MAX_ATTEMPTS, DEFAULT_RETRY_MAX_ATTEMPTS))
+      .withBaseDelayMs(getLongProperty(SYS_RETRY_BASE_DELAY_MS, DEFAULT_RETRY_BASE_DELAY_MS))
+      .withMaxDelayMs(getLongProperty(SYS_RETRY_MAX_DELAY_MS, DEFAULT_RETRY_MAX_DELAY_MS))
+      .withBudgetPercent(getIntProperty(SYS_RETRY_BUDGET_PERCENT, DEFAULT_RETRY_BUDGET_PERCENT)));
+
+    RequestMetrics.initialize();
+
+    SpanRecorder.initialize(getIntProperty(SYS_TRACE_SLOWEST_REQUESTS, DEFAULT_TRACE_SLOWEST_REQUESTS));
+
+    RateLimiter.initialize(new RateLimiter.Builder()
+      .withApiKeyRate(getIntProperty(SYS_RATE_LIMIT_PER_API_KEY, DEFAULT_RATE_LIMIT_PER_API_KEY))
+      .withApiKeyBurst(getIntProperty(SYS_RATE_LIMIT_PER_API_KEY_BURST, 0))
+      .withTenantRate(getIntProperty(SYS_RATE_LIMIT_PER_TENANT, DEFAULT_RATE_LIMIT_PER_TENANT))
+      .withTenantBurst(getIntProperty(SYS_RATE_LIMIT_PER_TENANT_BURST, 0)));
+
+    TokenManager.initialize(
+      getLongProperty(SYS_TOKEN_REFRESH_AHEAD_MS, DEFAULT_TOKEN_REFRESH_AHEAD_MS),
+      getLongProperty(SYS_TOKEN_DEFAULT_LIFETIME_MS, DEFAULT_TOKEN_DEFAULT_LIFETIME_MS));
+  }
+
+  /**
+   * @return the values of a comma-separated property, without blanks
+   */
+  private static List<String> getListProperty(String name) {
+    final String value = System.getProperty(name);
+    return value == null ? Collections.emptyList()
+        : Arrays.stream(value.split(","))
+          .map(String::trim)
+          .filter(item -> !item.isEmpty())
+          .collect(Collectors.toList());
+  }
+
+  private static int getIntProperty(String name, int defaultValue) {
+    final String value = System.getProperty(name);
+    final int ret = value != null ? Integer.parseInt(value) : defaultValue;
+    logger.info("Using " + name + ": " + ret);
+    return ret;
+  }
+
+  private static long getLongProperty(String name, long defaultValue) {
+    final String value = System.getProperty(name);
+    final long ret = value != null ? Long.parseLong(value) : defaultValue;
+    logger.info("Using " + name + ": " + ret);
+    return ret;
   }
 
   @Override
   public Router defineRoutes() {
     PatronOkapiClientFactory ocf = new PatronOkapiClientFactory(vertx, config().getString(org.folio.edge.core.Constants.SYS_OKAPI_URL),
       config().getInteger(org.folio.edge.core.Constants.SYS_REQUEST_TIMEOUT_MS));
-    PatronHandler patronHandler = new PatronHandler(secureStore, ocf);
+    SecureStoreLookup secureStoreLookup = new SecureStoreLookup(vertx, secureStore,
+      getIntProperty(SYS_SECURE_STORE_POOL_SIZE, DEFAULT_SECURE_STORE_POOL_SIZE));
+    LogSampler.setMaxPerSecond(getIntProperty(SYS_LOG_SAMPLES_PER_SECOND, DEFAULT_LOG_SAMPLES_PER_SECOND));
+
+    PatronHandler patronHandler = new PatronHandler.Builder(secureStore, ocf)
+      .withSecureStoreLookup(secureStoreLookup)
+      .withRejectUnknownHoldCancellation(rejectUnknownHoldCancellation)
+      .withBatchMaxOperations(getIntProperty(SYS_BATCH_MAX_OPERATIONS, DEFAULT_BATCH_MAX_OPERATIONS))
+      .withBatchParallelism(getIntProperty(SYS_BATCH_PARALLELISM, DEFAULT_BATCH_PARALLELISM))
+      .withBulkBatchSize(getIntProperty(SYS_BULK_BATCH_SIZE, DEFAULT_BULK_BATCH_SIZE))
+      .withBulkConcurrency(getIntProperty(SYS_BULK_CONCURRENCY, DEFAULT_BULK_CONCURRENCY))
+      .withServerTimingApiKeys(serverTimingApiKeys)
+      .build();
+
+    prefetchTokens(ocf, secureStoreLookup);
+
+    // the HTTP server of this verticle instance handles its requests on this event loop
+    EventLoopLagMonitor.getInstance().monitorCurrentEventLoop();
 
     Router router = Router.router(vertx);
-    router.route().handler(BodyHandler.create());
+
+    // first, so that every response and log line of the request has its ID
+    router.route("/patron/*")
+      .handler(patronHandler::handleRequestId);
+
+    // next, so lagging event loops don't spend any more time on the request
+    router.route("/patron/*")
+      .handler(patronHandler::handleOverload);
+
+    // ahead of the BodyHandler, which would buffer the whole body
+    router.route(HttpMethod.POST, "/patron/accounts/summary")
+      .handler(patronHandler::handleAccountSummaries);
+
+    // only the POST routes take a body; larger ones are rejected with 413
+    router.route(HttpMethod.POST, "/patron/*")
+      .handler(BodyHandler.create(false)
+        .setBodyLimit(getLongProperty(SYS_MAX_BODY_SIZE_BYTES, DEFAULT_MAX_BODY_SIZE_BYTES)));
 
     router.route(HttpMethod.GET, "/admin/health")
       .handler(this::handleHealthCheck);
 
+    router.route(HttpMethod.GET, "/admin/ready")
+      .handler(this::handleReadiness);
+
+    router.route(HttpMethod.GET, "/admin/circuit-breakers")
+      .handler(this::handleCircuitBreakers);
+
+    router.route(HttpMethod.GET, "/admin/hedging")
+      .handler(this::handleHedging);
+
+    router.route(HttpMethod.GET, "/admin/retries")
+      .handler(this::handleRetries);
+
+    // the admin routes are served on the public port, so those showing tenants, API key
+    // hashes and traffic, and those that change state, need the admin token
+    router.route(HttpMethod.GET, "/admin/rate-limits")
+      .handler(this::handleAdminToken)
+      .handler(this::handleRateLimits);
+
+    router.route(HttpMethod.GET, "/admin/metrics")
+      .handler(this::handleAdminToken)
+      .handler(this::handleMetrics);
+
+    router.route(HttpMethod.GET, "/admin/traces")
+      .handler(this::handleAdminToken)
+      .handler(this::handleTraces);
+
+    router.route(HttpMethod.DELETE, "/admin/*")
+      .handler(this::handleAdminToken);
+
+    router.route(HttpMethod.DELETE, "/admin/traces")
+      .handler(this::handleClearTraces);
+
+    router.route(HttpMethod.DELETE, "/admin/credential-cache")
+      .handler(this::handleFlushCredentialCache);
+
     router.route(HttpMethod.GET, "/patron/account/:patronId")
       .handler(patronHandler::handleGetAccount);
 
@@ -70,6 +402,183 @@ public class MainVerticle extends EdgeVerticleHttp {
     router.route(HttpMethod.POST, "/patron/account/:patronId/hold/:holdId/cancel")
       .handler(patronHandler::handleCancelHold);
 
+    router.route(HttpMethod.POST, "/patron/account/:patronId/batch")
+      .handler(patronHandler::handleBatch);
+
     return router;
   }
+
+  /**
+   * Logs the institutional users in ahead of the first request, so that it
+   * doesn't wait for <code>/authn/login</code>. Failures are only logged; the
+   * first request for the tenant then logs in as usual.
+   */
+  private void prefetchTokens(PatronOkapiClientFactory ocf, SecureStoreLookup secureStoreLookup) {
+    // the TokenManager is shared, so the first verticle instance fetches for all
+    if (!tokensPrefetched.compareAndSet(false, true)) {
+      return;
+    }
+    List<ClientInfo> users = new ArrayList<>();
+    if (tokenPrefetchEnabled) {
+      users.addAll(getSecureStoreUsers());
+    }
+    for (String apiKey : tokenPrefetchApiKeys) {
+      try {
+        users.add(ApiKeyUtils.parseApiKey(apiKey));
+      } catch (Exception e) {
+        logger.warn("Not prefetching token for malformed API key: " + e.getMessage());
+      }
+    }
+
+    for (ClientInfo user : users) {
+      secureStoreLookup.get(user.salt, user.tenantId, user.username)
+        .onSuccess(password -> ocf.getPatronOkapiClient(user.tenantId)
+          .login(user.username, password)
+          .whenComplete((token, t) -> {
+            if (t != null) {
+              logger.warn("Failed to prefetch token for tenant " + user.tenantId, t);
+            } else {
+              logger.info("Prefetched token for tenant " + user.tenantId);
+            }
+          }))
+        .onFailure(t -> logger.warn("No credentials to prefetch a token for tenant " + user.tenantId, t));
+    }
+  }
+
+  /**
+   * @return the institutional users of the tenants listed in the secure store
+   *         properties. A tenant's username is the first value of its entry,
+   *         as in the Ephemeral store, and otherwise the tenant ID itself.
+   */
+  private List<ClientInfo> getSecureStoreUsers() {
+    final String propFile = config().getString(org.folio.edge.core.Constants.SYS_SECURE_STORE_PROP_FILE);
+    final Properties props = new Properties();
+    if (propFile != null) {
+      try (InputStream in = new FileInputStream(propFile)) {
+        props.load(in);
+      } catch (Exception e) {
+        logger.warn("Unable to read the tenants from " + propFile, e);
+      }
+    }
+
+    List<ClientInfo> users = new ArrayList<>();
+    for (String tenant : props.getProperty(PROP_SECURE_STORE_TENANTS, "").split(",")) {
+      tenant = tenant.trim();
+      if (tenant.isEmpty()) {
+        continue;
+      }
+      String entry = props.getProperty(tenant);
+      String username = entry != null && !entry.split(",")[0].trim().isEmpty()
+          ? entry.split(",")[0].trim()
+          : tenant;
+      users.add(new ClientInfo(tenant, tenant, username));
+    }
+    return users;
+  }
+
+  protected void handleCircuitBreakers(RoutingContext ctx) {
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .end(UpstreamGuard.getInstance().toJson()
+        .put("concurrencyLimit", AdaptiveConcurrencyLimiter.getInstance().toJson())
+        .encode());
+  }
+
+  /**
+   * Answers 503 while the node can't take more requests, i.e. an event loop
+   * is lagging beyond the threshold or the upstream concurrency limit and its
+   * queue are full, so the load balancer can route around it.
+   */
+  protected void handleReadiness(RoutingContext ctx) {
+    EventLoopLagMonitor monitor = EventLoopLagMonitor.getInstance();
+    AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.getInstance();
+    boolean overloaded = monitor.isAnyOverloaded();
+    boolean saturated = limiter.isSaturated();
+    JsonObject readiness = new JsonObject()
+      .put("ready", !overloaded && !saturated)
+      .put("eventLoopLag", monitor.toJson().put("overloaded", overloaded))
+      .put("concurrencyLimit", limiter.toJson().put("saturated", saturated))
+      .put("openCircuitBreakers", UpstreamGuard.getInstance().getOpenCircuitBreakerCount());
+    ctx.response()
+      .setStatusCode(overloaded || saturated ? 503 : 200)
+      .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .end(readiness.encode());
+  }
+
+  protected void handleHedging(RoutingContext ctx) {
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .end(RequestHedger.getInstance().toJson().encode());
+  }
+
+  protected void handleRetries(RoutingContext ctx) {
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .end(RetryPolicy.getInstance().toJson().encode());
+  }
+
+  protected void handleRateLimits(RoutingContext ctx) {
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .end(RateLimiter.getInstance().toJson().encode());
+  }
+
+  protected void handleMetrics(RoutingContext ctx) {
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader(HttpHeaders.CONTENT_TYPE, TEXT_PROMETHEUS)
+      .end(RequestMetrics.getInstance().toPrometheus());
+  }
+
+  protected void handleTraces(RoutingContext ctx) {
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .end(SpanRecorder.getInstance().toJson().encode());
+  }
+
+  /**
+   * Lets the request through only if it carries the configured
+   * <code>admin_token</code>; without one, the routes are disabled.
+   */
+  protected void handleAdminToken(RoutingContext ctx) {
+    if (adminToken == null) {
+      ctx.response()
+        .setStatusCode(403)
+        .putHeader(HttpHeaders.CONTENT_TYPE, TEXT_PLAIN)
+        .end("Disabled, set " + SYS_ADMIN_TOKEN + " to enable");
+      return;
+    }
+    String token = ctx.request().getHeader(HEADER_ADMIN_TOKEN);
+    if (token == null || !MessageDigest.isEqual(adminToken.getBytes(StandardCharsets.UTF_8),
+        token.getBytes(StandardCharsets.UTF_8))) {
+      logger.warn("Rejected " + ctx.request().method() + " " + ctx.request().path() + " without a valid admin token");
+      ctx.response()
+        .setStatusCode(401)
+        .putHeader(HttpHeaders.CONTENT_TYPE, TEXT_PLAIN)
+        .end("Invalid " + HEADER_ADMIN_TOKEN);
+      return;
+    }
+    ctx.next();
+  }
+
+  protected void handleClearTraces(RoutingContext ctx) {
+    SpanRecorder.getInstance().clear();
+    logger.info("Cleared the slowest request traces");
+    ctx.response()
+      .setStatusCode(204)
+      .end();
+  }
+
+  protected void handleFlushCredentialCache(RoutingContext ctx) {
+    ClientCredentialCache.getInstance().flush();
+    logger.info("Flushed the client credential cache");
+    ctx.response()
+      .setStatusCode(204)
+      .end();
+  }
 }
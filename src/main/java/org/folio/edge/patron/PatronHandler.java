@@ -1,12 +1,48 @@
 package org.folio.edge.patron;
 
 import static org.folio.edge.core.Constants.APPLICATION_JSON;
+import static org.folio.edge.patron.Constants.DEFAULT_BATCH_MAX_OPERATIONS;
+import static org.folio.edge.patron.Constants.DEFAULT_BATCH_PARALLELISM;
+import static org.folio.edge.patron.Constants.DEFAULT_BULK_BATCH_SIZE;
+import static org.folio.edge.patron.Constants.DEFAULT_BULK_CONCURRENCY;
+import static org.folio.edge.patron.Constants.DEFAULT_SECURE_STORE_POOL_SIZE;
+import static org.folio.edge.patron.Constants.FIELD_BODY;
+import static org.folio.edge.patron.Constants.FIELD_ERROR;
 import static org.folio.edge.patron.Constants.FIELD_EXPIRATION_DATE;
+import static org.folio.edge.patron.Constants.FIELD_HOLD;
+import static org.folio.edge.patron.Constants.FIELD_ID;
+import static org.folio.edge.patron.Constants.FIELD_INSTANCE_ID;
+import static org.folio.edge.patron.Constants.FIELD_ITEM_ID;
+import static org.folio.edge.patron.Constants.FIELD_OPERATIONS;
 import static org.folio.edge.patron.Constants.FIELD_REQUEST_DATE;
+import static org.folio.edge.patron.Constants.FIELD_RESULTS;
+import static org.folio.edge.patron.Constants.FIELD_STATUS;
+import static org.folio.edge.patron.Constants.FIELD_TYPE;
+import static org.folio.edge.patron.Constants.HEADER_IDEMPOTENCY_KEY;
+import static org.folio.edge.patron.Constants.HEADER_IDEMPOTENT_REPLAYED;
+import static org.folio.edge.patron.Constants.HEADER_OKAPI_REQUEST_ID;
+import static org.folio.edge.patron.Constants.HEADER_REQUEST_TIMEOUT;
+import static org.folio.edge.patron.Constants.HEADER_RETRY_AFTER;
+import static org.folio.edge.patron.Constants.HEADER_SERVER_TIMING;
+import static org.folio.edge.patron.Constants.MAX_IDEMPOTENCY_KEY_LENGTH;
 import static org.folio.edge.patron.Constants.MSG_ACCESS_DENIED;
+import static org.folio.edge.patron.Constants.MSG_BATCH_MISSING_FIELD;
+import static org.folio.edge.patron.Constants.MSG_BATCH_NO_OPERATIONS;
+import static org.folio.edge.patron.Constants.MSG_BATCH_TOO_MANY_OPERATIONS;
+import static org.folio.edge.patron.Constants.MSG_BATCH_UNSUPPORTED_OPERATION;
+import static org.folio.edge.patron.Constants.MSG_EVENT_LOOP_OVERLOADED;
+import static org.folio.edge.patron.Constants.MSG_HOLD_NOBODY;
+import static org.folio.edge.patron.Constants.MSG_HOLD_NOT_FOUND;
 import static org.folio.edge.patron.Constants.MSG_INTERNAL_SERVER_ERROR;
+import static org.folio.edge.patron.Constants.MSG_INVALID_IDEMPOTENCY_KEY;
+import static org.folio.edge.patron.Constants.MSG_INVALID_REQUEST_TIMEOUT;
+import static org.folio.edge.patron.Constants.MSG_INVALID_UUID_PARAM;
+import static org.folio.edge.patron.Constants.MSG_PATRON_NOT_FOUND;
 import static org.folio.edge.patron.Constants.MSG_REQUEST_TIMEOUT;
-import static org.folio.edge.patron.Constants.MSG_HOLD_NOBODY;
+import static org.folio.edge.patron.Constants.MSG_SERVICE_UNAVAILABLE;
+import static org.folio.edge.patron.Constants.OP_INSTANCE_HOLD;
+import static org.folio.edge.patron.Constants.OP_ITEM_HOLD;
+import static org.folio.edge.patron.Constants.OP_RENEW;
 import static org.folio.edge.patron.Constants.PARAM_HOLD_ID;
 import static org.folio.edge.patron.Constants.PARAM_INCLUDE_CHARGES;
 import static org.folio.edge.patron.Constants.PARAM_INCLUDE_HOLDS;
@@ -17,33 +53,73 @@ import static org.folio.edge.patron.Constants.PARAM_LIMIT;
 import static org.folio.edge.patron.Constants.PARAM_OFFSET;
 import static org.folio.edge.patron.Constants.PARAM_PATRON_ID;
 import static org.folio.edge.patron.Constants.PARAM_SORT_BY;
+import static org.folio.edge.patron.Constants.SCHEMA_HOLD;
+import static org.folio.edge.patron.Constants.SERVER_TIMING_ALL_API_KEYS;
 import static org.folio.edge.patron.model.HoldCancellationValidator.validateCancelHoldRequest;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpServerResponse;
-import io.vertx.core.json.Json;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.client.HttpResponse;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Date;
-import java.util.List;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.TimeZone;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.core.Handler;
+import org.folio.edge.core.model.ClientInfo;
 import org.folio.edge.core.security.SecureStore;
+import org.folio.edge.core.security.SecureStore.NotFoundException;
+import org.folio.edge.core.utils.ApiKeyUtils;
+import org.folio.edge.core.utils.ApiKeyUtils.MalformedApiKeyException;
 import org.folio.edge.core.utils.OkapiClient;
-import org.folio.edge.patron.model.error.Error;
-import org.folio.edge.patron.model.error.ErrorMessage;
-import org.folio.edge.patron.model.error.Errors;
+import org.folio.edge.patron.cache.ClientCredentialCache;
+import org.folio.edge.patron.cache.ClientCredentialCache.ClientCredentials;
+import org.folio.edge.patron.cache.IdempotencyStore;
+import org.folio.edge.patron.cache.RequestMetadataCache;
+import org.folio.edge.patron.cache.RequestMetadataCache.NotInitializedException;
+import org.folio.edge.patron.metrics.RequestMetrics;
+import org.folio.edge.patron.metrics.RequestMetrics.Route;
+import org.folio.edge.patron.metrics.ServerTiming;
+import org.folio.edge.patron.metrics.events.ApiKeyEvent;
+import org.folio.edge.patron.metrics.events.RequestEvent;
+import org.folio.edge.patron.metrics.events.ResponseWriteEvent;
+import org.folio.edge.patron.metrics.events.StageEvent;
+import org.folio.edge.patron.metrics.events.TokenEvent;
+import org.folio.edge.patron.resilience.Deadline;
+import org.folio.edge.patron.resilience.DeadlineExceededException;
+import org.folio.edge.patron.resilience.EventLoopLagMonitor;
+import org.folio.edge.patron.resilience.LoadSheddingException;
+import org.folio.edge.patron.resilience.RateLimiter;
+import org.folio.edge.patron.resilience.UpstreamUnavailableException;
+import org.folio.edge.patron.security.SecureStoreLookup;
+import org.folio.edge.patron.tracing.RequestIds;
+import org.folio.edge.patron.tracing.RequestTrace;
+import org.folio.edge.patron.tracing.SpanRecorder;
+import org.folio.edge.patron.utils.BatchExecutor;
+import org.folio.edge.patron.utils.DateTimeHelper;
+import org.folio.edge.patron.utils.ErrorBodies;
+import org.folio.edge.patron.utils.LogSampler;
 import org.folio.edge.patron.utils.PatronIdHelper;
 import org.folio.edge.patron.utils.PatronOkapiClient;
+import org.folio.edge.patron.utils.PatronOkapiClient.LoginRejectedException;
 import org.folio.edge.patron.utils.PatronOkapiClientFactory;
+import org.folio.edge.patron.utils.SchemaValidator;
+import org.folio.edge.patron.utils.ValidationHelper;
 
 public class PatronHandler extends Handler {
 
@@ -51,8 +127,66 @@ public class PatronHandler extends Handler {
     + " parameter value {%s} is not valid: must be an integer, greater than or equal to 0";
   private static final Logger logger = LogManager.getLogger(Handler.class);
 
+  private static final LogSampler PROXY_EXCEPTION_LOG = new LogSampler();
+  private static final LogSampler LOGIN_ERROR_LOG = new LogSampler();
+  private static final LogSampler BATCH_EXCEPTION_LOG = new LogSampler();
+
+  /** path parameters the RAML constrains to UUIDs */
+  private static final String[] UUID_PARAMS = { PARAM_ITEM_ID, PARAM_INSTANCE_ID, PARAM_HOLD_ID };
+
+  private static final SchemaValidator HOLD_SCHEMA = SchemaValidator.builder(SCHEMA_HOLD).build();
+
+  /** where the tenant, once known, is kept on the routing context */
+  private static final String KEY_TENANT = "patron.tenant";
+
+  /** where the label of the route being timed is kept on the routing context */
+  private static final String KEY_ROUTE = "patron.route";
+
+  /** where the decoded request body is kept on the routing context */
+  private static final String KEY_JSON_BODY = "patron.jsonBody";
+
+  /** where the request's {@link ServerTiming}, if any, is kept on the routing context */
+  private static final String KEY_SERVER_TIMING = "patron.serverTiming";
+
+  /** where the request ID is kept on the routing context */
+  private static final String KEY_REQUEST_ID = "patron.requestId";
+
+  /** where the request's {@link RequestTrace}, if any, is kept on the routing context */
+  private static final String KEY_TRACE = "patron.trace";
+
+  private final SecureStoreLookup secureStoreLookup;
+  private final boolean rejectUnknownHoldCancellation;
+  private final long requestTimeoutMs;
+  private final int batchMaxOperations;
+  private final int batchParallelism;
+  private final int bulkBatchSize;
+  private final int bulkConcurrency;
+  private final Set<String> serverTimingApiKeys;
+
   public PatronHandler(SecureStore secureStore, PatronOkapiClientFactory ocf) {
-    super(secureStore, ocf);
+    this(secureStore, ocf, false);
+  }
+
+  /**
+   * @param rejectUnknownHoldCancellation whether to answer 404 right away when a
+   *          patron cancels a hold that isn't among their cached holds
+   */
+  public PatronHandler(SecureStore secureStore, PatronOkapiClientFactory ocf,
+      boolean rejectUnknownHoldCancellation) {
+    this(new Builder(secureStore, ocf).withRejectUnknownHoldCancellation(rejectUnknownHoldCancellation));
+  }
+
+  private PatronHandler(Builder builder) {
+    super(builder.secureStore, builder.ocf);
+    this.secureStoreLookup = builder.secureStoreLookup != null ? builder.secureStoreLookup
+        : new SecureStoreLookup(builder.ocf.getVertx(), builder.secureStore, DEFAULT_SECURE_STORE_POOL_SIZE);
+    this.rejectUnknownHoldCancellation = builder.rejectUnknownHoldCancellation;
+    this.requestTimeoutMs = builder.ocf.getRequestTimeoutMs();
+    this.batchMaxOperations = builder.batchMaxOperations;
+    this.batchParallelism = builder.batchParallelism;
+    this.bulkBatchSize = builder.bulkBatchSize;
+    this.bulkConcurrency = builder.bulkConcurrency;
+    this.serverTimingApiKeys = builder.serverTimingApiKeys;
   }
 
   @Override
@@ -66,37 +200,172 @@ public class PatronHandler extends Handler {
     }
 
     String offsetValue = ctx.request().getParam(PARAM_OFFSET);
-    if (isRequestIntegerParamWrong(offsetValue)) {
+    if (offsetValue != null && ValidationHelper.parseNonNegativeInt(offsetValue) < 0) {
       badRequest(ctx, String.format(String.format(WRONG_INTEGER_PARAM_MESSAGE, "offset", offsetValue), offsetValue));
       return;
     }
 
     String limitValue = ctx.request().getParam(PARAM_LIMIT);
-    if (isRequestIntegerParamWrong(limitValue)) {
+    if (limitValue != null && ValidationHelper.parseNonNegativeInt(limitValue) < 0) {
       badRequest(ctx, String.format(String.format(WRONG_INTEGER_PARAM_MESSAGE, "limit", limitValue), limitValue));
       return;
     }
 
-    super.handleCommon(ctx, requiredParams, optionalParams, (client, params) -> {
-      final PatronOkapiClient patronClient = new PatronOkapiClient(client);
+    for (String param : UUID_PARAMS) {
+      String value = ctx.request().getParam(param);
+      if (value != null && !ValidationHelper.isUuid(value)) {
+        badRequest(ctx, String.format(MSG_INVALID_UUID_PARAM, param, value));
+        return;
+      }
+    }
+
+    final Long budgetMs = getRequestBudgetMs(ctx);
+    if (budgetMs == null) {
+      badRequest(ctx, MSG_INVALID_REQUEST_TIMEOUT);
+      return;
+    }
+    // covers every hop, starting with the login
+    final Deadline deadline = Deadline.after(budgetMs);
+
+    String key = keyHelper.getApiKey(ctx);
+    if (key == null || key.isEmpty()) {
+      accessDenied(ctx, MSG_ACCESS_DENIED);
+      return;
+    }
+
+    final ServerTiming serverTiming = startServerTiming(ctx, key);
 
+    Map<String, String> params = new HashMap<>(requiredParams.length + optionalParams.length);
+    for (String param : requiredParams) {
+      String value = ctx.request().getParam(param);
+      if (value == null || value.isEmpty()) {
+        badRequest(ctx, "Missing required parameter: " + param);
+        return;
+      }
+      params.put(param, value);
+    }
+    for (String param : optionalParams) {
+      params.put(param, ctx.request().getParam(param));
+    }
+
+    authenticate(ctx, key, client -> {
+      final PatronOkapiClient patronClient = new PatronOkapiClient.Builder(client)
+        .withDeadline(deadline)
+        .withRequestId(getRequestId(ctx))
+        .withServerTiming(serverTiming)
+        .withTrace(ctx.get(KEY_TRACE))
+        .build();
+
+      final long lookupStart = System.nanoTime();
       PatronIdHelper.lookupPatron(patronClient, client.tenant, extPatronId)
+        .onComplete(ar -> recordPatronLookup(client.tenant, System.nanoTime() - lookupStart))
         .onSuccess(patronId -> {
           params.put(PARAM_PATRON_ID, patronId);
           action.apply(patronClient, params);
         })
         .onFailure(t -> {
-          logger.error("Error retrieving user data from cache or mod-user: ", t);
-          if (isTimeoutException(t)) {
+          // PatronIdHelper has already logged the failure, sampled
+          if (isTimeout(t)) {
             requestTimeout(ctx, t.getMessage());
+          } else if (t instanceof UpstreamUnavailableException) {
+            serviceUnavailable(ctx, (UpstreamUnavailableException) t);
           } else {
-            notFound(ctx, "Unable to find patron " + extPatronId);
+            notFound(ctx, String.format(MSG_PATRON_NOT_FOUND, extPatronId));
           }
         });
     });
   }
 
+  /**
+   * Resolves the institutional user for the API key, applies the rate limits
+   * and logs in, answering the request with 401, 429 or 408 if any of these
+   * fails.
+   *
+   * @param action
+   *          called with the logged in client
+   */
+  private void authenticate(RoutingContext ctx, String key, Consumer<OkapiClient> action) {
+    final ServerTiming serverTiming = ctx.get(KEY_SERVER_TIMING);
+    final RequestTrace trace = ctx.get(KEY_TRACE);
+    final ApiKeyEvent event = ApiKeyEvent.start(ctx.get(KEY_ROUTE));
+    final long start = System.nanoTime();
+    getCredentials(key)
+      .onComplete(ar -> {
+        if (serverTiming != null) {
+          serverTiming.record(ServerTiming.STAGE_API_KEY, System.nanoTime() - start);
+        }
+        if (trace != null) {
+          trace.addSpan(ServerTiming.STAGE_API_KEY, null, ar.succeeded() ? 200 : 401, start,
+              System.nanoTime() - start);
+        }
+        if (event != null) {
+          event.end(ar.succeeded() ? ar.result().clientInfo.tenantId : null, ar.succeeded() ? 200 : 401);
+        }
+      })
+      .onSuccess(credentials -> {
+        ctx.put(KEY_TENANT, credentials.clientInfo.tenantId);
+        long retryAfterMs = getRateLimitWaitMs(key, credentials.clientInfo.tenantId);
+        if (retryAfterMs > 0) {
+          tooManyRequests(ctx, retryAfterMs);
+          return;
+        }
+        login(ctx, key, credentials, action);
+      })
+      .onFailure(t -> {
+        if (t instanceof MalformedApiKeyException) {
+          invalidApiKey(ctx, key);
+        } else {
+          logger.debug("Access denied: {}", t.getMessage());
+          accessDenied(ctx, MSG_ACCESS_DENIED);
+        }
+      });
+  }
+
+  private void login(RoutingContext ctx, String key, ClientCredentials credentials, Consumer<OkapiClient> action) {
+    final OkapiClient client = ocf.getOkapiClient(credentials.clientInfo.tenantId);
+    final ServerTiming serverTiming = ctx.get(KEY_SERVER_TIMING);
+    final RequestTrace trace = ctx.get(KEY_TRACE);
+    final TokenEvent event = TokenEvent.start(ctx.get(KEY_ROUTE));
+    final long start = System.nanoTime();
+    client.login(credentials.clientInfo.username, credentials.password).whenComplete((token, loginError) -> {
+      if (serverTiming != null) {
+        serverTiming.record(ServerTiming.STAGE_TOKEN, System.nanoTime() - start);
+      }
+      if (trace != null) {
+        int status = loginError == null && token != null ? 200 : StageEvent.STATUS_NONE;
+        trace.addSpan(ServerTiming.STAGE_TOKEN, null, status, start, System.nanoTime() - start);
+      }
+      if (event != null) {
+        event.end(client.tenant, loginError == null && token != null ? 200 : StageEvent.STATUS_NONE);
+      }
+      if (loginError != null || token == null) {
+        Throwable cause = loginError instanceof CompletionException && loginError.getCause() != null
+            ? loginError.getCause()
+            : loginError;
+        if (cause instanceof LoginRejectedException && ((LoginRejectedException) cause).isInvalidCredentials()) {
+          // only credentials Okapi has actually rejected are remembered, not 5xx and the like
+          logger.warn("Okapi rejected the institutional user: {}", cause.getMessage());
+          rejectApiKey(key);
+        } else {
+          long suppressed = LOGIN_ERROR_LOG.sample();
+          if (suppressed >= 0) {
+            logger.error("Error logging in as the institutional user ({} more not logged):", suppressed, cause);
+          }
+        }
+        if (cause != null && isTimeout(cause)) {
+          requestTimeout(ctx, cause.getMessage());
+        } else {
+          accessDenied(ctx, MSG_ACCESS_DENIED);
+        }
+        return;
+      }
+      client.setToken(token);
+      action.accept(client);
+    });
+  }
+
   public void handleGetAccount(RoutingContext ctx) {
+    timeRequest(ctx, Route.ACCOUNT);
     handleCommon(ctx,
         new String[] {},
         new String[]{PARAM_INCLUDE_LOANS, PARAM_INCLUDE_CHARGES, PARAM_INCLUDE_HOLDS, PARAM_SORT_BY, PARAM_LIMIT,
@@ -122,74 +391,521 @@ public class PatronHandler extends Handler {
   }
 
   public void handleRenew(RoutingContext ctx) {
+    timeRequest(ctx, Route.RENEW);
+    if (!isIdempotencyKeyValid(ctx)) {
+      badRequest(ctx, String.format(MSG_INVALID_IDEMPOTENCY_KEY, MAX_IDEMPOTENCY_KEY_LENGTH));
+      return;
+    }
     handleCommon(ctx,
         new String[] { PARAM_ITEM_ID },
         new String[] {},
-        (client, params) -> ((PatronOkapiClient) client).renewItem(
-            params.get(PARAM_PATRON_ID),
-            params.get(PARAM_ITEM_ID),
-            resp -> handleProxyResponse(ctx, resp),
-            t -> handleProxyException(ctx, t)));
+        (client, params) -> idempotent(ctx, client.tenant,
+            (responseHandler, exceptionHandler) -> ((PatronOkapiClient) client).renewItem(
+                params.get(PARAM_PATRON_ID),
+                params.get(PARAM_ITEM_ID),
+                responseHandler,
+                exceptionHandler)));
 
   }
 
   public void handlePlaceItemHold(RoutingContext ctx) {
-    if (ctx.body().asJsonObject() == null) {
+    timeRequest(ctx, Route.ITEM_HOLD);
+    final JsonObject hold = getJsonBody(ctx);
+    if (hold == null) {
       badRequest(ctx, MSG_HOLD_NOBODY);
       return;
     }
-    final String body = checkDates(ctx.body().asJsonObject());
+    String violation = HOLD_SCHEMA.validate(hold);
+    if (violation != null) {
+      unprocessableEntity(ctx, violation);
+      return;
+    }
+    if (!isIdempotencyKeyValid(ctx)) {
+      badRequest(ctx, String.format(MSG_INVALID_IDEMPOTENCY_KEY, MAX_IDEMPOTENCY_KEY_LENGTH));
+      return;
+    }
+    final String body = checkDates(hold);
     handleCommon(ctx,
         new String[] { PARAM_ITEM_ID },
         new String[] {},
-        (client, params) -> ((PatronOkapiClient) client).placeItemHold(
-            params.get(PARAM_PATRON_ID),
-            params.get(PARAM_ITEM_ID),
-            body,
-            resp -> handleProxyResponse(ctx, resp),
-            t -> handleProxyException(ctx, t)));
+        (client, params) -> idempotent(ctx, client.tenant,
+            (responseHandler, exceptionHandler) -> ((PatronOkapiClient) client).placeItemHold(
+                params.get(PARAM_PATRON_ID),
+                params.get(PARAM_ITEM_ID),
+                body,
+                responseHandler,
+                exceptionHandler)));
   }
 
   public void handleCancelHold(RoutingContext ctx) {
-    String validationResult = validateCancelHoldRequest(ctx.body().asJsonObject());
-    if ( validationResult != null) {
-      final int errorStatusCode = 422;
-      String errorMessage = get422ErrorMsg(errorStatusCode, constructValidationErrorMessage(validationResult));
-      ctx.response()
-        .setStatusCode(errorStatusCode)
-        .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
-        .end(errorMessage);
+    timeRequest(ctx, Route.CANCEL_HOLD);
+    final JsonObject holdCancellation = getJsonBody(ctx);
+    String validationResult = validateCancelHoldRequest(holdCancellation);
+    if (validationResult != null) {
+      unprocessableEntity(ctx, validationResult);
+      return;
+    }
+
+    if (!isIdempotencyKeyValid(ctx)) {
+      badRequest(ctx, String.format(MSG_INVALID_IDEMPOTENCY_KEY, MAX_IDEMPOTENCY_KEY_LENGTH));
       return;
     }
 
     handleCommon(ctx,
         new String[] { PARAM_PATRON_ID, PARAM_HOLD_ID },
         new String[] {},
-        (client, params) ->
-          ((PatronOkapiClient) client).cancelHold(
-              params.get(PARAM_PATRON_ID),
-              params.get(PARAM_HOLD_ID),
-              ctx.body().asJsonObject(),
-              resp -> handleProxyResponse(ctx, resp),
-              t -> handleProxyException(ctx, t))
-        );
+        (client, params) -> {
+          String patronId = params.get(PARAM_PATRON_ID);
+          String holdId = params.get(PARAM_HOLD_ID);
+          if (isUnknownHold(client.tenant, patronId, holdId)) {
+            notFound(ctx, String.format(MSG_HOLD_NOT_FOUND, holdId));
+            return;
+          }
+          idempotent(ctx, client.tenant,
+              (responseHandler, exceptionHandler) -> ((PatronOkapiClient) client).cancelHold(
+                  patronId,
+                  holdId,
+                  holdCancellation,
+                  responseHandler,
+                  exceptionHandler));
+        });
   }
 
   public void handlePlaceInstanceHold(RoutingContext ctx) {
-    if (ctx.body().asJsonObject() == null) {
+    timeRequest(ctx, Route.INSTANCE_HOLD);
+    final JsonObject hold = getJsonBody(ctx);
+    if (hold == null) {
       badRequest(ctx, MSG_HOLD_NOBODY);
       return;
     }
-    final String body = checkDates(ctx.body().asJsonObject());
+    String violation = HOLD_SCHEMA.validate(hold);
+    if (violation != null) {
+      unprocessableEntity(ctx, violation);
+      return;
+    }
+    if (!isIdempotencyKeyValid(ctx)) {
+      badRequest(ctx, String.format(MSG_INVALID_IDEMPOTENCY_KEY, MAX_IDEMPOTENCY_KEY_LENGTH));
+      return;
+    }
+    final String body = checkDates(hold);
     handleCommon(ctx,
         new String[] { PARAM_INSTANCE_ID },
         new String[] {},
-        (client, params) -> ((PatronOkapiClient) client).placeInstanceHold(
-            params.get(PARAM_PATRON_ID),
-            params.get(PARAM_INSTANCE_ID),
-            body,
-            resp -> handleProxyResponse(ctx, resp),
-            t -> handleProxyException(ctx, t)));
+        (client, params) -> idempotent(ctx, client.tenant,
+            (responseHandler, exceptionHandler) -> ((PatronOkapiClient) client).placeInstanceHold(
+                params.get(PARAM_PATRON_ID),
+                params.get(PARAM_INSTANCE_ID),
+                body,
+                responseHandler,
+                exceptionHandler)));
+  }
+
+  public void handleBatch(RoutingContext ctx) {
+    timeRequest(ctx, Route.BATCH);
+    final JsonArray operations;
+    try {
+      JsonObject body = getJsonBody(ctx);
+      operations = body == null ? null : body.getJsonArray(FIELD_OPERATIONS);
+    } catch (Exception e) {
+      logger.debug("Invalid batch request: {}", e.getMessage());
+      badRequest(ctx, MSG_BATCH_NO_OPERATIONS);
+      return;
+    }
+    if (operations == null || operations.isEmpty()) {
+      badRequest(ctx, MSG_BATCH_NO_OPERATIONS);
+      return;
+    }
+    if (operations.size() > batchMaxOperations) {
+      badRequest(ctx, String.format(MSG_BATCH_TOO_MANY_OPERATIONS, batchMaxOperations));
+      return;
+    }
+
+    handleCommon(ctx,
+        new String[] {},
+        new String[] {},
+        (client, params) -> BatchExecutor.execute(operations.size(), batchParallelism,
+            i -> executeBatchOperation((PatronOkapiClient) client, params.get(PARAM_PATRON_ID), operations.getValue(i)))
+          .onSuccess(results -> ctx.response()
+            .setStatusCode(200)
+            .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+            .end(new JsonObject().put(FIELD_RESULTS, new JsonArray(results)).encode()))
+          .onFailure(t -> handleProxyException(ctx, t)));
+  }
+
+  /**
+   * Takes the request's {@value Constants#HEADER_OKAPI_REQUEST_ID} or, if it
+   * has none or it isn't usable, generates one. The ID is sent with every
+   * call to FOLIO, returned in the response, and shown in the log lines of
+   * the request.
+   */
+  public void handleRequestId(RoutingContext ctx) {
+    String requestId = ctx.request().getHeader(HEADER_OKAPI_REQUEST_ID);
+    if (!RequestIds.isValid(requestId)) {
+      requestId = RequestIds.generate(ctx.request().path());
+    }
+    ctx.put(KEY_REQUEST_ID, requestId);
+    RequestIds.set(requestId);
+    ctx.response().putHeader(HEADER_OKAPI_REQUEST_ID, requestId);
+    ctx.next();
+  }
+
+  /**
+   * @return the request ID taken or generated by
+   *         {@link #handleRequestId(RoutingContext)}, or null
+   */
+  static String getRequestId(RoutingContext ctx) {
+    return ctx.get(KEY_REQUEST_ID);
+  }
+
+  /**
+   * Answers with 503 right away while the event loop is lagging beyond the
+   * threshold, as the request would most likely time out anyway.
+   */
+  public void handleOverload(RoutingContext ctx) {
+    boolean overloaded = false;
+    try {
+      overloaded = EventLoopLagMonitor.getInstance().isOverloaded();
+    } catch (EventLoopLagMonitor.NotInitializedException e) {
+      logger.warn("Failed to access EventLoopLagMonitor", e);
+    }
+    if (overloaded) {
+      serviceUnavailable(ctx, new LoadSheddingException(MSG_EVENT_LOOP_OVERLOADED, 1));
+      return;
+    }
+    ctx.next();
+  }
+
+  public void handleAccountSummaries(RoutingContext ctx) {
+    timeRequest(ctx, Route.BULK);
+    // read as the account summaries are written, see AccountSummaryStream
+    ctx.request().pause();
+    ctx.addEndHandler(ar -> ctx.request().resume());
+
+    final Long budgetMs = getRequestBudgetMs(ctx);
+    if (budgetMs == null) {
+      badRequest(ctx, MSG_INVALID_REQUEST_TIMEOUT);
+      return;
+    }
+
+    String key = keyHelper.getApiKey(ctx);
+    if (key == null || key.isEmpty()) {
+      accessDenied(ctx, MSG_ACCESS_DENIED);
+      return;
+    }
+
+    final Context context = ctx.vertx().getOrCreateContext();
+    authenticate(ctx, key, client -> context.runOnContext(v ->
+        new AccountSummaryStream(this, ctx, client, budgetMs, bulkBatchSize, bulkConcurrency).start()));
+  }
+
+  /**
+   * Makes a write call upstream, or, if the request has an
+   * {@value Constants#HEADER_IDEMPOTENCY_KEY} header, lets the
+   * {@link IdempotencyStore} share the call or response of an earlier request
+   * with the same key.
+   *
+   * @param call
+   *          makes the upstream call with the given response and exception
+   *          handlers
+   */
+  private void idempotent(RoutingContext ctx, String tenant,
+      BiConsumer<io.vertx.core.Handler<HttpResponse<Buffer>>, io.vertx.core.Handler<Throwable>> call) {
+    final String idempotencyKey = ctx.request().getHeader(HEADER_IDEMPOTENCY_KEY);
+    IdempotencyStore store = null;
+    if (idempotencyKey != null) {
+      try {
+        store = IdempotencyStore.getInstance();
+      } catch (IdempotencyStore.NotInitializedException e) {
+        logger.warn("Failed to access IdempotencyStore", e);
+      }
+    }
+    if (store == null) {
+      call.accept(resp -> handleProxyResponse(ctx, resp), t -> handleProxyException(ctx, t));
+      return;
+    }
+
+    // the path holds the patron and item, instance or hold
+    final String key = String.format("%s:%s:%s", tenant, ctx.request().path(), idempotencyKey);
+    store.execute(key, ctx.body().asString(), () -> {
+      Promise<HttpResponse<Buffer>> promise = Promise.promise();
+      call.accept(promise::complete, promise::fail);
+      return promise.future();
+    })
+      .onSuccess(outcome -> {
+        if (outcome.replayed) {
+          ctx.response().putHeader(HEADER_IDEMPOTENT_REPLAYED, "true");
+        }
+        handleProxyResponse(ctx, outcome.response);
+      })
+      .onFailure(t -> {
+        if (t instanceof IdempotencyStore.KeyReusedException) {
+          ctx.response()
+            .setStatusCode(422)
+            .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+            .end(ErrorBodies.IDEMPOTENCY_KEY_REUSED);
+        } else {
+          handleProxyException(ctx, t);
+        }
+      });
+  }
+
+  /**
+   * Records the time to answer the request, from now until the response is
+   * written, with its tenant and status code, in the {@link RequestMetrics}
+   * and as a {@link RequestEvent}, and the writing of the response as a
+   * {@link ResponseWriteEvent}. Also starts the request's
+   * {@link RequestTrace}, handed to the {@link SpanRecorder} once answered.
+   */
+  private static void timeRequest(RoutingContext ctx, Route route) {
+    ctx.put(KEY_ROUTE, route.label());
+    RequestMetrics requestMetrics = null;
+    try {
+      requestMetrics = RequestMetrics.getInstance();
+    } catch (RequestMetrics.NotInitializedException e) {
+      logger.debug("RequestMetrics not initialized, not timing {}", route);
+    }
+    final RequestMetrics metrics = requestMetrics;
+    final RequestEvent event = RequestEvent.start(route.label());
+    if (event != null) {
+      ctx.addHeadersEndHandler(v -> {
+        ResponseWriteEvent writeEvent = ResponseWriteEvent.start(route.label());
+        if (writeEvent != null) {
+          ctx.addBodyEndHandler(w -> writeEvent.end(ctx.get(KEY_TENANT), ctx.response().getStatusCode()));
+        }
+      });
+    }
+    final RequestTrace trace = startTrace(ctx, route);
+    if (metrics == null && event == null && trace == null) {
+      return;
+    }
+    final long start = System.nanoTime();
+    ctx.addBodyEndHandler(v -> {
+      int statusCode = ctx.response().getStatusCode();
+      if (metrics != null) {
+        metrics.recordRequest(route, ctx.get(KEY_TENANT), statusCode, System.nanoTime() - start);
+      }
+      if (event != null) {
+        event.end(ctx.get(KEY_TENANT), statusCode);
+      }
+      if (trace != null) {
+        trace.end(ctx.get(KEY_TENANT), statusCode);
+        SpanRecorder.getInstance().record(trace);
+      }
+    });
+  }
+
+  /**
+   * @return the request's trace, or null if the {@link SpanRecorder} isn't
+   *         initialized
+   */
+  private static RequestTrace startTrace(RoutingContext ctx, Route route) {
+    try {
+      SpanRecorder.getInstance();
+    } catch (SpanRecorder.NotInitializedException e) {
+      logger.debug("SpanRecorder not initialized, not tracing {}", route);
+      return null;
+    }
+    RequestTrace trace = new RequestTrace(getRequestId(ctx), route.label());
+    ctx.put(KEY_TRACE, trace);
+    return trace;
+  }
+
+  /**
+   * Starts timing the stages of the request if its API key has the
+   * {@value Constants#HEADER_SERVER_TIMING} header enabled; the header is
+   * added when the response headers are written.
+   *
+   * @return the timing, or null if not enabled
+   */
+  private ServerTiming startServerTiming(RoutingContext ctx, String key) {
+    if (serverTimingApiKeys.isEmpty()
+        || !(serverTimingApiKeys.contains(key) || serverTimingApiKeys.contains(SERVER_TIMING_ALL_API_KEYS))) {
+      return null;
+    }
+    final ServerTiming serverTiming = new ServerTiming();
+    ctx.put(KEY_SERVER_TIMING, serverTiming);
+    ctx.addHeadersEndHandler(v -> ctx.response().putHeader(HEADER_SERVER_TIMING, serverTiming.toHeader()));
+    return serverTiming;
+  }
+
+  private static void recordPatronLookup(String tenant, long nanos) {
+    try {
+      RequestMetrics.getInstance().recordPatronLookup(tenant, nanos);
+    } catch (RequestMetrics.NotInitializedException e) {
+      logger.debug("RequestMetrics not initialized, not timing the patron lookup");
+    }
+  }
+
+  /**
+   * Answers 422 for a request body that is well-formed but violates its schema.
+   */
+  private void unprocessableEntity(RoutingContext ctx, String message) {
+    ctx.response()
+      .setStatusCode(422)
+      .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .end(getStructuredErrorMessage(422, message));
+  }
+
+  /**
+   * Decodes the request body once; validation and the upstream call share the
+   * decoded object.
+   *
+   * @return the body, or null if it is missing or isn't a JSON object
+   */
+  static JsonObject getJsonBody(RoutingContext ctx) {
+    JsonObject json = ctx.get(KEY_JSON_BODY);
+    if (json == null && ctx.body().length() > 0) {
+      try {
+        json = ctx.body().asJsonObject();
+      } catch (DecodeException | ClassCastException e) {
+        logger.debug("Invalid JSON request body: {}", e.getMessage());
+        return null;
+      }
+      if (json != null) {
+        ctx.put(KEY_JSON_BODY, json);
+      }
+    }
+    return json;
+  }
+
+  private static boolean isIdempotencyKeyValid(RoutingContext ctx) {
+    String idempotencyKey = ctx.request().getHeader(HEADER_IDEMPOTENCY_KEY);
+    return idempotencyKey == null
+        || (!idempotencyKey.isEmpty() && idempotencyKey.length() <= MAX_IDEMPOTENCY_KEY_LENGTH);
+  }
+
+  /**
+   * Runs one operation of a batch request the way its single endpoint would.
+   *
+   * @return the result of the operation; never fails
+   */
+  private Future<JsonObject> executeBatchOperation(PatronOkapiClient client, String patronId, Object value) {
+    if (!(value instanceof JsonObject)) {
+      return Future.succeededFuture(batchResult(null, 400,
+          errorJson(400, String.format(MSG_BATCH_MISSING_FIELD, FIELD_TYPE))));
+    }
+    final JsonObject operation = (JsonObject) value;
+    final Object type = operation.getValue(FIELD_TYPE);
+    final Promise<JsonObject> promise = Promise.promise();
+    final io.vertx.core.Handler<HttpResponse<Buffer>> responseHandler = resp -> {
+      String respBody = resp.bodyAsString();
+      promise.complete(resp.statusCode() < 400
+          ? batchResult(operation, resp.statusCode(), null).put(FIELD_BODY, parseJson(respBody))
+          : batchResult(operation, resp.statusCode(), new JsonObject(getErrorMessage(resp.statusCode(), respBody))));
+    };
+    final io.vertx.core.Handler<Throwable> exceptionHandler = t -> {
+      long suppressed = BATCH_EXCEPTION_LOG.sample();
+      if (suppressed >= 0) {
+        logger.error("Exception running batch operation ({} more not logged):", suppressed, t);
+      }
+      int statusCode = getStatusCode(t);
+      promise.complete(batchResult(operation, statusCode, errorJson(statusCode, getErrorMessage(t))));
+    };
+
+    if (OP_RENEW.equals(type)) {
+      String itemId = getBatchField(operation, FIELD_ITEM_ID, promise);
+      if (itemId != null) {
+        client.renewItem(patronId, itemId, responseHandler, exceptionHandler);
+      }
+    } else if (OP_ITEM_HOLD.equals(type)) {
+      String itemId = getBatchField(operation, FIELD_ITEM_ID, promise);
+      JsonObject hold = itemId == null ? null : getBatchHold(operation, promise);
+      if (hold != null) {
+        client.placeItemHold(patronId, itemId, checkDates(hold), responseHandler, exceptionHandler);
+      }
+    } else if (OP_INSTANCE_HOLD.equals(type)) {
+      String instanceId = getBatchField(operation, FIELD_INSTANCE_ID, promise);
+      JsonObject hold = instanceId == null ? null : getBatchHold(operation, promise);
+      if (hold != null) {
+        client.placeInstanceHold(patronId, instanceId, checkDates(hold), responseHandler, exceptionHandler);
+      }
+    } else {
+      promise.complete(batchResult(operation, 400,
+          errorJson(400, String.format(MSG_BATCH_UNSUPPORTED_OPERATION, type))));
+    }
+    return promise.future();
+  }
+
+  /**
+   * @return the UUID field, or null after completing the promise with a 400
+   *         result
+   */
+  private String getBatchField(JsonObject operation, String field, Promise<JsonObject> promise) {
+    Object value = operation.getValue(field);
+    if (value instanceof String && !((String) value).isEmpty()) {
+      if (ValidationHelper.isUuid((String) value)) {
+        return (String) value;
+      }
+      promise.complete(batchResult(operation, 400,
+          errorJson(400, String.format(MSG_INVALID_UUID_PARAM, field, value))));
+      return null;
+    }
+    promise.complete(batchResult(operation, 400, errorJson(400, String.format(MSG_BATCH_MISSING_FIELD, field))));
+    return null;
+  }
+
+  private JsonObject getBatchHold(JsonObject operation, Promise<JsonObject> promise) {
+    Object value = operation.getValue(FIELD_HOLD);
+    if (value instanceof JsonObject) {
+      String violation = HOLD_SCHEMA.validate((JsonObject) value);
+      if (violation == null) {
+        return (JsonObject) value;
+      }
+      promise.complete(batchResult(operation, 422, errorJson(422, violation)));
+      return null;
+    }
+    promise.complete(batchResult(operation, 400, errorJson(400, MSG_HOLD_NOBODY)));
+    return null;
+  }
+
+  private static JsonObject batchResult(JsonObject operation, int statusCode, JsonObject error) {
+    JsonObject result = new JsonObject();
+    if (operation != null) {
+      Object id = operation.getValue(FIELD_ID);
+      if (id != null) {
+        result.put(FIELD_ID, id.toString());
+      }
+      Object type = operation.getValue(FIELD_TYPE);
+      result.put(FIELD_TYPE, type == null ? null : type.toString());
+    }
+    result.put(FIELD_STATUS, statusCode);
+    if (error != null) {
+      result.put(FIELD_ERROR, error);
+    }
+    return result;
+  }
+
+  JsonObject errorJson(int statusCode, String message) {
+    return ErrorBodies.toJson(statusCode, message);
+  }
+
+  static Object parseJson(String body) {
+    if (body == null || body.isEmpty()) {
+      return null;
+    }
+    try {
+      return new JsonObject(body);
+    } catch (Exception e) {
+      return body;
+    }
+  }
+
+  /**
+   * @return the status {@link #handleProxyException(RoutingContext, Throwable)}
+   *         answers with for the exception
+   */
+  int getStatusCode(Throwable t) {
+    if (isTimeout(t)) {
+      return 408;
+    }
+    return t instanceof UpstreamUnavailableException ? 503 : 500;
+  }
+
+  String getErrorMessage(Throwable t) {
+    if (isTimeout(t)) {
+      return MSG_REQUEST_TIMEOUT;
+    }
+    return t instanceof UpstreamUnavailableException ? MSG_SERVICE_UNAVAILABLE : MSG_INTERNAL_SERVER_ERROR;
   }
 
   @Override
@@ -202,7 +918,7 @@ public class PatronHandler extends Handler {
     ctx.response()
       .setStatusCode(401)
       .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
-      .end(getStructuredErrorMessage(401, MSG_ACCESS_DENIED));
+      .end(ErrorBodies.ACCESS_DENIED);
   }
 
   @Override
@@ -226,7 +942,30 @@ public class PatronHandler extends Handler {
     ctx.response()
       .setStatusCode(408)
       .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
-      .end(getStructuredErrorMessage(408, MSG_REQUEST_TIMEOUT));
+      .end(ErrorBodies.REQUEST_TIMEOUT);
+  }
+
+  protected void serviceUnavailable(RoutingContext ctx, UpstreamUnavailableException e) {
+    if (!ctx.response().ended()) {
+      HttpServerResponse response = ctx.response();
+      if (e.getRetryAfterSeconds() > 0) {
+        response.putHeader(HEADER_RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+      }
+      response
+        .setStatusCode(503)
+        .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+        .end(ErrorBodies.SERVICE_UNAVAILABLE);
+    }
+  }
+
+  protected void tooManyRequests(RoutingContext ctx, long retryAfterMs) {
+    if (!ctx.response().ended()) {
+      ctx.response()
+        .setStatusCode(429)
+        .putHeader(HEADER_RETRY_AFTER, String.valueOf((retryAfterMs + 999) / 1000))
+        .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+        .end(ErrorBodies.TOO_MANY_REQUESTS);
+    }
   }
 
   @Override
@@ -235,7 +974,7 @@ public class PatronHandler extends Handler {
       ctx.response()
         .setStatusCode(500)
         .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
-        .end(getStructuredErrorMessage(500, MSG_INTERNAL_SERVER_ERROR));
+        .end(ErrorBodies.INTERNAL_SERVER_ERROR);
     }
   }
 
@@ -247,9 +986,7 @@ public class PatronHandler extends Handler {
     serverResponse.setStatusCode(statusCode);
 
     String respBody = resp.bodyAsString();
-    if (logger.isDebugEnabled()) {
-      logger.debug("response: " + respBody);
-    }
+    logger.debug("response: {}", respBody);
 
     String contentType = resp.getHeader(HttpHeaders.CONTENT_TYPE.toString());
 
@@ -266,108 +1003,181 @@ public class PatronHandler extends Handler {
 
   @Override
   protected void handleProxyException(RoutingContext ctx, Throwable t) {
-    logger.error("Exception retrieving data from mod-patron:", t);
-    if (isTimeoutException(t)) {
+    long suppressed = PROXY_EXCEPTION_LOG.sample();
+    if (suppressed >= 0) {
+      logger.error("Exception retrieving data from mod-patron ({} more not logged):", suppressed, t);
+    }
+    if (isTimeout(t)) {
       requestTimeout(ctx, t.getMessage());
+    } else if (t instanceof UpstreamUnavailableException) {
+      serviceUnavailable(ctx, (UpstreamUnavailableException) t);
     } else {
       internalServerError(ctx, t.getMessage());
     }
   }
 
-  private void setContentType(HttpServerResponse response, String contentType){
-    if (contentType != null && !contentType.equals("")) {
-        response.putHeader(HttpHeaders.CONTENT_TYPE, contentType);
+  /**
+   * Decodes the API key and resolves the institutional user's password from
+   * the secure store, or takes both from the {@link ClientCredentialCache}.
+   *
+   * @return the credentials, or a failed future if the API key is malformed,
+   *         unknown or recently rejected
+   */
+  private Future<ClientCredentials> getCredentials(String key) {
+    ClientCredentialCache cache = null;
+    try {
+      cache = ClientCredentialCache.getInstance();
+    } catch (ClientCredentialCache.NotInitializedException e) {
+      logger.warn("Failed to access ClientCredentialCache", e);
     }
-  }
 
-  private boolean isRequestIntegerParamWrong(String paramToValidate) {
-    if (paramToValidate != null) {
-      try {
-        int paramValue = Integer.parseInt(paramToValidate);
-        if (paramValue < 0) {
-          return true;
-        }
-      } catch (NumberFormatException nfe) {
-        logger.debug("Exception during validation of query param: " + nfe.getMessage());
-        return true;
+    if (cache != null) {
+      // checked first, as credentials rejected by Okapi are still cached
+      if (cache.isInvalid(key)) {
+        return Future.failedFuture("API key recently rejected");
+      }
+      ClientCredentials cached = cache.get(key);
+      if (cached != null) {
+        return Future.succeededFuture(cached);
       }
     }
 
-    return false;
+    final ClientInfo clientInfo;
+    try {
+      clientInfo = ApiKeyUtils.parseApiKey(key);
+    } catch (MalformedApiKeyException e) {
+      if (cache != null) {
+        cache.putInvalid(key);
+      }
+      return Future.failedFuture(e);
+    }
+
+    final ClientCredentialCache credentialCache = cache;
+    return secureStoreLookup.get(clientInfo.salt, clientInfo.tenantId, clientInfo.username)
+      .onComplete(ar -> {
+        if (credentialCache == null) {
+          return;
+        }
+        if (ar.succeeded()) {
+          credentialCache.put(key, clientInfo, ar.result());
+        } else if (ar.cause() instanceof NotFoundException) {
+          // other failures may mean the secure store is unreachable
+          credentialCache.putInvalid(key);
+        }
+      })
+      .map(password -> new ClientCredentials(clientInfo, password));
+  }
+
+  /**
+   * @return 0 if the request is within the rate limits, otherwise how long
+   *         the client should wait, in ms
+   */
+  private static long getRateLimitWaitMs(String key, String tenant) {
+    try {
+      return RateLimiter.getInstance().tryAcquire(key, tenant);
+    } catch (RateLimiter.NotInitializedException e) {
+      logger.warn("Failed to access RateLimiter", e);
+      return 0;
+    }
   }
 
-  private static String checkDates(JsonObject requestMessage) {
+  private static void rejectApiKey(String key) {
+    try {
+      ClientCredentialCache.getInstance().putInvalid(key);
+    } catch (ClientCredentialCache.NotInitializedException e) {
+      logger.warn("Failed to access ClientCredentialCache", e);
+    }
+  }
+
+  private boolean isTimeout(Throwable t) {
+    return t instanceof DeadlineExceededException || isTimeoutException(t);
+  }
+
+  /**
+   * @return the time budget for the request: the configured request timeout,
+   *         lowered by the client's {@value Constants#HEADER_REQUEST_TIMEOUT}
+   *         header if given, or null if the header is invalid
+   */
+  private Long getRequestBudgetMs(RoutingContext ctx) {
+    String header = ctx.request().getHeader(HEADER_REQUEST_TIMEOUT);
+    if (header == null) {
+      return requestTimeoutMs;
+    }
+    try {
+      long requested = Long.parseLong(header.trim());
+      return requested > 0 ? Math.min(requested, requestTimeoutMs) : null;
+    } catch (NumberFormatException e) {
+      logger.debug("Invalid {} header: {}", HEADER_REQUEST_TIMEOUT, header);
+      return null;
+    }
+  }
+
+  private boolean isUnknownHold(String tenant, String patronId, String holdId) {
+    if (!rejectUnknownHoldCancellation) {
+      return false;
+    }
+    try {
+      return RequestMetadataCache.getInstance().isUnknownHold(tenant, patronId, holdId);
+    } catch (NotInitializedException e) {
+      logger.warn("Failed to access RequestMetadataCache", e);
+      return false;
+    }
+  }
+
+  private void setContentType(HttpServerResponse response, String contentType){
+    if (contentType != null && !contentType.equals("")) {
+        response.putHeader(HttpHeaders.CONTENT_TYPE, contentType);
+    }
+  }
+
+  /**
+   * Drops an expiration date mod-patron couldn't parse and stamps the request
+   * date.
+   *
+   * @return the hold to forward
+   */
+  static String checkDates(JsonObject requestMessage) {
     requestMessage = validateHoldsExpirationDate(requestMessage);
     return updateRequestDateWithTimestamp(requestMessage);
   }
 
   private static String updateRequestDateWithTimestamp(JsonObject requestMessage) {
-    final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
-    sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
-    String timestamp = sdf.format(new Date());
-
-    requestMessage.put(FIELD_REQUEST_DATE, timestamp);
-    return requestMessage.encodePrettily();
+    requestMessage.put(FIELD_REQUEST_DATE, DateTimeHelper.format(Instant.now()));
+    return requestMessage.encode();
   }
 
   private static JsonObject validateHoldsExpirationDate(JsonObject requestMessage) {
     String requestExpirationDate = requestMessage.getString(FIELD_EXPIRATION_DATE);
     try {
       if (requestExpirationDate != null && !requestExpirationDate.isEmpty()) {
-        new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").parse(requestExpirationDate);
+        DateTimeHelper.parse(requestExpirationDate);
       }
     } catch (Exception parseEx) {
-      logger.debug("Exception parsing request expirationDate: " + requestExpirationDate);
+      logger.debug("Exception parsing request expirationDate: {}", requestExpirationDate);
       requestMessage.remove(FIELD_EXPIRATION_DATE);
     }
     return requestMessage;
   }
 
   private String getStructuredErrorMessage(int statusCode, String message){
-    String finalMsg;
-    try{
-      ErrorMessage error = new ErrorMessage(statusCode, message);
-      finalMsg = error.toJson();
-    }
-    catch(JsonProcessingException ex){
-      finalMsg = "{ code : \"\", message : \"" + message + "\" }";
-    }
-    return finalMsg;
-  }
-
-  private String get422ErrorMsg(int statusCode, Errors err) {
-    String errorMessage = "";
-    List<Error> errors = err.getErrors();
-
-    if (errors != null && !errors.isEmpty()) {
-      Error firstErrorInstance = errors.get(0);  //get the first error message and return it.
-      if (firstErrorInstance != null) {
-        errorMessage = getStructuredErrorMessage(statusCode, firstErrorInstance.getMessage());
-      }
-    }
-
-    if (errorMessage.equals(""))
-      errorMessage = getStructuredErrorMessage(statusCode, "No error message found");
-
-    return errorMessage;
+    return ErrorBodies.encode(statusCode, message);
   }
 
   private String get422ErrorMsg(int statusCode, String respBody){
 
-    logger.debug("422 message: " + respBody);
-    String errorMessage = "";
+    logger.debug("422 message: {}", respBody);
+    String errorMessage;
 
     try {
-      Errors err = Json.decodeValue(respBody, Errors.class);
-      errorMessage = get422ErrorMsg(statusCode, err);
+      errorMessage = ErrorBodies.getFirstErrorMessage(respBody);
     } catch(Exception ex) {
       logger.debug(ex.getMessage());
-      errorMessage = getStructuredErrorMessage(statusCode, "A problem encountered when extracting error message");
+      return getStructuredErrorMessage(statusCode, "A problem encountered when extracting error message");
     }
-    return errorMessage;
+    return getStructuredErrorMessage(statusCode, errorMessage != null ? errorMessage : "No error message found");
   }
 
-  private String getErrorMessage(int statusCode, String respBody){
+  String getErrorMessage(int statusCode, String respBody){
 
     if (statusCode == 422)
       return get422ErrorMsg(statusCode, respBody);
@@ -375,15 +1185,89 @@ public class PatronHandler extends Handler {
       return getStructuredErrorMessage(statusCode, respBody);
   }
 
-  private Errors constructValidationErrorMessage(String coreMessage) {
-    Error error = new Error();
-    error.setCode("422");
-    error.setMessage(coreMessage);
+  public static class Builder {
+
+    private final SecureStore secureStore;
+    private final PatronOkapiClientFactory ocf;
+    private SecureStoreLookup secureStoreLookup;
+    private boolean rejectUnknownHoldCancellation = false;
+    private int batchMaxOperations = DEFAULT_BATCH_MAX_OPERATIONS;
+    private int batchParallelism = DEFAULT_BATCH_PARALLELISM;
+    private int bulkBatchSize = DEFAULT_BULK_BATCH_SIZE;
+    private int bulkConcurrency = DEFAULT_BULK_CONCURRENCY;
+    private Set<String> serverTimingApiKeys = Collections.emptySet();
 
-    Errors errors = new Errors();
-    errors.setTotalRecords(1);
-    errors.setErrors(Collections.singletonList(error));
+    public Builder(SecureStore secureStore, PatronOkapiClientFactory ocf) {
+      this.secureStore = secureStore;
+      this.ocf = ocf;
+    }
+
+    /**
+     * @param secureStoreLookup looks up the institutional users' passwords off
+     *          the event loop
+     */
+    public Builder withSecureStoreLookup(SecureStoreLookup secureStoreLookup) {
+      this.secureStoreLookup = secureStoreLookup;
+      return this;
+    }
+
+    /**
+     * @param rejectUnknownHoldCancellation whether to answer 404 right away
+     *          when a patron cancels a hold that isn't among their cached holds
+     */
+    public Builder withRejectUnknownHoldCancellation(boolean rejectUnknownHoldCancellation) {
+      this.rejectUnknownHoldCancellation = rejectUnknownHoldCancellation;
+      return this;
+    }
+
+    /**
+     * @param batchMaxOperations the most operations accepted in one batch
+     *          request
+     */
+    public Builder withBatchMaxOperations(int batchMaxOperations) {
+      this.batchMaxOperations = batchMaxOperations;
+      return this;
+    }
+
+    /**
+     * @param batchParallelism how many operations of a batch request to run at
+     *          once
+     */
+    public Builder withBatchParallelism(int batchParallelism) {
+      this.batchParallelism = batchParallelism;
+      return this;
+    }
+
+    /**
+     * @param bulkBatchSize how many patrons of a bulk account summary request
+     *          to look up in mod-users at once
+     */
+    public Builder withBulkBatchSize(int bulkBatchSize) {
+      this.bulkBatchSize = bulkBatchSize;
+      return this;
+    }
+
+    /**
+     * @param bulkConcurrency how many accounts of a bulk account summary
+     *          request to fetch at once
+     */
+    public Builder withBulkConcurrency(int bulkConcurrency) {
+      this.bulkConcurrency = bulkConcurrency;
+      return this;
+    }
+
+    /**
+     * @param serverTimingApiKeys the API keys whose requests are answered with
+     *          a {@value Constants#HEADER_SERVER_TIMING} header, or
+     *          {@value Constants#SERVER_TIMING_ALL_API_KEYS} for all of them
+     */
+    public Builder withServerTimingApiKeys(Collection<String> serverTimingApiKeys) {
+      this.serverTimingApiKeys = new HashSet<>(serverTimingApiKeys);
+      return this;
+    }
 
-    return errors;
+    public PatronHandler build() {
+      return new PatronHandler(this);
+    }
   }
 }
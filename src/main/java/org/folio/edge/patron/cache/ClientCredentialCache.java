@@ -0,0 +1,133 @@
+package org.folio.edge.patron.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.core.cache.Cache;
+import org.folio.edge.core.cache.Cache.Builder;
+import org.folio.edge.core.model.ClientInfo;
+
+/**
+ * Cache of decoded API keys and the institutional user credentials resolved
+ * for them from the secure store, keyed by the raw API key.
+ *
+ * Keys that are malformed or unknown to the secure store get a short-lived
+ * negative entry, so that repeated requests with guessed keys don't reach the
+ * secure store.
+ */
+public class ClientCredentialCache {
+
+  private static final Logger logger = LogManager.getLogger(ClientCredentialCache.class);
+
+  private static ClientCredentialCache instance = null;
+
+  private final long ttl;
+  private final long invalidKeyTtl;
+  private final int capacity;
+  private volatile Cache<ClientCredentials> credentials;
+  private volatile Cache<Boolean> invalidKeys;
+
+  private ClientCredentialCache(long ttl, long invalidKeyTtl, int capacity) {
+    logger.info("Using client credential TTL: {}", ttl);
+    logger.info("Using invalid API key TTL: {}", invalidKeyTtl);
+    logger.info("Using client credential capacity: {}", capacity);
+    this.ttl = ttl;
+    this.invalidKeyTtl = invalidKeyTtl;
+    this.capacity = capacity;
+    flush();
+  }
+
+  /**
+   * Get the ClientCredentialCache singleton. the singleton must be initialized
+   * before calling this method.
+   *
+   * @see {@link #initialize(long, long, int)}
+   *
+   * @return the ClientCredentialCache singleton instance.
+   */
+  public static synchronized ClientCredentialCache getInstance() {
+    if (instance == null) {
+      throw new NotInitializedException(
+          "You must call ClientCredentialCache.initialize(ttl, invalidKeyTtl, capacity) "
+              + "before you can get the singleton instance");
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a new ClientCredentialCache instance, replacing the existing one if
+   * it already exists; in which case all pre-existing cache entries will be
+   * lost.
+   *
+   * @param ttl
+   *          cache entry time to live in ms
+   * @param invalidKeyTtl
+   *          time to live of the entries for invalid API keys in ms
+   * @param capacity
+   *          maximum number of entries this cache will hold before pruning
+   * @return the new ClientCredentialCache singleton instance
+   */
+  public static synchronized ClientCredentialCache initialize(long ttl, long invalidKeyTtl, int capacity) {
+    if (instance != null) {
+      logger.warn("Reinitializing cache.  All cached entries will be lost");
+    }
+    instance = new ClientCredentialCache(ttl, invalidKeyTtl, capacity);
+    return instance;
+  }
+
+  /**
+   * @return the credentials for the API key, or null if there are none cached
+   */
+  public ClientCredentials get(String apiKey) {
+    return credentials.get(apiKey);
+  }
+
+  public void put(String apiKey, ClientInfo clientInfo, String password) {
+    credentials.put(apiKey, new ClientCredentials(clientInfo, password));
+  }
+
+  /**
+   * @return whether the API key was recently found to be malformed or unknown
+   */
+  public boolean isInvalid(String apiKey) {
+    return Boolean.TRUE.equals(invalidKeys.get(apiKey));
+  }
+
+  public void putInvalid(String apiKey) {
+    invalidKeys.put(apiKey, Boolean.TRUE);
+  }
+
+  /**
+   * Drops all entries, e.g. after credentials were rotated in the secure store.
+   */
+  public void flush() {
+    credentials = new Builder<ClientCredentials>()
+      .withTTL(ttl)
+      .withNullValueTTL(invalidKeyTtl)
+      .withCapacity(capacity)
+      .build();
+    invalidKeys = new Builder<Boolean>()
+      .withTTL(invalidKeyTtl)
+      .withNullValueTTL(invalidKeyTtl)
+      .withCapacity(capacity)
+      .build();
+  }
+
+  public static final class ClientCredentials {
+    public final ClientInfo clientInfo;
+    public final String password;
+
+    public ClientCredentials(ClientInfo clientInfo, String password) {
+      this.clientInfo = clientInfo;
+      this.password = password;
+    }
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = -2091687355014870312L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+}
@@ -0,0 +1,203 @@
+package org.folio.edge.patron.cache;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.core.cache.Cache;
+import org.folio.edge.core.cache.Cache.Builder;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.web.client.HttpResponse;
+
+/**
+ * Upstream responses to write requests, keyed by the client's
+ * <code>Idempotency-Key</code>, so that a retried renew, hold or cancellation
+ * doesn't reach FOLIO twice.
+ *
+ * A request arriving while the first one with its key is still in flight
+ * shares that upstream call. Once answered, the response is replayed to
+ * requests with the same key for the TTL, unless it was a failure worth
+ * retrying (5xx, 408, 429 or no response at all).
+ */
+public class IdempotencyStore {
+
+  private static final Logger logger = LogManager.getLogger(IdempotencyStore.class);
+
+  private static IdempotencyStore instance = null;
+
+  private final Cache<Entry> completed;
+  private final ConcurrentMap<String, Entry> inFlight = new ConcurrentHashMap<>();
+
+  private IdempotencyStore(long ttl, int capacity) {
+    logger.info("Using idempotency key TTL: {}", ttl);
+    logger.info("Using idempotency key capacity: {}", capacity);
+    completed = new Builder<Entry>()
+      .withTTL(ttl)
+      .withNullValueTTL(ttl)
+      .withCapacity(capacity)
+      .build();
+  }
+
+  /**
+   * Get the IdempotencyStore singleton. the singleton must be initialized
+   * before calling this method.
+   *
+   * @see {@link #initialize(long, int)}
+   *
+   * @return the IdempotencyStore singleton instance.
+   */
+  public static synchronized IdempotencyStore getInstance() {
+    if (instance == null) {
+      throw new NotInitializedException(
+          "You must call IdempotencyStore.initialize(ttl, capacity) before you can get the singleton instance");
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a new IdempotencyStore instance, replacing the existing one if it
+   * already exists; in which case all stored responses will be lost.
+   *
+   * @param ttl
+   *          how long responses are replayed, in ms
+   * @param capacity
+   *          maximum number of responses this store will hold before pruning
+   * @return the new IdempotencyStore singleton instance
+   */
+  public static synchronized IdempotencyStore initialize(long ttl, int capacity) {
+    if (instance != null) {
+      logger.warn("Reinitializing idempotency store.  All stored responses will be lost");
+    }
+    instance = new IdempotencyStore(ttl, capacity);
+    return instance;
+  }
+
+  /**
+   * Makes the upstream call for a request, or shares the call or response of
+   * an earlier request with the same key.
+   *
+   * @param key
+   *          the idempotency key, scoped to the tenant and endpoint
+   * @param fingerprint
+   *          identifies the request, e.g. its body; a key reused for a
+   *          different request fails with {@link KeyReusedException}
+   * @param call
+   *          makes the upstream call
+   */
+  public Future<Outcome> execute(String key, String fingerprint, Supplier<Future<HttpResponse<Buffer>>> call) {
+    final Entry done = completed.get(key);
+    if (done != null) {
+      return share(key, done, fingerprint);
+    }
+
+    final Promise<HttpResponse<Buffer>> promise = Promise.promise();
+    final Entry entry = new Entry(fingerprint, promise.future());
+    final Entry existing = inFlight.putIfAbsent(key, entry);
+    if (existing != null) {
+      logger.debug("Joining in-flight request for idempotency key {}", key);
+      return onCurrentContext(share(key, existing, fingerprint));
+    }
+    // the previous call may have finished since the first check
+    final Entry finished = completed.get(key);
+    if (finished != null) {
+      inFlight.remove(key, entry);
+      finished.response.onComplete(promise);
+      return share(key, finished, fingerprint);
+    }
+
+    Future<HttpResponse<Buffer>> upstream;
+    try {
+      upstream = call.get();
+    } catch (Exception e) {
+      upstream = Future.failedFuture(e);
+    }
+    upstream.onComplete(ar -> {
+      if (ar.succeeded() && isReplayable(ar.result().statusCode())) {
+        // stored before leaving the in-flight map, so no request slips between
+        completed.put(key, entry);
+      }
+      inFlight.remove(key, entry);
+      promise.handle(ar);
+    });
+    return promise.future().map(resp -> new Outcome(resp, false));
+  }
+
+  /**
+   * @return the number of distinct requests in flight
+   */
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  private static Future<Outcome> share(String key, Entry entry, String fingerprint) {
+    if (!Objects.equals(entry.fingerprint, fingerprint)) {
+      return Future.failedFuture(new KeyReusedException(key));
+    }
+    return entry.response.map(resp -> new Outcome(resp, true));
+  }
+
+  private static boolean isReplayable(int statusCode) {
+    return statusCode < 500 && statusCode != 408 && statusCode != 429;
+  }
+
+  /**
+   * The call completes on the context of the request that started it, so other
+   * requests sharing it are handed the outcome on their own context.
+   */
+  private static Future<Outcome> onCurrentContext(Future<Outcome> future) {
+    final Context context = Vertx.currentContext();
+    if (context == null) {
+      return future;
+    }
+    final Promise<Outcome> promise = Promise.promise();
+    future.onComplete(ar -> context.runOnContext(v -> promise.handle(ar)));
+    return promise.future();
+  }
+
+  private static class Entry {
+    private final String fingerprint;
+    private final Future<HttpResponse<Buffer>> response;
+
+    private Entry(String fingerprint, Future<HttpResponse<Buffer>> response) {
+      this.fingerprint = fingerprint;
+      this.response = response;
+    }
+  }
+
+  public static class Outcome {
+    public final HttpResponse<Buffer> response;
+    /** whether the response was shared with or replayed from another request */
+    public final boolean replayed;
+
+    public Outcome(HttpResponse<Buffer> response, boolean replayed) {
+      this.response = response;
+      this.replayed = replayed;
+    }
+  }
+
+  public static class KeyReusedException extends RuntimeException {
+
+    private static final long serialVersionUID = 3924476452130851474L;
+
+    public KeyReusedException(String key) {
+      super("Idempotency key already used for a different request: " + key);
+    }
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = -1660691531387000897L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+}
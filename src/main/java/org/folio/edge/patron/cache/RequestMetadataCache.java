@@ -0,0 +1,189 @@
+package org.folio.edge.patron.cache;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.core.cache.Cache;
+import org.folio.edge.core.cache.Cache.Builder;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Short-lived cache of the circulation request data needed to cancel a hold
+ * (pickup service point and request date), keyed by tenant and hold ID.
+ *
+ * Entries are filled from the holds in recent account responses and from
+ * earlier <code>GET /circulation/requests/{id}</code> calls, so that cancelling
+ * a hold doesn't need another round trip to mod-circulation.
+ *
+ * For each patron whose complete hold list has been seen, the set of known hold
+ * IDs is kept as well. Holds placed through this module are added to that set.
+ */
+public class RequestMetadataCache {
+
+  private static final Logger logger = LogManager.getLogger(RequestMetadataCache.class);
+
+  private static RequestMetadataCache instance = null;
+
+  private final Cache<RequestMetadata> requests;
+  private final Cache<Set<String>> patronHolds;
+
+  private RequestMetadataCache(long ttl, int capacity) {
+    logger.info("Using request metadata TTL: {}", ttl);
+    logger.info("Using request metadata capacity: {}", capacity);
+    requests = new Builder<RequestMetadata>()
+      .withTTL(ttl)
+      .withNullValueTTL(ttl)
+      .withCapacity(capacity)
+      .build();
+    patronHolds = new Builder<Set<String>>()
+      .withTTL(ttl)
+      .withNullValueTTL(ttl)
+      .withCapacity(capacity)
+      .build();
+  }
+
+  /**
+   * Get the RequestMetadataCache singleton. the singleton must be initialized
+   * before calling this method.
+   *
+   * @see {@link #initialize(long, int)}
+   *
+   * @return the RequestMetadataCache singleton instance.
+   */
+  public static synchronized RequestMetadataCache getInstance() {
+    if (instance == null) {
+      throw new NotInitializedException(
+          "You must call RequestMetadataCache.initialize(ttl, capacity) before you can get the singleton instance");
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a new RequestMetadataCache instance, replacing the existing one if
+   * it already exists; in which case all pre-existing cache entries will be
+   * lost.
+   *
+   * @param ttl
+   *          cache entry time to live in ms
+   * @param capacity
+   *          maximum number of entries this cache will hold before pruning
+   * @return the new RequestMetadataCache singleton instance
+   */
+  public static synchronized RequestMetadataCache initialize(long ttl, int capacity) {
+    if (instance != null) {
+      logger.warn("Reinitializing cache.  All cached entries will be lost");
+    }
+    instance = new RequestMetadataCache(ttl, capacity);
+    return instance;
+  }
+
+  public RequestMetadata get(String tenant, String holdId) {
+    return requests.get(computeKey(tenant, holdId));
+  }
+
+  /**
+   * Caches the metadata of a single request and, if the patron's hold list is
+   * known, records the hold as belonging to the patron.
+   */
+  public void put(String tenant, String patronId, RequestMetadata metadata) {
+    requests.put(computeKey(tenant, metadata.requestId), metadata);
+    if (patronId != null) {
+      Set<String> holdIds = patronHolds.get(computeKey(tenant, patronId));
+      if (holdIds != null) {
+        holdIds.add(metadata.requestId);
+      }
+    }
+  }
+
+  /**
+   * Caches the metadata of every hold in a patron's complete hold list, and
+   * remembers the list itself.
+   */
+  public void putPatronHolds(String tenant, String patronId, Collection<RequestMetadata> holds) {
+    Set<String> holdIds = ConcurrentHashMap.newKeySet();
+    for (RequestMetadata metadata : holds) {
+      requests.put(computeKey(tenant, metadata.requestId), metadata);
+      holdIds.add(metadata.requestId);
+    }
+    patronHolds.put(computeKey(tenant, patronId), holdIds);
+  }
+
+  /**
+   * @return true only if the patron's complete hold list is cached and it
+   *         doesn't contain the given hold. false if the hold is known or if
+   *         nothing is known about the patron's holds.
+   */
+  public boolean isUnknownHold(String tenant, String patronId, String holdId) {
+    Set<String> holdIds = patronHolds.get(computeKey(tenant, patronId));
+    return holdIds != null && !holdIds.contains(holdId);
+  }
+
+  private String computeKey(String tenant, String id) {
+    return tenant + ':' + id;
+  }
+
+  public static final class RequestMetadata {
+    public final String requestId;
+    public final String pickupServicePointId;
+    public final String requestDate;
+
+    public RequestMetadata(String requestId, String pickupServicePointId, String requestDate) {
+      this.requestId = requestId;
+      this.pickupServicePointId = pickupServicePointId;
+      this.requestDate = requestDate;
+    }
+
+    /**
+     * @param request a request as returned by mod-circulation
+     */
+    public static RequestMetadata fromRequest(JsonObject request) {
+      return new RequestMetadata(request.getString("id"),
+        request.getString("pickupServicePointId"),
+        request.getString("requestDate"));
+    }
+
+    /**
+     * @param hold a hold from a mod-patron account
+     * @return the metadata, or null if the hold lacks its ID or request date
+     */
+    public static RequestMetadata fromAccountHold(JsonObject hold) {
+      Object requestId = hold.getValue("requestId");
+      Object pickupLocationId = hold.getValue("pickupLocationId");
+      Object requestDate = hold.getValue("requestDate");
+      if (!(requestId instanceof String) || !(requestDate instanceof String)
+          || (pickupLocationId != null && !(pickupLocationId instanceof String))) {
+        return null;
+      }
+      return new RequestMetadata((String) requestId, (String) pickupLocationId, (String) requestDate);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(requestId, pickupServicePointId, requestDate);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      RequestMetadata that = (RequestMetadata) o;
+      return Objects.equals(requestId, that.requestId) &&
+        Objects.equals(pickupServicePointId, that.pickupServicePointId) &&
+        Objects.equals(requestDate, that.requestDate);
+    }
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = -2961394213413937436L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+}
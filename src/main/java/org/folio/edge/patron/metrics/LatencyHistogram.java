@@ -0,0 +1,107 @@
+package org.folio.edge.patron.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A latency histogram with log-linear buckets, in the manner of
+ * HdrHistogram: each power of two of microseconds is split into 32 buckets,
+ * so any recorded value is known to within about 3%, from 1 &micro;s up to
+ * about 19 hours.
+ *
+ * Recording is lock-free and doesn't allocate: it increments a few atomic
+ * counters. Quantiles are computed when read, from a copy of the counts that
+ * may be slightly behind concurrent recordings.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  /** highest power of two of microseconds recorded, about 19 hours */
+  private static final int MAX_MAGNITUDE = 36;
+  private static final long MAX_VALUE = (1L << (MAX_MAGNITUDE + 1)) - 1;
+  private static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sumMicros = new AtomicLong();
+  private final AtomicLong maxMicros = new AtomicLong();
+
+  public void recordNanos(long nanos) {
+    recordMicros(TimeUnit.NANOSECONDS.toMicros(nanos));
+  }
+
+  public void recordMicros(long micros) {
+    long value = Math.min(Math.max(0, micros), MAX_VALUE);
+    counts.incrementAndGet(index(value));
+    count.incrementAndGet();
+    sumMicros.addAndGet(value);
+    long max = maxMicros.get();
+    while (value > max && !maxMicros.compareAndSet(max, value)) {
+      max = maxMicros.get();
+    }
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public long getSumMicros() {
+    return sumMicros.get();
+  }
+
+  public long getMaxMicros() {
+    return maxMicros.get();
+  }
+
+  /**
+   * @param quantiles
+   *          in ascending order, each between 0 and 1
+   * @return the value at each quantile, in &micro;s: the highest value of the
+   *         bucket it falls in, but no more than the maximum recorded
+   */
+  public long[] getQuantilesMicros(double... quantiles) {
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    long max = maxMicros.get();
+    long[] values = new long[quantiles.length];
+    if (total == 0) {
+      return values;
+    }
+    int bucket = 0;
+    long seen = snapshot[0];
+    for (int q = 0; q < quantiles.length; q++) {
+      long rank = Math.max(1, (long) Math.ceil(quantiles[q] * total));
+      while (seen < rank && bucket < BUCKETS - 1) {
+        seen += snapshot[++bucket];
+      }
+      values[q] = Math.min(upperBound(bucket), max);
+    }
+    return values;
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  /**
+   * @return the highest value that falls into the bucket
+   */
+  static long upperBound(int index) {
+    if (index < 2 * SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long subBucket = SUB_BUCKETS + index % SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,273 @@
+package org.folio.edge.patron.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.patron.resilience.UpstreamRoute;
+
+/**
+ * Latency histograms and counters of the <code>/patron</code> routes, per
+ * tenant, and of their hops: the patron lookup and each upstream call.
+ *
+ * Recording takes no locks and doesn't allocate once a tenant has been seen:
+ * the metrics of a tenant are found with one map lookup, and those of a route
+ * or hop by the ordinal of its enum. They are exposed in the Prometheus text
+ * format by {@link #toPrometheus()}.
+ */
+public class RequestMetrics {
+
+  private static final Logger logger = LogManager.getLogger(RequestMetrics.class);
+
+  /** the tenant of requests rejected before their API key was resolved */
+  public static final String TENANT_UNKNOWN = "unknown";
+
+  /** status code counted for calls that failed without a response */
+  public static final int STATUS_NONE = 0;
+
+  private static final int MAX_STATUS = 599;
+  private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+  private static final String[] QUANTILE_LABELS = { "0.5", "0.9", "0.99", "0.999" };
+
+  // read on every request and upstream call, so without a lock
+  private static volatile RequestMetrics instance = null;
+
+  private final Map<String, TenantMetrics> tenants = new ConcurrentHashMap<>();
+
+  /** the <code>/patron</code> routes that are measured */
+  public enum Route {
+    ACCOUNT,
+    RENEW,
+    ITEM_HOLD,
+    INSTANCE_HOLD,
+    CANCEL_HOLD,
+    BATCH,
+    BULK;
+
+    public String label() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  private RequestMetrics() {
+
+  }
+
+  /**
+   * Get the RequestMetrics singleton. the singleton must be initialized before
+   * calling this method.
+   *
+   * @see {@link #initialize()}
+   *
+   * @return the RequestMetrics singleton instance.
+   */
+  public static RequestMetrics getInstance() {
+    RequestMetrics current = instance;
+    if (current == null) {
+      throw new NotInitializedException(
+          "You must call RequestMetrics.initialize() before you can get the singleton instance");
+    }
+    return current;
+  }
+
+  /**
+   * Creates a new RequestMetrics instance, replacing the existing one if it
+   * already exists; in which case all metrics are lost.
+   *
+   * @return the new RequestMetrics singleton instance
+   */
+  public static synchronized RequestMetrics initialize() {
+    if (instance != null) {
+      logger.warn("Reinitializing request metrics.  All metrics will be lost");
+    }
+    instance = new RequestMetrics();
+    return instance;
+  }
+
+  /**
+   * @param tenant
+   *          the tenant of the request, null if it's not known
+   * @param statusCode
+   *          the status code of the response
+   */
+  public void recordRequest(Route route, String tenant, int statusCode, long nanos) {
+    getTenant(tenant).routes[route.ordinal()].record(statusCode, nanos);
+  }
+
+  public void recordPatronLookup(String tenant, long nanos) {
+    getTenant(tenant).patronLookup.recordNanos(nanos);
+  }
+
+  /**
+   * @param statusCode
+   *          the status code of the response, {@link #STATUS_NONE} if the
+   *          call failed without one
+   */
+  public void recordUpstream(UpstreamRoute route, String tenant, int statusCode, long nanos) {
+    getTenant(tenant).upstream[route.ordinal()].record(statusCode, nanos);
+  }
+
+  private TenantMetrics getTenant(String tenant) {
+    String key = tenant == null ? TENANT_UNKNOWN : tenant;
+    TenantMetrics metrics = tenants.get(key);
+    return metrics != null ? metrics : tenants.computeIfAbsent(key, t -> new TenantMetrics());
+  }
+
+  /**
+   * @return the metrics in the Prometheus text exposition format, version
+   *         0.0.4
+   */
+  public String toPrometheus() {
+    StringBuilder sb = new StringBuilder(4096);
+
+    header(sb, "edge_patron_request_duration_seconds", "summary",
+        "Time to answer /patron requests, from routing to the end of the response");
+    tenants.forEach((tenant, metrics) -> {
+      for (Route route : Route.values()) {
+        summary(sb, "edge_patron_request_duration_seconds", labels("route", route.label(), tenant),
+            metrics.routes[route.ordinal()].latency);
+      }
+    });
+    header(sb, "edge_patron_requests_total", "counter", "/patron requests answered, by status code");
+    tenants.forEach((tenant, metrics) -> {
+      for (Route route : Route.values()) {
+        statusCounts(sb, "edge_patron_requests_total", labels("route", route.label(), tenant),
+            metrics.routes[route.ordinal()]);
+      }
+    });
+    header(sb, "edge_patron_request_errors_total", "counter", "/patron requests answered with a server error");
+    tenants.forEach((tenant, metrics) -> {
+      for (Route route : Route.values()) {
+        counter(sb, "edge_patron_request_errors_total", labels("route", route.label(), tenant),
+            metrics.routes[route.ordinal()].getErrors());
+      }
+    });
+
+    header(sb, "edge_patron_patron_lookup_duration_seconds", "summary",
+        "Time to resolve the external patron ID, from the cache or mod-users");
+    tenants.forEach((tenant, metrics) -> summary(sb, "edge_patron_patron_lookup_duration_seconds",
+        "tenant=\"" + escape(tenant) + "\"", metrics.patronLookup));
+
+    header(sb, "edge_patron_upstream_duration_seconds", "summary",
+        "Time of calls to FOLIO, including retries and hedged calls");
+    tenants.forEach((tenant, metrics) -> {
+      for (UpstreamRoute hop : UpstreamRoute.values()) {
+        summary(sb, "edge_patron_upstream_duration_seconds", labels("hop", hopLabel(hop), tenant),
+            metrics.upstream[hop.ordinal()].latency);
+      }
+    });
+    header(sb, "edge_patron_upstream_requests_total", "counter",
+        "Calls to FOLIO, by status code; 0 for calls that failed without a response");
+    tenants.forEach((tenant, metrics) -> {
+      for (UpstreamRoute hop : UpstreamRoute.values()) {
+        statusCounts(sb, "edge_patron_upstream_requests_total", labels("hop", hopLabel(hop), tenant),
+            metrics.upstream[hop.ordinal()]);
+      }
+    });
+    header(sb, "edge_patron_upstream_errors_total", "counter",
+        "Calls to FOLIO that failed with a server error or without a response");
+    tenants.forEach((tenant, metrics) -> {
+      for (UpstreamRoute hop : UpstreamRoute.values()) {
+        counter(sb, "edge_patron_upstream_errors_total", labels("hop", hopLabel(hop), tenant),
+            metrics.upstream[hop.ordinal()].getErrors());
+      }
+    });
+    return sb.toString();
+  }
+
+  private static String hopLabel(UpstreamRoute hop) {
+    return hop.name().toLowerCase(Locale.ROOT);
+  }
+
+  private static String labels(String name, String value, String tenant) {
+    return name + "=\"" + value + "\",tenant=\"" + escape(tenant) + "\"";
+  }
+
+  static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  private static void header(StringBuilder sb, String name, String type, String help) {
+    sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void summary(StringBuilder sb, String name, String labels, LatencyHistogram histogram) {
+    long count = histogram.getCount();
+    if (count == 0) {
+      return;
+    }
+    long[] values = histogram.getQuantilesMicros(QUANTILES);
+    for (int i = 0; i < QUANTILES.length; i++) {
+      sb.append(name).append('{').append(labels).append(",quantile=\"").append(QUANTILE_LABELS[i]).append("\"} ")
+        .append(seconds(values[i])).append('\n');
+    }
+    sb.append(name).append("_sum{").append(labels).append("} ").append(seconds(histogram.getSumMicros()))
+      .append('\n');
+    sb.append(name).append("_count{").append(labels).append("} ").append(count).append('\n');
+  }
+
+  private static void statusCounts(StringBuilder sb, String name, String labels, Stats stats) {
+    for (int status = 0; status <= MAX_STATUS; status++) {
+      long count = stats.statusCounts.get(status);
+      if (count > 0) {
+        counter(sb, name, labels + ",status=\"" + status + "\"", count);
+      }
+    }
+  }
+
+  private static void counter(StringBuilder sb, String name, String labels, long value) {
+    if (value > 0) {
+      sb.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+  }
+
+  private static double seconds(long micros) {
+    return micros / 1_000_000d;
+  }
+
+  private static final class TenantMetrics {
+    private final Stats[] routes = newStats(Route.values().length);
+    private final Stats[] upstream = newStats(UpstreamRoute.values().length);
+    private final LatencyHistogram patronLookup = new LatencyHistogram();
+
+    private static Stats[] newStats(int size) {
+      Stats[] stats = new Stats[size];
+      for (int i = 0; i < size; i++) {
+        stats[i] = new Stats();
+      }
+      return stats;
+    }
+  }
+
+  private static final class Stats {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLongArray statusCounts = new AtomicLongArray(MAX_STATUS + 1);
+
+    private void record(int statusCode, long nanos) {
+      latency.recordNanos(nanos);
+      statusCounts.incrementAndGet(statusCode < 0 || statusCode > MAX_STATUS ? STATUS_NONE : statusCode);
+    }
+
+    /** server errors and failures without a response */
+    private long getErrors() {
+      long errors = statusCounts.get(STATUS_NONE);
+      for (int status = 500; status <= MAX_STATUS; status++) {
+        errors += statusCounts.get(status);
+      }
+      return errors;
+    }
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = -3158725367920147321L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+}
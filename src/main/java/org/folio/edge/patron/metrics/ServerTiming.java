@@ -0,0 +1,71 @@
+package org.folio.edge.patron.metrics;
+
+import java.util.Locale;
+
+import org.folio.edge.patron.resilience.UpstreamRoute;
+
+/**
+ * The stages of one request and how long each took, written out as a
+ * <code>Server-Timing</code> response header, e.g.
+ *
+ * <pre>
+ * apikey;dur=0.1, token;dur=0.2, patron;desc="cache hit";dur=0.1, mod-patron;dur=48.3, total;dur=49.1
+ * </pre>
+ *
+ * Only created for requests whose API key has it enabled. The stages of a
+ * batch request may be recorded concurrently, so recording is synchronized.
+ */
+public class ServerTiming {
+
+  public static final String STAGE_API_KEY = "apikey";
+  public static final String STAGE_TOKEN = "token";
+  public static final String STAGE_PATRON = "patron";
+  public static final String STAGE_TOTAL = "total";
+
+  public static final String DESC_CACHE_HIT = "cache hit";
+  public static final String DESC_CACHE_MISS = "cache miss";
+
+  private final long start = System.nanoTime();
+  private final StringBuilder header = new StringBuilder(128);
+
+  /**
+   * @param desc
+   *          a description of the stage, e.g. {@link #DESC_CACHE_HIT}, or null
+   */
+  public synchronized void record(String stage, String desc, long nanos) {
+    if (header.length() > 0) {
+      header.append(", ");
+    }
+    header.append(stage);
+    if (desc != null) {
+      header.append(";desc=\"").append(desc).append('"');
+    }
+    header.append(";dur=").append(String.format(Locale.ROOT, "%.1f", nanos / 1_000_000d));
+  }
+
+  public void record(String stage, long nanos) {
+    record(stage, null, nanos);
+  }
+
+  /**
+   * Records a call to FOLIO, named after the module called.
+   */
+  public void recordUpstream(UpstreamRoute route, long nanos) {
+    record(stageOf(route), nanos);
+  }
+
+  /**
+   * @return the header value, ending with the time since the request arrived
+   */
+  public synchronized String toHeader() {
+    int length = header.length();
+    record(STAGE_TOTAL, System.nanoTime() - start);
+    String value = header.toString();
+    header.setLength(length);
+    return value;
+  }
+
+  static String stageOf(UpstreamRoute route) {
+    return route.module();
+  }
+}
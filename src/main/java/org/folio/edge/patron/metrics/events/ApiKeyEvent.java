@@ -0,0 +1,26 @@
+package org.folio.edge.patron.metrics.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.folio.edge.patron.ApiKey")
+@Label("API Key Validation")
+@Description("Decoding the API key and looking up the institutional user's credentials")
+public class ApiKeyEvent extends StageEvent {
+
+  private static final ApiKeyEvent TYPE = new ApiKeyEvent();
+
+  /**
+   * @return the started event, or null if not recording it
+   */
+  public static ApiKeyEvent start(String route) {
+    if (!TYPE.isEnabled()) {
+      return null;
+    }
+    ApiKeyEvent event = new ApiKeyEvent();
+    event.route = route;
+    event.begin();
+    return event;
+  }
+}
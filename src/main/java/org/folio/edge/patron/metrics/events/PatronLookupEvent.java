@@ -0,0 +1,32 @@
+package org.folio.edge.patron.metrics.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.folio.edge.patron.PatronLookup")
+@Label("Patron ID Lookup")
+@Description("Resolving the external patron ID, from the patron ID cache or mod-users")
+public class PatronLookupEvent extends StageEvent {
+
+  private static final PatronLookupEvent TYPE = new PatronLookupEvent();
+
+  @Label("Cache Hit")
+  private boolean cacheHit;
+
+  /**
+   * @return the started event, or null if not recording it
+   */
+  public static PatronLookupEvent start() {
+    if (!TYPE.isEnabled()) {
+      return null;
+    }
+    PatronLookupEvent event = new PatronLookupEvent();
+    event.begin();
+    return event;
+  }
+
+  public void setCacheHit(boolean cacheHit) {
+    this.cacheHit = cacheHit;
+  }
+}
@@ -0,0 +1,26 @@
+package org.folio.edge.patron.metrics.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.folio.edge.patron.Request")
+@Label("Patron Request")
+@Description("A /patron request, from routing to the end of the response")
+public class RequestEvent extends StageEvent {
+
+  private static final RequestEvent TYPE = new RequestEvent();
+
+  /**
+   * @return the started event, or null if not recording it
+   */
+  public static RequestEvent start(String route) {
+    if (!TYPE.isEnabled()) {
+      return null;
+    }
+    RequestEvent event = new RequestEvent();
+    event.route = route;
+    event.begin();
+    return event;
+  }
+}
@@ -0,0 +1,26 @@
+package org.folio.edge.patron.metrics.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.folio.edge.patron.ResponseWrite")
+@Label("Response Write")
+@Description("Writing the response, from its headers to the end of its body")
+public class ResponseWriteEvent extends StageEvent {
+
+  private static final ResponseWriteEvent TYPE = new ResponseWriteEvent();
+
+  /**
+   * @return the started event, or null if not recording it
+   */
+  public static ResponseWriteEvent start(String route) {
+    if (!TYPE.isEnabled()) {
+      return null;
+    }
+    ResponseWriteEvent event = new ResponseWriteEvent();
+    event.route = route;
+    event.begin();
+    return event;
+  }
+}
@@ -0,0 +1,26 @@
+package org.folio.edge.patron.metrics.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.folio.edge.patron.Token")
+@Label("Token Fetch")
+@Description("Getting a token for the institutional user, from the token cache or by logging in")
+public class TokenEvent extends StageEvent {
+
+  private static final TokenEvent TYPE = new TokenEvent();
+
+  /**
+   * @return the started event, or null if not recording it
+   */
+  public static TokenEvent start(String route) {
+    if (!TYPE.isEnabled()) {
+      return null;
+    }
+    TokenEvent event = new TokenEvent();
+    event.route = route;
+    event.begin();
+    return event;
+  }
+}
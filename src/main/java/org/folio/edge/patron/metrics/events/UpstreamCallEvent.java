@@ -0,0 +1,32 @@
+package org.folio.edge.patron.metrics.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import org.folio.edge.patron.resilience.UpstreamRoute;
+
+@Name("org.folio.edge.patron.UpstreamCall")
+@Label("FOLIO Call")
+@Description("A call to mod-users, mod-patron or mod-circulation, retries and hedged calls included")
+public class UpstreamCallEvent extends StageEvent {
+
+  private static final UpstreamCallEvent TYPE = new UpstreamCallEvent();
+
+  @Label("Module")
+  private String module;
+
+  /**
+   * @return the started event, or null if not recording it
+   */
+  public static UpstreamCallEvent start(UpstreamRoute route) {
+    if (!TYPE.isEnabled()) {
+      return null;
+    }
+    UpstreamCallEvent event = new UpstreamCallEvent();
+    event.route = route.path();
+    event.module = route.module();
+    event.begin();
+    return event;
+  }
+}
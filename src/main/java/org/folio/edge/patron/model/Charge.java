@@ -1,15 +1,18 @@
 package org.folio.edge.patron.model;
 
 import java.io.IOException;
-import java.util.Date;
+import java.time.Instant;
 import java.util.Objects;
 
 import org.folio.edge.core.utils.Mappers;
+import org.folio.edge.patron.utils.DateTimeHelper.InstantDeserializer;
+import org.folio.edge.patron.utils.DateTimeHelper.InstantSerializer;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -19,13 +22,14 @@ public final class Charge {
 
   public final Item item;
   public final Money chargeAmount;
-  public final Date accrualDate;
+  @JsonSerialize(using = InstantSerializer.class)
+  public final Instant accrualDate;
   public final String description;
   public final String state;
   public final String reason;
   public final String feeFineId;
 
-  private Charge(Item item, Money chargeAmount, Date accrualDate, String description, String state, String reason,
+  private Charge(Item item, Money chargeAmount, Instant accrualDate, String description, String state, String reason,
       String feeFineId) {
     this.item = item;
     this.chargeAmount = chargeAmount;
@@ -43,7 +47,7 @@ public final class Charge {
   public static class Builder {
     private Item item;
     private Money chargeAmount;
-    private Date accrualDate;
+    private Instant accrualDate;
     private String description;
     private String state;
     private String reason;
@@ -62,7 +66,8 @@ public final class Charge {
     }
 
     @JsonProperty("accrualDate")
-    public Builder accrualDate(Date accrualDate) {
+    @JsonDeserialize(using = InstantDeserializer.class)
+    public Builder accrualDate(Instant accrualDate) {
       this.accrualDate = accrualDate;
       return this;
     }
@@ -1,12 +1,14 @@
 package org.folio.edge.patron.model;
 
 import java.io.IOException;
-import java.util.Date;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
 import org.folio.edge.core.utils.Mappers;
+import org.folio.edge.patron.utils.DateTimeHelper.InstantDeserializer;
+import org.folio.edge.patron.utils.DateTimeHelper.InstantSerializer;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonInclude;
@@ -15,6 +17,7 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.annotation.JsonValue;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -37,15 +40,18 @@ import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
 public final class Hold {
   public final Item item;
   public final String requestId;
-  public final Date requestDate;
-  public final Date expirationDate;
+  @JsonSerialize(using = InstantSerializer.class)
+  public final Instant requestDate;
+  @JsonSerialize(using = InstantSerializer.class)
+  public final Instant expirationDate;
   public final String pickupLocationId;
   public final Status status;
   public final int queuePosition;
   public final String cancellationReasonId;
   public final String canceledByUserId;
   public final String cancellationAdditionalInformation;
-  public final Date canceledDate;
+  @JsonSerialize(using = InstantSerializer.class)
+  public final Instant canceledDate;
   public final String patronComments;
 
   private Hold(Builder builder) {
@@ -76,10 +82,12 @@ public final class Hold {
     private String requestId;
 
     @JsonProperty("requestDate")
-    private Date requestDate;
+    @JsonDeserialize(using = InstantDeserializer.class)
+    private Instant requestDate;
 
     @JsonProperty("expirationDate")
-    private Date expirationDate;
+    @JsonDeserialize(using = InstantDeserializer.class)
+    private Instant expirationDate;
 
     @JsonProperty("pickupLocationId")
     private String pickupLocationId;
@@ -100,7 +108,8 @@ public final class Hold {
     private String cancellationAdditionalInformation;
 
     @JsonProperty("canceledDate")
-    private Date canceledDate;
+    @JsonDeserialize(using = InstantDeserializer.class)
+    private Instant canceledDate;
 
     @JsonProperty("patronComments")
     private String patronComments;
@@ -115,17 +124,17 @@ public final class Hold {
       return this;
     }
 
-    public Builder requestDate(Date requestDate) {
+    public Builder requestDate(Instant requestDate) {
       this.requestDate = requestDate;
       return this;
     }
 
-    public Builder canceledDate(Date canceledDate) {
+    public Builder canceledDate(Instant canceledDate) {
       this.canceledDate = canceledDate;
       return this;
     }
 
-    public Builder expirationDate(Date expirationDate) {
+    public Builder expirationDate(Instant expirationDate) {
       this.expirationDate = expirationDate;
       return this;
     }
@@ -5,11 +5,14 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
 import org.folio.edge.core.utils.Mappers;
+import org.folio.edge.patron.utils.DateTimeHelper.InstantDeserializer;
+import org.folio.edge.patron.utils.DateTimeHelper.InstantSerializer;
 
 import java.io.IOException;
-import java.util.Date;
+import java.time.Instant;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @JacksonXmlRootElement(localName = "holdCancellation")
@@ -26,7 +29,8 @@ public final class HoldCancellation {
   public final String cancellationReasonId;
   public final String canceledByUserId;
   public final String cancellationAdditionalInformation;
-  public final Date canceledDate;
+  @JsonSerialize(using = InstantSerializer.class)
+  public final Instant canceledDate;
 
   private HoldCancellation(Builder builder) {
     this.holdId = builder.holdId;
@@ -55,14 +59,15 @@ public final class HoldCancellation {
     private String cancellationAdditionalInformation;
 
     @JsonProperty("canceledDate")
-    private Date canceledDate;
+    @JsonDeserialize(using = InstantDeserializer.class)
+    private Instant canceledDate;
 
     public Builder canceledByUserId(String canceledByUserId) {
       this.canceledByUserId = canceledByUserId;
       return this;
     }
 
-    public Builder canceledDate(Date canceledDate) {
+    public Builder canceledDate(Instant canceledDate) {
       this.canceledDate = canceledDate;
       return this;
     }
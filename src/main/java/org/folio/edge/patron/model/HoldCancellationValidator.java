@@ -2,51 +2,56 @@ package org.folio.edge.patron.model;
 
 import io.vertx.core.json.JsonObject;
 
-import java.util.UUID;
+import org.folio.edge.patron.utils.SchemaValidator;
+import org.folio.edge.patron.utils.ValidationHelper;
 
+import static org.folio.edge.patron.Constants.FIELD_CANCELED_BY_USER_ID;
 import static org.folio.edge.patron.Constants.FIELD_CANCELLATION_REASON_ID;
 import static org.folio.edge.patron.Constants.FIELD_HOLD_ID;
+import static org.folio.edge.patron.Constants.SCHEMA_HOLD_CANCELLATION;
 
 public class HoldCancellationValidator {
 
+  // the patron cancelling may be identified by other than a UUID, and is
+  // filled in by the edge when missing
+  private static final SchemaValidator SCHEMA = SchemaValidator.builder(SCHEMA_HOLD_CANCELLATION)
+    .relax(FIELD_CANCELED_BY_USER_ID)
+    .build();
+
   private HoldCancellationValidator() {}
 
   public static String validateCancelHoldRequest(JsonObject holdCancellationRequest) {
-    String errorMessage = null;
-    try {
-      if (validateRequiredHoldCancellationFields(holdCancellationRequest)) {
-        errorMessage = "required fields for cancelling holds are missing (holdId, cancellationReasonId)";
-      } else if (areRequiredHoldCancellationFieldsUUIDs(holdCancellationRequest)) {
-        errorMessage = "invalid values for one of the required fields (holdId, cancellationReasonId)";
-      }
-    } catch (Exception e) {
-      errorMessage = "invalid holdCancellationRequest. " + e.getMessage();
+    if (holdCancellationRequest == null) {
+      // same message as when this surfaced as a NullPointerException
+      return "invalid holdCancellationRequest. null";
+    }
+    if (validateRequiredHoldCancellationFields(holdCancellationRequest)) {
+      return "required fields for cancelling holds are missing (holdId, cancellationReasonId)";
     }
-    return errorMessage;
+    if (areRequiredHoldCancellationFieldsUUIDs(holdCancellationRequest)) {
+      return "invalid values for one of the required fields (holdId, cancellationReasonId)";
+    }
+    String violation = SCHEMA.validate(holdCancellationRequest);
+    return violation == null ? null : "invalid holdCancellationRequest. " + violation;
   }
 
   private static boolean validateRequiredHoldCancellationFields(JsonObject holdCancellation) {
-    return (isNullOrEmpty(holdCancellation.getString(FIELD_HOLD_ID)) ||
-      isNullOrEmpty(holdCancellation.getString(FIELD_CANCELLATION_REASON_ID))
+    return (isNullOrEmpty(holdCancellation.getValue(FIELD_HOLD_ID)) ||
+      isNullOrEmpty(holdCancellation.getValue(FIELD_CANCELLATION_REASON_ID))
     );
   }
 
   private static boolean areRequiredHoldCancellationFieldsUUIDs(JsonObject holdCancellation) {
-    return (!isUUID (holdCancellation.getString(FIELD_HOLD_ID)) ||
-      !isUUID (holdCancellation.getString(FIELD_CANCELLATION_REASON_ID))
+    return (!isUUID(holdCancellation.getValue(FIELD_HOLD_ID)) ||
+      !isUUID(holdCancellation.getValue(FIELD_CANCELLATION_REASON_ID))
     );
   }
 
-  private static boolean isNullOrEmpty(String stringToCheck) {
-    return stringToCheck == null || stringToCheck.isEmpty();
+  private static boolean isNullOrEmpty(Object valueToCheck) {
+    return valueToCheck == null || "".equals(valueToCheck);
   }
 
-  private static boolean isUUID(String uuidString) {
-    try {
-      UUID.fromString(uuidString);
-      return true;
-    } catch (Exception ex) {
-      return false;
-    }
+  private static boolean isUUID(Object value) {
+    return value instanceof String && ValidationHelper.isUuid((String) value);
   }
 }
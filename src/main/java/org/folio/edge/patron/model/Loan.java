@@ -1,15 +1,18 @@
 package org.folio.edge.patron.model;
 
 import java.io.IOException;
-import java.util.Date;
+import java.time.Instant;
 import java.util.Objects;
 
 import org.folio.edge.core.utils.Mappers;
+import org.folio.edge.patron.utils.DateTimeHelper.InstantDeserializer;
+import org.folio.edge.patron.utils.DateTimeHelper.InstantSerializer;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -18,11 +21,13 @@ import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
 public final class Loan {
 
   public final Item item;
-  public final Date loanDate;
-  public final Date dueDate;
+  @JsonSerialize(using = InstantSerializer.class)
+  public final Instant loanDate;
+  @JsonSerialize(using = InstantSerializer.class)
+  public final Instant dueDate;
   public final boolean overdue;
 
-  private Loan(Item item, Date loanDate, Date dueDate, boolean overdue) {
+  private Loan(Item item, Instant loanDate, Instant dueDate, boolean overdue) {
     this.item = item;
     this.loanDate = loanDate;
     this.dueDate = dueDate;
@@ -39,10 +44,12 @@ public final class Loan {
     public Item item;
 
     @JsonProperty("loanDate")
-    public Date loanDate;
+    @JsonDeserialize(using = InstantDeserializer.class)
+    public Instant loanDate;
 
     @JsonProperty("dueDate")
-    public Date dueDate;
+    @JsonDeserialize(using = InstantDeserializer.class)
+    public Instant dueDate;
 
     @JsonProperty("overdue")
     public boolean overdue;
@@ -52,12 +59,12 @@ public final class Loan {
       return this;
     }
 
-    public Builder loanDate(Date loanDate) {
+    public Builder loanDate(Instant loanDate) {
       this.loanDate = loanDate;
       return this;
     }
 
-    public Builder dueDate(Date dueDate) {
+    public Builder dueDate(Instant dueDate) {
       this.dueDate = dueDate;
       return this;
     }
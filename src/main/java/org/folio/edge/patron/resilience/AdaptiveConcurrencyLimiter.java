@@ -0,0 +1,375 @@
+package org.folio.edge.patron.resilience;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * AIMD concurrency limiter for upstream calls.
+ *
+ * The limit grows by one while it's being used and a call completes within
+ * <code>rttThreshold</code>, and is multiplied by <code>backoffRatio</code>
+ * whenever a call fails or takes longer. Calls beyond the limit wait in a
+ * bounded queue; when the queue is full, or a call has waited longer than
+ * <code>maxQueueWait</code>, it's shed with a {@link LoadSheddingException}.
+ *
+ * The handlers of a queued call run on the Vert.x context it was queued
+ * from, whichever thread frees up capacity.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  private static final Logger logger = LogManager.getLogger(AdaptiveConcurrencyLimiter.class);
+
+  private static AdaptiveConcurrencyLimiter instance = null;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final long rttThresholdNanos;
+  private final int maxQueueSize;
+  private final long maxQueueWaitNanos;
+  private final int retryAfterSeconds;
+
+  private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+  private double limit;
+  private int inFlight;
+  private long shed;
+
+  private AdaptiveConcurrencyLimiter(Builder builder) {
+    this.minLimit = Math.max(1, builder.minLimit);
+    this.maxLimit = Math.max(this.minLimit, builder.maxLimit);
+    this.backoffRatio = builder.backoffRatio;
+    this.rttThresholdNanos = TimeUnit.MILLISECONDS.toNanos(builder.rttThresholdMs);
+    this.maxQueueSize = builder.maxQueueSize;
+    this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(builder.maxQueueWaitMs);
+    this.retryAfterSeconds = builder.retryAfterSeconds;
+    this.limit = Math.max(minLimit, Math.min(maxLimit, builder.initialLimit));
+    logger.info("Using initial concurrency limit {} (min {}, max {})", limit, minLimit, maxLimit);
+  }
+
+  /**
+   * Get the AdaptiveConcurrencyLimiter singleton. the singleton must be
+   * initialized before calling this method.
+   *
+   * @see {@link #initialize(Builder)}
+   *
+   * @return the AdaptiveConcurrencyLimiter singleton instance.
+   */
+  public static synchronized AdaptiveConcurrencyLimiter getInstance() {
+    if (instance == null) {
+      throw new NotInitializedException(
+          "You must call AdaptiveConcurrencyLimiter.initialize(builder) before you can get the singleton instance");
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a new AdaptiveConcurrencyLimiter instance, replacing the existing
+   * one if it already exists.
+   *
+   * @return the new AdaptiveConcurrencyLimiter singleton instance
+   */
+  public static synchronized AdaptiveConcurrencyLimiter initialize(Builder builder) {
+    if (instance != null) {
+      logger.warn("Reinitializing concurrency limiter");
+    }
+    instance = builder.build();
+    return instance;
+  }
+
+  /**
+   * Asks for permission to make an upstream call. Exactly one of the handlers
+   * is called, either right away or once capacity frees up, unless the call
+   * is cancelled while it waits.
+   *
+   * @param onAcquired
+   *          called with a token that must be completed or cancelled once the
+   *          call is done
+   * @param onRejected
+   *          called with a {@link LoadSheddingException} if the call is shed,
+   *          at the latest <code>maxQueueWait</code> after it was queued
+   * @return the waiting call if it was queued, otherwise null
+   */
+  public Waiter acquire(Handler<Token> onAcquired, Handler<Throwable> onRejected) {
+    List<Waiter> expired;
+    Waiter waiter = null;
+    boolean admitted = false;
+    synchronized (this) {
+      expired = expire(System.nanoTime());
+      if (queue.isEmpty() && inFlight < (int) limit) {
+        inFlight++;
+        admitted = true;
+      } else if (queue.size() < maxQueueSize) {
+        waiter = new Waiter(onAcquired, onRejected);
+        queue.add(waiter);
+      } else {
+        shed++;
+      }
+    }
+    if (expired != null) {
+      expired.forEach(Waiter::reject);
+    }
+    if (waiter != null) {
+      return waiter;
+    }
+    if (admitted) {
+      onAcquired.handle(new Token());
+    } else {
+      onRejected.handle(shedException());
+    }
+    return null;
+  }
+
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * @return whether the limit is reached and the queue is full, so further
+   *         calls are shed
+   */
+  public synchronized boolean isSaturated() {
+    return inFlight >= (int) limit && queue.size() >= maxQueueSize;
+  }
+
+  public synchronized JsonObject toJson() {
+    return new JsonObject()
+      .put("limit", (int) limit)
+      .put("inFlight", inFlight)
+      .put("queued", queue.size())
+      .put("shed", shed);
+  }
+
+  private LoadSheddingException shedException() {
+    return new LoadSheddingException("Too many concurrent requests to FOLIO", retryAfterSeconds);
+  }
+
+  private void release(boolean sample, boolean dropped) {
+    List<Waiter> admitted = null;
+    List<Waiter> expired;
+    synchronized (this) {
+      if (sample) {
+        if (dropped) {
+          limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlight * 2 >= limit) {
+          limit = Math.min(maxLimit, limit + 1);
+        }
+      }
+      inFlight--;
+
+      expired = expire(System.nanoTime());
+      while (!queue.isEmpty() && inFlight < (int) limit) {
+        inFlight++;
+        admitted = add(admitted, queue.poll());
+      }
+    }
+    if (expired != null) {
+      expired.forEach(Waiter::reject);
+    }
+    if (admitted != null) {
+      admitted.forEach(Waiter::admit);
+    }
+  }
+
+  /**
+   * Takes the calls that have waited longer than <code>maxQueueWait</code> off
+   * the queue, so they're shed even when no call completes. Must hold the lock.
+   */
+  private List<Waiter> expire(long now) {
+    List<Waiter> expired = null;
+    while (!queue.isEmpty() && now - queue.peek().enqueuedAt > maxQueueWaitNanos) {
+      shed++;
+      expired = add(expired, queue.poll());
+    }
+    return expired;
+  }
+
+  private static List<Waiter> add(List<Waiter> list, Waiter waiter) {
+    List<Waiter> ret = list != null ? list : new ArrayList<>();
+    ret.add(waiter);
+    return ret;
+  }
+
+  /**
+   * A call waiting for capacity.
+   */
+  public final class Waiter {
+    private final Handler<Token> onAcquired;
+    private final Handler<Throwable> onRejected;
+    private final long enqueuedAt = System.nanoTime();
+    private final Context context = Vertx.currentContext();
+    private final long timerId;
+
+    private Waiter(Handler<Token> onAcquired, Handler<Throwable> onRejected) {
+      this.onAcquired = onAcquired;
+      this.onRejected = onRejected;
+      this.timerId = context == null ? -1
+          : context.owner().setTimer(Math.max(1, TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos)), id -> expire());
+    }
+
+    /**
+     * Takes the call off the queue without calling either handler, for calls
+     * that are no longer wanted.
+     *
+     * @return whether the call was still waiting
+     */
+    public boolean cancel() {
+      synchronized (AdaptiveConcurrencyLimiter.this) {
+        if (!queue.remove(this)) {
+          return false;
+        }
+      }
+      cancelTimer();
+      return true;
+    }
+
+    private void expire() {
+      synchronized (AdaptiveConcurrencyLimiter.this) {
+        if (!queue.remove(this)) {
+          return;
+        }
+        shed++;
+      }
+      onContext(v -> onRejected.handle(shedException()));
+    }
+
+    private void admit() {
+      cancelTimer();
+      final Token token = new Token();
+      onContext(v -> onAcquired.handle(token));
+    }
+
+    private void reject() {
+      cancelTimer();
+      onContext(v -> onRejected.handle(shedException()));
+    }
+
+    private void cancelTimer() {
+      if (timerId >= 0) {
+        context.owner().cancelTimer(timerId);
+      }
+    }
+
+    private void onContext(Handler<Void> handler) {
+      if (context == null || context == Vertx.currentContext()) {
+        handler.handle(null);
+      } else {
+        context.runOnContext(handler);
+      }
+    }
+  }
+
+  /**
+   * Permission for one upstream call.
+   */
+  public final class Token {
+    private final long start = System.nanoTime();
+    private boolean released;
+
+    private Token() {
+    }
+
+    /**
+     * Releases the token and feeds the call's outcome and round trip time into
+     * the limit. Only the first call to this or {@link #cancel()} has any
+     * effect.
+     */
+    public void complete(boolean failure) {
+      if (released) {
+        return;
+      }
+      released = true;
+      release(true, failure || System.nanoTime() - start > rttThresholdNanos);
+    }
+
+    /**
+     * Releases the token without affecting the limit, for calls that were
+     * never made.
+     */
+    public void cancel() {
+      if (released) {
+        return;
+      }
+      released = true;
+      release(false, false);
+    }
+  }
+
+  public static class Builder {
+
+    private int initialLimit = 20;
+    private int minLimit = 5;
+    private int maxLimit = 200;
+    private double backoffRatio = 0.9;
+    private long rttThresholdMs = 5 * 1000L;
+    private int maxQueueSize = 100;
+    private long maxQueueWaitMs = 2 * 1000L;
+    private int retryAfterSeconds = 1;
+
+    public Builder withInitialLimit(int initialLimit) {
+      this.initialLimit = initialLimit;
+      return this;
+    }
+
+    public Builder withMinLimit(int minLimit) {
+      this.minLimit = minLimit;
+      return this;
+    }
+
+    public Builder withMaxLimit(int maxLimit) {
+      this.maxLimit = maxLimit;
+      return this;
+    }
+
+    public Builder withBackoffRatio(double backoffRatio) {
+      this.backoffRatio = backoffRatio;
+      return this;
+    }
+
+    public Builder withRttThresholdMs(long rttThresholdMs) {
+      this.rttThresholdMs = rttThresholdMs;
+      return this;
+    }
+
+    public Builder withMaxQueueSize(int maxQueueSize) {
+      this.maxQueueSize = maxQueueSize;
+      return this;
+    }
+
+    public Builder withMaxQueueWaitMs(long maxQueueWaitMs) {
+      this.maxQueueWaitMs = maxQueueWaitMs;
+      return this;
+    }
+
+    public Builder withRetryAfterSeconds(int retryAfterSeconds) {
+      this.retryAfterSeconds = retryAfterSeconds;
+      return this;
+    }
+
+    public AdaptiveConcurrencyLimiter build() {
+      return new AdaptiveConcurrencyLimiter(this);
+    }
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = 3311508185520658416L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+}
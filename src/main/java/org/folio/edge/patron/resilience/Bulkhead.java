@@ -0,0 +1,44 @@
+package org.folio.edge.patron.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the number of concurrent upstream calls.
+ */
+public class Bulkhead {
+
+  private final int maxConcurrentCalls;
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  public Bulkhead(int maxConcurrentCalls) {
+    this.maxConcurrentCalls = maxConcurrentCalls;
+  }
+
+  /**
+   * @return true if the call may proceed, in which case {@link #release()}
+   *         must be called once it completes
+   */
+  public boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= maxConcurrentCalls) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  public void release() {
+    inFlight.decrementAndGet();
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public int getMaxConcurrentCalls() {
+    return maxConcurrentCalls;
+  }
+}
@@ -0,0 +1,211 @@
+package org.folio.edge.patron.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Count-based circuit breaker.
+ *
+ * The outcome of the last <code>windowSize</code> calls is kept. Once at least
+ * <code>minimumCalls</code> have been recorded, the breaker opens when either
+ * the failure rate or the rate of slow calls reaches its threshold (in
+ * percent). While open, calls are rejected. After <code>openDuration</code> a
+ * single trial call is let through; the breaker closes again if it succeeds,
+ * and re-opens otherwise.
+ */
+public class CircuitBreaker {
+
+  private static final Logger logger = LogManager.getLogger(CircuitBreaker.class);
+
+  private static final byte FAILURE = 1;
+  private static final byte SLOW = 2;
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final String name;
+  private final int minimumCalls;
+  private final int failureRateThreshold;
+  private final int slowCallRateThreshold;
+  private final long slowCallDurationNanos;
+  private final long openDurationNanos;
+
+  private final byte[] outcomes;
+  private int next;
+  private int calls;
+  private int failures;
+  private int slowCalls;
+
+  private State state = State.CLOSED;
+  private long openedAt;
+  private boolean trialInFlight;
+
+  private CircuitBreaker(String name, Builder builder) {
+    this.name = name;
+    this.outcomes = new byte[builder.windowSize];
+    this.minimumCalls = Math.min(builder.minimumCalls, builder.windowSize);
+    this.failureRateThreshold = builder.failureRateThreshold;
+    this.slowCallRateThreshold = builder.slowCallRateThreshold;
+    this.slowCallDurationNanos = TimeUnit.MILLISECONDS.toNanos(builder.slowCallDurationMs);
+    this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(builder.openDurationMs);
+  }
+
+  /**
+   * @return true if the call may proceed, in which case
+   *         {@link #onResult(boolean, long)} must be called once it completes
+   */
+  public synchronized boolean tryAcquire() {
+    if (state == State.CLOSED) {
+      return true;
+    }
+    if (state == State.OPEN) {
+      if (System.nanoTime() - openedAt < openDurationNanos) {
+        return false;
+      }
+      logger.info("Circuit breaker {} is half-open", name);
+      state = State.HALF_OPEN;
+      trialInFlight = false;
+    }
+    if (trialInFlight) {
+      return false;
+    }
+    trialInFlight = true;
+    return true;
+  }
+
+  /**
+   * Records the outcome of a call let through by {@link #tryAcquire()}.
+   *
+   * @param failure whether the call failed
+   * @param durationNanos how long the call took
+   */
+  public synchronized void onResult(boolean failure, long durationNanos) {
+    boolean slow = durationNanos >= slowCallDurationNanos;
+
+    if (state == State.HALF_OPEN) {
+      trialInFlight = false;
+      if (failure || slow) {
+        open();
+      } else {
+        close();
+      }
+      return;
+    }
+
+    if (state == State.OPEN) {
+      // a call that started before the breaker opened
+      return;
+    }
+
+    record(failure, slow);
+    if (calls >= minimumCalls
+        && (failures * 100 >= failureRateThreshold * calls || slowCalls * 100 >= slowCallRateThreshold * calls)) {
+      open();
+    }
+  }
+
+  public synchronized State getState() {
+    if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+      return State.HALF_OPEN;
+    }
+    return state;
+  }
+
+  public synchronized JsonObject toJson() {
+    return new JsonObject()
+      .put("state", getState().name())
+      .put("calls", calls)
+      .put("failures", failures)
+      .put("slowCalls", slowCalls);
+  }
+
+  private void record(boolean failure, boolean slow) {
+    byte outcome = (byte) ((failure ? FAILURE : 0) | (slow ? SLOW : 0));
+    if (calls == outcomes.length) {
+      byte evicted = outcomes[next];
+      failures -= evicted & FAILURE;
+      slowCalls -= (evicted & SLOW) >> 1;
+    } else {
+      calls++;
+    }
+    outcomes[next] = outcome;
+    next = (next + 1) % outcomes.length;
+    failures += outcome & FAILURE;
+    slowCalls += (outcome & SLOW) >> 1;
+  }
+
+  private void open() {
+    logger.warn("Opening circuit breaker {}: {} failures and {} slow calls in the last {} calls",
+      name, failures, slowCalls, calls);
+    state = State.OPEN;
+    openedAt = System.nanoTime();
+    reset();
+  }
+
+  private void close() {
+    logger.info("Closing circuit breaker {}", name);
+    state = State.CLOSED;
+    reset();
+  }
+
+  private void reset() {
+    next = 0;
+    calls = 0;
+    failures = 0;
+    slowCalls = 0;
+  }
+
+  /**
+   * Holds the settings shared by every circuit breaker it builds.
+   */
+  public static class Builder {
+
+    private int windowSize = 50;
+    private int minimumCalls = 20;
+    private int failureRateThreshold = 50;
+    private int slowCallRateThreshold = 80;
+    private long slowCallDurationMs = 10 * 1000L;
+    private long openDurationMs = 30 * 1000L;
+
+    public Builder withWindowSize(int windowSize) {
+      this.windowSize = windowSize;
+      return this;
+    }
+
+    public Builder withMinimumCalls(int minimumCalls) {
+      this.minimumCalls = minimumCalls;
+      return this;
+    }
+
+    public Builder withFailureRateThreshold(int failureRateThreshold) {
+      this.failureRateThreshold = failureRateThreshold;
+      return this;
+    }
+
+    public Builder withSlowCallRateThreshold(int slowCallRateThreshold) {
+      this.slowCallRateThreshold = slowCallRateThreshold;
+      return this;
+    }
+
+    public Builder withSlowCallDurationMs(long slowCallDurationMs) {
+      this.slowCallDurationMs = slowCallDurationMs;
+      return this;
+    }
+
+    public Builder withOpenDurationMs(long openDurationMs) {
+      this.openDurationMs = openDurationMs;
+      return this;
+    }
+
+    public CircuitBreaker build(String name) {
+      return new CircuitBreaker(name, this);
+    }
+  }
+}
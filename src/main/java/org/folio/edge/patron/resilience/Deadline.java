@@ -0,0 +1,48 @@
+package org.folio.edge.patron.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point in time by which an edge request must be answered. Every upstream
+ * call made for the request gets only the time that remains, rather than the
+ * full request timeout.
+ */
+public final class Deadline {
+
+  private final long budgetMs;
+  private final long expiresAtNanos;
+
+  private Deadline(long budgetMs) {
+    this.budgetMs = budgetMs;
+    this.expiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+  }
+
+  /**
+   * @param budgetMs
+   *          time allowed from now on, in ms
+   */
+  public static Deadline after(long budgetMs) {
+    return new Deadline(budgetMs);
+  }
+
+  /**
+   * @return the time left in ms, 0 or less once the deadline has passed
+   */
+  public long remainingMs() {
+    return TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime());
+  }
+
+  public boolean isExpired() {
+    return expiresAtNanos - System.nanoTime() <= 0;
+  }
+
+  public DeadlineExceededException exceeded(String what) {
+    return new DeadlineExceededException(
+        String.format("Deadline of %d ms exceeded before %s completed", budgetMs, what));
+  }
+
+  @Override
+  public String toString() {
+    return "Deadline[budget " + budgetMs + " ms, remaining " + remainingMs() + " ms]";
+  }
+}
@@ -0,0 +1,16 @@
+package org.folio.edge.patron.resilience;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Signals that the time budget of an edge request ran out before an upstream
+ * call completed, or before it could be made.
+ */
+public class DeadlineExceededException extends TimeoutException {
+
+  private static final long serialVersionUID = -3594512389065173040L;
+
+  public DeadlineExceededException(String msg) {
+    super(msg);
+  }
+}
@@ -0,0 +1,188 @@
+package org.folio.edge.patron.resilience;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Measures how far behind each event loop is, with a periodic timer per event
+ * loop that notes how late it fires. The timers are set up by the verticles
+ * serving requests, on their own event loops, so exactly the event loops that
+ * handle requests are measured.
+ *
+ * An event loop that is blocked can't fire its timer, so the lag also counts
+ * the time since the last tick. Requests are considered overloaded when the
+ * lag of the event loop handling them, or of the slowest event loop if that
+ * isn't known, exceeds the threshold; a threshold of 0 disables shedding.
+ */
+public class EventLoopLagMonitor {
+
+  private static final Logger logger = LogManager.getLogger(EventLoopLagMonitor.class);
+
+  private static EventLoopLagMonitor instance = null;
+
+  private final long intervalNanos;
+  private final long thresholdNanos;
+  private final Map<Thread, Probe> probes = new ConcurrentHashMap<>();
+
+  private EventLoopLagMonitor(long intervalMs, long thresholdMs) {
+    logger.info("Measuring event loop lag every {} ms, shedding above {} ms", intervalMs, thresholdMs);
+    this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, intervalMs));
+    this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, thresholdMs));
+  }
+
+  /**
+   * Get the EventLoopLagMonitor singleton. the singleton must be initialized
+   * before calling this method.
+   *
+   * @see {@link #initialize(long, long)}
+   *
+   * @return the EventLoopLagMonitor singleton instance.
+   */
+  public static synchronized EventLoopLagMonitor getInstance() {
+    if (instance == null) {
+      throw new NotInitializedException(
+          "You must call EventLoopLagMonitor.initialize(intervalMs, thresholdMs) before you can get the singleton instance");
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a new EventLoopLagMonitor instance, replacing and stopping the
+   * existing one if it already exists. Nothing is measured until
+   * {@link #monitorCurrentEventLoop()} is called.
+   *
+   * @param intervalMs
+   *          how often to measure, in ms
+   * @param thresholdMs
+   *          lag above which requests are shed, in ms; 0 to never shed
+   * @return the new EventLoopLagMonitor singleton instance
+   */
+  public static synchronized EventLoopLagMonitor initialize(long intervalMs, long thresholdMs) {
+    if (instance != null) {
+      logger.warn("Reinitializing event loop lag monitor");
+      instance.close();
+    }
+    instance = new EventLoopLagMonitor(intervalMs, thresholdMs);
+    return instance;
+  }
+
+  /**
+   * Starts measuring the event loop of the current Vert.x context, e.g. from
+   * the start of a verticle. Event loops already measured, and threads that
+   * aren't event loops, are left alone.
+   */
+  public void monitorCurrentEventLoop() {
+    Context context = Vertx.currentContext();
+    if (context == null || !context.isEventLoopContext()) {
+      logger.debug("Not on an event loop, not measuring lag of {}", Thread.currentThread().getName());
+      return;
+    }
+    probes.computeIfAbsent(Thread.currentThread(), thread -> {
+      logger.info("Measuring lag of {}", thread.getName());
+      return new Probe(context.owner());
+    });
+  }
+
+  public void close() {
+    probes.values().forEach(Probe::cancel);
+    probes.clear();
+  }
+
+  /**
+   * @return whether requests on the current thread's event loop should be
+   *         shed
+   */
+  public boolean isOverloaded() {
+    if (thresholdNanos == 0) {
+      return false;
+    }
+    long now = System.nanoTime();
+    Probe probe = probes.get(Thread.currentThread());
+    return (probe != null ? probe.lagNanos(now) : getMaxLagNanos(now)) > thresholdNanos;
+  }
+
+  /**
+   * @return the lag of the slowest event loop, in ms
+   */
+  public long getMaxLagMs() {
+    return TimeUnit.NANOSECONDS.toMillis(getMaxLagNanos(System.nanoTime()));
+  }
+
+  /**
+   * @return whether the slowest event loop is above the threshold
+   */
+  public boolean isAnyOverloaded() {
+    return thresholdNanos > 0 && getMaxLagNanos(System.nanoTime()) > thresholdNanos;
+  }
+
+  public JsonObject toJson() {
+    long now = System.nanoTime();
+    JsonArray eventLoops = new JsonArray();
+    probes.forEach((thread, probe) -> eventLoops.add(new JsonObject()
+      .put("thread", thread.getName())
+      .put("lagMs", TimeUnit.NANOSECONDS.toMillis(probe.lagNanos(now)))));
+    return new JsonObject()
+      .put("thresholdMs", TimeUnit.NANOSECONDS.toMillis(thresholdNanos))
+      .put("maxLagMs", TimeUnit.NANOSECONDS.toMillis(getMaxLagNanos(now)))
+      .put("eventLoops", eventLoops);
+  }
+
+  private long getMaxLagNanos(long now) {
+    long max = 0;
+    for (Probe probe : probes.values()) {
+      max = Math.max(max, probe.lagNanos(now));
+    }
+    return max;
+  }
+
+  private final class Probe {
+    private final Vertx vertx;
+    private final long timerId;
+    private volatile long lastTick;
+    private volatile long lastLag;
+
+    /**
+     * Must be created on the event loop to measure, which the timer then
+     * fires on.
+     */
+    private Probe(Vertx vertx) {
+      this.vertx = vertx;
+      this.lastTick = System.nanoTime();
+      this.timerId = vertx.setPeriodic(TimeUnit.NANOSECONDS.toMillis(intervalNanos), id -> {
+        long now = System.nanoTime();
+        lastLag = Math.max(0, now - lastTick - intervalNanos);
+        lastTick = now;
+      });
+    }
+
+    private void cancel() {
+      vertx.cancelTimer(timerId);
+    }
+
+    /**
+     * @return the lag of the last tick, or the time the next tick is overdue
+     *         if greater
+     */
+    private long lagNanos(long now) {
+      return Math.max(lastLag, now - lastTick - intervalNanos);
+    }
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = 2907640264539174413L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package org.folio.edge.patron.resilience;
+
+/**
+ * Signals that an upstream call was shed by the
+ * {@link AdaptiveConcurrencyLimiter}.
+ */
+public class LoadSheddingException extends UpstreamUnavailableException {
+
+  private static final long serialVersionUID = -3705218846069911208L;
+
+  public LoadSheddingException(String msg, int retryAfterSeconds) {
+    super(msg, retryAfterSeconds);
+  }
+}
@@ -0,0 +1,256 @@
+package org.folio.edge.patron.resilience;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Token bucket rate limits per API key and per tenant, so one client can't
+ * use up the capacity FOLIO has for everyone else.
+ *
+ * Each bucket keeps its whole state in one {@link AtomicLong}, the time at
+ * which it will be full again (the theoretical arrival time of the generic
+ * cell rate algorithm), and takes a token with a compare-and-set; there are
+ * no locks on the request path.
+ *
+ * A rate of 0 disables the respective limit.
+ */
+public class RateLimiter {
+
+  private static final Logger logger = LogManager.getLogger(RateLimiter.class);
+
+  private static RateLimiter instance = null;
+
+  private final int apiKeyRate;
+  private final int apiKeyBurst;
+  private final int tenantRate;
+  private final int tenantBurst;
+  private final Map<String, TokenBucket> apiKeyBuckets = new ConcurrentHashMap<>();
+  private final Map<String, TokenBucket> tenantBuckets = new ConcurrentHashMap<>();
+
+  private RateLimiter(Builder builder) {
+    this.apiKeyRate = Math.max(0, builder.apiKeyRate);
+    this.apiKeyBurst = builder.apiKeyBurst > 0 ? builder.apiKeyBurst : this.apiKeyRate;
+    this.tenantRate = Math.max(0, builder.tenantRate);
+    this.tenantBurst = builder.tenantBurst > 0 ? builder.tenantBurst : this.tenantRate;
+    logger.info("Rate limit per API key: {}/s (burst {}), per tenant: {}/s (burst {})", apiKeyRate, apiKeyBurst,
+        tenantRate, tenantBurst);
+  }
+
+  /**
+   * Get the RateLimiter singleton. the singleton must be initialized before
+   * calling this method.
+   *
+   * @see {@link #initialize(Builder)}
+   *
+   * @return the RateLimiter singleton instance.
+   */
+  public static synchronized RateLimiter getInstance() {
+    if (instance == null) {
+      throw new NotInitializedException(
+          "You must call RateLimiter.initialize(builder) before you can get the singleton instance");
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a new RateLimiter instance, replacing the existing one if it
+   * already exists; in which case all buckets and metrics are lost.
+   *
+   * @return the new RateLimiter singleton instance
+   */
+  public static synchronized RateLimiter initialize(Builder builder) {
+    if (instance != null) {
+      logger.warn("Reinitializing rate limiter.  All buckets will be lost");
+    }
+    instance = builder.build();
+    return instance;
+  }
+
+  /**
+   * Takes a token from the API key's and the tenant's bucket.
+   *
+   * @return 0 if the request may proceed, otherwise how long to wait before
+   *         trying again, in ms
+   */
+  public long tryAcquire(String apiKey, String tenant) {
+    final long now = System.nanoTime();
+    TokenBucket apiKeyBucket = apiKeyRate == 0 ? null
+        : apiKeyBuckets.computeIfAbsent(apiKey, k -> new TokenBucket(hash(k), apiKeyRate, apiKeyBurst, now));
+    TokenBucket tenantBucket = tenantRate == 0 ? null
+        : tenantBuckets.computeIfAbsent(tenant, t -> new TokenBucket(t, tenantRate, tenantBurst, now));
+
+    long waitNanos = apiKeyBucket == null ? 0 : apiKeyBucket.tryAcquire(now);
+    if (waitNanos == 0 && tenantBucket != null) {
+      waitNanos = tenantBucket.tryAcquire(now);
+      if (waitNanos > 0 && apiKeyBucket != null) {
+        // the client's token wasn't used after all
+        apiKeyBucket.release();
+      }
+    }
+    return waitNanos == 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+  }
+
+  /**
+   * API keys are shown by a prefix of their SHA-256 hash.
+   */
+  public JsonObject toJson() {
+    return new JsonObject()
+      .put("apiKey", limitJson(apiKeyRate, apiKeyBurst, apiKeyBuckets))
+      .put("tenant", limitJson(tenantRate, tenantBurst, tenantBuckets));
+  }
+
+  private static JsonObject limitJson(int rate, int burst, Map<String, TokenBucket> buckets) {
+    JsonArray json = new JsonArray();
+    buckets.values().forEach(bucket -> json.add(bucket.toJson()));
+    return new JsonObject()
+      .put("ratePerSecond", rate)
+      .put("burst", burst)
+      .put("buckets", json);
+  }
+
+  private static String hash(String apiKey) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder();
+      for (int i = 0; i < 6; i++) {
+        hex.append(String.format("%02x", digest[i]));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      // every JVM has SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  static final class TokenBucket {
+    private final String name;
+    /** time between tokens */
+    private final long intervalNanos;
+    /** how far ahead of now the bucket may be drawn */
+    private final long toleranceNanos;
+    private final AtomicLong fullAt;
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    TokenBucket(String name, int ratePerSecond, int burst, long now) {
+      this.name = name;
+      this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+      this.toleranceNanos = intervalNanos * burst;
+      this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * @return 0 if a token was taken, otherwise the time until one is
+     *         available, in ns
+     */
+    long tryAcquire(long now) {
+      while (true) {
+        long current = fullAt.get();
+        long base = Math.max(current, now);
+        long next = base + intervalNanos;
+        if (next - now > toleranceNanos) {
+          rejected.increment();
+          return next - now - toleranceNanos;
+        }
+        if (fullAt.compareAndSet(current, next)) {
+          allowed.increment();
+          return 0;
+        }
+      }
+    }
+
+    /**
+     * Returns a token taken by {@link #tryAcquire(long)}.
+     */
+    void release() {
+      fullAt.addAndGet(-intervalNanos);
+      allowed.decrement();
+    }
+
+    /**
+     * @return the tokens left at the given time
+     */
+    long available(long now) {
+      long drawn = Math.max(0, fullAt.get() - now);
+      return (toleranceNanos - drawn) / intervalNanos;
+    }
+
+    JsonObject toJson() {
+      return new JsonObject()
+        .put("name", name)
+        .put("allowed", allowed.sum())
+        .put("rejected", rejected.sum())
+        .put("available", available(System.nanoTime()));
+    }
+  }
+
+  public static class Builder {
+    private int apiKeyRate = 0;
+    private int apiKeyBurst = 0;
+    private int tenantRate = 0;
+    private int tenantBurst = 0;
+
+    /**
+     * @param apiKeyRate
+     *          requests per second allowed per API key; 0 for no limit
+     */
+    public Builder withApiKeyRate(int apiKeyRate) {
+      this.apiKeyRate = apiKeyRate;
+      return this;
+    }
+
+    /**
+     * @param apiKeyBurst
+     *          requests an API key may make at once after being idle; 0 for
+     *          the rate
+     */
+    public Builder withApiKeyBurst(int apiKeyBurst) {
+      this.apiKeyBurst = apiKeyBurst;
+      return this;
+    }
+
+    /**
+     * @param tenantRate
+     *          requests per second allowed per tenant; 0 for no limit
+     */
+    public Builder withTenantRate(int tenantRate) {
+      this.tenantRate = tenantRate;
+      return this;
+    }
+
+    /**
+     * @param tenantBurst
+     *          requests a tenant may make at once after being idle; 0 for the
+     *          rate
+     */
+    public Builder withTenantBurst(int tenantBurst) {
+      this.tenantBurst = tenantBurst;
+      return this;
+    }
+
+    public RateLimiter build() {
+      return new RateLimiter(this);
+    }
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = 7418326218830546187L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+}
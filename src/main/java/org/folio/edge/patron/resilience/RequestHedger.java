@@ -0,0 +1,308 @@
+package org.folio.edge.patron.resilience;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Hedges idempotent upstream calls: if a call hasn't answered within the
+ * route's observed p95 latency, the same call is sent once more and whichever
+ * answers first wins. The response of the other call is discarded.
+ *
+ * Every call earns the route <code>budgetPercent</code> / 100 of a hedge, and
+ * every hedge spends one, so hedges add at most <code>budgetPercent</code>
+ * percent to the load in the long run. Routes don't hedge until
+ * <code>minSamples</code> latencies have been recorded.
+ */
+public class RequestHedger {
+
+  private static final Logger logger = LogManager.getLogger(RequestHedger.class);
+
+  private static final double PERCENTILE = 0.95;
+  private static final double MAX_BUDGET_BURST = 10;
+
+  private static RequestHedger instance = null;
+
+  private final boolean enabled;
+  private final double budgetRatio;
+  private final long minDelayMs;
+  private final int minSamples;
+  private final int windowSize;
+  private final Map<UpstreamRoute, RouteStats> stats = new ConcurrentHashMap<>();
+
+  private RequestHedger(Builder builder) {
+    this.enabled = builder.enabled;
+    this.budgetRatio = builder.budgetPercent / 100.0;
+    this.minDelayMs = Math.max(1, builder.minDelayMs);
+    this.windowSize = Math.max(1, builder.windowSize);
+    this.minSamples = Math.max(1, Math.min(builder.minSamples, this.windowSize));
+    logger.info("Request hedging enabled: {} (budget {}%, min delay {} ms)", enabled, builder.budgetPercent,
+        minDelayMs);
+  }
+
+  /**
+   * Get the RequestHedger singleton. the singleton must be initialized before
+   * calling this method.
+   *
+   * @see {@link #initialize(Builder)}
+   *
+   * @return the RequestHedger singleton instance.
+   */
+  public static synchronized RequestHedger getInstance() {
+    if (instance == null) {
+      throw new NotInitializedException(
+          "You must call RequestHedger.initialize(builder) before you can get the singleton instance");
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a new RequestHedger instance, replacing the existing one if it
+   * already exists; in which case all latency samples and metrics are lost.
+   *
+   * @return the new RequestHedger singleton instance
+   */
+  public static synchronized RequestHedger initialize(Builder builder) {
+    if (instance != null) {
+      logger.warn("Reinitializing request hedger.  All latency samples will be lost");
+    }
+    instance = builder.build();
+    return instance;
+  }
+
+  /**
+   * Makes an idempotent call, hedging it if it's slow. Exactly one of the
+   * handlers is called: with the first response, or with the last failure if
+   * every attempt failed.
+   *
+   * Must be called on a Vert.x context to hedge; otherwise the call is simply
+   * made once.
+   *
+   * @param route
+   *          the route being called, whose latencies determine the hedge delay
+   * @param call
+   *          makes one attempt, calling one of the given handlers
+   */
+  public <T> void execute(UpstreamRoute route, BiConsumer<Handler<T>, Handler<Throwable>> call,
+      Handler<T> responseHandler, Handler<Throwable> exceptionHandler) {
+    Context context = Vertx.currentContext();
+    if (!enabled || context == null) {
+      call.accept(responseHandler, exceptionHandler);
+      return;
+    }
+    RouteStats routeStats = stats.computeIfAbsent(route, r -> new RouteStats(windowSize, minSamples));
+    new HedgedCall<>(context.owner(), routeStats, call, responseHandler, exceptionHandler).start();
+  }
+
+  public JsonObject toJson() {
+    JsonArray routes = new JsonArray();
+    stats.forEach((route, routeStats) -> routes.add(routeStats.toJson().put("route", route.path())));
+    return new JsonObject()
+      .put("enabled", enabled)
+      .put("routes", routes);
+  }
+
+  private final class HedgedCall<T> {
+    private final Vertx vertx;
+    private final RouteStats routeStats;
+    private final BiConsumer<Handler<T>, Handler<Throwable>> call;
+    private final Handler<T> responseHandler;
+    private final Handler<Throwable> exceptionHandler;
+
+    private final AtomicBoolean done = new AtomicBoolean();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile long timerId = -1;
+
+    private HedgedCall(Vertx vertx, RouteStats routeStats, BiConsumer<Handler<T>, Handler<Throwable>> call,
+        Handler<T> responseHandler, Handler<Throwable> exceptionHandler) {
+      this.vertx = vertx;
+      this.routeStats = routeStats;
+      this.call = call;
+      this.responseHandler = responseHandler;
+      this.exceptionHandler = exceptionHandler;
+    }
+
+    private void start() {
+      routeStats.onCall(budgetRatio);
+      send(false);
+      long p95Nanos = routeStats.getP95Nanos();
+      if (p95Nanos >= 0 && !done.get()) {
+        long delayMs = Math.max(minDelayMs, TimeUnit.NANOSECONDS.toMillis(p95Nanos));
+        timerId = vertx.setTimer(delayMs, id -> hedge());
+      }
+    }
+
+    private void hedge() {
+      timerId = -1;
+      if (done.get() || !routeStats.tryHedge()) {
+        return;
+      }
+      send(true);
+    }
+
+    private void send(boolean hedge) {
+      outstanding.incrementAndGet();
+      final long start = System.nanoTime();
+      call.accept(
+        resp -> {
+          outstanding.decrementAndGet();
+          routeStats.record(System.nanoTime() - start);
+          if (!finish()) {
+            logger.debug("Discarding response of losing {} call", hedge ? "hedged" : "original");
+            return;
+          }
+          if (hedge) {
+            routeStats.onHedgeWin();
+          }
+          responseHandler.handle(resp);
+        },
+        t -> {
+          // wait for the other attempt, if there is one
+          if (outstanding.decrementAndGet() > 0 || !finish()) {
+            return;
+          }
+          exceptionHandler.handle(t);
+        });
+    }
+
+    private boolean finish() {
+      if (!done.compareAndSet(false, true)) {
+        return false;
+      }
+      long id = timerId;
+      if (id >= 0) {
+        vertx.cancelTimer(id);
+      }
+      return true;
+    }
+  }
+
+  private static final class RouteStats {
+    private final long[] samples;
+    private final int minSamples;
+    private int next;
+    private int count;
+    private int sinceUpdate;
+    private volatile long p95Nanos = -1;
+
+    private double budget;
+    private long calls;
+    private long hedges;
+    private long hedgeWins;
+
+    private RouteStats(int windowSize, int minSamples) {
+      this.samples = new long[windowSize];
+      this.minSamples = minSamples;
+    }
+
+    private long getP95Nanos() {
+      return p95Nanos;
+    }
+
+    private synchronized void onCall(double budgetRatio) {
+      calls++;
+      budget = Math.min(MAX_BUDGET_BURST, budget + budgetRatio);
+    }
+
+    private synchronized boolean tryHedge() {
+      if (budget < 1) {
+        return false;
+      }
+      budget--;
+      hedges++;
+      return true;
+    }
+
+    private synchronized void onHedgeWin() {
+      hedgeWins++;
+    }
+
+    /**
+     * Records a latency. Once there are enough samples, the percentile is
+     * recomputed from the window every tenth of a window rather than on every
+     * call.
+     */
+    private synchronized void record(long nanos) {
+      samples[next] = nanos;
+      next = (next + 1) % samples.length;
+      if (count < samples.length) {
+        count++;
+      }
+      if (count >= minSamples && (++sinceUpdate >= Math.max(1, samples.length / 10) || p95Nanos < 0)) {
+        sinceUpdate = 0;
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        p95Nanos = sorted[(int) Math.ceil(count * PERCENTILE) - 1];
+      }
+    }
+
+    private synchronized JsonObject toJson() {
+      return new JsonObject()
+        .put("calls", calls)
+        .put("hedges", hedges)
+        .put("hedgeWins", hedgeWins)
+        .put("hedgeRate", calls == 0 ? 0.0 : (double) hedges / calls)
+        .put("p95Ms", p95Nanos < 0 ? null : TimeUnit.NANOSECONDS.toMillis(p95Nanos));
+    }
+  }
+
+  public static class Builder {
+
+    private boolean enabled = false;
+    private int budgetPercent = 5;
+    private long minDelayMs = 10;
+    private int minSamples = 100;
+    private int windowSize = 1000;
+
+    public Builder withEnabled(boolean enabled) {
+      this.enabled = enabled;
+      return this;
+    }
+
+    public Builder withBudgetPercent(int budgetPercent) {
+      this.budgetPercent = budgetPercent;
+      return this;
+    }
+
+    public Builder withMinDelayMs(long minDelayMs) {
+      this.minDelayMs = minDelayMs;
+      return this;
+    }
+
+    public Builder withMinSamples(int minSamples) {
+      this.minSamples = minSamples;
+      return this;
+    }
+
+    public Builder withWindowSize(int windowSize) {
+      this.windowSize = windowSize;
+      return this;
+    }
+
+    public RequestHedger build() {
+      return new RequestHedger(this);
+    }
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = 6210719538440357102L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+}
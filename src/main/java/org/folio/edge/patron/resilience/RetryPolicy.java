@@ -0,0 +1,261 @@
+package org.folio.edge.patron.resilience;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClosedException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpResponse;
+
+/**
+ * Retries idempotent upstream calls that failed to connect, lost their
+ * connection, or were answered with 502, 503 or 504.
+ *
+ * Retries wait for an exponential backoff with full jitter, and are only made
+ * if the wait ends before the request's deadline. Each route has a token
+ * bucket, starting out full: every call adds <code>budgetPercent</code> / 100
+ * of a token, and every retry takes one, so during an outage retries add at
+ * most <code>budgetPercent</code> percent to the load once the bucket is
+ * empty.
+ */
+public class RetryPolicy {
+
+  private static final Logger logger = LogManager.getLogger(RetryPolicy.class);
+
+  private static RetryPolicy instance = null;
+
+  private final int maxAttempts;
+  private final long baseDelayMs;
+  private final long maxDelayMs;
+  private final double budgetRatio;
+  private final double maxBudgetTokens;
+  private final Map<UpstreamRoute, RetryBudget> budgets = new ConcurrentHashMap<>();
+
+  private RetryPolicy(Builder builder) {
+    this.maxAttempts = Math.max(1, builder.maxAttempts);
+    this.baseDelayMs = Math.max(1, builder.baseDelayMs);
+    this.maxDelayMs = Math.max(this.baseDelayMs, builder.maxDelayMs);
+    this.budgetRatio = builder.budgetPercent / 100.0;
+    this.maxBudgetTokens = builder.maxBudgetTokens;
+    logger.info("Using max attempts {} for idempotent upstream calls (backoff {}-{} ms, budget {}%)",
+        maxAttempts, baseDelayMs, maxDelayMs, builder.budgetPercent);
+  }
+
+  /**
+   * Get the RetryPolicy singleton. the singleton must be initialized before
+   * calling this method.
+   *
+   * @see {@link #initialize(Builder)}
+   *
+   * @return the RetryPolicy singleton instance.
+   */
+  public static synchronized RetryPolicy getInstance() {
+    if (instance == null) {
+      throw new NotInitializedException(
+          "You must call RetryPolicy.initialize(builder) before you can get the singleton instance");
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a new RetryPolicy instance, replacing the existing one if it
+   * already exists; in which case all retry budgets are refilled.
+   *
+   * @return the new RetryPolicy singleton instance
+   */
+  public static synchronized RetryPolicy initialize(Builder builder) {
+    if (instance != null) {
+      logger.warn("Reinitializing retry policy.  All retry budgets will be reset");
+    }
+    instance = builder.build();
+    return instance;
+  }
+
+  /**
+   * Makes an idempotent call, retrying it if it fails transiently. Exactly one
+   * of the handlers is called, with the outcome of the last attempt.
+   *
+   * Must be called on a Vert.x context to retry; otherwise the call is simply
+   * made once.
+   *
+   * @param deadline
+   *          the request's deadline, or null if there is none
+   * @param call
+   *          makes one attempt, calling one of the given handlers
+   */
+  public void execute(UpstreamRoute route, Deadline deadline,
+      BiConsumer<Handler<HttpResponse<Buffer>>, Handler<Throwable>> call,
+      Handler<HttpResponse<Buffer>> responseHandler, Handler<Throwable> exceptionHandler) {
+    RetryBudget budget = budgets.computeIfAbsent(route, r -> new RetryBudget(maxBudgetTokens));
+    budget.deposit(budgetRatio, maxBudgetTokens);
+    Context context = Vertx.currentContext();
+    if (maxAttempts == 1 || context == null) {
+      call.accept(responseHandler, exceptionHandler);
+      return;
+    }
+    attempt(context.owner(), route, budget, deadline, call, responseHandler, exceptionHandler, 1);
+  }
+
+  public JsonObject toJson() {
+    JsonArray routes = new JsonArray();
+    budgets.forEach((route, budget) -> routes.add(budget.toJson().put("route", route.path())));
+    return new JsonObject()
+      .put("maxAttempts", maxAttempts)
+      .put("routes", routes);
+  }
+
+  private void attempt(Vertx vertx, UpstreamRoute route, RetryBudget budget, Deadline deadline,
+      BiConsumer<Handler<HttpResponse<Buffer>>, Handler<Throwable>> call,
+      Handler<HttpResponse<Buffer>> responseHandler, Handler<Throwable> exceptionHandler, int attempt) {
+    final Handler<Void> next = v -> attempt(vertx, route, budget, deadline, call, responseHandler,
+        exceptionHandler, attempt + 1);
+    call.accept(
+      resp -> {
+        if (!isRetryable(resp.statusCode())
+            || !scheduleRetry(vertx, route, budget, deadline, attempt, "status " + resp.statusCode(), next)) {
+          responseHandler.handle(resp);
+        }
+      },
+      t -> {
+        if (!isRetryable(t) || !scheduleRetry(vertx, route, budget, deadline, attempt, t.toString(), next)) {
+          exceptionHandler.handle(t);
+        }
+      });
+  }
+
+  private boolean scheduleRetry(Vertx vertx, UpstreamRoute route, RetryBudget budget, Deadline deadline,
+      int attempt, String cause, Handler<Void> next) {
+    if (attempt >= maxAttempts) {
+      return false;
+    }
+    long delayMs = backoffMs(attempt);
+    if (deadline != null && delayMs >= deadline.remainingMs()) {
+      logger.debug("Not retrying {}: {} left", route.path(), deadline);
+      return false;
+    }
+    if (!budget.tryWithdraw()) {
+      logger.warn("Not retrying {} after {}: retry budget exhausted", route.path(), cause);
+      return false;
+    }
+    logger.info("Retrying {} in {} ms after {} (attempt {} of {})", route.path(), delayMs, cause, attempt + 1,
+        maxAttempts);
+    vertx.setTimer(delayMs, id -> next.handle(null));
+    return true;
+  }
+
+  /**
+   * @return a random delay between 1 ms and the exponential backoff for the
+   *         given attempt
+   */
+  private long backoffMs(int attempt) {
+    long ceiling = maxDelayMs;
+    if (attempt <= 30) {
+      ceiling = Math.min(maxDelayMs, baseDelayMs << (attempt - 1));
+    }
+    return 1 + ThreadLocalRandom.current().nextLong(ceiling);
+  }
+
+  static boolean isRetryable(int statusCode) {
+    return statusCode == 502 || statusCode == 503 || statusCode == 504;
+  }
+
+  /**
+   * Connection failures are retryable; timeouts and calls rejected by the
+   * circuit breakers or concurrency limits are not.
+   */
+  static boolean isRetryable(Throwable t) {
+    return t instanceof IOException || t instanceof HttpClosedException;
+  }
+
+  private static final class RetryBudget {
+    private double tokens;
+    private long calls;
+    private long retries;
+    private long exhausted;
+
+    private RetryBudget(double tokens) {
+      this.tokens = tokens;
+    }
+
+    private synchronized void deposit(double amount, double max) {
+      calls++;
+      tokens = Math.min(max, tokens + amount);
+    }
+
+    private synchronized boolean tryWithdraw() {
+      if (tokens < 1) {
+        exhausted++;
+        return false;
+      }
+      tokens--;
+      retries++;
+      return true;
+    }
+
+    private synchronized JsonObject toJson() {
+      return new JsonObject()
+        .put("calls", calls)
+        .put("retries", retries)
+        .put("budgetExhausted", exhausted)
+        .put("budgetTokens", tokens);
+    }
+  }
+
+  public static class Builder {
+
+    private int maxAttempts = 3;
+    private long baseDelayMs = 50;
+    private long maxDelayMs = 1000;
+    private int budgetPercent = 10;
+    private double maxBudgetTokens = 10;
+
+    public Builder withMaxAttempts(int maxAttempts) {
+      this.maxAttempts = maxAttempts;
+      return this;
+    }
+
+    public Builder withBaseDelayMs(long baseDelayMs) {
+      this.baseDelayMs = baseDelayMs;
+      return this;
+    }
+
+    public Builder withMaxDelayMs(long maxDelayMs) {
+      this.maxDelayMs = maxDelayMs;
+      return this;
+    }
+
+    public Builder withBudgetPercent(int budgetPercent) {
+      this.budgetPercent = budgetPercent;
+      return this;
+    }
+
+    public Builder withMaxBudgetTokens(double maxBudgetTokens) {
+      this.maxBudgetTokens = maxBudgetTokens;
+      return this;
+    }
+
+    public RetryPolicy build() {
+      return new RetryPolicy(this);
+    }
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = -4307519263150512375L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package org.folio.edge.patron.resilience;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Guards upstream calls with a circuit breaker per tenant and route, and a
+ * bulkhead per tenant, so that one degraded tenant can't tie up resources
+ * needed by the others.
+ */
+public class UpstreamGuard {
+
+  private static final Logger logger = LogManager.getLogger(UpstreamGuard.class);
+
+  private static UpstreamGuard instance = null;
+
+  private final CircuitBreaker.Builder breakerBuilder;
+  private final int maxConcurrentCallsPerTenant;
+  private final ConcurrentMap<String, Map<UpstreamRoute, CircuitBreaker>> breakers = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+  private UpstreamGuard(CircuitBreaker.Builder breakerBuilder, int maxConcurrentCallsPerTenant) {
+    logger.info("Using max concurrent upstream calls per tenant: {}", maxConcurrentCallsPerTenant);
+    this.breakerBuilder = breakerBuilder;
+    this.maxConcurrentCallsPerTenant = maxConcurrentCallsPerTenant;
+  }
+
+  /**
+   * Get the UpstreamGuard singleton. the singleton must be initialized before
+   * calling this method.
+   *
+   * @see {@link #initialize(CircuitBreaker.Builder, int)}
+   *
+   * @return the UpstreamGuard singleton instance.
+   */
+  public static synchronized UpstreamGuard getInstance() {
+    if (instance == null) {
+      throw new NotInitializedException(
+          "You must call UpstreamGuard.initialize(breakerBuilder, maxConcurrentCallsPerTenant) before you can get the singleton instance");
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a new UpstreamGuard instance, replacing the existing one if it
+   * already exists; in which case all circuit breaker state is lost.
+   *
+   * @param breakerBuilder
+   *          settings for the circuit breakers
+   * @param maxConcurrentCallsPerTenant
+   *          maximum number of upstream calls in flight per tenant
+   * @return the new UpstreamGuard singleton instance
+   */
+  public static synchronized UpstreamGuard initialize(CircuitBreaker.Builder breakerBuilder,
+      int maxConcurrentCallsPerTenant) {
+    if (instance != null) {
+      logger.warn("Reinitializing upstream guard.  All circuit breaker state will be lost");
+    }
+    instance = new UpstreamGuard(breakerBuilder, maxConcurrentCallsPerTenant);
+    return instance;
+  }
+
+  /**
+   * Reserves capacity for a call to the given route.
+   *
+   * @return a permit, to be completed once the call finishes
+   * @throws UpstreamUnavailableException
+   *           if the tenant has too many calls in flight or the circuit
+   *           breaker for the route is open
+   */
+  public Permit acquire(String tenant, UpstreamRoute route) {
+    Bulkhead bulkhead = bulkheads.computeIfAbsent(tenant, t -> new Bulkhead(maxConcurrentCallsPerTenant));
+    if (!bulkhead.tryAcquire()) {
+      throw new UpstreamUnavailableException(
+          String.format("Too many concurrent requests to %s for tenant %s", route.path(), tenant));
+    }
+    CircuitBreaker breaker = getBreaker(tenant, route);
+    if (!breaker.tryAcquire()) {
+      bulkhead.release();
+      throw new UpstreamUnavailableException(
+          String.format("Circuit breaker for %s is open for tenant %s", route.path(), tenant));
+    }
+    return new Permit(bulkhead, breaker);
+  }
+
+  /**
+   * @return the number of circuit breakers currently open
+   */
+  public int getOpenCircuitBreakerCount() {
+    int open = 0;
+    for (Map<UpstreamRoute, CircuitBreaker> routes : breakers.values()) {
+      for (CircuitBreaker breaker : routes.values()) {
+        if (breaker.getState() == CircuitBreaker.State.OPEN) {
+          open++;
+        }
+      }
+    }
+    return open;
+  }
+
+  public JsonObject toJson() {
+    JsonArray breakerStates = new JsonArray();
+    breakers.forEach((tenant, routes) -> routes.forEach((route, breaker) -> breakerStates.add(
+      breaker.toJson()
+        .put("tenant", tenant)
+        .put("route", route.path()))));
+    JsonArray bulkheadStates = new JsonArray();
+    bulkheads.forEach((tenant, bulkhead) -> bulkheadStates.add(new JsonObject()
+      .put("tenant", tenant)
+      .put("inFlight", bulkhead.getInFlight())
+      .put("maxConcurrentCalls", bulkhead.getMaxConcurrentCalls())));
+    return new JsonObject()
+      .put("circuitBreakers", breakerStates)
+      .put("bulkheads", bulkheadStates);
+  }
+
+  private CircuitBreaker getBreaker(String tenant, UpstreamRoute route) {
+    return breakers.computeIfAbsent(tenant, t -> new ConcurrentHashMap<>())
+      .computeIfAbsent(route, r -> breakerBuilder.build(tenant + ":" + r.path()));
+  }
+
+  /**
+   * Capacity reserved for one upstream call.
+   */
+  public static final class Permit {
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker breaker;
+    private final long start = System.nanoTime();
+    private boolean completed;
+
+    private Permit(Bulkhead bulkhead, CircuitBreaker breaker) {
+      this.bulkhead = bulkhead;
+      this.breaker = breaker;
+    }
+
+    /**
+     * Releases the reserved capacity and records the outcome. Only the first
+     * call has any effect.
+     *
+     * @param failure whether the call failed
+     */
+    public void complete(boolean failure) {
+      if (completed) {
+        return;
+      }
+      completed = true;
+      bulkhead.release();
+      breaker.onResult(failure, System.nanoTime() - start);
+    }
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = -1880478367960231856L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+}
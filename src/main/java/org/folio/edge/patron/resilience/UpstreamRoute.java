@@ -0,0 +1,33 @@
+package org.folio.edge.patron.resilience;
+
+/**
+ * The upstream Okapi routes called by edge-patron, each of which gets its own
+ * circuit breaker per tenant.
+ */
+public enum UpstreamRoute {
+
+  USERS("/users", "mod-users"),
+  ACCOUNT("/patron/account", "mod-patron"),
+  RENEW("/patron/account/item/renew", "mod-patron"),
+  HOLD("/patron/account/hold", "mod-patron"),
+  CIRCULATION_REQUESTS("/circulation/requests", "mod-circulation");
+
+  private final String path;
+  private final String module;
+
+  UpstreamRoute(String path, String module) {
+    this.path = path;
+    this.module = module;
+  }
+
+  public String path() {
+    return path;
+  }
+
+  /**
+   * @return the FOLIO module serving the route
+   */
+  public String module() {
+    return module;
+  }
+}
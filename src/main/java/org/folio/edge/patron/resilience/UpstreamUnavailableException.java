@@ -0,0 +1,32 @@
+package org.folio.edge.patron.resilience;
+
+/**
+ * Signals that an upstream call was not attempted because the circuit breaker
+ * for its route is open or the tenant has too many calls in flight.
+ *
+ * Rejections are expected to be frequent under load, so no stack trace is
+ * captured.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+  private static final long serialVersionUID = 5016393546235873402L;
+
+  private final int retryAfterSeconds;
+
+  public UpstreamUnavailableException(String msg) {
+    this(msg, 0);
+  }
+
+  /**
+   * @param retryAfterSeconds
+   *          how long clients should wait before retrying, or 0 if unknown
+   */
+  public UpstreamUnavailableException(String msg, int retryAfterSeconds) {
+    super(msg, null, false, false);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public int getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
@@ -0,0 +1,118 @@
+package org.folio.edge.patron.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.core.security.SecureStore;
+import org.folio.edge.patron.utils.LogSampler;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+
+/**
+ * Looks up institutional user passwords on a bounded worker pool, as the AWS
+ * SSM and Vault clients block while they call out to the store.
+ *
+ * Concurrent lookups for the same user share one call to the store.
+ */
+public class SecureStoreLookup {
+
+  private static final Logger logger = LogManager.getLogger(SecureStoreLookup.class);
+
+  private static final LogSampler LOOKUP_FAILURE_LOG = new LogSampler();
+
+  public static final String POOL_NAME = "edge-patron-secure-store";
+
+  private final SecureStore secureStore;
+  private final WorkerExecutor executor;
+  private final ConcurrentMap<String, Future<String>> pending = new ConcurrentHashMap<>();
+
+  /**
+   * @param poolSize
+   *          maximum number of lookups running at once; further lookups are
+   *          queued
+   */
+  public SecureStoreLookup(Vertx vertx, SecureStore secureStore, int poolSize) {
+    logger.info("Using secure store pool size: {}", poolSize);
+    this.secureStore = secureStore;
+    this.executor = vertx.createSharedWorkerExecutor(POOL_NAME, poolSize);
+  }
+
+  /**
+   * @return the password, or a failed future with the exception thrown by the
+   *         secure store, e.g. {@link SecureStore.NotFoundException}
+   */
+  public Future<String> get(String clientId, String tenant, String username) {
+    final String key = computeKey(clientId, tenant, username);
+    final Promise<String> promise = Promise.promise();
+    final Future<String> existing = pending.putIfAbsent(key, promise.future());
+    if (existing != null) {
+      logger.debug("Joining pending secure store lookup for {}", key);
+      return onCurrentContext(existing);
+    }
+
+    executor.<String>executeBlocking(p -> {
+      try {
+        p.complete(secureStore.get(clientId, tenant, username));
+      } catch (Exception e) {
+        p.fail(e);
+      }
+    }, false).onComplete(ar -> {
+      pending.remove(key, promise.future());
+      if (ar.failed()) {
+        logFailure(key, ar.cause());
+      }
+      promise.handle(ar);
+    });
+    return promise.future();
+  }
+
+  /**
+   * @return the number of distinct lookups in progress
+   */
+  public int getPendingCount() {
+    return pending.size();
+  }
+
+  public void close() {
+    executor.close();
+  }
+
+  /**
+   * The lookup completes on the context of the request that started it, so
+   * other requests joining it are handed the outcome on their own context.
+   */
+  private static Future<String> onCurrentContext(Future<String> future) {
+    final Context context = Vertx.currentContext();
+    if (context == null) {
+      return future;
+    }
+    final Promise<String> promise = Promise.promise();
+    future.onComplete(ar -> context.runOnContext(v -> promise.handle(ar)));
+    return promise.future();
+  }
+
+  /**
+   * A user missing from the store is the expected outcome for a bad API key,
+   * so only other failures of the store are logged as errors.
+   */
+  private static void logFailure(String key, Throwable t) {
+    if (t instanceof SecureStore.NotFoundException) {
+      logger.debug("No password stored for {}", key);
+      return;
+    }
+    long suppressed = LOOKUP_FAILURE_LOG.sample();
+    if (suppressed >= 0) {
+      logger.error("Exception retrieving password for {} ({} more not logged)", key, suppressed, t);
+    }
+  }
+
+  private static String computeKey(String clientId, String tenant, String username) {
+    return String.format("%s:%s:%s", clientId, tenant, username);
+  }
+}
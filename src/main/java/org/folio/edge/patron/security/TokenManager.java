@@ -0,0 +1,294 @@
+package org.folio.edge.patron.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Keeps the institutional users' tokens fresh, so that requests never wait
+ * for <code>/authn/login</code>.
+ *
+ * Once a user has logged in, whether at startup or on a request, the token is
+ * refreshed in the background <code>refreshAheadMs</code> before it expires,
+ * but no earlier than halfway through its lifetime. The lifetime is read from
+ * the JWT's <code>iat</code> and <code>exp</code> claims, so it doesn't depend
+ * on the clocks of Okapi and edge-patron agreeing, or from <code>exp</code>
+ * alone, or is <code>defaultLifetimeMs</code> for tokens without an expiry.
+ * The old token is served until the new one arrives; failed refreshes are
+ * retried with exponential backoff.
+ *
+ * Callers get the token on the Vert.x context they asked from, even when they
+ * join a login started by another request.
+ */
+public class TokenManager {
+
+  private static final Logger logger = LogManager.getLogger(TokenManager.class);
+
+  private static final long MIN_REFRESH_DELAY_MS = 1000;
+  private static final long MAX_REFRESH_DELAY_MS = 60 * 1000L;
+
+  private static TokenManager instance = null;
+
+  private final long refreshAheadMs;
+  private final long defaultLifetimeMs;
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private TokenManager(long refreshAheadMs, long defaultLifetimeMs) {
+    logger.info("Refreshing tokens {} ms before they expire (default lifetime {} ms)", refreshAheadMs,
+        defaultLifetimeMs);
+    this.refreshAheadMs = refreshAheadMs;
+    this.defaultLifetimeMs = defaultLifetimeMs;
+  }
+
+  /**
+   * Get the TokenManager singleton. the singleton must be initialized before
+   * calling this method.
+   *
+   * @see {@link #initialize(long, long)}
+   *
+   * @return the TokenManager singleton instance.
+   */
+  public static synchronized TokenManager getInstance() {
+    if (instance == null) {
+      throw new NotInitializedException(
+          "You must call TokenManager.initialize(refreshAheadMs, defaultLifetimeMs) "
+              + "before you can get the singleton instance");
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a new TokenManager instance, replacing the existing one if it
+   * already exists; in which case the tokens it holds are no longer refreshed.
+   *
+   * @param refreshAheadMs
+   *          how long before a token expires to refresh it, in ms
+   * @param defaultLifetimeMs
+   *          how long to use a token without an expiry before refreshing it, in
+   *          ms
+   * @return the new TokenManager singleton instance
+   */
+  public static synchronized TokenManager initialize(long refreshAheadMs, long defaultLifetimeMs) {
+    if (instance != null) {
+      logger.warn("Reinitializing token manager.  Tokens held by the old instance will no longer be refreshed");
+      instance.entries.values().forEach(Entry::cancelRefresh);
+    }
+    instance = new TokenManager(refreshAheadMs, defaultLifetimeMs);
+    return instance;
+  }
+
+  /**
+   * Gets a token for the user, logging in only if there is no unexpired token
+   * yet. From then on, the token is kept fresh in the background.
+   *
+   * @param login
+   *          logs the user in with Okapi; kept for refreshing the token later
+   */
+  public CompletableFuture<String> login(String tenant, String username, String password,
+      Supplier<CompletableFuture<String>> login) {
+    String key = computeKey(tenant, username);
+    Entry entry = entries.compute(key, (k, existing) -> {
+      if (existing != null && existing.password.equals(password)) {
+        existing.login = login;
+        return existing;
+      }
+      if (existing != null) {
+        logger.info("Credentials for {} changed", k);
+        existing.cancelRefresh();
+      }
+      return new Entry(k, password, login);
+    });
+
+    String token = entry.getToken();
+    if (token != null) {
+      return CompletableFuture.completedFuture(token);
+    }
+    return onCurrentContext(refresh(entry));
+  }
+
+  /**
+   * @return a future completed on the caller's context, rather than on the
+   *         thread completing the login, which may belong to another request
+   */
+  private static CompletableFuture<String> onCurrentContext(CompletableFuture<String> future) {
+    final Context context = Vertx.currentContext();
+    if (context == null) {
+      return future;
+    }
+    final CompletableFuture<String> ret = new CompletableFuture<>();
+    future.whenComplete((token, t) -> context.runOnContext(v -> {
+      if (t != null) {
+        ret.completeExceptionally(t);
+      } else {
+        ret.complete(token);
+      }
+    }));
+    return ret;
+  }
+
+  private CompletableFuture<String> refresh(Entry entry) {
+    CompletableFuture<String> pending;
+    synchronized (entry) {
+      if (entry.pending != null) {
+        return entry.pending;
+      }
+      pending = entry.login.get();
+      entry.pending = pending;
+    }
+    pending.whenComplete((token, t) -> {
+      synchronized (entry) {
+        entry.pending = null;
+      }
+      if (t == null && token != null) {
+        onRefreshed(entry, token);
+      } else {
+        onRefreshFailed(entry, t);
+      }
+    });
+    return pending;
+  }
+
+  private void onRefreshed(Entry entry, String token) {
+    long now = System.currentTimeMillis();
+    long expiresAt = expiresAt(token, now);
+    long lifetimeMs = expiresAt - now;
+    synchronized (entry) {
+      entry.token = token;
+      entry.expiresAt = expiresAt;
+      entry.failures = 0;
+    }
+    logger.info("Got token for {}, valid for {} ms", entry.key, lifetimeMs);
+    scheduleRefresh(entry, lifetimeMs - Math.min(refreshAheadMs, lifetimeMs / 2));
+  }
+
+  private void onRefreshFailed(Entry entry, Throwable t) {
+    if (entry.getToken() == null) {
+      logger.warn("Failed to get token for {}", entry.key, t);
+      return;
+    }
+    // keep serving the old token, and try again while it's still valid, backing
+    // off so an unavailable Okapi isn't asked every second
+    long remainingMs = entry.expiresAt - System.currentTimeMillis();
+    int failures;
+    synchronized (entry) {
+      failures = ++entry.failures;
+    }
+    long backoffMs = Math.min(MAX_REFRESH_DELAY_MS, MIN_REFRESH_DELAY_MS << Math.min(failures - 1, 16));
+    logger.warn("Failed to refresh token for {}, {} ms before it expires", entry.key, remainingMs, t);
+    scheduleRefresh(entry, Math.max(backoffMs, Math.min(remainingMs / 2, refreshAheadMs / 2)));
+  }
+
+  private void scheduleRefresh(Entry entry, long delayMs) {
+    Context context = Vertx.currentContext();
+    if (context == null) {
+      logger.debug("No Vert.x context, not refreshing token for {} in the background", entry.key);
+      return;
+    }
+    Vertx vertx = context.owner();
+    synchronized (entry) {
+      if (entries.get(entry.key) != entry) {
+        return;
+      }
+      entry.cancelRefresh();
+      entry.vertx = vertx;
+      entry.timerId = vertx.setTimer(Math.max(MIN_REFRESH_DELAY_MS, delayMs), id -> {
+        synchronized (entry) {
+          entry.timerId = -1;
+        }
+        if (entries.get(entry.key) == entry) {
+          refresh(entry);
+        }
+      });
+    }
+  }
+
+  /**
+   * @param now
+   *          when the token was received, in ms since the epoch
+   * @return when the token expires, in ms since the epoch: its lifetime from
+   *         the <code>iat</code> and <code>exp</code> claims after
+   *         <code>now</code>, or the time in <code>exp</code>, or
+   *         <code>defaultLifetimeMs</code> from now if it isn't a JWT with an
+   *         expiry or the expiry has already passed by this node's clock
+   */
+  long expiresAt(String token, long now) {
+    String[] parts = token.split("\\.");
+    if (parts.length >= 2) {
+      try {
+        JsonObject claims = new JsonObject(new String(Base64.getUrlDecoder().decode(parts[1]),
+            StandardCharsets.UTF_8));
+        Long exp = claims.getLong("exp");
+        Long iat = claims.getLong("iat");
+        if (exp != null && iat != null && exp > iat) {
+          return now + (exp - iat) * 1000;
+        }
+        if (exp != null && exp * 1000 > now) {
+          return exp * 1000;
+        }
+        if (exp != null) {
+          // a token just issued can't have expired, so the clocks disagree
+          logger.warn("Token expiry {} is in the past, assuming a lifetime of {} ms", exp, defaultLifetimeMs);
+        }
+      } catch (Exception e) {
+        logger.debug("Unable to read token expiry: {}", e.getMessage());
+      }
+    }
+    return now + defaultLifetimeMs;
+  }
+
+  private static String computeKey(String tenant, String username) {
+    return tenant + ':' + username;
+  }
+
+  private static final class Entry {
+    private final String key;
+    private final String password;
+    private volatile Supplier<CompletableFuture<String>> login;
+    private volatile String token;
+    private volatile long expiresAt;
+    private int failures;
+    private CompletableFuture<String> pending;
+    private Vertx vertx;
+    private long timerId = -1;
+
+    private Entry(String key, String password, Supplier<CompletableFuture<String>> login) {
+      this.key = key;
+      this.password = password;
+      this.login = login;
+    }
+
+    /**
+     * @return the token, or null if there is none or it has expired
+     */
+    private String getToken() {
+      String current = token;
+      return current != null && System.currentTimeMillis() < expiresAt ? current : null;
+    }
+
+    private synchronized void cancelRefresh() {
+      if (timerId >= 0 && vertx != null) {
+        vertx.cancelTimer(timerId);
+      }
+      timerId = -1;
+    }
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = 2741982409765324153L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+}
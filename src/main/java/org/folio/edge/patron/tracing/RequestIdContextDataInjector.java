@@ -0,0 +1,48 @@
+package org.folio.edge.patron.tracing;
+
+import java.util.List;
+
+import org.apache.logging.log4j.core.ContextDataInjector;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.impl.ThreadContextDataInjector;
+import org.apache.logging.log4j.util.ReadOnlyStringMap;
+import org.apache.logging.log4j.util.StringMap;
+
+/**
+ * Adds the request ID of the request being handled to the context data of
+ * every log event, as <code>requestId</code>, for layouts to show with
+ * <code>%X{requestId}</code>.
+ *
+ * Context data is captured when the event is logged, on the event loop,
+ * while lookups in the layout would run on the asynchronous loggers' thread,
+ * which knows nothing of the request. Enabled with the
+ * <code>log4j2.contextDataInjector</code> property, see
+ * <code>log4j2.component.properties</code>.
+ */
+public class RequestIdContextDataInjector implements ContextDataInjector {
+
+  public static final String KEY = "requestId";
+
+  private final ContextDataInjector delegate = new ThreadContextDataInjector.ForDefaultThreadContextMap();
+
+  @Override
+  public StringMap injectContextData(List<Property> properties, StringMap reusable) {
+    StringMap contextData = delegate.injectContextData(properties, reusable);
+    String requestId = RequestIds.current();
+    if (requestId == null) {
+      return contextData;
+    }
+    if (contextData.isFrozen()) {
+      reusable.clear();
+      reusable.putAll(contextData);
+      contextData = reusable;
+    }
+    contextData.putValue(KEY, requestId);
+    return contextData;
+  }
+
+  @Override
+  public ReadOnlyStringMap rawContextData() {
+    return delegate.rawContextData();
+  }
+}
@@ -0,0 +1,80 @@
+package org.folio.edge.patron.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.ContextInternal;
+
+/**
+ * The <code>X-Okapi-Request-Id</code> of the request being handled, kept in
+ * the local data of the request's Vert.x context rather than in a thread
+ * local, as the event loop interleaves many requests.
+ *
+ * Vert.x handles each HTTP request on its own duplicate of the event loop
+ * context, which its callbacks, e.g. those of the calls to FOLIO, run on as
+ * well; the ID is only kept on such duplicates, as the event loop context
+ * itself is shared by all requests.
+ */
+public class RequestIds {
+
+  /** key of the request ID in the context's local data */
+  private static final String KEY = "patron.requestId";
+
+  /** longest request ID accepted from clients */
+  public static final int MAX_LENGTH = 128;
+
+  private RequestIds() {
+
+  }
+
+  /**
+   * Generates a request ID the way Okapi does: six random digits and the
+   * first segment of the path.
+   */
+  public static String generate(String path) {
+    String prefix = path;
+    if (path != null && path.startsWith("/")) {
+      int end = path.indexOf('/', 1);
+      prefix = end < 0 ? path.substring(1) : path.substring(1, end);
+    }
+    return String.format("%06d/%s", ThreadLocalRandom.current().nextInt(1_000_000), prefix);
+  }
+
+  /**
+   * @return whether the request ID may be used as is: not empty, at most
+   *         {@link #MAX_LENGTH} characters, and only printable ASCII without
+   *         spaces, so that it can't forge log lines
+   */
+  public static boolean isValid(String requestId) {
+    if (requestId == null || requestId.isEmpty() || requestId.length() > MAX_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < requestId.length(); i++) {
+      char c = requestId.charAt(i);
+      if (c <= ' ' || c > '~') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sets the request ID of the request being handled on the current context.
+   */
+  public static void set(String requestId) {
+    Context context = Vertx.currentContext();
+    if (context instanceof ContextInternal && ((ContextInternal) context).isDuplicate()) {
+      context.putLocal(KEY, requestId);
+    }
+  }
+
+  /**
+   * @return the request ID of the request being handled on the current
+   *         thread, or null if there is none
+   */
+  public static String current() {
+    Context context = Vertx.currentContext();
+    return context == null ? null : context.getLocal(KEY);
+  }
+}
@@ -0,0 +1,119 @@
+package org.folio.edge.patron.tracing;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The tree of one <code>/patron</code> request: the request itself, and the
+ * spans of its stages, e.g. the patron lookup and each call to FOLIO, with
+ * their offsets from the start of the request. Completed traces are kept by
+ * the {@link SpanRecorder} if they are among the slowest.
+ *
+ * Spans of a batch request may be added concurrently, so adding is
+ * synchronized.
+ */
+public class RequestTrace {
+
+  private final String requestId;
+  private final String route;
+  private final long startMillis = System.currentTimeMillis();
+  private final long startNanos = System.nanoTime();
+  private final List<Span> spans = new ArrayList<>(6);
+
+  private String tenant;
+  private int status;
+  private long durationNanos = -1;
+
+  public RequestTrace(String requestId, String route) {
+    this.requestId = requestId;
+    this.route = route;
+  }
+
+  public String getRequestId() {
+    return requestId;
+  }
+
+  /**
+   * @return how long the request took, or -1 while it is in progress
+   */
+  public synchronized long getDurationNanos() {
+    return durationNanos;
+  }
+
+  /**
+   * @param name
+   *          the stage, e.g. <code>patron</code> or <code>mod-users</code>
+   * @param detail
+   *          what the stage did, e.g. the FOLIO route called, or null
+   * @param status
+   *          the status code of the stage, 0 without one
+   * @param spanStartNanos
+   *          when the stage started, per {@link System#nanoTime()}
+   */
+  public synchronized void addSpan(String name, String detail, int status, long spanStartNanos, long nanos) {
+    if (durationNanos < 0) {
+      spans.add(new Span(name, detail, status, spanStartNanos - startNanos, nanos));
+    }
+  }
+
+  /**
+   * Ends the request; spans added later are ignored.
+   */
+  public synchronized void end(String tenant, int status) {
+    if (durationNanos < 0) {
+      this.tenant = tenant;
+      this.status = status;
+      this.durationNanos = System.nanoTime() - startNanos;
+    }
+  }
+
+  public synchronized JsonObject toJson() {
+    JsonArray children = new JsonArray();
+    for (Span span : spans) {
+      children.add(span.toJson());
+    }
+    return new JsonObject()
+      .put("requestId", requestId)
+      .put("route", route)
+      .put("tenant", tenant)
+      .put("status", status)
+      .put("start", Instant.ofEpochMilli(startMillis).toString())
+      .put("durationMs", millis(durationNanos))
+      .put("spans", children);
+  }
+
+  private static double millis(long nanos) {
+    return Math.round(nanos / 1_000d) / 1_000d;
+  }
+
+  private static final class Span {
+    private final String name;
+    private final String detail;
+    private final int status;
+    private final long offsetNanos;
+    private final long durationNanos;
+
+    private Span(String name, String detail, int status, long offsetNanos, long durationNanos) {
+      this.name = name;
+      this.detail = detail;
+      this.status = status;
+      this.offsetNanos = offsetNanos;
+      this.durationNanos = durationNanos;
+    }
+
+    private JsonObject toJson() {
+      JsonObject json = new JsonObject().put("name", name);
+      if (detail != null) {
+        json.put("detail", detail);
+      }
+      return json
+        .put("status", status)
+        .put("offsetMs", millis(offsetNanos))
+        .put("durationMs", millis(durationNanos));
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package org.folio.edge.patron.tracing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Keeps the slowest completed {@link RequestTrace}s, so the stages of the
+ * worst requests can be looked at without a tracing backend.
+ *
+ * Traces no slower than the fastest one kept are rejected with one volatile
+ * read; only the others take the lock, which gets rarer the longer the
+ * recorder runs.
+ */
+public class SpanRecorder {
+
+  private static final Logger logger = LogManager.getLogger(SpanRecorder.class);
+
+  private static final Comparator<RequestTrace> BY_DURATION = Comparator.comparingLong(RequestTrace::getDurationNanos);
+
+  private static SpanRecorder instance = null;
+
+  private final int capacity;
+  private final PriorityQueue<RequestTrace> slowest;
+  /** duration of the fastest trace kept once full, below which traces are rejected */
+  private volatile long thresholdNanos = 0;
+
+  private SpanRecorder(int capacity) {
+    this.capacity = Math.max(0, capacity);
+    this.slowest = new PriorityQueue<>(this.capacity + 1, BY_DURATION);
+    logger.info("Keeping the {} slowest request traces", this.capacity);
+  }
+
+  /**
+   * Get the SpanRecorder singleton. the singleton must be initialized before
+   * calling this method.
+   *
+   * @see {@link #initialize(int)}
+   *
+   * @return the SpanRecorder singleton instance.
+   */
+  public static synchronized SpanRecorder getInstance() {
+    if (instance == null) {
+      throw new NotInitializedException(
+          "You must call SpanRecorder.initialize(capacity) before you can get the singleton instance");
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a new SpanRecorder instance, replacing the existing one if it
+   * already exists; in which case all traces are lost.
+   *
+   * @param capacity
+   *          how many of the slowest traces to keep; 0 keeps none
+   *
+   * @return the new SpanRecorder singleton instance
+   */
+  public static synchronized SpanRecorder initialize(int capacity) {
+    if (instance != null) {
+      logger.warn("Reinitializing span recorder.  All traces will be lost");
+    }
+    instance = new SpanRecorder(capacity);
+    return instance;
+  }
+
+  /**
+   * Keeps the trace, which must have ended, if it's among the slowest.
+   */
+  public void record(RequestTrace trace) {
+    long durationNanos = trace.getDurationNanos();
+    if (capacity == 0 || durationNanos < 0 || durationNanos <= thresholdNanos) {
+      return;
+    }
+    synchronized (this) {
+      slowest.add(trace);
+      if (slowest.size() > capacity) {
+        slowest.poll();
+      }
+      if (slowest.size() == capacity) {
+        thresholdNanos = slowest.peek().getDurationNanos();
+      }
+    }
+  }
+
+  /**
+   * Drops the traces kept so far.
+   */
+  public synchronized void clear() {
+    slowest.clear();
+    thresholdNanos = 0;
+  }
+
+  /**
+   * @return the traces kept, slowest first
+   */
+  public JsonObject toJson() {
+    List<RequestTrace> traces;
+    synchronized (this) {
+      traces = new ArrayList<>(slowest);
+    }
+    traces.sort(BY_DURATION.reversed());
+    JsonArray json = new JsonArray();
+    traces.forEach(trace -> json.add(trace.toJson()));
+    return new JsonObject()
+      .put("capacity", capacity)
+      .put("traces", json);
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = 5409276147135946127L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package org.folio.edge.patron.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+/**
+ * Runs a batch of asynchronous tasks with at most a given number in flight,
+ * starting the next task as soon as one completes.
+ */
+public final class BatchExecutor<T> {
+
+  private final int count;
+  private final int parallelism;
+  private final IntFunction<Future<T>> task;
+  private final Object[] results;
+  private final Promise<List<T>> promise = Promise.promise();
+
+  private int next;
+  private int inFlight;
+  private int completed;
+  private boolean failed;
+  private boolean pumping;
+  private boolean pumpAgain;
+
+  private BatchExecutor(int count, int parallelism, IntFunction<Future<T>> task) {
+    this.count = count;
+    this.parallelism = Math.max(1, parallelism);
+    this.task = task;
+    this.results = new Object[count];
+  }
+
+  /**
+   * @param count
+   *          number of tasks
+   * @param parallelism
+   *          maximum number of tasks in flight
+   * @param task
+   *          starts the task with the given index
+   * @return the results of all tasks, in index order, or the first failure;
+   *         after a failure no further tasks are started
+   */
+  public static <T> Future<List<T>> execute(int count, int parallelism, IntFunction<Future<T>> task) {
+    if (count == 0) {
+      return Future.succeededFuture(new ArrayList<>());
+    }
+    BatchExecutor<T> executor = new BatchExecutor<>(count, parallelism, task);
+    executor.pump();
+    return executor.promise.future();
+  }
+
+  /**
+   * Starts tasks until the limit is reached. Tasks that complete right away
+   * are picked up by the loop rather than by recursion.
+   */
+  private void pump() {
+    synchronized (this) {
+      if (pumping) {
+        pumpAgain = true;
+        return;
+      }
+      pumping = true;
+    }
+    while (true) {
+      final int index;
+      synchronized (this) {
+        if (failed || next >= count || inFlight >= parallelism) {
+          if (!pumpAgain) {
+            pumping = false;
+            return;
+          }
+          pumpAgain = false;
+          continue;
+        }
+        index = next++;
+        inFlight++;
+      }
+      start(index);
+    }
+  }
+
+  private void start(int index) {
+    Future<T> future;
+    try {
+      future = task.apply(index);
+    } catch (Exception e) {
+      future = Future.failedFuture(e);
+    }
+    future.onComplete(ar -> onComplete(index, ar));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void onComplete(int index, AsyncResult<T> ar) {
+    final boolean done;
+    synchronized (this) {
+      inFlight--;
+      if (failed) {
+        return;
+      }
+      if (ar.failed()) {
+        failed = true;
+      } else {
+        results[index] = ar.result();
+        completed++;
+      }
+      done = completed == count;
+    }
+    if (ar.failed()) {
+      promise.fail(ar.cause());
+    } else if (done) {
+      List<T> list = new ArrayList<>(count);
+      for (Object result : results) {
+        list.add((T) result);
+      }
+      promise.complete(list);
+    } else {
+      pump();
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package org.folio.edge.patron.utils;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+
+/**
+ * Dates as mod-patron and the discovery services exchange them, e.g.
+ * <code>2019-09-20T10:00:00.000+0000</code>.
+ *
+ * The formatters are immutable and thread-safe, so they're built once and
+ * shared by the handler, the client and the models.
+ */
+public class DateTimeHelper {
+
+  /** the format dates are written in, always in UTC */
+  public static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter
+    .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+    .withZone(ZoneOffset.UTC);
+
+  /**
+   * ISO 8601 dates as FOLIO sends them: the time, its fraction and the offset
+   * are optional, and the offset may be <code>Z</code>,
+   * <code>+00:00</code>, <code>+0000</code> or <code>+00</code>.
+   */
+  private static final DateTimeFormatter ISO_PARSER = new DateTimeFormatterBuilder()
+    .append(DateTimeFormatter.ISO_LOCAL_DATE)
+    .optionalStart()
+    .appendLiteral('T')
+    .append(DateTimeFormatter.ISO_LOCAL_TIME)
+    .optionalEnd()
+    .optionalStart()
+    .appendOffset("+HH:MM", "Z")
+    .optionalEnd()
+    .optionalStart()
+    .appendOffset("+HHMM", "Z")
+    .optionalEnd()
+    .optionalStart()
+    .appendOffset("+HH", "Z")
+    .optionalEnd()
+    .parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+    .parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+    .parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
+    .parseDefaulting(ChronoField.OFFSET_SECONDS, 0)
+    .toFormatter();
+
+  private DateTimeHelper() {
+
+  }
+
+  public static String format(Instant instant) {
+    return DATE_TIME_FORMATTER.format(instant);
+  }
+
+  /**
+   * @throws java.time.format.DateTimeParseException
+   *           if the date isn't in {@link #DATE_TIME_FORMATTER}'s format
+   */
+  public static Instant parse(String dateTime) {
+    return DATE_TIME_FORMATTER.parse(dateTime, Instant::from);
+  }
+
+  /**
+   * Parses any ISO 8601 date, assuming UTC where it has no offset.
+   *
+   * @throws java.time.format.DateTimeParseException
+   *           if the date isn't ISO 8601
+   */
+  public static Instant parseIso(String dateTime) {
+    return ISO_PARSER.parse(dateTime, Instant::from);
+  }
+
+  /**
+   * Writes an {@link Instant} in {@link DateTimeHelper#DATE_TIME_FORMATTER}'s
+   * format, as the shared mappers write a {@link java.util.Date}.
+   */
+  public static class InstantSerializer extends StdScalarSerializer<Instant> {
+
+    private static final long serialVersionUID = -4215925043625711870L;
+
+    public InstantSerializer() {
+      super(Instant.class);
+    }
+
+    @Override
+    public void serialize(Instant value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+      gen.writeString(format(value));
+    }
+  }
+
+  /**
+   * Reads an {@link Instant} from any ISO 8601 date or from epoch
+   * milliseconds.
+   */
+  public static class InstantDeserializer extends StdScalarDeserializer<Instant> {
+
+    private static final long serialVersionUID = 5106383349398370826L;
+
+    public InstantDeserializer() {
+      super(Instant.class);
+    }
+
+    @Override
+    public Instant deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      if (p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+        return Instant.ofEpochMilli(p.getLongValue());
+      }
+      String text = p.getValueAsString();
+      if (text == null || text.trim().isEmpty()) {
+        return null;
+      }
+      try {
+        return parseIso(text.trim());
+      } catch (RuntimeException e) {
+        return (Instant) ctxt.handleWeirdStringValue(Instant.class, text, e.getMessage());
+      }
+    }
+  }
+}
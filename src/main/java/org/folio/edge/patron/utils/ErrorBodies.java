@@ -0,0 +1,117 @@
+package org.folio.edge.patron.utils;
+
+import static org.folio.edge.patron.Constants.MSG_ACCESS_DENIED;
+import static org.folio.edge.patron.Constants.MSG_IDEMPOTENCY_KEY_REUSED;
+import static org.folio.edge.patron.Constants.MSG_INTERNAL_SERVER_ERROR;
+import static org.folio.edge.patron.Constants.MSG_REQUEST_TIMEOUT;
+import static org.folio.edge.patron.Constants.MSG_SERVICE_UNAVAILABLE;
+import static org.folio.edge.patron.Constants.MSG_TOO_MANY_REQUESTS;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Error response bodies, <code>{"code": 404, "errorMessage": "..."}</code>,
+ * as {@link org.folio.edge.patron.model.error.ErrorMessage} serializes them.
+ * The classes in <code>model.error</code> no longer answer requests; they are
+ * kept as the reference the tests and the benchmark check these bodies against,
+ * and to parse the responses in the tests.
+ *
+ * The bodies of errors with a fixed message are encoded once; Vert.x writes a
+ * duplicate of a {@link Buffer}'s content, so the same buffer can be sent on
+ * any number of responses and event loops. They must not be modified.
+ */
+public class ErrorBodies {
+
+  public static final Buffer ACCESS_DENIED = buffer(401, MSG_ACCESS_DENIED);
+  public static final Buffer REQUEST_TIMEOUT = buffer(408, MSG_REQUEST_TIMEOUT);
+  public static final Buffer IDEMPOTENCY_KEY_REUSED = buffer(422, MSG_IDEMPOTENCY_KEY_REUSED);
+  public static final Buffer TOO_MANY_REQUESTS = buffer(429, MSG_TOO_MANY_REQUESTS);
+  public static final Buffer INTERNAL_SERVER_ERROR = buffer(500, MSG_INTERNAL_SERVER_ERROR);
+  public static final Buffer SERVICE_UNAVAILABLE = buffer(503, MSG_SERVICE_UNAVAILABLE);
+
+  private static final String FIELD_CODE = "code";
+  private static final String FIELD_ERROR_MESSAGE = "errorMessage";
+  private static final String FIELD_ERRORS = "errors";
+  private static final String FIELD_MESSAGE = "message";
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private ErrorBodies() {
+
+  }
+
+  public static JsonObject toJson(int statusCode, String message) {
+    JsonObject json = new JsonObject().put(FIELD_CODE, statusCode);
+    if (message != null) {
+      json.put(FIELD_ERROR_MESSAGE, message);
+    }
+    return json;
+  }
+
+  public static String encode(int statusCode, String message) {
+    return toJson(statusCode, message).encode();
+  }
+
+  private static Buffer buffer(int statusCode, String message) {
+    return Buffer.buffer(encode(statusCode, message));
+  }
+
+  /**
+   * Reads the message of the first error of a FOLIO error response, e.g.
+   * <code>{"errors": [{"message": "...", "parameters": [...]}]}</code>,
+   * without binding the body to objects. Parsing stops at the end of the
+   * first error, so the rest of the body is neither read nor validated.
+   *
+   * @return the message, or null if there are no errors or the first has no
+   *         message
+   * @throws IOException
+   *           if the body isn't valid JSON up to the end of the first error
+   */
+  public static String getFirstErrorMessage(String body) throws IOException {
+    try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParseException(parser, "Expected an object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        if (parser.nextToken() == JsonToken.START_ARRAY && FIELD_ERRORS.equals(field)) {
+          return readFirstErrorMessage(parser);
+        }
+        parser.skipChildren();
+      }
+      return null;
+    }
+  }
+
+  private static String readFirstErrorMessage(JsonParser parser) throws IOException {
+    JsonToken token = parser.nextToken();
+    if (token == JsonToken.END_ARRAY) {
+      return null;
+    }
+    if (token != JsonToken.START_OBJECT) {
+      throw new JsonParseException(parser, "Expected an error object");
+    }
+    String message = null;
+    while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      token = parser.nextToken();
+      if (FIELD_MESSAGE.equals(field) && token.isScalarValue()) {
+        message = parser.getValueAsString();
+      } else {
+        parser.skipChildren();
+      }
+    }
+    if (token != JsonToken.END_OBJECT) {
+      throw new JsonParseException(parser, "Unterminated error object");
+    }
+    return message;
+  }
+}
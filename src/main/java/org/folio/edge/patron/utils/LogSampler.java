@@ -0,0 +1,54 @@
+package org.folio.edge.patron.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limits one type of log message on the request path to a number of
+ * messages per second, shared by all event loops; the rest are dropped and
+ * counted, and the count is reported with the next message logged.
+ *
+ * Samplers are kept in static fields at the call site; the limit they all
+ * apply is set once at startup with {@link #setMaxPerSecond(int)}.
+ */
+public class LogSampler {
+
+  private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private static volatile int maxPerSecond = Integer.MAX_VALUE;
+
+  private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+  private final AtomicLong logged = new AtomicLong();
+  private final AtomicLong suppressed = new AtomicLong();
+
+  /**
+   * @param max
+   *          messages of each type logged per second; 0 to only count them
+   */
+  public static void setMaxPerSecond(int max) {
+    maxPerSecond = Math.max(0, max);
+  }
+
+  public static int getMaxPerSecond() {
+    return maxPerSecond;
+  }
+
+  /**
+   * Takes a message from this second's allowance.
+   *
+   * @return the number of messages dropped since the last one logged if this
+   *         one may be logged, otherwise -1
+   */
+  public long sample() {
+    long now = System.nanoTime();
+    long start = windowStart.get();
+    if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+      logged.set(0);
+    }
+    if (logged.incrementAndGet() > maxPerSecond) {
+      suppressed.incrementAndGet();
+      return -1;
+    }
+    return suppressed.getAndSet(0);
+  }
+}
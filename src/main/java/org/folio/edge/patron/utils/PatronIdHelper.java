@@ -1,20 +1,48 @@
 package org.folio.edge.patron.utils;
 
 import io.vertx.core.Future;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.core.cache.TokenCache.NotInitializedException;
 import org.folio.edge.patron.cache.PatronIdCache;
+import org.folio.edge.patron.metrics.ServerTiming;
+import org.folio.edge.patron.metrics.events.PatronLookupEvent;
+import org.folio.edge.patron.metrics.events.StageEvent;
+import org.folio.edge.patron.resilience.Deadline;
+import org.folio.edge.patron.tracing.RequestTrace;
 
 public class PatronIdHelper {
 
   private static final Logger logger = LogManager.getLogger(PatronIdHelper.class);
 
+  private static final LogSampler LOOKUP_LOG = new LogSampler();
+  private static final LogSampler LOOKUP_FAILURE_LOG = new LogSampler();
+  private static final LogSampler BATCH_LOOKUP_FAILURE_LOG = new LogSampler();
+
+  /** characters of a patron ID left visible in logs */
+  private static final int REDACT_VISIBLE = 4;
+
   private PatronIdHelper() {
 
   }
 
+  /**
+   * Resolves a patron from the {@link PatronIdCache}, or from mod-users on a
+   * miss. The lookup is recorded, as a cache hit or miss, in the client's
+   * {@link ServerTiming} and {@link RequestTrace} if it has them, and as a
+   * {@link PatronLookupEvent}.
+   */
   public static Future<String> lookupPatron(PatronOkapiClient client, String tenant, String extPatronId) {
+    final ServerTiming serverTiming = client.getServerTiming();
+    final RequestTrace trace = client.getTrace();
+    final PatronLookupEvent event = PatronLookupEvent.start();
+    final long start = System.nanoTime();
     String patronId = null;
     try {
       PatronIdCache cache = PatronIdCache.getInstance();
@@ -24,13 +52,123 @@ public class PatronIdHelper {
     }
 
     if (patronId != null) {
-      logger.info("Using cached patronId");
+      logger.debug("Using cached patronId");
+      if (serverTiming != null) {
+        serverTiming.record(ServerTiming.STAGE_PATRON, ServerTiming.DESC_CACHE_HIT, System.nanoTime() - start);
+      }
+      if (trace != null) {
+        trace.addSpan(ServerTiming.STAGE_PATRON, ServerTiming.DESC_CACHE_HIT, 200, start, System.nanoTime() - start);
+      }
+      if (event != null) {
+        event.setCacheHit(true);
+        event.end(tenant, 200);
+      }
       return Future.succeededFuture(patronId);
     }
 
+    Deadline deadline = client.getDeadline();
+    if (deadline != null && deadline.isExpired()) {
+      if (event != null) {
+        event.end(tenant, 408);
+      }
+      return Future.failedFuture(deadline.exceeded("patron lookup"));
+    }
+
     return client.getPatron(extPatronId)
-        .onSuccess(internalId -> logger.info("Patron lookup successful: {} -> {}", extPatronId, internalId))
-        .onFailure(t -> logger.error("Patron lookup failed for {}", extPatronId, t));
+        .onComplete(ar -> {
+          if (serverTiming != null) {
+            serverTiming.record(ServerTiming.STAGE_PATRON, ServerTiming.DESC_CACHE_MISS, System.nanoTime() - start);
+          }
+          if (trace != null) {
+            trace.addSpan(ServerTiming.STAGE_PATRON, ServerTiming.DESC_CACHE_MISS,
+                ar.succeeded() ? 200 : StageEvent.STATUS_NONE, start, System.nanoTime() - start);
+          }
+          if (event != null) {
+            event.end(tenant, ar.succeeded() ? 200 : StageEvent.STATUS_NONE);
+          }
+        })
+        .onSuccess(internalId -> {
+          long suppressed = logger.isInfoEnabled() ? LOOKUP_LOG.sample() : -1;
+          if (suppressed >= 0) {
+            logger.info("Patron lookup successful: {} -> {} ({} more not logged)", redact(extPatronId),
+                redact(internalId), suppressed);
+          }
+        })
+        .onFailure(t -> {
+          long suppressed = LOOKUP_FAILURE_LOG.sample();
+          if (suppressed >= 0) {
+            logger.error("Patron lookup failed for {} ({} more not logged)", redact(extPatronId), suppressed, t);
+          }
+        });
+  }
+
+  /**
+   * Masks a patron identifier for logging, keeping its last few characters so
+   * that lines about the same patron can still be matched up.
+   */
+  public static String redact(String patronId) {
+    if (patronId == null) {
+      return null;
+    }
+    int length = patronId.length();
+    if (length <= REDACT_VISIBLE * 2) {
+      return "****";
+    }
+    return "****" + patronId.substring(length - REDACT_VISIBLE);
+  }
+
+  /**
+   * Resolves several patrons, taking those it can from the cache and looking
+   * up the others with one call to mod-users. Patrons found are cached.
+   *
+   * @return the internal IDs of the patrons found, by external ID
+   */
+  public static Future<Map<String, String>> lookupPatrons(PatronOkapiClient client, String tenant,
+      List<String> extPatronIds) {
+    PatronIdCache cache = null;
+    try {
+      cache = PatronIdCache.getInstance();
+    } catch (PatronIdCache.NotInitializedException e) {
+      logger.warn("Failed to access PatronIdCache", e);
+    }
+
+    Map<String, String> patronIds = new HashMap<>();
+    Set<String> misses = new LinkedHashSet<>();
+    for (String extPatronId : extPatronIds) {
+      String patronId = cache == null ? null : cache.get(tenant, extPatronId);
+      if (patronId != null) {
+        patronIds.put(extPatronId, patronId);
+      } else {
+        misses.add(extPatronId);
+      }
+    }
+    if (misses.isEmpty()) {
+      return Future.succeededFuture(patronIds);
+    }
+
+    Deadline deadline = client.getDeadline();
+    if (deadline != null && deadline.isExpired()) {
+      return Future.failedFuture(deadline.exceeded("patron lookup"));
+    }
+
+    final PatronIdCache patronIdCache = cache;
+    return client.getPatrons(new ArrayList<>(misses))
+      .map(found -> {
+        logger.info("Patron lookup found {} of {} patrons", found.size(), misses.size());
+        found.forEach((extPatronId, patronId) -> {
+          if (patronIdCache != null) {
+            patronIdCache.put(tenant, extPatronId, patronId);
+          }
+          patronIds.put(extPatronId, patronId);
+        });
+        return patronIds;
+      })
+      .onFailure(t -> {
+        long suppressed = BATCH_LOOKUP_FAILURE_LOG.sample();
+        if (suppressed >= 0) {
+          logger.error("Patron lookup failed for {} patrons ({} more not logged)", misses.size(), suppressed, t);
+        }
+      });
   }
 
 }
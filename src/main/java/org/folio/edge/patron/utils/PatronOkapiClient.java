@@ -1,42 +1,168 @@
 package org.folio.edge.patron.utils;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.web.client.HttpResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.core.utils.OkapiClient;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import org.folio.edge.patron.cache.RequestMetadataCache;
+import org.folio.edge.patron.cache.RequestMetadataCache.NotInitializedException;
+import org.folio.edge.patron.cache.RequestMetadataCache.RequestMetadata;
+import org.folio.edge.patron.metrics.RequestMetrics;
+import org.folio.edge.patron.metrics.ServerTiming;
+import org.folio.edge.patron.metrics.events.UpstreamCallEvent;
 import org.folio.edge.patron.model.Hold;
-import org.joda.time.DateTime;
-import org.joda.time.DateTimeZone;
+import org.folio.edge.patron.resilience.AdaptiveConcurrencyLimiter;
+import org.folio.edge.patron.resilience.AdaptiveConcurrencyLimiter.Token;
+import org.folio.edge.patron.resilience.AdaptiveConcurrencyLimiter.Waiter;
+import org.folio.edge.patron.resilience.Deadline;
+import org.folio.edge.patron.resilience.DeadlineExceededException;
+import org.folio.edge.patron.resilience.RequestHedger;
+import org.folio.edge.patron.resilience.RetryPolicy;
+import org.folio.edge.patron.resilience.UpstreamGuard;
+import org.folio.edge.patron.resilience.UpstreamGuard.Permit;
+import org.folio.edge.patron.resilience.UpstreamRoute;
+import org.folio.edge.patron.resilience.UpstreamUnavailableException;
+import org.folio.edge.patron.security.TokenManager;
+import org.folio.edge.patron.tracing.RequestTrace;
 
+import static org.folio.edge.core.Constants.X_OKAPI_TOKEN;
 import static org.folio.edge.patron.Constants.FIELD_CANCELED_DATE;
 import static org.folio.edge.patron.Constants.FIELD_CANCELLATION_ADDITIONAL_INFO;
 import static org.folio.edge.patron.Constants.FIELD_CANCELLATION_REASON_ID;
+import static org.folio.edge.patron.Constants.HEADER_OKAPI_REQUEST_ID;
 
 public class PatronOkapiClient extends OkapiClient {
 
   private static final Logger logger = LogManager.getLogger(PatronOkapiClient.class);
 
+  private static final LogSampler USERS_ERROR_LOG = new LogSampler();
+  private static final LogSampler DEADLINE_LOG = new LogSampler();
+  private static final LogSampler SHED_LOG = new LogSampler();
+  private static final LogSampler CIRCUIT_OPEN_LOG = new LogSampler();
+
+  public static final String MSG_NO_SUCH_USER = "No user with that external system ID";
+
+  private final Deadline deadline;
+  private final String requestId;
+  private final ServerTiming serverTiming;
+  private final RequestTrace trace;
+
   public PatronOkapiClient(OkapiClient client) {
-    super(client);
+    this(client, null);
+  }
+
+  /**
+   * @param deadline
+   *          the deadline of the edge request this client is used for, or null
+   *          to give every call the full request timeout
+   */
+  public PatronOkapiClient(OkapiClient client, Deadline deadline) {
+    this(new Builder(client).withDeadline(deadline));
+  }
+
+  private PatronOkapiClient(Builder builder) {
+    super(builder.client);
+    this.deadline = builder.deadline;
+    this.requestId = builder.requestId;
+    this.serverTiming = builder.serverTiming;
+    this.trace = builder.trace;
   }
 
   protected PatronOkapiClient(Vertx vertx, String okapiURL, String tenant, int timeout) {
     super(vertx, okapiURL, tenant, timeout);
+    this.deadline = null;
+    this.requestId = null;
+    this.serverTiming = null;
+    this.trace = null;
+  }
+
+  public Deadline getDeadline() {
+    return deadline;
+  }
+
+  public ServerTiming getServerTiming() {
+    return serverTiming;
+  }
+
+  public RequestTrace getTrace() {
+    return trace;
+  }
+
+  /**
+   * Gets a token from the {@link TokenManager}, which only logs in with Okapi
+   * if it has no token for the user yet, and keeps it fresh from then on.
+   */
+  @Override
+  public CompletableFuture<String> login(String username, String password) {
+    final TokenManager tokenManager;
+    try {
+      tokenManager = TokenManager.getInstance();
+    } catch (TokenManager.NotInitializedException e) {
+      logger.debug("TokenManager not initialized, logging in with Okapi");
+      return authenticate(username, password);
+    }
+    return tokenManager.login(tenant, username, password, () -> authenticate(username, password))
+      .thenApply(token -> {
+        setToken(token);
+        return token;
+      });
+  }
+
+  /**
+   * Logs in with <code>/authn/login</code> like {@link OkapiClient#login}, but
+   * fails with a {@link LoginRejectedException} carrying the status code
+   * instead of completing with null, so that rejected credentials can be told
+   * apart from an unavailable Okapi.
+   */
+  private CompletableFuture<String> authenticate(String username, String password) {
+    final CompletableFuture<String> future = new CompletableFuture<>();
+    final MultiMap headers = MultiMap.caseInsensitiveMultiMap()
+      .addAll(defaultHeaders)
+      .remove(X_OKAPI_TOKEN);
+    post(okapiURL + "/authn/login",
+        tenant,
+        new JsonObject().put("username", username).put("password", password).encode(),
+        headers,
+        resp -> {
+          String token = resp.getHeader(X_OKAPI_TOKEN);
+          if (resp.statusCode() == 201 && token != null) {
+            future.complete(token);
+          } else {
+            future.completeExceptionally(new LoginRejectedException(resp.statusCode(), resp.bodyAsString()));
+          }
+        },
+        future::completeExceptionally);
+    return future;
   }
 
   private void getPatron(String extPatronId, Handler<HttpResponse<Buffer>> responseHandler,
       Handler<Throwable> exceptionHandler) {
-    get(
-        String.format("%s/users?query=externalSystemId==%s",
-            okapiURL,
-            extPatronId),
-        tenant,
+    idempotentGet(
+        UpstreamRoute.USERS,
+        usersUrl(okapiURL, extPatronId),
         defaultHeaders,
         responseHandler,
         exceptionHandler);
@@ -49,23 +175,94 @@ public class PatronOkapiClient extends OkapiClient {
         extPatronId,
         resp -> {
           int status = resp.statusCode();
-          String bodyStr = resp.bodyAsString();
-          logger.info(String.format("Response from mod-users: (%s) body: %s", status, bodyStr));
           if (status != 200) {
+            String bodyStr = resp.bodyAsString();
+            long suppressed = USERS_ERROR_LOG.sample();
+            if (suppressed >= 0) {
+              logger.info("Response from mod-users: ({}) body: {} ({} more not logged)", status, bodyStr, suppressed);
+            }
             promise.tryFail(new PatronLookupException(bodyStr));
           } else {
-            JsonObject json = resp.bodyAsJsonObject();
+            // the body is the patron's user record, which is not logged
+            logger.debug("Response from mod-users: ({})", status);
             try {
-              promise.tryComplete(json.getJsonArray("users").getJsonObject(0).getString("id"));
+              JsonArray users = resp.bodyAsJsonObject().getJsonArray("users");
+              if (users.isEmpty()) {
+                // an unknown patron is routine, and not worth a stack trace
+                promise.tryFail(new PatronLookupException(MSG_NO_SUCH_USER));
+                return;
+              }
+              promise.tryComplete(users.getJsonObject(0).getString("id"));
             } catch (Exception e) {
-              logger.error("Exception parsing response from mod-users", e);
+              logUsersError("Exception parsing response from mod-users", e);
               promise.tryFail(new PatronLookupException(e));
             }
           }
         },
         t -> {
-          logger.error("Exception calling mod-users", t);
-          promise.tryFail(new PatronLookupException(t));
+          logUsersError("Exception calling mod-users", t);
+          promise.tryFail(t instanceof UpstreamUnavailableException || t instanceof DeadlineExceededException
+              ? t : new PatronLookupException(t));
+        });
+    return promise.future();
+  }
+
+  /**
+   * Logs a failed call to mod-users without the stack trace, which the patron
+   * lookup logs once the failure reaches it.
+   */
+  private static void logUsersError(String msg, Throwable t) {
+    long suppressed = USERS_ERROR_LOG.sample();
+    if (suppressed >= 0) {
+      logger.warn("{}: {} ({} more not logged)", msg, t.toString(), suppressed);
+    }
+  }
+
+  /**
+   * Looks up several patrons with one call to mod-users.
+   *
+   * @return the internal IDs of the patrons found, by external ID
+   */
+  public Future<Map<String, String>> getPatrons(List<String> extPatronIds) {
+    Promise<Map<String, String>> promise = Promise.promise();
+    String query = extPatronIds.stream()
+      .map(id -> '"' + id.replace("\\", "\\\\").replace("\"", "\\\"") + '"')
+      .collect(Collectors.joining(" or ", "externalSystemId==(", ")"));
+
+    idempotentGet(
+        UpstreamRoute.USERS,
+        String.format("%s/users?limit=%d&query=%s",
+            okapiURL,
+            extPatronIds.size(),
+            URLEncoder.encode(query, StandardCharsets.UTF_8)),
+        defaultHeaders,
+        resp -> {
+          if (resp.statusCode() != 200) {
+            long suppressed = USERS_ERROR_LOG.sample();
+            if (suppressed >= 0) {
+              logger.info("Response from mod-users: ({}) body: {} ({} more not logged)", resp.statusCode(),
+                  resp.bodyAsString(), suppressed);
+            }
+            promise.tryFail(new PatronLookupException(resp.bodyAsString()));
+            return;
+          }
+          try {
+            Map<String, String> patronIds = new HashMap<>();
+            JsonArray users = resp.bodyAsJsonObject().getJsonArray("users");
+            for (int i = 0; i < users.size(); i++) {
+              JsonObject user = users.getJsonObject(i);
+              patronIds.put(user.getString("externalSystemId"), user.getString("id"));
+            }
+            promise.tryComplete(patronIds);
+          } catch (Exception e) {
+            logUsersError("Exception parsing response from mod-users", e);
+            promise.tryFail(new PatronLookupException(e));
+          }
+        },
+        t -> {
+          logUsersError("Exception calling mod-users", t);
+          promise.tryFail(t instanceof UpstreamUnavailableException || t instanceof DeadlineExceededException
+              ? t : new PatronLookupException(t));
         });
     return promise.future();
   }
@@ -73,35 +270,60 @@ public class PatronOkapiClient extends OkapiClient {
   public void getAccount(String patronId, boolean includeLoans, boolean includeCharges, boolean includeHolds,
       String sortBy, String limit, String offset, Handler<HttpResponse<Buffer>> responseHandler,
       Handler<Throwable> exceptionHandler) {
-    String url = String.format("%s/patron/account/%s?includeLoans=%s&includeCharges=%s&includeHolds=%s",
-      okapiURL,
-      patronId,
-      includeLoans,
-      includeCharges,
-      includeHolds);
+    String url = accountUrl(okapiURL, patronId, includeLoans, includeCharges, includeHolds, sortBy, limit, offset);
+
+    // only an unpaged hold list tells us which holds the patron has
+    final boolean completeHolds = null == limit && null == offset;
+    idempotentGet(
+        UpstreamRoute.ACCOUNT,
+        url,
+        null,
+        includeHolds ? resp -> {
+          if (resp.statusCode() == 200) {
+            cacheAccountHolds(patronId, resp.bodyAsString(), completeHolds);
+          }
+          responseHandler.handle(resp);
+        } : responseHandler,
+        exceptionHandler);
+  }
+
+  /**
+   * @return the URL of mod-users' lookup of a patron by external ID
+   */
+  static String usersUrl(String okapiURL, String extPatronId) {
+    return okapiURL + "/users?query=externalSystemId==" + extPatronId;
+  }
+
+  /**
+   * @param sortBy
+   *          null to leave out, as are limit and offset
+   * @return the URL of mod-patron's account of a patron
+   */
+  static String accountUrl(String okapiURL, String patronId, boolean includeLoans, boolean includeCharges,
+      boolean includeHolds, String sortBy, String limit, String offset) {
+    StringBuilder url = new StringBuilder(okapiURL.length() + 160)
+      .append(okapiURL)
+      .append("/patron/account/").append(patronId)
+      .append("?includeLoans=").append(includeLoans)
+      .append("&includeCharges=").append(includeCharges)
+      .append("&includeHolds=").append(includeHolds);
     if (null != sortBy) {
-      url = String.format(url + "&sortBy=%s", sortBy);
+      url.append("&sortBy=").append(sortBy);
     }
     if (null != limit) {
-      url = String.format(url + "&limit=%s", limit);
+      url.append("&limit=").append(limit);
     }
     if (null != offset) {
-      url = String.format(url + "&offset=%s", offset);
+      url.append("&offset=").append(offset);
     }
-
-    get(
-        url,
-        tenant,
-        null,
-        responseHandler,
-        exceptionHandler);
+    return url.toString();
   }
 
   public void renewItem(String patronId, String itemId,
       Handler<HttpResponse<Buffer>> responseHandler, Handler<Throwable> exceptionHandler) {
     post(
+        UpstreamRoute.RENEW,
         String.format("%s/patron/account/%s/item/%s/renew", okapiURL, patronId, itemId),
-        tenant,
         null,
         null,
         responseHandler,
@@ -111,30 +333,40 @@ public class PatronOkapiClient extends OkapiClient {
   public void placeItemHold(String patronId, String itemId, String requestBody,
       Handler<HttpResponse<Buffer>> responseHandler, Handler<Throwable> exceptionHandler) {
     post(
+        UpstreamRoute.HOLD,
         String.format("%s/patron/account/%s/item/%s/hold", okapiURL, patronId, itemId),
-        tenant,
         requestBody,
         null,
-        responseHandler,
+        resp -> {
+          cachePlacedHold(patronId, resp);
+          responseHandler.handle(resp);
+        },
         exceptionHandler);
   }
 
   public void cancelHold(String patronId, String holdId, JsonObject holdCancellationRequest,
                          Handler<HttpResponse<Buffer>> responseHandler, Handler<Throwable> exceptionHandler) {
-    getRequest(holdId,
+    RequestMetadata cached = getCachedRequestMetadata(holdId);
+    if (cached != null) {
+      logger.debug("Using cached request metadata for hold {}", holdId);
+      try {
+        postCancellation(patronId, holdId, createCancellationHoldRequest(holdCancellationRequest, cached, patronId),
+          responseHandler, exceptionHandler);
+      } catch (Exception ex) {
+        exceptionHandler.handle(ex);
+      }
+      return;
+    }
+
+    fetchRequest(holdId,
       resp -> {
         if (resp.statusCode() == 200) {
           String bodyStr = resp.bodyAsString();
           try {
-            JsonObject requestToCancel = new JsonObject(bodyStr);
+            RequestMetadata requestToCancel = RequestMetadata.fromRequest(new JsonObject(bodyStr));
             Hold holdEntity = createCancellationHoldRequest(holdCancellationRequest, requestToCancel, patronId);
-            post(
-              String.format("%s/patron/account/%s/hold/%s/cancel", okapiURL, patronId, holdId),
-              tenant,
-              holdEntity.toJson(),
-              null,
-              responseHandler,
-              exceptionHandler);
+            cacheRequestMetadata(patronId, requestToCancel);
+            postCancellation(patronId, holdId, holdEntity, responseHandler, exceptionHandler);
           } catch (Exception ex) {
             exceptionHandler.handle(ex);
           }
@@ -146,14 +378,45 @@ public class PatronOkapiClient extends OkapiClient {
     );
   }
 
+  private void postCancellation(String patronId, String holdId, Hold holdEntity,
+      Handler<HttpResponse<Buffer>> responseHandler, Handler<Throwable> exceptionHandler)
+      throws JsonProcessingException {
+    post(
+      UpstreamRoute.HOLD,
+      String.format("%s/patron/account/%s/hold/%s/cancel", okapiURL, patronId, holdId),
+      holdEntity.toJson(),
+      null,
+      responseHandler,
+      exceptionHandler);
+  }
+
   public void getRequest(String holdId, Handler<HttpResponse<Buffer>> responseHandler,
                       Handler<Throwable> exceptionHandler) {
+    fetchRequest(holdId,
+      resp -> {
+        if (resp.statusCode() == 200) {
+          try {
+            RequestMetadata metadata = RequestMetadata.fromRequest(new JsonObject(resp.bodyAsString()));
+            // make sure a cancellation can be built from it before caching it
+            toInstant(metadata.requestDate);
+            cacheRequestMetadata(null, metadata);
+          } catch (Exception ex) {
+            logger.debug("Not caching request {}: {}", holdId, ex.getMessage());
+          }
+        }
+        responseHandler.handle(resp);
+      },
+      exceptionHandler);
+  }
+
+  private void fetchRequest(String holdId, Handler<HttpResponse<Buffer>> responseHandler,
+                      Handler<Throwable> exceptionHandler) {
 
     String url = String.format("%s/circulation/requests/%s", okapiURL, holdId);
 
-    get(
+    idempotentGet(
+      UpstreamRoute.CIRCULATION_REQUESTS,
       url,
-      tenant,
       null,
       responseHandler,
       exceptionHandler);
@@ -162,26 +425,446 @@ public class PatronOkapiClient extends OkapiClient {
   public void placeInstanceHold(String patronId, String instanceId, String requestBody,
       Handler<HttpResponse<Buffer>> responseHandler, Handler<Throwable> exceptionHandler) {
     post(
+        UpstreamRoute.HOLD,
         String.format("%s/patron/account/%s/instance/%s/hold", okapiURL, patronId, instanceId),
-        tenant,
         requestBody,
         null,
-        responseHandler,
+        resp -> {
+          cachePlacedHold(patronId, resp);
+          responseHandler.handle(resp);
+        },
         exceptionHandler);
   }
 
-  private Hold createCancellationHoldRequest(JsonObject cancellationRequest, JsonObject baseRequest, String patronId) {
+  /**
+   * For idempotent calls only: a call failing transiently may be retried, and
+   * a slow call may be sent twice.
+   */
+  private void idempotentGet(UpstreamRoute route, String url, MultiMap headers,
+      Handler<HttpResponse<Buffer>> responseHandler, Handler<Throwable> exceptionHandler) {
+    timed(route, responseHandler, exceptionHandler,
+      (rh, eh) -> retriedGet(route, url, headers, rh, eh));
+  }
+
+  private void retriedGet(UpstreamRoute route, String url, MultiMap headers,
+      Handler<HttpResponse<Buffer>> responseHandler, Handler<Throwable> exceptionHandler) {
+    final RetryPolicy retryPolicy;
+    try {
+      retryPolicy = RetryPolicy.getInstance();
+    } catch (RetryPolicy.NotInitializedException e) {
+      logger.debug("RetryPolicy not initialized, calling {} without retries", route.path());
+      hedgedGet(route, url, headers, responseHandler, exceptionHandler);
+      return;
+    }
+    retryPolicy.execute(route, deadline,
+      (rh, eh) -> hedgedGet(route, url, headers, rh, eh),
+      responseHandler, exceptionHandler);
+  }
+
+  /**
+   * For idempotent calls only: a slow call may be sent twice.
+   */
+  private void hedgedGet(UpstreamRoute route, String url, MultiMap headers,
+      Handler<HttpResponse<Buffer>> responseHandler, Handler<Throwable> exceptionHandler) {
+    final RequestHedger hedger;
+    try {
+      hedger = RequestHedger.getInstance();
+    } catch (RequestHedger.NotInitializedException e) {
+      logger.debug("RequestHedger not initialized, calling {} without hedging", route.path());
+      get(route, url, headers, responseHandler, exceptionHandler);
+      return;
+    }
+    hedger.execute(route,
+      (Handler<HttpResponse<Buffer>> rh, Handler<Throwable> eh) -> get(route, url, headers, rh, eh),
+      responseHandler, exceptionHandler);
+  }
+
+  private void get(UpstreamRoute route, String url, MultiMap headers,
+      Handler<HttpResponse<Buffer>> responseHandler, Handler<Throwable> exceptionHandler) {
+    final MultiMap requestHeaders = withRequestId(headers);
+    timeBounded(route, responseHandler, exceptionHandler,
+      (rh, eh) -> get(url, tenant, requestHeaders, rh, eh));
+  }
+
+  private void post(UpstreamRoute route, String url, String payload, MultiMap headers,
+      Handler<HttpResponse<Buffer>> responseHandler, Handler<Throwable> exceptionHandler) {
+    final MultiMap requestHeaders = withRequestId(headers);
+    timed(route, responseHandler, exceptionHandler,
+      (rh, eh) -> timeBounded(route, rh, eh,
+        (grh, geh) -> post(url, tenant, payload, requestHeaders, grh, geh)));
+  }
+
+  /**
+   * @return the default and given headers with the edge request's
+   *         {@value org.folio.edge.patron.Constants#HEADER_OKAPI_REQUEST_ID},
+   *         so Okapi logs the call under the same request ID
+   */
+  private MultiMap withRequestId(MultiMap headers) {
+    if (requestId == null) {
+      return headers;
+    }
+    MultiMap requestHeaders = MultiMap.caseInsensitiveMultiMap().addAll(defaultHeaders);
+    if (headers != null) {
+      requestHeaders.setAll(headers);
+    }
+    return requestHeaders.set(HEADER_OKAPI_REQUEST_ID, requestId);
+  }
+
+  /**
+   * Records the time and outcome of a call, retries and hedged calls
+   * included, in the {@link RequestMetrics}, the request's
+   * {@link ServerTiming} and {@link RequestTrace}, and as an
+   * {@link UpstreamCallEvent}.
+   */
+  private void timed(UpstreamRoute route, Handler<HttpResponse<Buffer>> responseHandler,
+      Handler<Throwable> exceptionHandler,
+      BiConsumer<Handler<HttpResponse<Buffer>>, Handler<Throwable>> call) {
+    RequestMetrics requestMetrics = null;
+    try {
+      requestMetrics = RequestMetrics.getInstance();
+    } catch (RequestMetrics.NotInitializedException e) {
+      logger.debug("RequestMetrics not initialized, not timing {}", route.path());
+    }
+    final UpstreamCallEvent event = UpstreamCallEvent.start(route);
+    if (requestMetrics == null && serverTiming == null && trace == null && event == null) {
+      call.accept(responseHandler, exceptionHandler);
+      return;
+    }
+    final RequestMetrics metrics = requestMetrics;
+    final long start = System.nanoTime();
+    call.accept(
+      resp -> {
+        record(metrics, event, route, resp.statusCode(), start);
+        responseHandler.handle(resp);
+      },
+      t -> {
+        record(metrics, event, route, RequestMetrics.STATUS_NONE, start);
+        exceptionHandler.handle(t);
+      });
+  }
+
+  private void record(RequestMetrics metrics, UpstreamCallEvent event, UpstreamRoute route, int statusCode,
+      long start) {
+    final long nanos = System.nanoTime() - start;
+    if (event != null) {
+      event.end(tenant, statusCode);
+    }
+    if (metrics != null) {
+      metrics.recordUpstream(route, tenant, statusCode, nanos);
+    }
+    if (serverTiming != null) {
+      serverTiming.recordUpstream(route, nanos);
+    }
+    if (trace != null) {
+      trace.addSpan(route.module(), route.path(), statusCode, start, nanos);
+    }
+  }
+
+  /**
+   * Runs the call through the concurrency limiter, the tenant's bulkhead and
+   * the route's circuit breaker. Server errors and exceptions count as
+   * failures.
+   *
+   * If the edge request has a deadline, the call fails with a
+   * {@link DeadlineExceededException} once it passes, whether the call is
+   * still waiting for capacity or already in flight.
+   */
+  private void timeBounded(UpstreamRoute route, Handler<HttpResponse<Buffer>> responseHandler,
+      Handler<Throwable> exceptionHandler,
+      BiConsumer<Handler<HttpResponse<Buffer>>, Handler<Throwable>> call) {
+    if (deadline == null) {
+      limit(route, () -> false, responseHandler, exceptionHandler, call);
+      return;
+    }
+    final long remainingMs = deadline.remainingMs();
+    if (remainingMs <= 0) {
+      exceptionHandler.handle(deadline.exceeded("calling " + route.path()));
+      return;
+    }
+    final Context context = Vertx.currentContext();
+    if (context == null) {
+      limit(route, deadline::isExpired, responseHandler, exceptionHandler, call);
+      return;
+    }
+
+    final AtomicBoolean done = new AtomicBoolean();
+    final AtomicReference<Waiter> waiter = new AtomicReference<>();
+    final long timerId = context.owner().setTimer(remainingMs, id -> {
+      if (done.compareAndSet(false, true)) {
+        long suppressed = DEADLINE_LOG.sample();
+        if (suppressed >= 0) {
+          logger.warn("Giving up on call to {}: {} ({} more not logged)", route.path(), deadline, suppressed);
+        }
+        // frees the queue slot of a call still waiting for capacity
+        Waiter queued = waiter.get();
+        if (queued != null) {
+          queued.cancel();
+        }
+        exceptionHandler.handle(deadline.exceeded(route.path()));
+      }
+    });
+    waiter.set(limit(route,
+      () -> done.get() || deadline.isExpired(),
+      resp -> {
+        if (done.compareAndSet(false, true)) {
+          context.owner().cancelTimer(timerId);
+          responseHandler.handle(resp);
+        }
+      },
+      t -> {
+        if (done.compareAndSet(false, true)) {
+          context.owner().cancelTimer(timerId);
+          exceptionHandler.handle(t);
+        }
+      },
+      call));
+  }
+
+  /**
+   * @param abandoned
+   *          whether the edge request has given up on the call, checked when a
+   *          queued call is admitted so it doesn't take a slot for nothing
+   * @return the call if it's waiting for capacity, otherwise null
+   */
+  private Waiter limit(UpstreamRoute route, BooleanSupplier abandoned,
+      Handler<HttpResponse<Buffer>> responseHandler, Handler<Throwable> exceptionHandler,
+      BiConsumer<Handler<HttpResponse<Buffer>>, Handler<Throwable>> call) {
+    final AdaptiveConcurrencyLimiter limiter;
+    try {
+      limiter = AdaptiveConcurrencyLimiter.getInstance();
+    } catch (AdaptiveConcurrencyLimiter.NotInitializedException e) {
+      logger.debug("AdaptiveConcurrencyLimiter not initialized, calling {} unlimited", route.path());
+      guarded(route, null, responseHandler, exceptionHandler, call);
+      return null;
+    }
+    return limiter.acquire(
+      token -> {
+        if (abandoned.getAsBoolean()) {
+          logger.debug("Not calling {}, the request has given up on it", route.path());
+          token.cancel();
+          return;
+        }
+        guarded(route, token, responseHandler, exceptionHandler, call);
+      },
+      t -> {
+        long suppressed = SHED_LOG.sample();
+        if (suppressed >= 0) {
+          logger.warn("Shedding call to {}: {} ({} more not logged)", route.path(), t.getMessage(), suppressed);
+        }
+        exceptionHandler.handle(t);
+      });
+  }
+
+  /**
+   * Makes the call once the tenant's bulkhead and the route's circuit breaker
+   * let it through, and reports its outcome to them and to the concurrency
+   * limiter, whose token it holds, if any.
+   */
+  private void guarded(UpstreamRoute route, Token token, Handler<HttpResponse<Buffer>> responseHandler,
+      Handler<Throwable> exceptionHandler,
+      BiConsumer<Handler<HttpResponse<Buffer>>, Handler<Throwable>> call) {
+    Permit permit = null;
+    try {
+      permit = UpstreamGuard.getInstance().acquire(tenant, route);
+    } catch (UpstreamGuard.NotInitializedException e) {
+      logger.debug("UpstreamGuard not initialized, calling {} unguarded", route.path());
+    } catch (UpstreamUnavailableException e) {
+      long suppressed = CIRCUIT_OPEN_LOG.sample();
+      if (suppressed >= 0) {
+        logger.warn("{} ({} more not logged)", e.getMessage(), suppressed);
+      }
+      if (token != null) {
+        token.cancel();
+      }
+      exceptionHandler.handle(e);
+      return;
+    }
+    final Permit guardPermit = permit;
+    call.accept(
+      resp -> {
+        complete(token, guardPermit, resp.statusCode() >= 500);
+        responseHandler.handle(resp);
+      },
+      t -> {
+        complete(token, guardPermit, true);
+        exceptionHandler.handle(t);
+      });
+  }
+
+  private static void complete(Token token, Permit permit, boolean failure) {
+    if (permit != null) {
+      permit.complete(failure);
+    }
+    if (token != null) {
+      token.complete(failure);
+    }
+  }
+
+  static Hold createCancellationHoldRequest(JsonObject cancellationRequest, RequestMetadata baseRequest,
+      String patronId) {
     return Hold.builder()
       .cancellationReasonId(cancellationRequest.getString(FIELD_CANCELLATION_REASON_ID))
       .canceledByUserId(patronId)
       .cancellationAdditionalInformation(cancellationRequest.getString(FIELD_CANCELLATION_ADDITIONAL_INFO))
-      .canceledDate(new DateTime(cancellationRequest.getString(FIELD_CANCELED_DATE), DateTimeZone.UTC).toDate())
-      .requestId(baseRequest.getString("id"))
-      .pickupLocationId(baseRequest.getString("pickupServicePointId"))
-      .requestDate(new DateTime(baseRequest.getString("requestDate"), DateTimeZone.UTC).toDate())
+      .canceledDate(toInstant(cancellationRequest.getString(FIELD_CANCELED_DATE)))
+      .requestId(baseRequest.requestId)
+      .pickupLocationId(baseRequest.pickupServicePointId)
+      .requestDate(toInstant(baseRequest.requestDate))
       .build();
   }
 
+  /**
+   * @return the ISO 8601 date, or now if there is none
+   */
+  private static Instant toInstant(String dateTime) {
+    return dateTime == null ? Instant.now() : DateTimeHelper.parseIso(dateTime);
+  }
+
+  private RequestMetadata getCachedRequestMetadata(String holdId) {
+    try {
+      return RequestMetadataCache.getInstance().get(tenant, holdId);
+    } catch (NotInitializedException e) {
+      logger.warn("Failed to access RequestMetadataCache", e);
+      return null;
+    }
+  }
+
+  private void cacheRequestMetadata(String patronId, RequestMetadata metadata) {
+    if (metadata.requestId == null || metadata.requestDate == null) {
+      return;
+    }
+    try {
+      RequestMetadataCache.getInstance().put(tenant, patronId, metadata);
+    } catch (NotInitializedException e) {
+      logger.warn("Failed to access RequestMetadataCache", e);
+    }
+  }
+
+  private void cachePlacedHold(String patronId, HttpResponse<Buffer> resp) {
+    if (resp.statusCode() != 201) {
+      return;
+    }
+    try {
+      RequestMetadata metadata = RequestMetadata.fromAccountHold(resp.bodyAsJsonObject());
+      if (metadata != null) {
+        cacheRequestMetadata(patronId, metadata);
+      }
+    } catch (Exception e) {
+      logger.debug("Unable to cache placed hold: {}", e.getMessage());
+    }
+  }
+
+  private void cacheAccountHolds(String patronId, String accountBody, boolean completeHolds) {
+    try {
+      JsonArray holds = new JsonObject(accountBody).getJsonArray("holds");
+      if (holds == null) {
+        return;
+      }
+      List<RequestMetadata> metadata = new ArrayList<>(holds.size());
+      for (int i = 0; i < holds.size(); i++) {
+        RequestMetadata hold = RequestMetadata.fromAccountHold(holds.getJsonObject(i));
+        if (hold == null) {
+          // without every hold we can't tell which holds the patron has
+          return;
+        }
+        metadata.add(hold);
+      }
+      RequestMetadataCache cache = RequestMetadataCache.getInstance();
+      if (completeHolds) {
+        cache.putPatronHolds(tenant, patronId, metadata);
+      } else {
+        metadata.forEach(hold -> cache.put(tenant, patronId, hold));
+      }
+    } catch (NotInitializedException e) {
+      logger.warn("Failed to access RequestMetadataCache", e);
+    } catch (Exception e) {
+      logger.debug("Unable to cache holds from account response: {}", e.getMessage());
+    }
+  }
+
+  public static class Builder {
+
+    private final OkapiClient client;
+    private Deadline deadline;
+    private String requestId;
+    private ServerTiming serverTiming;
+    private RequestTrace trace;
+
+    /**
+     * @param client
+     *          the logged in client to make the calls with
+     */
+    public Builder(OkapiClient client) {
+      this.client = client;
+    }
+
+    /**
+     * @param deadline
+     *          the deadline of the edge request this client is used for, or
+     *          null to give every call the full request timeout
+     */
+    public Builder withDeadline(Deadline deadline) {
+      this.deadline = deadline;
+      return this;
+    }
+
+    /**
+     * @param requestId
+     *          the request ID of the edge request, sent with every call
+     */
+    public Builder withRequestId(String requestId) {
+      this.requestId = requestId;
+      return this;
+    }
+
+    /**
+     * @param serverTiming
+     *          where to record the time of each call for the edge request's
+     *          <code>Server-Timing</code> header
+     */
+    public Builder withServerTiming(ServerTiming serverTiming) {
+      this.serverTiming = serverTiming;
+      return this;
+    }
+
+    /**
+     * @param trace
+     *          where to record each call as a span of the edge request
+     */
+    public Builder withTrace(RequestTrace trace) {
+      this.trace = trace;
+      return this;
+    }
+
+    public PatronOkapiClient build() {
+      return new PatronOkapiClient(this);
+    }
+  }
+
+  public static class LoginRejectedException extends Exception {
+
+    private static final long serialVersionUID = 2718407354193380212L;
+
+    private final int statusCode;
+
+    public LoginRejectedException(int statusCode, String body) {
+      super("Login failed with status " + statusCode + ": " + body);
+      this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+      return statusCode;
+    }
+
+    /**
+     * @return whether Okapi rejected the credentials themselves, rather than
+     *         failing to check them
+     */
+    public boolean isInvalidCredentials() {
+      return statusCode == 401 || statusCode == 422;
+    }
+  }
+
   public static class PatronLookupException extends Exception {
 
     private static final long serialVersionUID = -8671018675309863637L;
@@ -1,5 +1,6 @@
 package org.folio.edge.patron.utils;
 
+import org.folio.edge.core.utils.OkapiClient;
 import org.folio.edge.core.utils.OkapiClientFactory;
 
 import io.vertx.core.Vertx;
@@ -10,6 +11,23 @@ public class PatronOkapiClientFactory extends OkapiClientFactory {
     super(vertx, okapiURL, reqTimeoutMs);
   }
 
+  public long getRequestTimeoutMs() {
+    return reqTimeoutMs;
+  }
+
+  public Vertx getVertx() {
+    return vertx;
+  }
+
+  /**
+   * Hands out PatronOkapiClients to edge-common as well, so that its logins go
+   * through the {@link org.folio.edge.patron.security.TokenManager}.
+   */
+  @Override
+  public OkapiClient getOkapiClient(String tenant) {
+    return getPatronOkapiClient(tenant);
+  }
+
   public PatronOkapiClient getPatronOkapiClient(String tenant) {
     return new PatronOkapiClient(vertx, okapiURL, tenant, reqTimeoutMs);
   }
@@ -0,0 +1,224 @@
+package org.folio.edge.patron.utils;
+
+import static org.folio.edge.patron.Constants.MSG_INVALID_FIELD;
+import static org.folio.edge.patron.Constants.MSG_MISSING_FIELD;
+import static org.folio.edge.patron.Constants.MSG_UNKNOWN_FIELD;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Validates request bodies against one of the JSON schemas in
+ * <code>ramls/</code>, compiled once into a rule per property.
+ *
+ * The subset of draft-04 the schemas use is supported: <code>type</code>,
+ * <code>required</code>, <code>enum</code>, <code>pattern</code>,
+ * <code>additionalProperties</code> and <code>$ref</code>s to a sibling
+ * schema. The UUID pattern is checked with
+ * {@link ValidationHelper#isUuid(CharSequence)} rather than a regex.
+ * <code>format: date-time</code> isn't enforced, as the handler drops or
+ * rewrites the dates of a hold anyway.
+ *
+ * Validation doesn't throw; the first violation found is returned.
+ */
+public class SchemaValidator {
+
+  private static final Logger logger = LogManager.getLogger(SchemaValidator.class);
+
+  private static final String TYPE_STRING = "string";
+  private static final String TYPE_INTEGER = "integer";
+  private static final String TYPE_NUMBER = "number";
+  private static final String TYPE_BOOLEAN = "boolean";
+  private static final String TYPE_OBJECT = "object";
+  private static final String TYPE_ARRAY = "array";
+
+  private final Map<String, Property> properties;
+  private final List<String> required;
+  private final boolean additionalProperties;
+
+  private SchemaValidator(Map<String, Property> properties, List<String> required,
+      boolean additionalProperties) {
+    this.properties = properties;
+    this.required = required;
+    this.additionalProperties = additionalProperties;
+  }
+
+  public static Builder builder(String resource) {
+    return new Builder(resource);
+  }
+
+  /**
+   * @return a message naming the first field in violation of the schema, or
+   *         null if the body is valid
+   */
+  public String validate(JsonObject json) {
+    return validate(json.getMap(), "");
+  }
+
+  @SuppressWarnings("unchecked")
+  private String validate(Map<String, Object> json, String path) {
+    for (String field : required) {
+      if (json.get(field) == null) {
+        return String.format(MSG_MISSING_FIELD, path + field);
+      }
+    }
+    for (Map.Entry<String, Object> entry : json.entrySet()) {
+      Object value = entry.getValue();
+      Property property = properties.get(entry.getKey());
+      if (property == null) {
+        if (!additionalProperties) {
+          return String.format(MSG_UNKNOWN_FIELD, path + entry.getKey());
+        }
+      } else if (value != null) {
+        if (!property.accepts(value)) {
+          return String.format(MSG_INVALID_FIELD, path + entry.getKey());
+        }
+        if (property.object != null) {
+          Map<String, Object> map = value instanceof JsonObject ? ((JsonObject) value).getMap()
+              : (Map<String, Object>) value;
+          String violation = property.object.validate(map, path + entry.getKey() + ".");
+          if (violation != null) {
+            return violation;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  private static final class Property {
+    private String type;
+    private boolean uuid;
+    private Pattern pattern;
+    private Set<String> values;
+    private SchemaValidator object;
+
+    private boolean accepts(Object value) {
+      if (type == null) {
+        return true;
+      }
+      switch (type) {
+      case TYPE_STRING:
+        return value instanceof String && acceptsString((String) value);
+      case TYPE_INTEGER:
+        return value instanceof Integer || value instanceof Long || value instanceof Short
+            || value instanceof Byte || value instanceof java.math.BigInteger;
+      case TYPE_NUMBER:
+        return value instanceof Number;
+      case TYPE_BOOLEAN:
+        return value instanceof Boolean;
+      case TYPE_OBJECT:
+        return value instanceof JsonObject || value instanceof Map;
+      case TYPE_ARRAY:
+        return value instanceof JsonArray || value instanceof List;
+      default:
+        return true;
+      }
+    }
+
+    private boolean acceptsString(String value) {
+      if (uuid && !ValidationHelper.isUuid(value)) {
+        return false;
+      }
+      if (pattern != null && !pattern.matcher(value).find()) {
+        return false;
+      }
+      return values == null || values.contains(value);
+    }
+  }
+
+  public static class Builder {
+    private final String resource;
+    private final Set<String> relaxed = new HashSet<>();
+
+    private Builder(String resource) {
+      this.resource = resource;
+    }
+
+    /**
+     * Only checks the type of the given top-level fields: they are neither
+     * required nor matched against their pattern, e.g. for fields the edge
+     * fills in or that the discovery services send in another form.
+     */
+    public Builder relax(String... fields) {
+      relaxed.addAll(Arrays.asList(fields));
+      return this;
+    }
+
+    /**
+     * @throws IllegalStateException
+     *           if the schema, or one it refers to, can't be read
+     */
+    public SchemaValidator build() {
+      logger.info("Compiling JSON schema {}", resource);
+      return compile(resource, relaxed);
+    }
+
+    private static SchemaValidator compile(String resource, Set<String> relaxed) {
+      JsonObject schema = load(resource);
+      String dir = resource.substring(0, resource.lastIndexOf('/') + 1);
+
+      Map<String, Property> properties = new LinkedHashMap<>();
+      JsonObject props = schema.getJsonObject("properties", new JsonObject());
+      for (String name : props.fieldNames()) {
+        JsonObject prop = props.getJsonObject(name);
+        Property property = new Property();
+        property.type = prop.getString("type");
+        if (prop.containsKey("$ref")) {
+          property.type = TYPE_OBJECT;
+          property.object = compile(dir + prop.getString("$ref"), Collections.emptySet());
+        }
+        if (prop.containsKey("enum")) {
+          property.values = prop.getJsonArray("enum")
+            .stream()
+            .map(String::valueOf)
+            .collect(Collectors.toSet());
+        }
+        String pattern = prop.getString("pattern");
+        if (pattern != null && !relaxed.contains(name)) {
+          if (ValidationHelper.UUID_PATTERN.equals(pattern)) {
+            property.uuid = true;
+          } else {
+            property.pattern = Pattern.compile(pattern);
+          }
+        }
+        properties.put(name, property);
+      }
+
+      List<String> required = schema.getJsonArray("required", new JsonArray())
+        .stream()
+        .map(String::valueOf)
+        .filter(field -> !relaxed.contains(field))
+        .collect(Collectors.toList());
+
+      return new SchemaValidator(properties, required, schema.getBoolean("additionalProperties", true));
+    }
+
+    private static JsonObject load(String resource) {
+      try (InputStream in = SchemaValidator.class.getClassLoader().getResourceAsStream(resource)) {
+        if (in == null) {
+          throw new IllegalStateException("JSON schema not found on the classpath: " + resource);
+        }
+        return new JsonObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to read JSON schema " + resource, e);
+      }
+    }
+  }
+}
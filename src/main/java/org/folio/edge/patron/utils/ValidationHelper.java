@@ -0,0 +1,86 @@
+package org.folio.edge.patron.utils;
+
+/**
+ * Parsers for the request parameters the RAML constrains, e.g. the
+ * <code>offset</code> and <code>limit</code> integers and the UUIDs of items,
+ * instances and holds.
+ *
+ * They report malformed input with their return value instead of an
+ * exception, and don't allocate, so rejecting junk traffic costs no more than
+ * accepting it.
+ */
+public class ValidationHelper {
+
+  /** the pattern the RAML and the JSON schemas give for UUIDs */
+  public static final String UUID_PATTERN =
+      "^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[1-5][0-9a-fA-F]{3}-[89abAB][0-9a-fA-F]{3}-[0-9a-fA-F]{12}$";
+
+  private static final int UUID_LENGTH = 36;
+  private static final int MAX_INT_DIGITS = 10;
+
+  private ValidationHelper() {
+
+  }
+
+  /**
+   * Parses an integer between 0 and {@link Integer#MAX_VALUE}, written in
+   * decimal digits only.
+   *
+   * @return the value, or -1 if the input is null, empty, not a number or out
+   *         of range
+   */
+  public static int parseNonNegativeInt(CharSequence value) {
+    if (value == null) {
+      return -1;
+    }
+    int length = value.length();
+    if (length == 0) {
+      return -1;
+    }
+    int start = 0;
+    // leading zeros don't count towards the digits of the value
+    while (start < length - 1 && value.charAt(start) == '0') {
+      start++;
+    }
+    if (length - start > MAX_INT_DIGITS) {
+      return -1;
+    }
+    long result = 0;
+    for (int i = start; i < length; i++) {
+      int digit = value.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      result = result * 10 + digit;
+    }
+    return result > Integer.MAX_VALUE ? -1 : (int) result;
+  }
+
+  /**
+   * Checks a UUID against {@link #UUID_PATTERN}: 8-4-4-4-12 hex digits, of
+   * version 1 to 5 and of the RFC 4122 variant.
+   */
+  public static boolean isUuid(CharSequence value) {
+    if (value == null || value.length() != UUID_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < UUID_LENGTH; i++) {
+      char c = value.charAt(i);
+      if (i == 8 || i == 13 || i == 18 || i == 23) {
+        if (c != '-') {
+          return false;
+        }
+      } else if (!isHexDigit(c)) {
+        return false;
+      }
+    }
+    char version = value.charAt(14);
+    char variant = Character.toLowerCase(value.charAt(19));
+    return version >= '1' && version <= '5'
+        && (variant == '8' || variant == '9' || variant == 'a' || variant == 'b');
+  }
+
+  private static boolean isHexDigit(char c) {
+    return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+}
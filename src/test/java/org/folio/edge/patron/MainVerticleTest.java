@@ -9,9 +9,36 @@ import static org.folio.edge.core.Constants.SYS_REQUEST_TIMEOUT_MS;
 import static org.folio.edge.core.Constants.SYS_RESPONSE_COMPRESSION;
 import static org.folio.edge.core.Constants.SYS_SECURE_STORE_PROP_FILE;
 import static org.folio.edge.core.Constants.TEXT_PLAIN;
+import static org.folio.edge.patron.Constants.APPLICATION_NDJSON;
+import static org.folio.edge.patron.Constants.DEFAULT_BATCH_MAX_OPERATIONS;
+import static org.folio.edge.patron.Constants.DEFAULT_MAX_BODY_SIZE_BYTES;
+import static org.folio.edge.patron.Constants.DEFAULT_REQUEST_METADATA_CACHE_CAPACITY;
+import static org.folio.edge.patron.Constants.DEFAULT_REQUEST_METADATA_CACHE_TTL_MS;
+import static org.folio.edge.patron.Constants.HEADER_ADMIN_TOKEN;
+import static org.folio.edge.patron.Constants.HEADER_IDEMPOTENCY_KEY;
+import static org.folio.edge.patron.Constants.HEADER_IDEMPOTENT_REPLAYED;
+import static org.folio.edge.patron.Constants.HEADER_OKAPI_REQUEST_ID;
+import static org.folio.edge.patron.Constants.HEADER_REQUEST_TIMEOUT;
+import static org.folio.edge.patron.Constants.HEADER_RETRY_AFTER;
+import static org.folio.edge.patron.Constants.HEADER_SERVER_TIMING;
+import static org.folio.edge.patron.Constants.MAX_IDEMPOTENCY_KEY_LENGTH;
 import static org.folio.edge.patron.Constants.MSG_ACCESS_DENIED;
+import static org.folio.edge.patron.Constants.MSG_BATCH_NO_OPERATIONS;
+import static org.folio.edge.patron.Constants.MSG_BATCH_TOO_MANY_OPERATIONS;
+import static org.folio.edge.patron.Constants.MSG_IDEMPOTENCY_KEY_REUSED;
+import static org.folio.edge.patron.Constants.MSG_INVALID_IDEMPOTENCY_KEY;
+import static org.folio.edge.patron.Constants.MSG_INVALID_REQUEST_TIMEOUT;
+import static org.folio.edge.patron.Constants.MSG_PATRON_NOT_FOUND;
 import static org.folio.edge.patron.Constants.MSG_REQUEST_TIMEOUT;
+import static org.folio.edge.patron.Constants.MSG_TOO_MANY_REQUESTS;
 import static org.folio.edge.patron.Constants.MSG_HOLD_NOBODY;
+import static org.folio.edge.patron.Constants.MSG_HOLD_NOT_FOUND;
+import static org.folio.edge.patron.Constants.TEXT_PROMETHEUS;
+import static org.folio.edge.patron.Constants.MSG_INVALID_FIELD;
+import static org.folio.edge.patron.Constants.MSG_INVALID_UUID_PARAM;
+import static org.folio.edge.patron.Constants.SYS_ADMIN_TOKEN;
+import static org.folio.edge.patron.Constants.SYS_REJECT_UNKNOWN_HOLD_CANCELLATION;
+import static org.folio.edge.patron.Constants.SYS_SERVER_TIMING_API_KEYS;
 import static org.folio.edge.patron.utils.PatronMockOkapi.holdCancellationHoldId;
 import static org.folio.edge.patron.utils.PatronMockOkapi.holdReqId_notFound;
 import static org.folio.edge.patron.utils.PatronMockOkapi.holdReqTs;
@@ -21,20 +48,25 @@ import static org.folio.edge.patron.utils.PatronMockOkapi.malformedHoldCancellat
 import static org.folio.edge.patron.utils.PatronMockOkapi.nonUUIDHoldCanceledByPatronId;
 import static org.folio.edge.patron.utils.PatronMockOkapi.offset_param;
 import static org.folio.edge.patron.utils.PatronMockOkapi.wrongIntegerParamMessage;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -45,14 +77,19 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.core.utils.ApiKeyUtils;
 import org.folio.edge.core.utils.test.TestUtils;
+import org.folio.edge.patron.cache.RequestMetadataCache;
 import org.folio.edge.patron.model.Account;
 import org.folio.edge.patron.model.error.ErrorMessage;
 import org.folio.edge.patron.model.Hold;
 import org.folio.edge.patron.model.Loan;
+import org.folio.edge.patron.resilience.EventLoopLagMonitor;
+import org.folio.edge.patron.resilience.RateLimiter;
+import org.folio.edge.patron.security.TokenManager;
 import org.folio.edge.patron.utils.PatronMockOkapi;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -64,6 +101,8 @@ import io.restassured.response.Response;
 
 import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
 
@@ -79,6 +118,8 @@ public class MainVerticleTest {
   private static final String holdId = UUID.randomUUID().toString();
   private static final String apiKey = ApiKeyUtils.generateApiKey(10, "diku", "diku");
   private static final String badApiKey = apiKey + "0000";
+  private static final String serverTimingApiKey = ApiKeyUtils.generateApiKey(10, "diku", "diku");
+  private static final String adminToken = UUID.randomUUID().toString();
   private static final String unknownTenantApiKey = ApiKeyUtils.generateApiKey(10, "bogus", "diku");;
 
   private static final long requestTimeoutMs = 3000L;
@@ -102,6 +143,9 @@ public class MainVerticleTest {
     System.setProperty(SYS_LOG_LEVEL, "DEBUG");
     System.setProperty(SYS_RESPONSE_COMPRESSION, "true");
     System.setProperty(SYS_REQUEST_TIMEOUT_MS, String.valueOf(requestTimeoutMs));
+    System.setProperty(SYS_SERVER_TIMING_API_KEYS, serverTimingApiKey);
+    System.setProperty(SYS_ADMIN_TOKEN, adminToken);
+    System.setProperty(SYS_REJECT_UNKNOWN_HOLD_CANCELLATION, "true");
 
     mockOkapi = spy(new PatronMockOkapi(okapiPort, knownTenants));
     mockOkapi.start()
@@ -125,6 +169,12 @@ public class MainVerticleTest {
     .onComplete(context.asyncAssertSuccess());
   }
 
+  @Before
+  public void before() {
+    // holds cached by one test must not make another's cancellation unknown
+    RequestMetadataCache.initialize(DEFAULT_REQUEST_METADATA_CACHE_TTL_MS, DEFAULT_REQUEST_METADATA_CACHE_CAPACITY);
+  }
+
   @After
   public void after() {
     mockOkapi.setDelay(0);
@@ -146,6 +196,221 @@ public class MainVerticleTest {
     assertEquals("\"OK\"", resp.body().asString());
   }
 
+  @Test
+  public void testAdminReady(TestContext context) {
+    logger.info("=== Test the readiness endpoint ===");
+
+    RestAssured
+      .get("/admin/ready")
+      .then()
+      .statusCode(200)
+      .header(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .body("ready", is(true))
+      .body("eventLoopLag.overloaded", is(false))
+      .body("concurrencyLimit.saturated", is(false))
+      .body("openCircuitBreakers", is(0));
+  }
+
+  @Test
+  public void testSingletonsSharedByInstances(TestContext context) {
+    logger.info("=== Test further verticle instances keep the shared singletons ===");
+
+    EventLoopLagMonitor monitor = EventLoopLagMonitor.getInstance();
+    TokenManager tokenManager = TokenManager.getInstance();
+
+    new MainVerticle();
+
+    assertSame(monitor, EventLoopLagMonitor.getInstance());
+    assertSame(tokenManager, TokenManager.getInstance());
+  }
+
+  @Test
+  public void testAdminMetrics(TestContext context) {
+    logger.info("=== Test the Prometheus metrics endpoint ===");
+
+    RestAssured
+      .get(String.format("/patron/account/%s?apikey=%s", extPatronId, apiKey))
+      .then()
+      .statusCode(200);
+
+    RestAssured
+      .with()
+      .header(HEADER_ADMIN_TOKEN, adminToken)
+      .get("/admin/metrics")
+      .then()
+      .statusCode(200)
+      .header(HttpHeaders.CONTENT_TYPE, TEXT_PROMETHEUS)
+      .body(containsString("# TYPE edge_patron_request_duration_seconds summary"))
+      .body(containsString("edge_patron_request_duration_seconds_count{route=\"account\",tenant=\"diku\"}"))
+      .body(containsString("edge_patron_requests_total{route=\"account\",tenant=\"diku\",status=\"200\"}"))
+      .body(containsString("edge_patron_patron_lookup_duration_seconds_count{tenant=\"diku\"}"))
+      .body(containsString("edge_patron_upstream_duration_seconds_count{hop=\"account\",tenant=\"diku\"}"));
+  }
+
+  @Test
+  public void testServerTiming(TestContext context) {
+    logger.info("=== Test the Server-Timing header for enabled API keys ===");
+
+    RestAssured
+      .get(String.format("/patron/account/%s?apikey=%s", extPatronId, serverTimingApiKey))
+      .then()
+      .statusCode(200)
+      .header(HEADER_SERVER_TIMING, containsString("apikey;dur="))
+      .header(HEADER_SERVER_TIMING, containsString("token;dur="))
+      .header(HEADER_SERVER_TIMING, containsString("patron;desc=\"cache "))
+      .header(HEADER_SERVER_TIMING, containsString("mod-patron;dur="))
+      .header(HEADER_SERVER_TIMING, containsString("total;dur="));
+
+    RestAssured
+      .get(String.format("/patron/account/%s?apikey=%s", extPatronId, apiKey))
+      .then()
+      .statusCode(200)
+      .header(HEADER_SERVER_TIMING, nullValue());
+  }
+
+  @Test
+  public void testRequestId(TestContext context) {
+    logger.info("=== Test the request ID is propagated to FOLIO ===");
+
+    String requestId = "123456/discovery";
+
+    RestAssured
+      .given()
+      .header(HEADER_OKAPI_REQUEST_ID, requestId)
+      .get(String.format("/patron/account/%s?apikey=%s", extPatronId, apiKey))
+      .then()
+      .statusCode(200)
+      .header(HEADER_OKAPI_REQUEST_ID, requestId);
+
+    verify(mockOkapi, times(1))
+      .getAccountHandler(argThat(ctx -> requestId.equals(ctx.request().getHeader(HEADER_OKAPI_REQUEST_ID))));
+  }
+
+  @Test
+  public void testRequestIdGenerated(TestContext context) {
+    logger.info("=== Test a request ID is generated for requests without one ===");
+
+    String invalidRequestId = "not a request id";
+
+    String requestId = RestAssured
+      .given()
+      .header(HEADER_OKAPI_REQUEST_ID, invalidRequestId)
+      .get(String.format("/patron/account/%s?apikey=%s", extPatronId, apiKey))
+      .then()
+      .statusCode(200)
+      .extract()
+      .header(HEADER_OKAPI_REQUEST_ID);
+
+    assertTrue(requestId, requestId.matches("\\d{6}/patron"));
+  }
+
+  @Test
+  public void testAdminTraces(TestContext context) {
+    logger.info("=== Test the slowest request traces endpoint ===");
+
+    RestAssured
+      .with()
+      .header(HEADER_ADMIN_TOKEN, adminToken)
+      .delete("/admin/traces")
+      .then()
+      .statusCode(204);
+
+    String requestId = RestAssured
+      .get(String.format("/patron/account/%s?apikey=%s", extPatronId, apiKey))
+      .then()
+      .statusCode(200)
+      .extract()
+      .header(HEADER_OKAPI_REQUEST_ID);
+
+    RestAssured
+      .with()
+      .header(HEADER_ADMIN_TOKEN, adminToken)
+      .get("/admin/traces")
+      .then()
+      .statusCode(200)
+      .header(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .body("traces.find { it.requestId == '" + requestId + "' }.route", is("account"))
+      .body("traces.find { it.requestId == '" + requestId + "' }.spans.name", hasItem("mod-patron"));
+  }
+
+  @Test
+  public void testAdminCircuitBreakers(TestContext context) {
+    logger.info("=== Test the circuit breaker state endpoint ===");
+
+    RestAssured
+      .get(String.format("/patron/account/%s?apikey=%s", extPatronId, apiKey))
+      .then()
+      .statusCode(200);
+
+    RestAssured
+      .get("/admin/circuit-breakers")
+      .then()
+      .statusCode(200)
+      .header(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .body("circuitBreakers.find { it.route == '/patron/account' }.state", is("CLOSED"))
+      .body("bulkheads.find { it.tenant == 'diku' }.maxConcurrentCalls", is(200));
+  }
+
+  @Test
+  public void testFlushCredentialCache(TestContext context) {
+    logger.info("=== Test flushing the client credential cache ===");
+
+    RestAssured
+      .get(String.format("/patron/account/%s?apikey=%s", extPatronId, apiKey))
+      .then()
+      .statusCode(200);
+
+    RestAssured
+      .with()
+      .header(HEADER_ADMIN_TOKEN, adminToken)
+      .delete("/admin/credential-cache")
+      .then()
+      .statusCode(204);
+
+    // credentials are resolved again, while the token is reused
+    RestAssured
+      .get(String.format("/patron/account/%s?apikey=%s", extPatronId, apiKey))
+      .then()
+      .statusCode(200);
+  }
+
+  @Test
+  public void testAdminTokenRequired(TestContext context) {
+    logger.info("=== Test the admin routes that change state or show traffic need the admin token ===");
+
+    RestAssured
+      .delete("/admin/credential-cache")
+      .then()
+      .statusCode(401);
+
+    RestAssured
+      .with()
+      .header(HEADER_ADMIN_TOKEN, adminToken + "0000")
+      .delete("/admin/traces")
+      .then()
+      .statusCode(401);
+
+    RestAssured
+      .get("/admin/traces")
+      .then()
+      .statusCode(401);
+
+    RestAssured
+      .get("/admin/metrics")
+      .then()
+      .statusCode(401);
+
+    RestAssured
+      .get("/admin/rate-limits")
+      .then()
+      .statusCode(401);
+
+    RestAssured
+      .get("/admin/health")
+      .then()
+      .statusCode(200);
+  }
+
   @Test
   public void testGetAccountUnknownApiKey(TestContext context) throws Exception {
     logger.info("=== Test getAccount with unknown apiKey (tenant) ===");
@@ -470,6 +735,39 @@ public class MainVerticleTest {
       .body("errorMessage", is(MSG_REQUEST_TIMEOUT));
   }
 
+  @Test
+  public void testGetAccountRequestTimeoutHeader(TestContext context) throws Exception {
+    logger.info("=== Test getAccount with a smaller time budget requested by the client ===");
+
+    mockOkapi.setDelay(requestTimeoutMs / 2);
+    long start = System.currentTimeMillis();
+    RestAssured
+      .given()
+      .header(HEADER_REQUEST_TIMEOUT, String.valueOf(requestTimeoutMs / 6))
+      .get(String.format("/patron/account/%s?apikey=%s", patronId, apiKey))
+      .then()
+      .contentType(APPLICATION_JSON)
+      .statusCode(408)
+      .body("code", is(408))
+      .body("errorMessage", is(MSG_REQUEST_TIMEOUT));
+    assertTrue(System.currentTimeMillis() - start < requestTimeoutMs);
+  }
+
+  @Test
+  public void testGetAccountInvalidRequestTimeoutHeader(TestContext context) throws Exception {
+    logger.info("=== Test getAccount with an invalid time budget ===");
+
+    RestAssured
+      .given()
+      .header(HEADER_REQUEST_TIMEOUT, "-1")
+      .get(String.format("/patron/account/%s?apikey=%s", patronId, apiKey))
+      .then()
+      .contentType(APPLICATION_JSON)
+      .statusCode(400)
+      .body("code", is(400))
+      .body("errorMessage", is(MSG_INVALID_REQUEST_TIMEOUT));
+  }
+
   @Test
   public void testRenewSuccess(TestContext context) throws Exception {
     logger.info("=== Test successfulrenewal ===");
@@ -489,6 +787,112 @@ public class MainVerticleTest {
     assertEquals(expected, actual);
   }
 
+  @Test
+  public void testRateLimited(TestContext context) throws Exception {
+    logger.info("=== Test requests over the rate limit ===");
+
+    RateLimiter.initialize(new RateLimiter.Builder().withApiKeyRate(1));
+    try {
+      RestAssured
+        .get(String.format("/patron/account/%s?apikey=%s", extPatronId, apiKey))
+        .then()
+        .statusCode(200);
+
+      RestAssured
+        .get(String.format("/patron/account/%s?apikey=%s", extPatronId, apiKey))
+        .then()
+        .statusCode(429)
+        .header(HEADER_RETRY_AFTER, "1")
+        .body("errorMessage", is(MSG_TOO_MANY_REQUESTS));
+
+      RestAssured
+        .with()
+        .header(HEADER_ADMIN_TOKEN, adminToken)
+        .get("/admin/rate-limits")
+        .then()
+        .statusCode(200)
+        .body("apiKey.ratePerSecond", is(1))
+        .body("apiKey.buckets[0].allowed", is(1))
+        .body("apiKey.buckets[0].rejected", is(1));
+    } finally {
+      RateLimiter.initialize(new RateLimiter.Builder());
+    }
+  }
+
+  @Test
+  public void testRenewIdempotent(TestContext context) throws Exception {
+    logger.info("=== Test renewals retried with an Idempotency-Key ===");
+
+    final String renewItemId = UUID.randomUUID().toString();
+    final String idempotencyKey = UUID.randomUUID().toString();
+    final String url = String.format("/patron/account/%s/item/%s/renew?apikey=%s", patronId, renewItemId, apiKey);
+
+    final Response first = RestAssured
+      .with()
+      .header(HEADER_IDEMPOTENCY_KEY, idempotencyKey)
+      .post(url)
+      .then()
+      .statusCode(201)
+      .extract()
+      .response();
+    assertNull(first.header(HEADER_IDEMPOTENT_REPLAYED));
+
+    final Response retry = RestAssured
+      .with()
+      .header(HEADER_IDEMPOTENCY_KEY, idempotencyKey)
+      .post(url)
+      .then()
+      .statusCode(201)
+      .header(HEADER_IDEMPOTENT_REPLAYED, "true")
+      .extract()
+      .response();
+
+    assertEquals(first.body().asString(), retry.body().asString());
+    verify(mockOkapi, times(1)).renewItemHandler(
+        argThat(ctx -> ctx.request().path().contains(renewItemId)));
+  }
+
+  @Test
+  public void testIdempotencyKeyReused(TestContext context) throws Exception {
+    logger.info("=== Test an Idempotency-Key reused for a different hold ===");
+
+    final String idempotencyKey = UUID.randomUUID().toString();
+    final String url = String.format("/patron/account/%s/instance/%s/hold?apikey=%s", patronId, instanceId, apiKey);
+    Hold hold = PatronMockOkapi.getHold(instanceId);
+
+    RestAssured
+      .with()
+      .header(HEADER_IDEMPOTENCY_KEY, idempotencyKey)
+      .body(hold.toJson())
+      .contentType(APPLICATION_JSON)
+      .post(url)
+      .then()
+      .statusCode(201);
+
+    RestAssured
+      .with()
+      .header(HEADER_IDEMPOTENCY_KEY, idempotencyKey)
+      .body(new JsonObject(hold.toJson()).put("patronComments", "changed").encode())
+      .contentType(APPLICATION_JSON)
+      .post(url)
+      .then()
+      .statusCode(422)
+      .body("errorMessage", is(MSG_IDEMPOTENCY_KEY_REUSED));
+  }
+
+  @Test
+  public void testInvalidIdempotencyKey(TestContext context) throws Exception {
+    logger.info("=== Test an overlong Idempotency-Key ===");
+
+    RestAssured
+      .with()
+      .header(HEADER_IDEMPOTENCY_KEY, StringUtils.repeat('x', MAX_IDEMPOTENCY_KEY_LENGTH + 1))
+      .post(String.format("/patron/account/%s/item/%s/renew?apikey=%s", patronId, itemId, apiKey))
+      .then()
+      .statusCode(400)
+      .body("errorMessage", is(String.format(MSG_INVALID_IDEMPOTENCY_KEY, MAX_IDEMPOTENCY_KEY_LENGTH)));
+  }
+
   @Test
   public void testRenewPatronNotFound(TestContext context) throws Exception {
     logger.info("=== Test renew w/ patron not found ===");
@@ -672,6 +1076,133 @@ public class MainVerticleTest {
     validateHolds(expected, actual);
   }
 
+  @Test
+  public void testBatchSuccess(TestContext context) throws Exception {
+    logger.info("=== Test batch of renewals and holds ===");
+
+    Hold hold = PatronMockOkapi.getHold(instanceId);
+    JsonObject batch = new JsonObject().put("operations", new JsonArray()
+      .add(new JsonObject().put("id", "1").put("type", "renew").put("itemId", itemId))
+      .add(new JsonObject().put("id", "2").put("type", "renew").put("itemId", PatronMockOkapi.itemId_notFound))
+      .add(new JsonObject().put("id", "3").put("type", "instanceHold").put("instanceId", instanceId)
+        .put("hold", new JsonObject(hold.toJson())))
+      .add(new JsonObject().put("id", "4").put("type", "checkout").put("itemId", itemId))
+      .add(new JsonObject().put("id", "5").put("type", "renew")));
+
+    final Response resp = RestAssured
+      .with()
+      .body(batch.encode())
+      .contentType(APPLICATION_JSON)
+      .post(String.format("/patron/account/%s/batch?apikey=%s", patronId, apiKey))
+      .then()
+      .statusCode(200)
+      .header(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .body("results.id", is(List.of("1", "2", "3", "4", "5")))
+      .body("results.status", is(List.of(201, 404, 201, 400, 400)))
+      .body("results[1].error.errorMessage", is(PatronMockOkapi.itemId_notFound + " not found"))
+      .extract()
+      .response();
+
+    JsonArray results = new JsonObject(resp.body().asString()).getJsonArray("results");
+    Loan expectedLoan = Loan.fromJson(PatronMockOkapi.getLoanJson(patronId, itemId));
+    assertEquals(expectedLoan, Loan.fromJson(results.getJsonObject(0).getJsonObject("body").encode()));
+    Hold expectedHold = Hold.fromJson(PatronMockOkapi.getPlacedHoldJson(hold));
+    validateHolds(expectedHold, Hold.fromJson(results.getJsonObject(2).getJsonObject("body").encode()));
+
+    RestAssured
+      .with()
+      .header(HEADER_ADMIN_TOKEN, adminToken)
+      .get("/admin/metrics")
+      .then()
+      .statusCode(200)
+      .body(containsString("edge_patron_requests_total{route=\"batch\",tenant=\"diku\",status=\"200\"}"));
+  }
+
+  @Test
+  public void testBatchNoOperations(TestContext context) throws Exception {
+    logger.info("=== Test batch without operations ===");
+
+    RestAssured
+      .with()
+      .body(new JsonObject().put("operations", new JsonArray()).encode())
+      .contentType(APPLICATION_JSON)
+      .post(String.format("/patron/account/%s/batch?apikey=%s", patronId, apiKey))
+      .then()
+      .statusCode(400)
+      .body("errorMessage", is(MSG_BATCH_NO_OPERATIONS));
+  }
+
+  @Test
+  public void testBatchTooManyOperations(TestContext context) throws Exception {
+    logger.info("=== Test batch with too many operations ===");
+
+    JsonArray operations = new JsonArray();
+    for (int i = 0; i <= DEFAULT_BATCH_MAX_OPERATIONS; i++) {
+      operations.add(new JsonObject().put("type", "renew").put("itemId", itemId));
+    }
+
+    RestAssured
+      .with()
+      .body(new JsonObject().put("operations", operations).encode())
+      .contentType(APPLICATION_JSON)
+      .post(String.format("/patron/account/%s/batch?apikey=%s", patronId, apiKey))
+      .then()
+      .statusCode(400)
+      .body("errorMessage", is(String.format(MSG_BATCH_TOO_MANY_OPERATIONS, DEFAULT_BATCH_MAX_OPERATIONS)));
+  }
+
+  @Test
+  public void testAccountSummaries(TestContext context) throws Exception {
+    logger.info("=== Test bulk account summaries ===");
+
+    final String body = String.join("\n", extPatronId, "", PatronMockOkapi.extPatronId_notFound, extPatronId);
+
+    final Response resp = RestAssured
+      .with()
+      .body(body)
+      .contentType(TEXT_PLAIN)
+      .post(String.format("/patron/accounts/summary?apikey=%s&includeLoans=true", apiKey))
+      .then()
+      .statusCode(200)
+      .header(HttpHeaders.CONTENT_TYPE, APPLICATION_NDJSON)
+      .extract()
+      .response();
+
+    // written as each account completes, so in any order
+    String[] lines = resp.body().asString().split("\n");
+    assertEquals(3, lines.length);
+    final String expected = PatronMockOkapi.getAccountJson(patronId, true, false, false);
+    int found = 0;
+    for (String line : lines) {
+      JsonObject summary = new JsonObject(line);
+      if (summary.getInteger("status") == 200) {
+        assertEquals(extPatronId, summary.getString("patronId"));
+        assertEquals(new JsonObject(expected), summary.getJsonObject("account"));
+        found++;
+      } else {
+        assertEquals(PatronMockOkapi.extPatronId_notFound, summary.getString("patronId"));
+        assertEquals(404, (int) summary.getInteger("status"));
+        assertEquals(String.format(MSG_PATRON_NOT_FOUND, PatronMockOkapi.extPatronId_notFound),
+            summary.getJsonObject("error").getString("errorMessage"));
+      }
+    }
+    assertEquals(2, found);
+  }
+
+  @Test
+  public void testAccountSummariesNoApiKey(TestContext context) throws Exception {
+    logger.info("=== Test bulk account summaries without an API key ===");
+
+    RestAssured
+      .with()
+      .body(extPatronId)
+      .contentType(TEXT_PLAIN)
+      .post("/patron/accounts/summary")
+      .then()
+      .statusCode(401)
+      .body("errorMessage", is(MSG_ACCESS_DENIED));
+  }
+
   @Test
   public void testPlaceInstanceHoldPatronNotFound(TestContext context) throws Exception {
     logger.info("=== Test place instance hold w/ patron not found ===");
@@ -810,11 +1341,86 @@ public class MainVerticleTest {
       .body("errorMessage", is(MSG_HOLD_NOBODY));
   }
 
+  @Test
+  public void testPlaceInstanceHoldMalformedBody(TestContext context) throws Exception {
+    logger.info("=== Test place instance hold request with a malformed request body ===");
+
+    RestAssured
+      .with()
+      .body("{\"requestDate\":")
+      .contentType(APPLICATION_JSON)
+      .post(
+          String.format("/patron/account/%s/instance/%s/hold?apikey=%s", patronId, instanceId,
+              apiKey))
+      .then()
+      .contentType(APPLICATION_JSON)
+      .statusCode(400)
+      .body("code", is(400))
+      .body("errorMessage", is(MSG_HOLD_NOBODY));
+  }
+
+  @Test
+  public void testPlaceInstanceHoldInvalidBody(TestContext context) throws Exception {
+    logger.info("=== Test place instance hold request with a body violating the schema ===");
+
+    Hold hold = PatronMockOkapi.getHold(instanceId);
+
+    RestAssured
+      .with()
+      .body(new JsonObject(hold.toJson()).put("pickupLocationId", "downtown").encode())
+      .contentType(APPLICATION_JSON)
+      .post(
+          String.format("/patron/account/%s/instance/%s/hold?apikey=%s", patronId, instanceId,
+              apiKey))
+      .then()
+      .contentType(APPLICATION_JSON)
+      .statusCode(422)
+      .body("code", is(422))
+      .body("errorMessage", is(String.format(MSG_INVALID_FIELD, "pickupLocationId")));
+  }
+
+  @Test
+  public void testPlaceItemHoldInvalidItemId(TestContext context) throws Exception {
+    logger.info("=== Test place item hold request with an item ID that isn't a UUID ===");
+
+    Hold hold = PatronMockOkapi.getHold(itemId);
+
+    RestAssured
+      .with()
+      .body(hold.toJson())
+      .contentType(APPLICATION_JSON)
+      .post(
+          String.format("/patron/account/%s/item/%s/hold?apikey=%s", patronId, "not-a-uuid",
+              apiKey))
+      .then()
+      .contentType(APPLICATION_JSON)
+      .statusCode(400)
+      .body("code", is(400))
+      .body("errorMessage", is(String.format(MSG_INVALID_UUID_PARAM, "itemId", "not-a-uuid")));
+  }
+
+  @Test
+  public void testPlaceInstanceHoldBodyTooLarge(TestContext context) throws Exception {
+    logger.info("=== Test place instance hold request with a request body over the limit ===");
+
+    RestAssured
+      .with()
+      .body(new JsonObject()
+        .put("comment", StringUtils.repeat('x', (int) DEFAULT_MAX_BODY_SIZE_BYTES))
+        .encode())
+      .contentType(APPLICATION_JSON)
+      .post(
+          String.format("/patron/account/%s/instance/%s/hold?apikey=%s", patronId, instanceId,
+              apiKey))
+      .then()
+      .statusCode(413);
+  }
+
   @Test
   public void testPlaceItemHoldSuccess(TestContext context) throws Exception {
     logger.info("=== Test successful item hold ===");
 
-    Hold hold = PatronMockOkapi.getHold(itemId, new Date(holdReqTs));
+    Hold hold = PatronMockOkapi.getHold(itemId, Instant.ofEpochMilli(holdReqTs));
 
     final Response resp = RestAssured
       .with()
@@ -909,7 +1515,7 @@ public class MainVerticleTest {
     Hold actual = Hold.fromJson(resp.body().asString());
     validateHolds(expected, actual);
 
-    assertEquals(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").parse("2019-09-20T10:00:00.000+0000"), actual.expirationDate);
+    assertEquals(Instant.parse("2019-09-20T10:00:00Z"), actual.expirationDate);
   }
 
   @Test
@@ -1158,6 +1764,59 @@ public class MainVerticleTest {
       assertEquals("Unable to find patron " + PatronMockOkapi.extPatronId_notFound, msg.message);
   }
 
+  @Test
+  public void testCancelHoldCachedRequestMetadata(TestContext context) throws Exception {
+    logger.info("=== Test cancel hold of a hold from the cached account ===");
+
+    String holdId = RestAssured
+      .get(String.format("/patron/account/%s?includeHolds=true&apikey=%s", extPatronId, apiKey))
+      .then()
+      .statusCode(200)
+      .extract()
+      .path("holds[0].requestId");
+
+    RestAssured
+      .with()
+      .contentType(APPLICATION_JSON)
+      .body(PatronMockOkapi.getHoldCancellation(holdId, patronId))
+      .post(String.format("/patron/account/%s/hold/%s/cancel?apikey=%s", extPatronId, holdId, apiKey))
+      .then()
+      .statusCode(200);
+
+    // the pickup service point and request date came from the account
+    verify(mockOkapi, never()).getRequestHandler(argThat(ctx -> ctx.request().path().endsWith(holdId)));
+    verify(mockOkapi, times(1)).cancelHoldHandler(argThat(ctx -> ctx.request().path().contains(holdId)));
+  }
+
+  @Test
+  public void testCancelHoldUnknownHold(TestContext context) throws Exception {
+    logger.info("=== Test cancel hold of a hold not in the cached account ===");
+
+    String unknownHoldId = UUID.randomUUID().toString();
+
+    RestAssured
+      .get(String.format("/patron/account/%s?includeHolds=true&apikey=%s", extPatronId, apiKey))
+      .then()
+      .statusCode(200);
+
+    final Response resp = RestAssured
+      .with()
+      .contentType(APPLICATION_JSON)
+      .body(PatronMockOkapi.getHoldCancellation(unknownHoldId, patronId))
+      .post(String.format("/patron/account/%s/hold/%s/cancel?apikey=%s", extPatronId, unknownHoldId, apiKey))
+      .then()
+      .statusCode(404)
+      .header(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .extract()
+      .response();
+
+    ErrorMessage msg = ErrorMessage.fromJson(resp.body().asString());
+    assertEquals(404, msg.httpStatusCode);
+    assertEquals(String.format(MSG_HOLD_NOT_FOUND, unknownHoldId), msg.message);
+    verify(mockOkapi, never()).getRequestHandler(argThat(ctx -> ctx.request().path().endsWith(unknownHoldId)));
+    verify(mockOkapi, never()).cancelHoldHandler(argThat(ctx -> ctx.request().path().contains(unknownHoldId)));
+  }
+
   @Test
   public void testCancelHoldHoldNotFound(TestContext context) throws Exception {
     logger.info("=== Test cancel hold w/ hold not found ===");
@@ -1435,11 +2094,11 @@ public class MainVerticleTest {
 
     long expectedRequestDateTs = expectedHolds.requestDate != null
       //have to add 1 day's milliseconds because the Request timestamp is 1 day in the past
-      ? expectedHolds.requestDate.getTime() + DAY_IN_MILLIS
+      ? expectedHolds.requestDate.toEpochMilli() + DAY_IN_MILLIS
       : Instant.now().toEpochMilli();
 
     long actualRequestDateTs = actualHolds.requestDate != null
-      ? actualHolds.requestDate.getTime()
+      ? actualHolds.requestDate.toEpochMilli()
       : Instant.now().toEpochMilli();
 
     //check that the actual timestamp is within a minute of the expected timestamp
@@ -0,0 +1,350 @@
+package org.folio.edge.patron;
+
+import static org.folio.edge.core.Constants.APPLICATION_JSON;
+import static org.folio.edge.core.Constants.SYS_OKAPI_URL;
+import static org.folio.edge.core.Constants.SYS_PORT;
+import static org.folio.edge.core.Constants.SYS_REQUEST_TIMEOUT_MS;
+import static org.folio.edge.core.Constants.SYS_SECURE_STORE_PROP_FILE;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.core.utils.ApiKeyUtils;
+import org.folio.edge.core.utils.test.TestUtils;
+import org.folio.edge.patron.metrics.LatencyHistogram;
+import org.folio.edge.patron.metrics.RequestMetrics.Route;
+import org.folio.edge.patron.utils.PatronMockOkapi;
+
+import com.sun.management.ThreadMXBean;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+
+/**
+ * Drives open-loop load across the five <code>/patron</code> routes of a
+ * {@link MainVerticle} deployed in this JVM against a
+ * {@link PatronMockOkapi}, and reports the throughput, latency percentiles
+ * and allocation rate of each route, to compare builds before shipping.
+ *
+ * Requests are sent at a fixed <code>rate</code>, whether or not earlier
+ * ones have been answered, and their latency is measured from when they were
+ * due rather than when they were sent, so a stalled server is not hidden by
+ * a stalled driver. Of every ten requests, five get an account, two renew an
+ * item, and one each places an item hold, places an instance hold and
+ * cancels a hold. The mock answers after a delay drawn from
+ * <code>latency</code>, see {@link PatronMockOkapi#parseLatencyModel(String)}.
+ *
+ * A <code>warmupSec</code> run, whose results are dropped, comes before the
+ * measured <code>durationSec</code> run. Allocation is that of all threads of
+ * the JVM, the driver and the mock included. The results are also written to
+ * <code>target/load-result.json</code>. edge-patron's system properties, e.g.
+ * <code>-Dlog_level=WARN</code>, are passed on to the verticle.
+ *
+ * Run with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=org.folio.edge.patron.PatronLoadBenchmark \
+ *   -Dexec.args="rate durationSec latency warmupSec"
+ * </pre>
+ */
+public class PatronLoadBenchmark {
+
+  private static final Logger logger = LogManager.getLogger(PatronLoadBenchmark.class);
+
+  private static final String tenant = "diku";
+  private static final String apiKey = ApiKeyUtils.generateApiKey(10, tenant, tenant);
+  private static final String extPatronId = PatronMockOkapi.extPatronId;
+  private static final String patronId = PatronMockOkapi.patronId;
+  private static final String itemId = UUID.randomUUID().toString();
+  private static final String instanceId = UUID.randomUUID().toString();
+  private static final String holdId = PatronMockOkapi.holdCancellationHoldId;
+  private static final String resultFile = "target/load-result.json";
+
+  private static final Route[] mix = {
+      Route.ACCOUNT, Route.RENEW, Route.ACCOUNT, Route.ITEM_HOLD, Route.ACCOUNT,
+      Route.RENEW, Route.ACCOUNT, Route.INSTANCE_HOLD, Route.ACCOUNT, Route.CANCEL_HOLD };
+  private static final double[] quantiles = { 0.5, 0.9, 0.99, 0.999 };
+  private static final String[] quantileLabels = { "p50", "p90", "p99", "p999" };
+
+  private final Vertx vertx;
+  private final WebClient client;
+  private final Buffer itemHold;
+  private final Buffer instanceHold;
+  private final Buffer cancellation;
+
+  private PatronLoadBenchmark(Vertx vertx, int serverPort) throws IOException {
+    this.vertx = vertx;
+    this.client = WebClient.create(vertx, new WebClientOptions()
+      .setDefaultHost("localhost")
+      .setDefaultPort(serverPort)
+      .setMaxPoolSize(1000));
+    this.itemHold = Buffer.buffer(PatronMockOkapi.getHold(itemId, Instant.now()).toJson());
+    this.instanceHold = Buffer.buffer(PatronMockOkapi.getHold(instanceId).toJson());
+    this.cancellation = Buffer.buffer(PatronMockOkapi.getHoldCancellation(holdId, patronId));
+  }
+
+  public static void main(String[] args) throws Exception {
+    final int rate = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+    final int durationSec = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+    final String latency = args.length > 2 ? args[2] : "lognormal:20:0.5";
+    final int warmupSec = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+    int okapiPort = TestUtils.getPort();
+    int serverPort = TestUtils.getPort();
+    System.setProperty(SYS_PORT, String.valueOf(serverPort));
+    System.setProperty(SYS_OKAPI_URL, "http://localhost:" + okapiPort);
+    setDefault(SYS_SECURE_STORE_PROP_FILE, "src/main/resources/ephemeral.properties");
+    setDefault(SYS_REQUEST_TIMEOUT_MS, "10000");
+
+    Vertx vertx = Vertx.vertx();
+    PatronMockOkapi mockOkapi = new PatronMockOkapi(okapiPort, Collections.singletonList(tenant));
+    mockOkapi.setLatencyModel(PatronMockOkapi.parseLatencyModel(latency));
+    mockOkapi.start()
+      .compose(x -> vertx.deployVerticle(MainVerticle.class.getName()))
+      .toCompletionStage()
+      .toCompletableFuture()
+      .get();
+
+    PatronLoadBenchmark benchmark = new PatronLoadBenchmark(vertx, serverPort);
+    logger.info("Warming up for {}s at {} req/s", warmupSec, rate);
+    benchmark.run(rate, warmupSec);
+    logger.info("Measuring for {}s at {} req/s, upstream latency {}", durationSec, rate, latency);
+    Result result = benchmark.run(rate, durationSec);
+
+    JsonObject json = result.toJson()
+      .put("rate", rate)
+      .put("latency", latency);
+    logger.info("{}", result);
+    Path path = Paths.get(resultFile);
+    Files.createDirectories(path.getParent());
+    Files.write(path, json.encodePrettily().getBytes(StandardCharsets.UTF_8));
+    logger.info("Results written to {}", path.toAbsolutePath());
+
+    mockOkapi.close().toCompletionStage().toCompletableFuture().get();
+    vertx.close();
+  }
+
+  private static void setDefault(String name, String value) {
+    if (System.getProperty(name) == null) {
+      System.setProperty(name, value);
+    }
+  }
+
+  private Result run(int rate, int durationSec) throws Exception {
+    final Result result = new Result();
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+    final AtomicLong outstanding = new AtomicLong();
+    final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+    final long total = (long) rate * durationSec;
+
+    vertx.runOnContext(v -> {
+      final long start = System.nanoTime();
+      final long[] sent = { 0 };
+      result.start();
+      // a timer can't fire every request's interval at high rates, so each tick
+      // sends the requests that have come due since the last one
+      vertx.setPeriodic(1, id -> {
+        long due = Math.min(total, (System.nanoTime() - start) / intervalNanos + 1);
+        for (; sent[0] < due; sent[0]++) {
+          final Route route = mix[(int) (sent[0] % mix.length)];
+          final long dueNanos = start + sent[0] * intervalNanos;
+          outstanding.incrementAndGet();
+          send(route).onComplete(ar -> {
+            result.record(route, ar.succeeded() ? ar.result().statusCode() : 0, System.nanoTime() - dueNanos);
+            if (outstanding.decrementAndGet() == 0 && sent[0] == total) {
+              done.complete(null);
+            }
+          });
+        }
+        if (sent[0] == total) {
+          vertx.cancelTimer(id);
+          if (outstanding.get() == 0) {
+            done.complete(null);
+          }
+        }
+      });
+    });
+    done.get();
+    result.stop();
+    return result;
+  }
+
+  private Future<HttpResponse<Buffer>> send(Route route) {
+    HttpRequest<Buffer> request;
+    Buffer body = null;
+    switch (route) {
+    case ACCOUNT:
+      request = client.get(String.format(
+          "/patron/account/%s?includeLoans=true&includeCharges=true&includeHolds=true", extPatronId));
+      break;
+    case RENEW:
+      request = client.post(String.format("/patron/account/%s/item/%s/renew", patronId, itemId));
+      break;
+    case ITEM_HOLD:
+      request = client.post(String.format("/patron/account/%s/item/%s/hold", patronId, itemId));
+      body = itemHold;
+      break;
+    case INSTANCE_HOLD:
+      request = client.post(String.format("/patron/account/%s/instance/%s/hold", patronId, instanceId));
+      body = instanceHold;
+      break;
+    default:
+      request = client.post(String.format("/patron/account/%s/hold/%s/cancel", patronId, holdId));
+      body = cancellation;
+      break;
+    }
+    request.addQueryParam("apikey", apiKey);
+    if (body == null) {
+      return request.send();
+    }
+    return request.putHeader(HttpHeaders.CONTENT_TYPE.toString(), APPLICATION_JSON).sendBuffer(body);
+  }
+
+  private static final class Result {
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Route.values().length];
+    private final AtomicLong[] errors = new AtomicLong[Route.values().length];
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong totalErrors = new AtomicLong();
+
+    private long startNanos;
+    private long elapsedNanos;
+    private long startAllocatedBytes;
+    private long allocatedBytes;
+    private long startGcCount;
+    private long gcCount;
+    private long startGcMillis;
+    private long gcMillis;
+
+    private Result() {
+      for (int i = 0; i < latencies.length; i++) {
+        latencies[i] = new LatencyHistogram();
+        errors[i] = new AtomicLong();
+      }
+    }
+
+    private void start() {
+      startAllocatedBytes = allocatedBytes();
+      startGcCount = gcCount();
+      startGcMillis = gcMillis();
+      startNanos = System.nanoTime();
+    }
+
+    private void stop() {
+      elapsedNanos = System.nanoTime() - startNanos;
+      allocatedBytes = allocatedBytes() - startAllocatedBytes;
+      gcCount = gcCount() - startGcCount;
+      gcMillis = gcMillis() - startGcMillis;
+    }
+
+    /**
+     * @param statusCode
+     *          0 if the request failed without a response
+     */
+    private void record(Route route, int statusCode, long nanos) {
+      latencies[route.ordinal()].recordNanos(nanos);
+      latency.recordNanos(nanos);
+      if (statusCode < 200 || statusCode >= 300) {
+        errors[route.ordinal()].incrementAndGet();
+        totalErrors.incrementAndGet();
+      }
+    }
+
+    private JsonObject toJson() {
+      double seconds = elapsedNanos / 1e9;
+      JsonObject routes = new JsonObject();
+      for (Route route : Route.values()) {
+        routes.put(route.label(), stats(latencies[route.ordinal()], errors[route.ordinal()].get(), seconds));
+      }
+      return new JsonObject()
+        .put("durationSec", seconds)
+        .put("total", stats(latency, totalErrors.get(), seconds))
+        .put("routes", routes)
+        .put("allocatedBytesPerSec", allocatedBytes / seconds)
+        .put("allocatedBytesPerRequest", latency.getCount() == 0 ? 0 : allocatedBytes / latency.getCount())
+        .put("gcCount", gcCount)
+        .put("gcTimeMs", gcMillis);
+    }
+
+    private static JsonObject stats(LatencyHistogram histogram, long errors, double seconds) {
+      JsonObject stats = new JsonObject()
+        .put("requests", histogram.getCount())
+        .put("errors", errors)
+        .put("throughput", histogram.getCount() / seconds);
+      long[] values = histogram.getQuantilesMicros(quantiles);
+      for (int i = 0; i < quantiles.length; i++) {
+        stats.put(quantileLabels[i] + "Ms", values[i] / 1000d);
+      }
+      return stats.put("maxMs", histogram.getMaxMicros() / 1000d);
+    }
+
+    @Override
+    public String toString() {
+      JsonObject json = toJson();
+      StringBuilder sb = new StringBuilder(1024)
+        .append(String.format("%n%-14s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+            "route", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms"));
+      JsonObject routes = json.getJsonObject("routes");
+      for (Route route : Route.values()) {
+        row(sb, route.label(), routes.getJsonObject(route.label()));
+      }
+      row(sb, "total", json.getJsonObject("total"));
+      return sb.append(String.format("allocated %.1f MB/s, %d bytes/request; %d GCs taking %d ms",
+          json.getDouble("allocatedBytesPerSec") / (1024 * 1024), json.getLong("allocatedBytesPerRequest"),
+          gcCount, gcMillis))
+        .toString();
+    }
+
+    private static void row(StringBuilder sb, String label, JsonObject stats) {
+      sb.append(String.format("%-14s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", label,
+          stats.getLong("requests"), stats.getLong("errors"), stats.getDouble("throughput"),
+          stats.getDouble("p50Ms"), stats.getDouble("p90Ms"), stats.getDouble("p99Ms"), stats.getDouble("p999Ms"),
+          stats.getDouble("maxMs")));
+    }
+
+    private static long allocatedBytes() {
+      ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+      long total = 0;
+      for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+        total += Math.max(0, bytes);
+      }
+      return total;
+    }
+
+    private static long gcCount() {
+      long count = 0;
+      for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+        count += Math.max(0, gc.getCollectionCount());
+      }
+      return count;
+    }
+
+    private static long gcMillis() {
+      long millis = 0;
+      for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+        millis += Math.max(0, gc.getCollectionTime());
+      }
+      return millis;
+    }
+  }
+}
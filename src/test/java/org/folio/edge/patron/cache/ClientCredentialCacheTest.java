@@ -0,0 +1,91 @@
+package org.folio.edge.patron.cache;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.core.model.ClientInfo;
+import org.folio.edge.core.utils.ApiKeyUtils;
+import org.folio.edge.patron.cache.ClientCredentialCache.ClientCredentials;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClientCredentialCacheTest {
+
+  private static final Logger logger = LogManager.getLogger(ClientCredentialCacheTest.class);
+
+  private static final int cap = 50;
+  private static final long ttl = 3000;
+  private static final long invalidKeyTtl = 500;
+
+  private static final String apiKey = ApiKeyUtils.generateApiKey(10, "diku", "diku");
+  private static final String badApiKey = apiKey + "0000";
+  private static final String password = "password";
+
+  private ClientInfo clientInfo;
+
+  @Before
+  public void setUp() throws Exception {
+    // initialize singleton cache
+    ClientCredentialCache.initialize(ttl, invalidKeyTtl, cap);
+    clientInfo = ApiKeyUtils.parseApiKey(apiKey);
+  }
+
+  @Test
+  public void testGetPutGet() throws Exception {
+    logger.info("=== Test basic functionality (Get, Put, Get)... ===");
+
+    ClientCredentialCache cache = ClientCredentialCache.getInstance();
+
+    // empty cache...
+    assertNull(cache.get(apiKey));
+
+    cache.put(apiKey, clientInfo, password);
+    ClientCredentials credentials = cache.get(apiKey);
+    assertEquals("diku", credentials.clientInfo.tenantId);
+    assertEquals("diku", credentials.clientInfo.username);
+    assertEquals(password, credentials.password);
+    assertFalse(cache.isInvalid(apiKey));
+  }
+
+  @Test
+  public void testInvalidKeyExpires() throws Exception {
+    logger.info("=== Test invalid API keys are only remembered briefly... ===");
+
+    ClientCredentialCache cache = ClientCredentialCache.getInstance();
+
+    assertFalse(cache.isInvalid(badApiKey));
+    cache.putInvalid(badApiKey);
+    assertTrue(cache.isInvalid(badApiKey));
+    assertNull(cache.get(badApiKey));
+
+    await().with()
+      .pollInterval(20, TimeUnit.MILLISECONDS)
+      .atMost(invalidKeyTtl + 500, TimeUnit.MILLISECONDS)
+      .until(() -> !cache.isInvalid(badApiKey));
+  }
+
+  @Test
+  public void testFlush() throws Exception {
+    logger.info("=== Test flushing the cache... ===");
+
+    ClientCredentialCache cache = ClientCredentialCache.getInstance();
+
+    cache.put(apiKey, clientInfo, password);
+    cache.putInvalid(badApiKey);
+    cache.flush();
+
+    assertNull(cache.get(apiKey));
+    assertFalse(cache.isInvalid(badApiKey));
+
+    // refilled after the flush
+    cache.put(apiKey, clientInfo, "rotated");
+    assertEquals("rotated", cache.get(apiKey).password);
+  }
+}
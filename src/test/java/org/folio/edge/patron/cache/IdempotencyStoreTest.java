@@ -0,0 +1,121 @@
+package org.folio.edge.patron.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.patron.cache.IdempotencyStore.KeyReusedException;
+import org.folio.edge.patron.cache.IdempotencyStore.Outcome;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.web.client.HttpResponse;
+
+public class IdempotencyStoreTest {
+
+  private static final Logger logger = LogManager.getLogger(IdempotencyStoreTest.class);
+
+  private static final int cap = 50;
+  private static final long ttl = 3000;
+
+  private static final String key = "diku:/patron/account/0000/item/0001/renew:key";
+  private static final String body = "{}";
+
+  private final AtomicInteger calls = new AtomicInteger();
+
+  @Before
+  public void setUp() throws Exception {
+    // initialize singleton store
+    IdempotencyStore.initialize(ttl, cap);
+    calls.set(0);
+  }
+
+  @Test
+  public void testConcurrentRequestsShareCall() throws Exception {
+    logger.info("=== Test concurrent requests with a key share one upstream call... ===");
+
+    IdempotencyStore store = IdempotencyStore.getInstance();
+    Promise<HttpResponse<Buffer>> upstream = Promise.promise();
+
+    Future<Outcome> first = store.execute(key, body, () -> call(upstream.future()));
+    Future<Outcome> second = store.execute(key, body, () -> call(upstream.future()));
+    assertEquals(1, store.getInFlightCount());
+    assertFalse(first.isComplete());
+
+    HttpResponse<Buffer> resp = response(201);
+    upstream.complete(resp);
+
+    assertSame(resp, first.result().response);
+    assertFalse(first.result().replayed);
+    assertSame(resp, second.result().response);
+    assertTrue(second.result().replayed);
+    assertEquals(1, calls.get());
+    assertEquals(0, store.getInFlightCount());
+  }
+
+  @Test
+  public void testCompletedResponseReplayed() throws Exception {
+    logger.info("=== Test completed responses are replayed... ===");
+
+    IdempotencyStore store = IdempotencyStore.getInstance();
+    HttpResponse<Buffer> resp = response(422);
+
+    store.execute(key, body, () -> call(Future.succeededFuture(resp)));
+    Outcome replay = store.execute(key, body, () -> call(Future.succeededFuture(response(201)))).result();
+
+    assertSame(resp, replay.response);
+    assertTrue(replay.replayed);
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void testRetryableFailuresNotStored() throws Exception {
+    logger.info("=== Test failures worth retrying aren't replayed... ===");
+
+    IdempotencyStore store = IdempotencyStore.getInstance();
+
+    store.execute(key, body, () -> call(Future.succeededFuture(response(503))));
+    store.execute(key, body, () -> call(Future.failedFuture("connection reset")));
+    Outcome outcome = store.execute(key, body, () -> call(Future.succeededFuture(response(201)))).result();
+
+    assertEquals(201, outcome.response.statusCode());
+    assertFalse(outcome.replayed);
+    assertEquals(3, calls.get());
+  }
+
+  @Test
+  public void testKeyReusedForDifferentRequest() throws Exception {
+    logger.info("=== Test a key reused for a different request is rejected... ===");
+
+    IdempotencyStore store = IdempotencyStore.getInstance();
+
+    store.execute(key, body, () -> call(Future.succeededFuture(response(201))));
+    Future<Outcome> reused = store.execute(key, "{\"other\":true}",
+        () -> call(Future.succeededFuture(response(201))));
+
+    assertTrue(reused.cause() instanceof KeyReusedException);
+    assertEquals(1, calls.get());
+  }
+
+  private Future<HttpResponse<Buffer>> call(Future<HttpResponse<Buffer>> response) {
+    calls.incrementAndGet();
+    return response;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static HttpResponse<Buffer> response(int statusCode) {
+    HttpResponse<Buffer> resp = mock(HttpResponse.class);
+    when(resp.statusCode()).thenReturn(statusCode);
+    return resp;
+  }
+}
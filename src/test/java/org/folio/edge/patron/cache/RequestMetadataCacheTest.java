@@ -0,0 +1,128 @@
+package org.folio.edge.patron.cache;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.patron.cache.RequestMetadataCache.RequestMetadata;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.json.JsonObject;
+
+public class RequestMetadataCacheTest {
+
+  private static final Logger logger = LogManager.getLogger(RequestMetadataCacheTest.class);
+
+  private static final int cap = 50;
+  private static final long ttl = 1000;
+
+  private static final String tenant = "diku";
+  private static final String patronId = UUID.randomUUID().toString();
+  private static final String pickupServicePointId = UUID.randomUUID().toString();
+  private static final String requestDate = "2019-09-19T19:47:11.732+0000";
+
+  @Before
+  public void setUp() throws Exception {
+    RequestMetadataCache.initialize(ttl, cap);
+  }
+
+  @Test
+  public void testGetPutGet() throws Exception {
+    logger.info("=== Test basic functionality (Get, Put, Get)... ===");
+
+    RequestMetadataCache cache = RequestMetadataCache.getInstance();
+    RequestMetadata metadata = metadata(UUID.randomUUID().toString());
+
+    assertNull(cache.get(tenant, metadata.requestId));
+
+    cache.put(tenant, null, metadata);
+    assertEquals(metadata, cache.get(tenant, metadata.requestId));
+    assertNull(cache.get("other", metadata.requestId));
+  }
+
+  @Test
+  public void testExpires() throws Exception {
+    logger.info("=== Test expiration of request metadata... ===");
+
+    RequestMetadataCache cache = RequestMetadataCache.getInstance();
+    RequestMetadata metadata = metadata(UUID.randomUUID().toString());
+    cache.put(tenant, null, metadata);
+
+    await().with()
+      .pollInterval(20, TimeUnit.MILLISECONDS)
+      .atMost(ttl + 100, TimeUnit.MILLISECONDS)
+      .until(() -> cache.get(tenant, metadata.requestId) == null);
+  }
+
+  @Test
+  public void testUnknownHoldWithoutPatronHolds() throws Exception {
+    logger.info("=== Test nothing is unknown before the patron's holds are seen... ===");
+
+    RequestMetadataCache cache = RequestMetadataCache.getInstance();
+    cache.put(tenant, patronId, metadata(UUID.randomUUID().toString()));
+
+    assertFalse(cache.isUnknownHold(tenant, patronId, UUID.randomUUID().toString()));
+  }
+
+  @Test
+  public void testUnknownHoldWithPatronHolds() throws Exception {
+    logger.info("=== Test holds outside the patron's hold list are unknown... ===");
+
+    RequestMetadataCache cache = RequestMetadataCache.getInstance();
+    RequestMetadata hold1 = metadata(UUID.randomUUID().toString());
+    RequestMetadata hold2 = metadata(UUID.randomUUID().toString());
+    cache.putPatronHolds(tenant, patronId, Arrays.asList(hold1, hold2));
+
+    assertEquals(hold1, cache.get(tenant, hold1.requestId));
+    assertEquals(hold2, cache.get(tenant, hold2.requestId));
+    assertFalse(cache.isUnknownHold(tenant, patronId, hold1.requestId));
+    assertTrue(cache.isUnknownHold(tenant, patronId, UUID.randomUUID().toString()));
+
+    // holds placed later become known
+    RequestMetadata placed = metadata(UUID.randomUUID().toString());
+    cache.put(tenant, patronId, placed);
+    assertFalse(cache.isUnknownHold(tenant, patronId, placed.requestId));
+  }
+
+  @Test
+  public void testFromAccountHold() throws Exception {
+    logger.info("=== Test parsing of holds from an account... ===");
+
+    String requestId = UUID.randomUUID().toString();
+    JsonObject hold = new JsonObject()
+      .put("requestId", requestId)
+      .put("pickupLocationId", pickupServicePointId)
+      .put("requestDate", requestDate);
+
+    assertEquals(metadata(requestId), RequestMetadata.fromAccountHold(hold));
+    assertNull(RequestMetadata.fromAccountHold(hold.copy().putNull("requestDate")));
+    assertEquals(new RequestMetadata(requestId, null, requestDate),
+      RequestMetadata.fromAccountHold(hold.copy().putNull("pickupLocationId")));
+  }
+
+  @Test
+  public void testFromRequest() throws Exception {
+    logger.info("=== Test parsing of circulation requests... ===");
+
+    String requestId = UUID.randomUUID().toString();
+    JsonObject request = new JsonObject()
+      .put("id", requestId)
+      .put("pickupServicePointId", pickupServicePointId)
+      .put("requestDate", requestDate);
+
+    assertEquals(metadata(requestId), RequestMetadata.fromRequest(request));
+  }
+
+  private static RequestMetadata metadata(String requestId) {
+    return new RequestMetadata(requestId, pickupServicePointId, requestDate);
+  }
+}
@@ -0,0 +1,68 @@
+package org.folio.edge.patron.metrics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  private static final Logger logger = LogManager.getLogger(LatencyHistogramTest.class);
+
+  @Test
+  public void testBuckets() {
+    logger.info("=== Test values map to buckets within 3%... ===");
+
+    for (long value = 0; value < 10_000_000L; value = value * 11 / 10 + 1) {
+      int index = LatencyHistogram.index(value);
+      long upper = LatencyHistogram.upperBound(index);
+      assertTrue(value <= upper);
+      assertTrue(index == 0 || LatencyHistogram.upperBound(index - 1) < value);
+      assertTrue(upper - value <= Math.max(1, value / 32));
+    }
+  }
+
+  @Test
+  public void testQuantiles() {
+    logger.info("=== Test quantiles of recorded values... ===");
+
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(i));
+    }
+
+    assertEquals(1000, histogram.getCount());
+    assertEquals(500_500_000L, histogram.getSumMicros());
+    assertEquals(1_000_000L, histogram.getMaxMicros());
+
+    long[] quantiles = histogram.getQuantilesMicros(0.5, 0.99, 1);
+    assertEquals(500_000, quantiles[0], 500_000 / 32d);
+    assertEquals(990_000, quantiles[1], 990_000 / 32d);
+    assertEquals(1_000_000, quantiles[2]);
+  }
+
+  @Test
+  public void testEmpty() {
+    logger.info("=== Test an empty histogram... ===");
+
+    assertArrayEquals(new long[] { 0, 0 }, new LatencyHistogram().getQuantilesMicros(0.5, 0.99));
+  }
+
+  @Test
+  public void testOutOfRange() {
+    logger.info("=== Test negative and huge values are clamped... ===");
+
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.recordMicros(-5);
+    histogram.recordMicros(Long.MAX_VALUE);
+
+    assertEquals(2, histogram.getCount());
+    assertEquals(0, histogram.getQuantilesMicros(0.5)[0]);
+    assertEquals(histogram.getMaxMicros(), histogram.getQuantilesMicros(1)[0]);
+  }
+}
@@ -0,0 +1,84 @@
+package org.folio.edge.patron.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.patron.metrics.RequestMetrics.Route;
+import org.folio.edge.patron.resilience.UpstreamRoute;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RequestMetricsTest {
+
+  private static final Logger logger = LogManager.getLogger(RequestMetricsTest.class);
+
+  private RequestMetrics metrics;
+
+  @Before
+  public void setUp() {
+    metrics = RequestMetrics.initialize();
+  }
+
+  @Test
+  public void testRequests() {
+    logger.info("=== Test request latency and status codes per route and tenant... ===");
+
+    metrics.recordRequest(Route.RENEW, "diku", 201, TimeUnit.MILLISECONDS.toNanos(20));
+    metrics.recordRequest(Route.RENEW, "diku", 201, TimeUnit.MILLISECONDS.toNanos(40));
+    metrics.recordRequest(Route.RENEW, "diku", 503, TimeUnit.MILLISECONDS.toNanos(5));
+    metrics.recordRequest(Route.ACCOUNT, null, 401, TimeUnit.MILLISECONDS.toNanos(1));
+
+    String text = metrics.toPrometheus();
+    assertTrue(text.contains("# TYPE edge_patron_request_duration_seconds summary\n"));
+    assertTrue(text.contains("edge_patron_request_duration_seconds_count{route=\"renew\",tenant=\"diku\"} 3\n"));
+    assertTrue(text.contains("edge_patron_request_duration_seconds_sum{route=\"renew\",tenant=\"diku\"} 0.065\n"));
+    assertTrue(text.contains(
+        "edge_patron_request_duration_seconds{route=\"renew\",tenant=\"diku\",quantile=\"0.5\"} 0.020"));
+    assertTrue(text.contains("edge_patron_requests_total{route=\"renew\",tenant=\"diku\",status=\"201\"} 2\n"));
+    assertTrue(text.contains("edge_patron_requests_total{route=\"renew\",tenant=\"diku\",status=\"503\"} 1\n"));
+    assertTrue(text.contains("edge_patron_request_errors_total{route=\"renew\",tenant=\"diku\"} 1\n"));
+    assertTrue(text.contains("edge_patron_requests_total{route=\"account\",tenant=\"unknown\",status=\"401\"} 1\n"));
+    // routes without requests are left out
+    assertFalse(text.contains("route=\"cancel_hold\""));
+  }
+
+  @Test
+  public void testHops() {
+    logger.info("=== Test the patron lookup and upstream calls... ===");
+
+    metrics.recordPatronLookup("diku", TimeUnit.MILLISECONDS.toNanos(3));
+    metrics.recordUpstream(UpstreamRoute.USERS, "diku", 200, TimeUnit.MILLISECONDS.toNanos(3));
+    metrics.recordUpstream(UpstreamRoute.CIRCULATION_REQUESTS, "diku", RequestMetrics.STATUS_NONE,
+        TimeUnit.MILLISECONDS.toNanos(30));
+
+    String text = metrics.toPrometheus();
+    assertTrue(text.contains("edge_patron_patron_lookup_duration_seconds_count{tenant=\"diku\"} 1\n"));
+    assertTrue(text.contains("edge_patron_upstream_duration_seconds_count{hop=\"users\",tenant=\"diku\"} 1\n"));
+    assertTrue(text.contains(
+        "edge_patron_upstream_requests_total{hop=\"circulation_requests\",tenant=\"diku\",status=\"0\"} 1\n"));
+    assertTrue(text.contains(
+        "edge_patron_upstream_errors_total{hop=\"circulation_requests\",tenant=\"diku\"} 1\n"));
+    assertFalse(text.contains("edge_patron_upstream_errors_total{hop=\"users\""));
+  }
+
+  @Test
+  public void testEscape() {
+    logger.info("=== Test label values are escaped... ===");
+
+    assertEquals("a\\\"b\\\\c\\n", RequestMetrics.escape("a\"b\\c\n"));
+  }
+
+  @Test
+  public void testInitialize() {
+    logger.info("=== Test reinitializing drops the metrics... ===");
+
+    metrics.recordRequest(Route.ACCOUNT, "diku", 200, 1000);
+    assertEquals(RequestMetrics.initialize(), RequestMetrics.getInstance());
+    assertFalse(RequestMetrics.getInstance().toPrometheus().contains("tenant=\"diku\""));
+  }
+}
@@ -0,0 +1,53 @@
+package org.folio.edge.patron.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.patron.resilience.UpstreamRoute;
+import org.junit.Test;
+
+public class ServerTimingTest {
+
+  private static final Logger logger = LogManager.getLogger(ServerTimingTest.class);
+
+  @Test
+  public void testHeader() {
+    logger.info("=== Test the stages in the header... ===");
+
+    ServerTiming timing = new ServerTiming();
+    timing.record(ServerTiming.STAGE_API_KEY, TimeUnit.MICROSECONDS.toNanos(160));
+    timing.record(ServerTiming.STAGE_PATRON, ServerTiming.DESC_CACHE_MISS, TimeUnit.MILLISECONDS.toNanos(12));
+    timing.recordUpstream(UpstreamRoute.USERS, TimeUnit.MILLISECONDS.toNanos(11));
+    timing.recordUpstream(UpstreamRoute.RENEW, TimeUnit.MICROSECONDS.toNanos(40_260));
+
+    String header = timing.toHeader();
+    assertTrue(header, header.startsWith(
+        "apikey;dur=0.2, patron;desc=\"cache miss\";dur=12.0, mod-users;dur=11.0, mod-patron;dur=40.3, total;dur="));
+  }
+
+  @Test
+  public void testTotalOnce() {
+    logger.info("=== Test the total is only added to the header... ===");
+
+    ServerTiming timing = new ServerTiming();
+    timing.record(ServerTiming.STAGE_TOKEN, 0);
+    timing.toHeader();
+
+    String header = timing.toHeader();
+    assertEquals(header.indexOf(ServerTiming.STAGE_TOTAL), header.lastIndexOf(ServerTiming.STAGE_TOTAL));
+  }
+
+  @Test
+  public void testStages() {
+    logger.info("=== Test upstream calls are named after the module... ===");
+
+    assertEquals("mod-users", ServerTiming.stageOf(UpstreamRoute.USERS));
+    assertEquals("mod-patron", ServerTiming.stageOf(UpstreamRoute.ACCOUNT));
+    assertEquals("mod-patron", ServerTiming.stageOf(UpstreamRoute.HOLD));
+    assertEquals("mod-circulation", ServerTiming.stageOf(UpstreamRoute.CIRCULATION_REQUESTS));
+  }
+}
@@ -0,0 +1,74 @@
+package org.folio.edge.patron.metrics.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.patron.resilience.UpstreamRoute;
+import org.junit.Test;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class StageEventTest {
+
+  private static final Logger logger = LogManager.getLogger(StageEventTest.class);
+
+  @Test
+  public void testNotRecording() {
+    logger.info("=== Test no events are created without a recording... ===");
+
+    assertNull(RequestEvent.start("account"));
+    assertNull(PatronLookupEvent.start());
+    assertNull(UpstreamCallEvent.start(UpstreamRoute.ACCOUNT));
+  }
+
+  @Test
+  public void testRecording() throws Exception {
+    logger.info("=== Test events recorded with the edge-patron profile... ===");
+
+    Path file = Files.createTempFile("edge-patron", ".jfr");
+    try (Recording recording = new Recording(Configuration.create(Paths.get("jfr/edge-patron.jfc")))) {
+      recording.start();
+
+      RequestEvent request = RequestEvent.start("renew");
+      assertNotNull(request);
+      UpstreamCallEvent call = UpstreamCallEvent.start(UpstreamRoute.RENEW);
+      call.end("diku", 201);
+      request.end("diku", 201);
+
+      recording.stop();
+      recording.dump(file);
+
+      List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+        .filter(event -> event.getEventType().getName().startsWith("org.folio.edge.patron."))
+        .collect(Collectors.toList());
+      assertEquals(1, events.stream()
+        .filter(event -> event.getEventType().getName().equals("org.folio.edge.patron.Request"))
+        .count());
+
+      RecordedEvent upstream = events.stream()
+        .filter(event -> event.getEventType().getName().equals("org.folio.edge.patron.UpstreamCall"))
+        .findFirst()
+        .get();
+      assertEquals("diku", upstream.getString("tenant"));
+      assertEquals("/patron/account/item/renew", upstream.getString("route"));
+      assertEquals("mod-patron", upstream.getString("module"));
+      assertEquals(201, upstream.getInt("status"));
+      assertFalse(upstream.getDuration().isNegative());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -9,9 +9,9 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.StringReader;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Currency;
-import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 
@@ -91,30 +91,30 @@ public class AccountTest {
     loans.add(Loan.builder()
       .item(overdueCheckedOutItem1)
       .overdue(true)
-      .loanDate(new Date(checkedOutTs))
-      .dueDate(new Date(dueTs))
+      .loanDate(Instant.ofEpochMilli(checkedOutTs))
+      .dueDate(Instant.ofEpochMilli(dueTs))
       .build());
 
     loans.add(Loan.builder()
       .item(overdueCheckedOutItem2)
       .overdue(true)
-      .loanDate(new Date(checkedOutTs + (2 * DAY_IN_MILLIS)))
-      .dueDate(new Date(dueTs + (2 * DAY_IN_MILLIS)))
+      .loanDate(Instant.ofEpochMilli(checkedOutTs + (2 * DAY_IN_MILLIS)))
+      .dueDate(Instant.ofEpochMilli(dueTs + (2 * DAY_IN_MILLIS)))
       .build());
 
     loans.add(Loan.builder()
       .item(checkedOutItem)
       .overdue(false)
-      .loanDate(new Date(System.currentTimeMillis()))
-      .dueDate(new Date(System.currentTimeMillis() + (14 * DAY_IN_MILLIS)))
+      .loanDate(Instant.ofEpochMilli(System.currentTimeMillis()))
+      .dueDate(Instant.ofEpochMilli(System.currentTimeMillis() + (14 * DAY_IN_MILLIS)))
       .build());
 
     holds.add(Hold.builder()
       .item(holdItem)
       .pickupLocationId(UUID.randomUUID().toString())
-      .expirationDate(new Date(holdExpTs))
+      .expirationDate(Instant.ofEpochMilli(holdExpTs))
       .queuePosition(2)
-      .requestDate(new Date(holdReqTs))
+      .requestDate(Instant.ofEpochMilli(holdReqTs))
       .requestId(UUID.randomUUID().toString())
       .status(Status.OPEN_NOT_YET_FILLED)
       .build());
@@ -122,7 +122,7 @@ public class AccountTest {
     charges.add(Charge.builder()
       .item(overdueCheckedOutItem1)
       .feeFineId(UUID.randomUUID().toString())
-      .accrualDate(new Date(accrualTs))
+      .accrualDate(Instant.ofEpochMilli(accrualTs))
       .chargeAmount(new Money(1.23f, Currency.getInstance("USD").getCurrencyCode()))
       .description("late fee")
       .reason("item overdue")
@@ -132,7 +132,7 @@ public class AccountTest {
     charges.add(Charge.builder()
       .item(overdueCheckedOutItem2)
       .feeFineId(UUID.randomUUID().toString())
-      .accrualDate(new Date(accrualTs + (2 * DAY_IN_MILLIS)))
+      .accrualDate(Instant.ofEpochMilli(accrualTs + (2 * DAY_IN_MILLIS)))
       .chargeAmount(new Money(1.12f, Currency.getInstance("USD").getCurrencyCode()))
       .description("late fee")
       .reason("item overdue")
@@ -9,8 +9,8 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
 import java.util.Currency;
-import java.util.Date;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -61,7 +61,7 @@ public class ChargeTest {
     charge = Charge.builder()
       .item(item)
       .feeFineId(UUID.randomUUID().toString())
-      .accrualDate(new Date(accrualTs))
+      .accrualDate(Instant.ofEpochMilli(accrualTs))
       .chargeAmount(new Money(1.23f, Currency.getInstance("USD").getCurrencyCode()))
       .description("late fee")
       .reason("item overdue")
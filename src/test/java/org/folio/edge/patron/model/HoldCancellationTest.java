@@ -22,7 +22,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -48,7 +48,7 @@ public class HoldCancellationTest {
     holdCancellation = HoldCancellation.builder()
       .holdId(UUID.randomUUID().toString())
       .canceledByUserId(UUID.randomUUID().toString())
-      .canceledDate(new Date(holdCanceledTs))
+      .canceledDate(Instant.ofEpochMilli(holdCanceledTs))
       .cancellationReasonId(UUID.randomUUID().toString())
       .build();
 
@@ -57,6 +57,33 @@ public class HoldCancellationValidatorTest {
     assertEquals(expectedErrorMsg, result);
   }
 
+  @Test
+  public void validateCancelHoldRequestAgainstSchema() {
+    String cancellationJson = "{" +
+      "\"holdId\" : \"" + UUID.randomUUID().toString() + "\"," +
+      "\"cancellationReasonId\" : \"" + UUID.randomUUID().toString() + "\"," +
+      "\"cancellationAdditionalInformation\" : 42" +
+      "}";
+    String result = HoldCancellationValidator.validateCancelHoldRequest(new JsonObject(cancellationJson));
+    assertEquals("invalid holdCancellationRequest. Invalid value for field: cancellationAdditionalInformation",
+      result);
+
+    cancellationJson = "{" +
+      "\"holdId\" : \"" + UUID.randomUUID().toString() + "\"," +
+      "\"cancellationReasonId\" : \"" + UUID.randomUUID().toString() + "\"," +
+      "\"reason\" : \"blablabla\"" +
+      "}";
+    result = HoldCancellationValidator.validateCancelHoldRequest(new JsonObject(cancellationJson));
+    assertEquals("invalid holdCancellationRequest. Unknown field: reason", result);
+
+    String numericHoldId = "{" +
+      "\"holdId\" : 1," +
+      "\"cancellationReasonId\" : \"" + UUID.randomUUID().toString() + "\"" +
+      "}";
+    result = HoldCancellationValidator.validateCancelHoldRequest(new JsonObject(numericHoldId));
+    assertEquals("invalid values for one of the required fields (holdId, cancellationReasonId)", result);
+  }
+
   @Test
   public void validateCancelHoldRequestValidParams() {
     String cancellationJson = "{" +
@@ -9,7 +9,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -60,9 +60,9 @@ public class HoldTest {
     hold = Hold.builder()
       .item(item)
       .pickupLocationId(UUID.randomUUID().toString())
-      .expirationDate(new Date(holdExpTs))
+      .expirationDate(Instant.ofEpochMilli(holdExpTs))
       .queuePosition(2)
-      .requestDate(new Date(holdReqTs))
+      .requestDate(Instant.ofEpochMilli(holdReqTs))
       .requestId(UUID.randomUUID().toString())
       .status(Status.OPEN_NOT_YET_FILLED)
       .patronComments("Can you deliver this to the History building for Professor Grant?")
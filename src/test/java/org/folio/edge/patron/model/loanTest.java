@@ -9,7 +9,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -59,8 +59,8 @@ public class loanTest {
     loan = Loan.builder()
       .item(item)
       .overdue(false)
-      .loanDate(new Date(checkedOutTs))
-      .dueDate(new Date(dueDateTs))
+      .loanDate(Instant.ofEpochMilli(checkedOutTs))
+      .dueDate(Instant.ofEpochMilli(dueDateTs))
       .build();
 
     SchemaFactory schemaFactory = SchemaFactory
@@ -0,0 +1,234 @@
+package org.folio.edge.patron.resilience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.patron.resilience.AdaptiveConcurrencyLimiter.Token;
+import org.folio.edge.patron.resilience.AdaptiveConcurrencyLimiter.Waiter;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+  private static final Logger logger = LogManager.getLogger(AdaptiveConcurrencyLimiterTest.class);
+
+  private static final int initialLimit = 4;
+  private static final int queueSize = 2;
+
+  private AdaptiveConcurrencyLimiter limiter;
+  private List<Token> tokens;
+  private List<Throwable> rejections;
+
+  @Before
+  public void setUp() {
+    limiter = new AdaptiveConcurrencyLimiter.Builder()
+      .withInitialLimit(initialLimit)
+      .withMinLimit(2)
+      .withMaxLimit(6)
+      .withBackoffRatio(0.5)
+      .withRttThresholdMs(60 * 1000L)
+      .withMaxQueueSize(queueSize)
+      .withMaxQueueWaitMs(60 * 1000L)
+      .withRetryAfterSeconds(3)
+      .build();
+    tokens = new ArrayList<>();
+    rejections = new ArrayList<>();
+  }
+
+  @Test
+  public void testQueueAndShed() {
+    logger.info("=== Test calls beyond the limit are queued, then shed... ===");
+
+    for (int i = 0; i < initialLimit + queueSize + 1; i++) {
+      acquire();
+    }
+    assertEquals(initialLimit, tokens.size());
+    assertEquals(1, rejections.size());
+    assertTrue(rejections.get(0) instanceof LoadSheddingException);
+    assertEquals(3, ((LoadSheddingException) rejections.get(0)).getRetryAfterSeconds());
+    assertEquals(2, limiter.toJson().getInteger("queued").intValue());
+
+    // releasing a token admits a queued call
+    tokens.get(0).cancel();
+    assertEquals(initialLimit + 1, tokens.size());
+    assertEquals(initialLimit, limiter.getInFlight());
+
+    // releasing twice has no effect
+    tokens.get(0).cancel();
+    assertEquals(initialLimit + 1, tokens.size());
+  }
+
+  @Test
+  public void testAdditiveIncrease() {
+    logger.info("=== Test the limit grows while in use... ===");
+
+    for (int i = 0; i < initialLimit; i++) {
+      acquire();
+    }
+    tokens.get(0).complete(false);
+    assertEquals(initialLimit + 1, limiter.getLimit());
+
+    // never above the maximum
+    for (int i = 1; i < initialLimit; i++) {
+      tokens.get(i).complete(false);
+    }
+    assertEquals(6, limiter.getLimit());
+  }
+
+  @Test
+  public void testMultiplicativeDecrease() {
+    logger.info("=== Test the limit shrinks on failures... ===");
+
+    acquire();
+    tokens.get(0).complete(true);
+    assertEquals(2, limiter.getLimit());
+
+    acquire();
+    tokens.get(1).complete(true);
+    // never below the minimum
+    assertEquals(2, limiter.getLimit());
+  }
+
+  @Test
+  public void testQueueWaitExpiry() throws Exception {
+    logger.info("=== Test queued calls that waited too long are shed... ===");
+
+    limiter = new AdaptiveConcurrencyLimiter.Builder()
+      .withInitialLimit(1)
+      .withMinLimit(1)
+      .withMaxQueueSize(1)
+      .withMaxQueueWaitMs(1)
+      .build();
+
+    acquire();
+    acquire();
+    assertEquals(1, tokens.size());
+    assertTrue(rejections.isEmpty());
+
+    Thread.sleep(10);
+
+    tokens.get(0).cancel();
+    assertEquals(1, tokens.size());
+    assertEquals(1, rejections.size());
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  public void testQueueWaitExpiryOnAcquire() throws Exception {
+    logger.info("=== Test queued calls that waited too long are shed on the next call... ===");
+
+    limiter = new AdaptiveConcurrencyLimiter.Builder()
+      .withInitialLimit(1)
+      .withMinLimit(1)
+      .withMaxQueueSize(1)
+      .withMaxQueueWaitMs(1)
+      .build();
+
+    acquire();
+    acquire();
+    Thread.sleep(10);
+
+    // nothing completed, yet the expired call makes room for this one
+    acquire();
+    assertEquals(1, tokens.size());
+    assertEquals(1, rejections.size());
+    assertEquals(1, limiter.toJson().getInteger("queued").intValue());
+  }
+
+  @Test
+  public void testCancel() {
+    logger.info("=== Test cancelled calls leave the queue without a callback... ===");
+
+    for (int i = 0; i < initialLimit; i++) {
+      assertNull(acquire());
+    }
+    Waiter waiter = acquire();
+    assertNotNull(waiter);
+
+    assertTrue(waiter.cancel());
+    assertFalse(waiter.cancel());
+    assertEquals(0, limiter.toJson().getInteger("queued").intValue());
+
+    tokens.get(0).cancel();
+    assertEquals(initialLimit, tokens.size());
+    assertTrue(rejections.isEmpty());
+  }
+
+  @Test
+  public void testQueueWaitTimer() throws Exception {
+    logger.info("=== Test queued calls are shed after the maximum wait on their context... ===");
+
+    limiter = new AdaptiveConcurrencyLimiter.Builder()
+      .withInitialLimit(1)
+      .withMinLimit(1)
+      .withMaxQueueSize(1)
+      .withMaxQueueWaitMs(50)
+      .build();
+
+    Vertx vertx = Vertx.vertx();
+    try {
+      Context context = vertx.getOrCreateContext();
+      CompletableFuture<Context> rejected = new CompletableFuture<>();
+      context.runOnContext(v -> {
+        acquire();
+        limiter.acquire(tokens::add, t -> rejected.complete(Vertx.currentContext()));
+      });
+
+      // no call completes, the waiter's own timer sheds it
+      assertSame(context, rejected.get(5, TimeUnit.SECONDS));
+      assertEquals(0, limiter.toJson().getInteger("queued").intValue());
+      assertEquals(1, limiter.toJson().getLong("shed").longValue());
+    } finally {
+      vertx.close();
+    }
+  }
+
+  @Test
+  public void testAdmitOnContext() throws Exception {
+    logger.info("=== Test queued calls are admitted on the context they were queued from... ===");
+
+    limiter = new AdaptiveConcurrencyLimiter.Builder()
+      .withInitialLimit(1)
+      .withMinLimit(1)
+      .withMaxQueueSize(1)
+      .build();
+
+    Vertx vertx = Vertx.vertx();
+    try {
+      Context context = vertx.getOrCreateContext();
+      CompletableFuture<Context> admitted = new CompletableFuture<>();
+      CompletableFuture<Void> queued = new CompletableFuture<>();
+      context.runOnContext(v -> {
+        acquire();
+        limiter.acquire(token -> admitted.complete(Vertx.currentContext()), rejections::add);
+        queued.complete(null);
+      });
+      queued.get(5, TimeUnit.SECONDS);
+
+      // released from this thread, not the event loop
+      tokens.get(0).cancel();
+      assertSame(context, admitted.get(5, TimeUnit.SECONDS));
+      assertTrue(rejections.isEmpty());
+    } finally {
+      vertx.close();
+    }
+  }
+
+  private Waiter acquire() {
+    return limiter.acquire(tokens::add, rejections::add);
+  }
+}
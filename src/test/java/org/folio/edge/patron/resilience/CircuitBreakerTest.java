@@ -0,0 +1,131 @@
+package org.folio.edge.patron.resilience;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.patron.resilience.CircuitBreaker.State;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+  private static final Logger logger = LogManager.getLogger(CircuitBreakerTest.class);
+
+  private static final long slowCallMs = 100;
+  private static final long openMs = 500;
+
+  private CircuitBreaker breaker;
+
+  @Before
+  public void setUp() {
+    breaker = new CircuitBreaker.Builder()
+      .withWindowSize(10)
+      .withMinimumCalls(4)
+      .withFailureRateThreshold(50)
+      .withSlowCallRateThreshold(75)
+      .withSlowCallDurationMs(slowCallMs)
+      .withOpenDurationMs(openMs)
+      .build("test");
+  }
+
+  @Test
+  public void testStaysClosedBelowMinimumCalls() {
+    logger.info("=== Test breaker needs a minimum number of calls... ===");
+
+    for (int i = 0; i < 3; i++) {
+      assertTrue(breaker.tryAcquire());
+      breaker.onResult(true, 0);
+    }
+    assertEquals(State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  public void testOpensOnFailureRate() {
+    logger.info("=== Test breaker opens on failure rate... ===");
+
+    record(false, 0);
+    record(false, 0);
+    record(true, 0);
+    assertEquals(State.CLOSED, breaker.getState());
+    record(true, 0);
+
+    assertEquals(State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire());
+  }
+
+  @Test
+  public void testOpensOnSlowCallRate() {
+    logger.info("=== Test breaker opens on slow call rate... ===");
+
+    long slow = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+    record(false, 0);
+    record(false, slow);
+    record(false, slow);
+    record(false, slow);
+
+    assertEquals(State.OPEN, breaker.getState());
+  }
+
+  @Test
+  public void testSlidingWindow() {
+    logger.info("=== Test old outcomes leave the window... ===");
+
+    for (int i = 0; i < 6; i++) {
+      record(false, 0);
+    }
+    for (int i = 0; i < 4; i++) {
+      record(true, 0);
+    }
+    // 4 failures in 10 calls
+    assertEquals(State.CLOSED, breaker.getState());
+
+    // evicts the oldest success: 5 failures in 10 calls
+    record(true, 0);
+    assertEquals(State.OPEN, breaker.getState());
+  }
+
+  @Test
+  public void testHalfOpenTrial() {
+    logger.info("=== Test half-open trial call... ===");
+
+    for (int i = 0; i < 4; i++) {
+      record(true, 0);
+    }
+    assertEquals(State.OPEN, breaker.getState());
+
+    await().with()
+      .pollInterval(20, TimeUnit.MILLISECONDS)
+      .atMost(openMs + 200, TimeUnit.MILLISECONDS)
+      .until(() -> breaker.getState() == State.HALF_OPEN);
+
+    // only a single trial is let through
+    assertTrue(breaker.tryAcquire());
+    assertFalse(breaker.tryAcquire());
+
+    // failed trial re-opens
+    breaker.onResult(true, 0);
+    assertEquals(State.OPEN, breaker.getState());
+
+    await().with()
+      .pollInterval(20, TimeUnit.MILLISECONDS)
+      .atMost(openMs + 200, TimeUnit.MILLISECONDS)
+      .until(() -> breaker.getState() == State.HALF_OPEN);
+
+    // successful trial closes
+    assertTrue(breaker.tryAcquire());
+    breaker.onResult(false, 0);
+    assertEquals(State.CLOSED, breaker.getState());
+    assertTrue(breaker.tryAcquire());
+  }
+
+  private void record(boolean failure, long durationNanos) {
+    assertTrue(breaker.tryAcquire());
+    breaker.onResult(failure, durationNanos);
+  }
+}
@@ -0,0 +1,130 @@
+package org.folio.edge.patron.resilience;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.core.utils.test.TestUtils;
+import org.folio.edge.patron.utils.PatronMockOkapi;
+import org.folio.edge.patron.utils.PatronOkapiClient;
+import org.folio.edge.patron.utils.PatronOkapiClientFactory;
+
+import io.vertx.core.Vertx;
+
+/**
+ * Measures goodput of <code>getAccount</code> calls against an overloaded
+ * {@link PatronMockOkapi}, first without and then with the
+ * {@link AdaptiveConcurrencyLimiter}.
+ *
+ * The mock serves <code>capacity</code> concurrent requests at
+ * <code>baseLatencyMs</code>; every request beyond that adds
+ * <code>latencyPerExtraRequestMs</code> to all of them. The driver keeps
+ * <code>concurrency</code> requests outstanding for <code>durationSec</code>.
+ *
+ * Run with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=org.folio.edge.patron.resilience.ConcurrencyLimiterBenchmark \
+ *   -Dexec.args="concurrency durationSec capacity"
+ * </pre>
+ */
+public class ConcurrencyLimiterBenchmark {
+
+  private static final Logger logger = LogManager.getLogger(ConcurrencyLimiterBenchmark.class);
+
+  private static final String tenant = "diku";
+  private static final int reqTimeoutMs = 3000;
+  private static final long baseLatencyMs = 20;
+  private static final long latencyPerExtraRequestMs = 50;
+  private static final long shedBackoffMs = 10;
+
+  public static void main(String[] args) throws Exception {
+    final int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+    final int durationSec = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    final int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+    Vertx vertx = Vertx.vertx();
+    int okapiPort = TestUtils.getPort();
+    PatronMockOkapi mockOkapi = new PatronMockOkapi(okapiPort, Collections.singletonList(tenant));
+    mockOkapi.setLatencyModel(inFlight ->
+      baseLatencyMs + latencyPerExtraRequestMs * Math.max(0, inFlight - capacity));
+    mockOkapi.start().toCompletionStage().toCompletableFuture().get();
+
+    PatronOkapiClient client = new PatronOkapiClientFactory(vertx, "http://localhost:" + okapiPort, reqTimeoutMs)
+      .getPatronOkapiClient(tenant);
+    client.login("admin", "password").get();
+
+    Result unlimited = run(vertx, client, concurrency, durationSec);
+
+    AdaptiveConcurrencyLimiter.initialize(new AdaptiveConcurrencyLimiter.Builder()
+      .withInitialLimit(capacity / 2)
+      .withMinLimit(1)
+      .withMaxLimit(concurrency)
+      .withRttThresholdMs(baseLatencyMs * 10)
+      .withMaxQueueSize(concurrency / 2)
+      .withMaxQueueWaitMs(reqTimeoutMs / 3));
+    Result limited = run(vertx, client, concurrency, durationSec);
+
+    logger.info("unlimited: {}", unlimited);
+    logger.info("limited:   {} (final limit {})", limited, AdaptiveConcurrencyLimiter.getInstance().getLimit());
+
+    mockOkapi.close().toCompletionStage().toCompletableFuture().get();
+    vertx.close();
+  }
+
+  private static Result run(Vertx vertx, PatronOkapiClient client, int concurrency, int durationSec)
+      throws InterruptedException {
+    final Result result = new Result(durationSec);
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSec);
+    final CountDownLatch done = new CountDownLatch(concurrency);
+    for (int i = 0; i < concurrency; i++) {
+      vertx.runOnContext(v -> next(vertx, client, result, deadline, done));
+    }
+    done.await();
+    return result;
+  }
+
+  private static void next(Vertx vertx, PatronOkapiClient client, Result result, long deadline,
+      CountDownLatch done) {
+    if (System.nanoTime() >= deadline) {
+      done.countDown();
+      return;
+    }
+    client.getAccount(PatronMockOkapi.patronId, false, false, false, null, null, null,
+      resp -> {
+        (resp.statusCode() == 200 ? result.ok : result.failed).incrementAndGet();
+        next(vertx, client, result, deadline, done);
+      },
+      t -> {
+        if (t instanceof LoadSheddingException) {
+          // shedding is synchronous, so back off instead of retrying in a tight loop
+          result.shed.incrementAndGet();
+          vertx.setTimer(shedBackoffMs, id -> next(vertx, client, result, deadline, done));
+        } else {
+          result.failed.incrementAndGet();
+          next(vertx, client, result, deadline, done);
+        }
+      });
+  }
+
+  private static final class Result {
+    private final int durationSec;
+    private final AtomicLong ok = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+
+    private Result(int durationSec) {
+      this.durationSec = durationSec;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("goodput %.1f req/s, ok %d, failed %d, shed %d",
+        ok.get() / (double) durationSec, ok.get(), failed.get(), shed.get());
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package org.folio.edge.patron.resilience;
+
+import static org.awaitility.Awaitility.await;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+
+@RunWith(VertxUnitRunner.class)
+public class EventLoopLagMonitorTest {
+
+  private static final Logger logger = LogManager.getLogger(EventLoopLagMonitorTest.class);
+
+  private static final long intervalMs = 10;
+  private static final long thresholdMs = 100;
+
+  private Vertx vertx;
+  private EventLoopLagMonitor monitor;
+
+  @Before
+  public void setUp() {
+    // one event loop, so the test blocks the one the probe runs on
+    vertx = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(1));
+    monitor = EventLoopLagMonitor.initialize(intervalMs, thresholdMs);
+    vertx.runOnContext(v -> monitor.monitorCurrentEventLoop());
+    await().with()
+      .pollInterval(10, TimeUnit.MILLISECONDS)
+      .atMost(5, TimeUnit.SECONDS)
+      .until(() -> !monitor.toJson().getJsonArray("eventLoops").isEmpty());
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    monitor.close();
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testBlockedEventLoopOverloaded(TestContext context) {
+    logger.info("=== Test a blocked event loop is reported as overloaded... ===");
+
+    Async async = context.async();
+    vertx.runOnContext(v -> {
+      context.assertFalse(monitor.isOverloaded());
+      sleep(thresholdMs * 3);
+      // the probe can't have ticked while the event loop was blocked
+      context.assertTrue(monitor.isOverloaded());
+      context.assertTrue(monitor.isAnyOverloaded());
+      context.assertTrue(monitor.getMaxLagMs() >= thresholdMs * 2);
+      async.complete();
+    });
+    async.await();
+
+    // and recovers once the event loop catches up
+    await().with()
+      .pollInterval(10, TimeUnit.MILLISECONDS)
+      .atMost(5, TimeUnit.SECONDS)
+      .until(() -> !monitor.isAnyOverloaded());
+  }
+
+  @Test
+  public void testToJson(TestContext context) {
+    logger.info("=== Test the lag of each event loop is reported... ===");
+
+    JsonObject json = monitor.toJson();
+    context.assertEquals(thresholdMs, json.getLong("thresholdMs"));
+    context.assertEquals(1, json.getJsonArray("eventLoops").size());
+    context.assertTrue(json.getJsonArray("eventLoops").getJsonObject(0).getString("thread")
+      .contains("eventloop"));
+  }
+
+  @Test
+  public void testMonitorCurrentEventLoop(TestContext context) {
+    logger.info("=== Test each event loop is measured once, and only event loops... ===");
+
+    Async async = context.async();
+    vertx.runOnContext(v -> {
+      monitor.monitorCurrentEventLoop();
+      async.complete();
+    });
+    async.await();
+    context.assertEquals(1, monitor.toJson().getJsonArray("eventLoops").size());
+
+    // neither the test thread nor a worker is an event loop
+    monitor.monitorCurrentEventLoop();
+    Async blocking = context.async();
+    vertx.executeBlocking(promise -> {
+      monitor.monitorCurrentEventLoop();
+      promise.complete();
+    }, context.asyncAssertSuccess(v -> blocking.complete()));
+    blocking.await();
+    context.assertEquals(1, monitor.toJson().getJsonArray("eventLoops").size());
+  }
+
+  @Test
+  public void testSheddingDisabled(TestContext context) {
+    logger.info("=== Test a threshold of 0 never sheds... ===");
+
+    monitor = EventLoopLagMonitor.initialize(intervalMs, 0);
+    Async async = context.async();
+    vertx.runOnContext(v -> {
+      sleep(thresholdMs * 2);
+      context.assertFalse(monitor.isOverloaded());
+      async.complete();
+    });
+  }
+
+  private static void sleep(long ms) {
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package org.folio.edge.patron.resilience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.patron.resilience.RateLimiter.TokenBucket;
+import org.junit.Test;
+
+import io.vertx.core.json.JsonObject;
+
+public class RateLimiterTest {
+
+  private static final Logger logger = LogManager.getLogger(RateLimiterTest.class);
+
+  private static final long second = TimeUnit.SECONDS.toNanos(1);
+
+  @Test
+  public void testBurstThenRate() {
+    logger.info("=== Test a bucket allows its burst, then its rate... ===");
+
+    long now = 0;
+    TokenBucket bucket = new TokenBucket("test", 10, 5, now);
+    for (int i = 0; i < 5; i++) {
+      assertEquals(0, bucket.tryAcquire(now));
+    }
+    long wait = bucket.tryAcquire(now);
+    assertEquals(second / 10, wait);
+
+    // one token every 100 ms
+    assertEquals(0, bucket.tryAcquire(now + wait));
+    assertTrue(bucket.tryAcquire(now + wait) > 0);
+
+    // refills up to the burst, not beyond
+    now += 10 * second;
+    assertEquals(5, bucket.available(now));
+  }
+
+  @Test
+  public void testTenantLimitReturnsApiKeyToken() {
+    logger.info("=== Test a request rejected by the tenant limit doesn't use the API key's token... ===");
+
+    RateLimiter limiter = new RateLimiter.Builder()
+      .withApiKeyRate(2)
+      .withTenantRate(1)
+      .build();
+
+    assertEquals(0, limiter.tryAcquire("key", "diku"));
+    assertTrue(limiter.tryAcquire("key", "diku") > 0);
+
+    JsonObject json = limiter.toJson();
+    JsonObject apiKeyBucket = json.getJsonObject("apiKey").getJsonArray("buckets").getJsonObject(0);
+    assertEquals(1L, (long) apiKeyBucket.getLong("allowed"));
+    assertEquals(0L, (long) apiKeyBucket.getLong("rejected"));
+    assertFalse(apiKeyBucket.getString("name").contains("key"));
+    JsonObject tenantBucket = json.getJsonObject("tenant").getJsonArray("buckets").getJsonObject(0);
+    assertEquals("diku", tenantBucket.getString("name"));
+    assertEquals(1L, (long) tenantBucket.getLong("rejected"));
+
+    // another API key of the same tenant is limited as well
+    assertTrue(limiter.tryAcquire("other", "diku") > 0);
+  }
+
+  @Test
+  public void testDisabled() {
+    logger.info("=== Test a rate of 0 disables the limit... ===");
+
+    RateLimiter limiter = new RateLimiter.Builder().build();
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(0, limiter.tryAcquire("key", "diku"));
+    }
+  }
+
+  @Test
+  public void testConcurrentAcquire() throws Exception {
+    logger.info("=== Test concurrent requests never take more than the burst... ===");
+
+    final int burst = 100;
+    final int threads = 8;
+    // slow enough not to refill during the test
+    TokenBucket bucket = new TokenBucket("test", 1, burst, System.nanoTime());
+    AtomicInteger allowed = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      Thread worker = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        for (int i = 0; i < burst; i++) {
+          if (bucket.tryAcquire(System.nanoTime()) == 0) {
+            allowed.incrementAndGet();
+          }
+        }
+      });
+      worker.start();
+      workers.add(worker);
+    }
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    assertTrue("allowed " + allowed.get(), allowed.get() >= burst && allowed.get() <= burst + 1);
+  }
+}
@@ -0,0 +1,191 @@
+package org.folio.edge.patron.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+
+@RunWith(VertxUnitRunner.class)
+public class RequestHedgerTest {
+
+  private static final Logger logger = LogManager.getLogger(RequestHedgerTest.class);
+
+  private static final int minSamples = 10;
+  private static final long minDelayMs = 50;
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testNoHedgeWithoutSamples(TestContext context) {
+    logger.info("=== Test calls aren't hedged before latencies are known... ===");
+
+    RequestHedger hedger = hedger(100);
+    AtomicInteger attempts = new AtomicInteger();
+    Async async = context.async();
+
+    vertx.runOnContext(v -> hedger.execute(UpstreamRoute.ACCOUNT,
+      (Handler<String> rh, Handler<Throwable> eh) -> {
+        attempts.incrementAndGet();
+        vertx.setTimer(minDelayMs * 3, id -> rh.handle("original"));
+      },
+      resp -> {
+        context.assertEquals("original", resp);
+        context.assertEquals(1, attempts.get());
+        async.complete();
+      },
+      context::fail));
+  }
+
+  @Test
+  public void testHedgeWins(TestContext context) {
+    logger.info("=== Test a slow call is hedged and the hedge wins... ===");
+
+    RequestHedger hedger = hedger(100);
+    AtomicInteger attempts = new AtomicInteger();
+    AtomicInteger responses = new AtomicInteger();
+    Async async = context.async();
+
+    vertx.runOnContext(v -> {
+      warmUp(hedger);
+      hedger.execute(UpstreamRoute.ACCOUNT,
+        (Handler<String> rh, Handler<Throwable> eh) -> {
+          // the original never gets faster than the hedge
+          long delay = attempts.getAndIncrement() == 0 ? minDelayMs * 4 : 0;
+          vertx.setTimer(delay + 1, id -> rh.handle(delay > 0 ? "original" : "hedge"));
+        },
+        resp -> {
+          responses.incrementAndGet();
+          context.assertEquals("hedge", resp);
+          context.assertEquals(2, attempts.get());
+          // let the original answer before checking it was discarded
+          vertx.setTimer(minDelayMs * 5, id -> {
+            context.assertEquals(1, responses.get());
+            JsonObject stats = route(hedger);
+            context.assertEquals(1L, stats.getLong("hedges"));
+            context.assertEquals(1L, stats.getLong("hedgeWins"));
+            async.complete();
+          });
+        },
+        context::fail);
+    });
+  }
+
+  @Test
+  public void testBudget(TestContext context) {
+    logger.info("=== Test hedging stops once the budget is spent... ===");
+
+    // warming up with 10 calls earns half a hedge
+    RequestHedger hedger = hedger(5);
+    AtomicInteger attempts = new AtomicInteger();
+    Async async = context.async();
+
+    vertx.runOnContext(v -> {
+      warmUp(hedger);
+      hedger.execute(UpstreamRoute.ACCOUNT,
+        (Handler<String> rh, Handler<Throwable> eh) -> {
+          attempts.incrementAndGet();
+          vertx.setTimer(minDelayMs * 3, id -> rh.handle("original"));
+        },
+        resp -> {
+          context.assertEquals(1, attempts.get());
+          context.assertEquals(0L, route(hedger).getLong("hedges"));
+          async.complete();
+        },
+        context::fail);
+    });
+  }
+
+  @Test
+  public void testFailsWhenAllAttemptsFail(TestContext context) {
+    logger.info("=== Test the failure is reported once both attempts failed... ===");
+
+    RequestHedger hedger = hedger(100);
+    AtomicInteger attempts = new AtomicInteger();
+    Async async = context.async();
+
+    vertx.runOnContext(v -> {
+      warmUp(hedger);
+      hedger.execute(UpstreamRoute.ACCOUNT,
+        (Handler<String> rh, Handler<Throwable> eh) -> {
+          int attempt = attempts.incrementAndGet();
+          vertx.setTimer(minDelayMs * 2, id -> eh.handle(new RuntimeException("attempt " + attempt)));
+        },
+        resp -> context.fail("Unexpected response " + resp),
+        t -> {
+          context.assertEquals(2, attempts.get());
+          context.assertEquals("attempt 2", t.getMessage());
+          async.complete();
+        });
+    });
+  }
+
+  @Test
+  public void testDisabled(TestContext context) {
+    logger.info("=== Test nothing is hedged when disabled... ===");
+
+    RequestHedger hedger = new RequestHedger.Builder().build();
+    AtomicInteger attempts = new AtomicInteger();
+    Async async = context.async();
+
+    vertx.runOnContext(v -> hedger.execute(UpstreamRoute.ACCOUNT,
+      (Handler<String> rh, Handler<Throwable> eh) -> {
+        attempts.incrementAndGet();
+        vertx.setTimer(minDelayMs * 3, id -> rh.handle("original"));
+      },
+      resp -> {
+        context.assertEquals(1, attempts.get());
+        context.assertFalse(hedger.toJson().getBoolean("enabled"));
+        async.complete();
+      },
+      context::fail));
+  }
+
+  private static RequestHedger hedger(int budgetPercent) {
+    return new RequestHedger.Builder()
+      .withEnabled(true)
+      .withBudgetPercent(budgetPercent)
+      .withMinDelayMs(minDelayMs)
+      .withMinSamples(minSamples)
+      .withWindowSize(minSamples)
+      .build();
+  }
+
+  /**
+   * Records enough fast calls for the hedge delay to be known.
+   */
+  private static void warmUp(RequestHedger hedger) {
+    for (int i = 0; i < minSamples; i++) {
+      hedger.execute(UpstreamRoute.ACCOUNT,
+        (Handler<String> rh, Handler<Throwable> eh) -> rh.handle("warm-up"),
+        resp -> {
+        },
+        t -> {
+        });
+    }
+  }
+
+  private static JsonObject route(RequestHedger hedger) {
+    return hedger.toJson().getJsonArray("routes").getJsonObject(0);
+  }
+}
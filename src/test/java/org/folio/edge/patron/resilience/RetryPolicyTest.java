@@ -0,0 +1,188 @@
+package org.folio.edge.patron.resilience;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.ConnectException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.client.HttpResponse;
+
+@RunWith(VertxUnitRunner.class)
+public class RetryPolicyTest {
+
+  private static final Logger logger = LogManager.getLogger(RetryPolicyTest.class);
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testRetriesUnavailable(TestContext context) {
+    logger.info("=== Test a 503 is retried... ===");
+
+    AtomicInteger attempts = new AtomicInteger();
+    Async async = context.async();
+    vertx.runOnContext(v -> policy(3, 10).execute(UpstreamRoute.ACCOUNT, null,
+      (rh, eh) -> rh.handle(response(attempts.incrementAndGet() == 1 ? 503 : 200)),
+      resp -> {
+        context.assertEquals(200, resp.statusCode());
+        context.assertEquals(2, attempts.get());
+        async.complete();
+      },
+      context::fail));
+  }
+
+  @Test
+  public void testRetriesConnectError(TestContext context) {
+    logger.info("=== Test a connection failure is retried... ===");
+
+    AtomicInteger attempts = new AtomicInteger();
+    Async async = context.async();
+    vertx.runOnContext(v -> policy(3, 10).execute(UpstreamRoute.USERS, null,
+      (rh, eh) -> {
+        if (attempts.incrementAndGet() == 1) {
+          eh.handle(new ConnectException("Connection refused"));
+        } else {
+          rh.handle(response(200));
+        }
+      },
+      resp -> {
+        context.assertEquals(2, attempts.get());
+        async.complete();
+      },
+      context::fail));
+  }
+
+  @Test
+  public void testNoRetryOnServerErrorOrTimeout(TestContext context) {
+    logger.info("=== Test 500s and timeouts aren't retried... ===");
+
+    RetryPolicy policy = policy(3, 10);
+    AtomicInteger attempts = new AtomicInteger();
+    Async async = context.async(2);
+    vertx.runOnContext(v -> {
+      policy.execute(UpstreamRoute.ACCOUNT, null,
+        (rh, eh) -> {
+          attempts.incrementAndGet();
+          rh.handle(response(500));
+        },
+        resp -> {
+          context.assertEquals(500, resp.statusCode());
+          async.countDown();
+        },
+        context::fail);
+      policy.execute(UpstreamRoute.ACCOUNT, null,
+        (rh, eh) -> {
+          attempts.incrementAndGet();
+          eh.handle(new TimeoutException());
+        },
+        resp -> context.fail("Unexpected response"),
+        t -> {
+          context.assertEquals(2, attempts.get());
+          async.countDown();
+        });
+    });
+  }
+
+  @Test
+  public void testGivesUpAfterMaxAttempts(TestContext context) {
+    logger.info("=== Test the last response is returned after the last attempt... ===");
+
+    AtomicInteger attempts = new AtomicInteger();
+    Async async = context.async();
+    vertx.runOnContext(v -> policy(3, 10).execute(UpstreamRoute.ACCOUNT, null,
+      // 502, 503, 504
+      (rh, eh) -> rh.handle(response(501 + attempts.incrementAndGet())),
+      resp -> {
+        context.assertEquals(3, attempts.get());
+        context.assertEquals(504, resp.statusCode());
+        async.complete();
+      },
+      context::fail));
+  }
+
+  @Test
+  public void testBudget(TestContext context) {
+    logger.info("=== Test retries stop once the budget is spent... ===");
+
+    // one token, and calls don't earn more
+    RetryPolicy policy = new RetryPolicy.Builder()
+      .withMaxAttempts(3)
+      .withBaseDelayMs(10)
+      .withBudgetPercent(0)
+      .withMaxBudgetTokens(1)
+      .build();
+    AtomicInteger attempts = new AtomicInteger();
+    Async async = context.async();
+    vertx.runOnContext(v -> policy.execute(UpstreamRoute.ACCOUNT, null,
+      (rh, eh) -> {
+        attempts.incrementAndGet();
+        rh.handle(response(503));
+      },
+      resp -> {
+        context.assertEquals(2, attempts.get());
+        context.assertEquals(1L,
+          policy.toJson().getJsonArray("routes").getJsonObject(0).getLong("budgetExhausted"));
+        async.complete();
+      },
+      context::fail));
+  }
+
+  @Test
+  public void testDeadline(TestContext context) {
+    logger.info("=== Test nothing is retried past the deadline... ===");
+
+    AtomicInteger attempts = new AtomicInteger();
+    Async async = context.async();
+    // any backoff is at least as long as what's left
+    vertx.runOnContext(v -> policy(3, 10).execute(UpstreamRoute.ACCOUNT, Deadline.after(1),
+      (rh, eh) -> {
+        attempts.incrementAndGet();
+        rh.handle(response(503));
+      },
+      resp -> {
+        context.assertEquals(503, resp.statusCode());
+        context.assertEquals(1, attempts.get());
+        async.complete();
+      },
+      context::fail));
+  }
+
+  private static RetryPolicy policy(int maxAttempts, long baseDelayMs) {
+    return new RetryPolicy.Builder()
+      .withMaxAttempts(maxAttempts)
+      .withBaseDelayMs(baseDelayMs)
+      .withMaxDelayMs(baseDelayMs * 4)
+      .build();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static HttpResponse<Buffer> response(int statusCode) {
+    HttpResponse<Buffer> resp = mock(HttpResponse.class);
+    when(resp.statusCode()).thenReturn(statusCode);
+    return resp;
+  }
+}
@@ -0,0 +1,78 @@
+package org.folio.edge.patron.resilience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.patron.resilience.UpstreamGuard.Permit;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.json.JsonObject;
+
+public class UpstreamGuardTest {
+
+  private static final Logger logger = LogManager.getLogger(UpstreamGuardTest.class);
+
+  private static final String tenant = "diku";
+  private static final int maxConcurrentCalls = 2;
+
+  private UpstreamGuard guard;
+
+  @Before
+  public void setUp() {
+    guard = UpstreamGuard.initialize(new CircuitBreaker.Builder()
+      .withWindowSize(4)
+      .withMinimumCalls(2)
+      .withFailureRateThreshold(100)
+      .withOpenDurationMs(60 * 1000L), maxConcurrentCalls);
+  }
+
+  @Test
+  public void testBulkhead() {
+    logger.info("=== Test tenant bulkhead... ===");
+
+    Permit first = guard.acquire(tenant, UpstreamRoute.ACCOUNT);
+    guard.acquire(tenant, UpstreamRoute.USERS);
+    assertRejected(tenant, UpstreamRoute.RENEW);
+
+    // other tenants aren't affected
+    guard.acquire("other", UpstreamRoute.RENEW);
+
+    first.complete(false);
+    // completing twice must not release twice
+    first.complete(false);
+    guard.acquire(tenant, UpstreamRoute.RENEW);
+    assertRejected(tenant, UpstreamRoute.RENEW);
+  }
+
+  @Test
+  public void testBreakerPerRoute() {
+    logger.info("=== Test circuit breakers per tenant and route... ===");
+
+    guard.acquire(tenant, UpstreamRoute.ACCOUNT).complete(true);
+    guard.acquire(tenant, UpstreamRoute.ACCOUNT).complete(true);
+    assertRejected(tenant, UpstreamRoute.ACCOUNT);
+
+    guard.acquire(tenant, UpstreamRoute.USERS).complete(false);
+    guard.acquire("other", UpstreamRoute.ACCOUNT).complete(false);
+
+    JsonObject json = guard.toJson();
+    assertEquals(3, json.getJsonArray("circuitBreakers").size());
+    json.getJsonArray("circuitBreakers").stream()
+      .map(JsonObject.class::cast)
+      .filter(b -> tenant.equals(b.getString("tenant")))
+      .filter(b -> UpstreamRoute.ACCOUNT.path().equals(b.getString("route")))
+      .forEach(b -> assertEquals("OPEN", b.getString("state")));
+  }
+
+  private void assertRejected(String tenant, UpstreamRoute route) {
+    try {
+      guard.acquire(tenant, route);
+      fail("Expected " + UpstreamUnavailableException.class.getName());
+    } catch (UpstreamUnavailableException e) {
+      logger.debug(e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package org.folio.edge.patron.security;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.core.security.SecureStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+
+@RunWith(VertxUnitRunner.class)
+public class SecureStoreLookupTest {
+
+  private static final Logger logger = LogManager.getLogger(SecureStoreLookupTest.class);
+
+  private static final long lookupMs = 500;
+  private static final long maxEventLoopLagMs = 200;
+
+  private Vertx vertx;
+  private SlowSecureStore secureStore;
+  private SecureStoreLookup lookup;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx(new VertxOptions()
+      .setBlockedThreadCheckInterval(50)
+      .setMaxEventLoopExecuteTime(maxEventLoopLagMs * 1000000));
+    secureStore = new SlowSecureStore();
+    lookup = new SecureStoreLookup(vertx, secureStore, 2);
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    lookup.close();
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testLookupOffEventLoop(TestContext context) {
+    logger.info("=== Test secure store lookups don't block the event loop... ===");
+
+    Async async = context.async();
+    vertx.runOnContext(v -> {
+      EventLoopLagProbe probe = new EventLoopLagProbe(vertx);
+      lookup.get("salt", "diku", "diku")
+        .onComplete(context.asyncAssertSuccess(password -> {
+          probe.stop();
+          context.assertEquals("password", password);
+          context.assertTrue(Context.isOnEventLoopThread());
+          context.assertFalse(secureStore.calledOnEventLoop);
+          context.assertTrue(probe.maxLagMs() < maxEventLoopLagMs,
+              "event loop was blocked for " + probe.maxLagMs() + " ms");
+          async.complete();
+        }));
+    });
+  }
+
+  @Test
+  public void testConcurrentLookupsCoalesced(TestContext context) {
+    logger.info("=== Test concurrent lookups for a user share one call to the secure store... ===");
+
+    Async async = context.async();
+    vertx.runOnContext(v -> {
+      Future<String> first = lookup.get("salt", "diku", "diku");
+      Future<String> second = lookup.get("salt", "diku", "diku");
+      Future<String> other = lookup.get("salt", "other", "other");
+      context.assertEquals(2, lookup.getPendingCount());
+
+      CompositeFuture.all(first, second, other).onComplete(context.asyncAssertSuccess(all -> {
+        context.assertEquals("password", first.result());
+        context.assertEquals("password", second.result());
+        context.assertEquals(2, secureStore.calls.get());
+        context.assertEquals(0, lookup.getPendingCount());
+        async.complete();
+      }));
+    });
+  }
+
+  @Test
+  public void testNotFound(TestContext context) {
+    logger.info("=== Test unknown users fail the lookup... ===");
+
+    Async async = context.async();
+    vertx.runOnContext(v -> lookup.get("salt", "bogus", "diku")
+      .onComplete(context.asyncAssertFailure(t -> {
+        context.assertTrue(t instanceof SecureStore.NotFoundException);
+        async.complete();
+      })));
+  }
+
+  /**
+   * Measures how late a periodic timer on the event loop fires, which is how
+   * long the event loop was kept from running other tasks.
+   */
+  private static final class EventLoopLagProbe {
+    private static final long INTERVAL_MS = 10;
+
+    private final Vertx vertx;
+    private final long timerId;
+    private final AtomicLong maxLagMs = new AtomicLong();
+    private long last = System.currentTimeMillis();
+
+    private EventLoopLagProbe(Vertx vertx) {
+      this.vertx = vertx;
+      this.timerId = vertx.setPeriodic(INTERVAL_MS, id -> {
+        long now = System.currentTimeMillis();
+        maxLagMs.accumulateAndGet(now - last - INTERVAL_MS, Math::max);
+        last = now;
+      });
+    }
+
+    private void stop() {
+      vertx.cancelTimer(timerId);
+      maxLagMs.accumulateAndGet(System.currentTimeMillis() - last - INTERVAL_MS, Math::max);
+    }
+
+    private long maxLagMs() {
+      return maxLagMs.get();
+    }
+  }
+
+  private static final class SlowSecureStore extends SecureStore {
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile boolean calledOnEventLoop;
+
+    private SlowSecureStore() {
+      super(new Properties());
+    }
+
+    @Override
+    public String get(String clientId, String tenant, String username) throws NotFoundException {
+      calls.incrementAndGet();
+      calledOnEventLoop |= Context.isOnEventLoopThread();
+      try {
+        // like a call out to Vault or AWS SSM
+        Thread.sleep(lookupMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if ("bogus".equals(tenant)) {
+        throw new NotFoundException("No credentials for " + tenant);
+      }
+      return "password";
+    }
+  }
+}
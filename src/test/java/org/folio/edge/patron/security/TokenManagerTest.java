@@ -0,0 +1,205 @@
+package org.folio.edge.patron.security;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+
+@RunWith(VertxUnitRunner.class)
+public class TokenManagerTest {
+
+  private static final Logger logger = LogManager.getLogger(TokenManagerTest.class);
+
+  private static final String tenant = "diku";
+  private static final String username = "diku";
+  private static final String password = "password";
+  private static final long refreshAheadMs = 2000;
+  private static final long defaultLifetimeMs = 60 * 1000L;
+
+  private Vertx vertx;
+  private TokenManager tokenManager;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+    tokenManager = TokenManager.initialize(refreshAheadMs, defaultLifetimeMs);
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testLoginOnce(TestContext context) {
+    logger.info("=== Test a user is logged in only once... ===");
+
+    AtomicInteger logins = new AtomicInteger();
+    Async async = context.async();
+    vertx.runOnContext(v -> tokenManager
+      .login(tenant, username, password, () -> {
+        logins.incrementAndGet();
+        return CompletableFuture.completedFuture("token");
+      })
+      .thenCompose(token -> tokenManager.login(tenant, username, password, () -> {
+        logins.incrementAndGet();
+        return CompletableFuture.completedFuture("other");
+      }))
+      .thenAccept(token -> {
+        context.assertEquals("token", token);
+        context.assertEquals(1, logins.get());
+        async.complete();
+      }));
+  }
+
+  @Test
+  public void testConcurrentLoginsCoalesced(TestContext context) {
+    logger.info("=== Test concurrent logins for a user share one call to Okapi... ===");
+
+    AtomicInteger logins = new AtomicInteger();
+    CompletableFuture<String> pending = new CompletableFuture<>();
+    Async async = context.async(2);
+    vertx.runOnContext(v -> {
+      for (int i = 0; i < 2; i++) {
+        tokenManager
+          .login(tenant, username, password, () -> {
+            logins.incrementAndGet();
+            return pending;
+          })
+          .thenAccept(token -> {
+            context.assertEquals("token", token);
+            async.countDown();
+          });
+      }
+      context.assertEquals(1, logins.get());
+      pending.complete("token");
+    });
+  }
+
+  @Test
+  public void testJoinedLoginCompletesOnOwnContext(TestContext context) {
+    logger.info("=== Test requests joining a pending login get the token on their own context... ===");
+
+    CompletableFuture<String> pending = new CompletableFuture<>();
+    Context first = vertx.getOrCreateContext();
+    Context second = vertx.getOrCreateContext();
+    Async async = context.async(2);
+    for (Context caller : new Context[] { first, second }) {
+      caller.runOnContext(v -> tokenManager
+        .login(tenant, username, password, () -> pending)
+        .thenAccept(token -> {
+          context.assertEquals("token", token);
+          context.assertEquals(caller, Vertx.currentContext());
+          async.countDown();
+        }));
+    }
+    // completed from the first caller's context, as the HTTP client would
+    first.runOnContext(v -> vertx.setTimer(100, id -> pending.complete("token")));
+  }
+
+  @Test
+  public void testPastExpiryNotRefreshedContinuously(TestContext context) {
+    logger.info("=== Test a token whose expiry has passed by the local clock is used, not refreshed every second... ===");
+
+    String token = jwt(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - 60);
+    AtomicInteger logins = new AtomicInteger();
+    Async async = context.async();
+    vertx.runOnContext(v -> tokenManager
+      .login(tenant, username, password, () -> {
+        logins.incrementAndGet();
+        return CompletableFuture.completedFuture(token);
+      })
+      .thenAccept(first -> vertx.setTimer(2500, id -> tokenManager
+        .login(tenant, username, password, () -> {
+          logins.incrementAndGet();
+          return CompletableFuture.completedFuture("other");
+        })
+        .thenAccept(current -> {
+          context.assertEquals(token, current);
+          context.assertEquals(1, logins.get());
+          async.complete();
+        }))));
+  }
+
+  @Test
+  public void testRefreshBeforeExpiry(TestContext context) {
+    logger.info("=== Test tokens are refreshed in the background before they expire... ===");
+
+    // expires just after the refresh is due
+    long exp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() + refreshAheadMs) + 2;
+    String oldToken = jwt(exp);
+    String newToken = jwt(exp + 3600);
+    AtomicInteger logins = new AtomicInteger();
+    Async async = context.async();
+
+    vertx.runOnContext(v -> tokenManager
+      .login(tenant, username, password, () -> CompletableFuture.completedFuture(
+          logins.incrementAndGet() == 1 ? oldToken : newToken))
+      .thenAccept(token -> {
+        context.assertEquals(oldToken, token);
+        vertx.setPeriodic(100, id -> {
+          if (logins.get() < 2) {
+            return;
+          }
+          vertx.cancelTimer(id);
+          tokenManager.login(tenant, username, password, () -> {
+            context.fail("Unexpected login");
+            return null;
+          }).thenAccept(current -> {
+            context.assertEquals(newToken, current);
+            async.complete();
+          });
+        });
+      }));
+  }
+
+  @Test
+  public void testExpiresAt() {
+    logger.info("=== Test reading the expiry of tokens... ===");
+
+    long now = System.currentTimeMillis();
+    long exp = TimeUnit.MILLISECONDS.toSeconds(now) + 3600;
+    assertEquals(exp * 1000, tokenManager.expiresAt(jwt(exp), now));
+    // the lifetime counts from receipt, whatever the issuer's clock says
+    assertEquals(now + 600 * 1000L, tokenManager.expiresAt(jwt(1234567890L, 1234567290L), now));
+    // an expiry in the past means the clocks disagree
+    assertEquals(now + defaultLifetimeMs, tokenManager.expiresAt(jwt(1234567890L), now));
+    assertEquals(now + defaultLifetimeMs, tokenManager.expiresAt("not-a-jwt", now));
+    assertEquals(now + defaultLifetimeMs, tokenManager.expiresAt("a.b.c", now));
+  }
+
+  private static String jwt(long exp) {
+    return jwt(exp, null);
+  }
+
+  private static String jwt(long exp, Long iat) {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    String header = encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8));
+    JsonObject json = new JsonObject()
+      .put("sub", username)
+      .put("tenant", tenant)
+      .put("exp", exp);
+    if (iat != null) {
+      json.put("iat", iat);
+    }
+    String claims = encoder.encodeToString(json.encode().getBytes(StandardCharsets.UTF_8));
+    return header + "." + claims + ".signature";
+  }
+}
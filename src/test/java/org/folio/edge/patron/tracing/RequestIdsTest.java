@@ -0,0 +1,93 @@
+package org.folio.edge.patron.tracing;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+import org.apache.logging.log4j.util.StringMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+
+@RunWith(VertxUnitRunner.class)
+public class RequestIdsTest {
+
+  private static final Logger logger = LogManager.getLogger(RequestIdsTest.class);
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testGenerate() {
+    logger.info("=== Test generated request IDs look like Okapi's... ===");
+
+    String requestId = RequestIds.generate("/patron/account/123");
+    assertTrue(requestId, requestId.matches("\\d{6}/patron"));
+    assertTrue(RequestIds.isValid(requestId));
+  }
+
+  @Test
+  public void testIsValid() {
+    logger.info("=== Test request IDs taken from clients... ===");
+
+    assertTrue(RequestIds.isValid("123456/patron;654321/users"));
+    assertFalse(RequestIds.isValid(null));
+    assertFalse(RequestIds.isValid(""));
+    assertFalse(RequestIds.isValid("123456/patron\nforged log line"));
+    assertFalse(RequestIds.isValid("with space"));
+    assertFalse(RequestIds.isValid(String.join("", Collections.nCopies(RequestIds.MAX_LENGTH + 1, "1"))));
+  }
+
+  @Test
+  public void testDuplicateContext(TestContext context) {
+    logger.info("=== Test the request ID is kept per request context... ===");
+
+    Async async = context.async();
+    ContextInternal eventLoop = (ContextInternal) vertx.getOrCreateContext();
+    eventLoop.runOnContext(v -> {
+      // not kept on the event loop context shared by all requests
+      RequestIds.set("000000/patron");
+      assertNull(RequestIds.current());
+
+      eventLoop.duplicate().runOnContext(w -> {
+        RequestIds.set("123456/patron");
+        context.assertEquals("123456/patron", RequestIds.current());
+
+        StringMap contextData = new RequestIdContextDataInjector()
+          .injectContextData(null, new SortedArrayStringMap());
+        context.assertEquals("123456/patron", contextData.getValue(RequestIdContextDataInjector.KEY));
+        async.complete();
+      });
+    });
+  }
+
+  @Test
+  public void testNoContext() {
+    logger.info("=== Test no request ID outside of Vert.x... ===");
+
+    assertNull(RequestIds.current());
+    StringMap contextData = new RequestIdContextDataInjector().injectContextData(null, new SortedArrayStringMap());
+    assertNull(contextData.getValue(RequestIdContextDataInjector.KEY));
+  }
+}
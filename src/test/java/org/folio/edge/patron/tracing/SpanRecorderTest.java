@@ -0,0 +1,86 @@
+package org.folio.edge.patron.tracing;
+
+import static org.junit.Assert.assertEquals;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+public class SpanRecorderTest {
+
+  private static final Logger logger = LogManager.getLogger(SpanRecorderTest.class);
+
+  @Test
+  public void testSlowest() throws Exception {
+    logger.info("=== Test only the slowest traces are kept... ===");
+
+    SpanRecorder recorder = SpanRecorder.initialize(2);
+    for (int i = 0; i < 3; i++) {
+      recorder.record(trace("00000" + i + "/patron", i * 20));
+    }
+    recorder.record(trace("000009/patron", 0));
+
+    JsonArray traces = recorder.toJson().getJsonArray("traces");
+    assertEquals(2, traces.size());
+    assertEquals("000002/patron", traces.getJsonObject(0).getString("requestId"));
+    assertEquals("000001/patron", traces.getJsonObject(1).getString("requestId"));
+
+    recorder.clear();
+    assertEquals(0, recorder.toJson().getJsonArray("traces").size());
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    logger.info("=== Test no traces are kept with a capacity of 0... ===");
+
+    SpanRecorder recorder = SpanRecorder.initialize(0);
+    recorder.record(trace("000001/patron", 1));
+
+    assertEquals(0, recorder.toJson().getJsonArray("traces").size());
+  }
+
+  @Test
+  public void testInProgress() {
+    logger.info("=== Test traces still in progress are not kept... ===");
+
+    SpanRecorder recorder = SpanRecorder.initialize(2);
+    recorder.record(new RequestTrace("000001/patron", "account"));
+
+    assertEquals(0, recorder.toJson().getJsonArray("traces").size());
+  }
+
+  @Test
+  public void testTraceJson() {
+    logger.info("=== Test the spans of a trace... ===");
+
+    RequestTrace trace = new RequestTrace("123456/patron", "renew");
+    long start = System.nanoTime();
+    trace.addSpan("patron", "cache hit", 200, start, 1_500_000);
+    trace.addSpan("mod-patron", "/patron/account/item/renew", 201, start, 30_000_000);
+    trace.end("diku", 201);
+    trace.addSpan("mod-users", null, 200, start, 1);
+
+    JsonObject json = trace.toJson();
+    assertEquals("123456/patron", json.getString("requestId"));
+    assertEquals("renew", json.getString("route"));
+    assertEquals("diku", json.getString("tenant"));
+    assertEquals(201, (int) json.getInteger("status"));
+
+    JsonArray spans = json.getJsonArray("spans");
+    assertEquals(2, spans.size());
+    assertEquals("cache hit", spans.getJsonObject(0).getString("detail"));
+    assertEquals(1.5, spans.getJsonObject(0).getDouble("durationMs"), 0);
+    assertEquals("mod-patron", spans.getJsonObject(1).getString("name"));
+    assertEquals(201, (int) spans.getJsonObject(1).getInteger("status"));
+  }
+
+  private static RequestTrace trace(String requestId, long durationMs) throws InterruptedException {
+    RequestTrace trace = new RequestTrace(requestId, "account");
+    Thread.sleep(durationMs);
+    trace.end("diku", 200);
+    return trace;
+  }
+}
@@ -0,0 +1,94 @@
+package org.folio.edge.patron.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+
+@RunWith(VertxUnitRunner.class)
+public class BatchExecutorTest {
+
+  private static final Logger logger = LogManager.getLogger(BatchExecutorTest.class);
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testParallelismBound(TestContext context) {
+    logger.info("=== Test no more tasks than allowed run at once... ===");
+
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    vertx.runOnContext(v -> BatchExecutor.execute(20, 3, i -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      Promise<Integer> promise = Promise.promise();
+      // complete out of order
+      vertx.setTimer(1 + (20 - i) % 7, id -> {
+        inFlight.decrementAndGet();
+        promise.complete(i * 10);
+      });
+      return promise.future();
+    }).onComplete(context.asyncAssertSuccess(results -> {
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        expected.add(i * 10);
+      }
+      context.assertEquals(expected, results);
+      context.assertEquals(3, maxInFlight.get());
+    })));
+  }
+
+  @Test
+  public void testSynchronousTasks(TestContext context) {
+    logger.info("=== Test many tasks completing right away don't overflow the stack... ===");
+
+    BatchExecutor.execute(100000, 4, Future::succeededFuture)
+      .onComplete(context.asyncAssertSuccess(results -> {
+        context.assertEquals(100000, results.size());
+        context.assertEquals(99999, results.get(99999));
+      }));
+  }
+
+  @Test
+  public void testFailure(TestContext context) {
+    logger.info("=== Test a failed task fails the batch and stops it... ===");
+
+    AtomicInteger started = new AtomicInteger();
+    BatchExecutor.execute(10, 1, i -> {
+      started.incrementAndGet();
+      return i == 2 ? Future.failedFuture("boom") : Future.succeededFuture(i);
+    }).onComplete(context.asyncAssertFailure(t -> {
+      context.assertEquals("boom", t.getMessage());
+      context.assertEquals(3, started.get());
+    }));
+  }
+
+  @Test
+  public void testEmpty(TestContext context) {
+    logger.info("=== Test an empty batch... ===");
+
+    BatchExecutor.<String>execute(0, 4, i -> Future.succeededFuture("unused"))
+      .onComplete(context.asyncAssertSuccess(results -> context.assertTrue(results.isEmpty())));
+  }
+}
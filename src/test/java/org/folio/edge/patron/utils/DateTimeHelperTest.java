@@ -0,0 +1,63 @@
+package org.folio.edge.patron.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.patron.model.Hold;
+import org.junit.Test;
+
+public class DateTimeHelperTest {
+
+  private static final Logger logger = LogManager.getLogger(DateTimeHelperTest.class);
+
+  private static final Instant instant = Instant.parse("2019-09-20T10:00:00.123Z");
+
+  @Test
+  public void testFormat() {
+    logger.info("=== Test dates are written in UTC with millis... ===");
+
+    assertEquals("2019-09-20T10:00:00.123+0000", DateTimeHelper.format(instant));
+    assertEquals(instant, DateTimeHelper.parse("2019-09-20T12:00:00.123+0200"));
+  }
+
+  @Test(expected = DateTimeParseException.class)
+  public void testParseInvalid() {
+    logger.info("=== Test dates not in the wire format are rejected... ===");
+
+    DateTimeHelper.parse("0001-01-01T00:00:00");
+  }
+
+  @Test
+  public void testParseIso() {
+    logger.info("=== Test ISO 8601 dates as FOLIO sends them... ===");
+
+    assertEquals(instant, DateTimeHelper.parseIso("2019-09-20T10:00:00.123Z"));
+    assertEquals(instant, DateTimeHelper.parseIso("2019-09-20T10:00:00.123+0000"));
+    assertEquals(instant, DateTimeHelper.parseIso("2019-09-20T11:00:00.123+01:00"));
+    assertEquals(Instant.parse("2019-09-20T10:00:00Z"), DateTimeHelper.parseIso("2019-09-20T10:00"));
+    assertEquals(Instant.parse("2019-11-27T00:00:00Z"), DateTimeHelper.parseIso("2019-11-27"));
+  }
+
+  @Test
+  public void testJsonRoundTrip() throws Exception {
+    logger.info("=== Test the models keep the wire format... ===");
+
+    Hold hold = Hold.builder()
+      .requestDate(instant)
+      .build();
+    String json = hold.toJson();
+    assertTrue(json.contains("\"2019-09-20T10:00:00.123+0000\""));
+    assertEquals(instant, Hold.fromJson(json).requestDate);
+    assertEquals(instant, Hold.fromXml(hold.toXml()).requestDate);
+
+    Hold fromMillis = Hold.fromJson("{\"requestDate\": " + instant.toEpochMilli() + "}");
+    assertEquals(instant, fromMillis.requestDate);
+    assertNull(Hold.fromJson("{\"requestDate\": \"\"}").requestDate);
+  }
+}
@@ -0,0 +1,53 @@
+package org.folio.edge.patron.utils;
+
+import static org.folio.edge.patron.Constants.MSG_ACCESS_DENIED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.patron.model.error.ErrorMessage;
+import org.junit.Test;
+
+public class ErrorBodiesTest {
+
+  private static final Logger logger = LogManager.getLogger(ErrorBodiesTest.class);
+
+  @Test
+  public void testFixedBodies() throws Exception {
+    logger.info("=== Test pre-encoded bodies read like ErrorMessage... ===");
+
+    assertEquals(new ErrorMessage(401, MSG_ACCESS_DENIED),
+        ErrorMessage.fromJson(ErrorBodies.ACCESS_DENIED.toString()));
+    assertEquals(new ErrorMessage(404, "Not \"found\""),
+        ErrorMessage.fromJson(ErrorBodies.encode(404, "Not \"found\"")));
+  }
+
+  @Test
+  public void testFirstErrorMessage() throws Exception {
+    logger.info("=== Test the first message of an error response is extracted... ===");
+
+    assertEquals("first", ErrorBodies.getFirstErrorMessage(
+        "{\"total_records\": 2, \"errors\": [{\"parameters\": [{\"key\": \"a\", \"value\": \"b\"}],"
+            + " \"message\": \"first\"}, {\"message\": \"second\"}]}"));
+    assertNull(ErrorBodies.getFirstErrorMessage("{\"errors\": []}"));
+    assertNull(ErrorBodies.getFirstErrorMessage("{\"errors\": [{\"code\": \"x\"}]}"));
+    assertNull(ErrorBodies.getFirstErrorMessage("{}"));
+  }
+
+  @Test
+  public void testStopsAfterFirstError() throws Exception {
+    logger.info("=== Test parsing stops at the end of the first error... ===");
+
+    assertEquals("first", ErrorBodies.getFirstErrorMessage("{\"errors\": [{\"message\": \"first\"}, {not json"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testMalformedFirstError() throws Exception {
+    logger.info("=== Test a malformed first error fails... ===");
+
+    ErrorBodies.getFirstErrorMessage("{\"errors\": [{\"message\": \"first\", \"parameters\": [\"key\": \"a\"]}]}");
+  }
+}
@@ -0,0 +1,74 @@
+package org.folio.edge.patron.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Test;
+
+public class LogSamplerTest {
+
+  private static final Logger logger = LogManager.getLogger(LogSamplerTest.class);
+
+  private final int maxPerSecond = LogSampler.getMaxPerSecond();
+
+  @After
+  public void tearDown() {
+    LogSampler.setMaxPerSecond(maxPerSecond);
+  }
+
+  @Test
+  public void testSample() throws Exception {
+    logger.info("=== Test messages over the limit are counted... ===");
+
+    LogSampler.setMaxPerSecond(2);
+    LogSampler sampler = new LogSampler();
+
+    assertEquals(0, sampler.sample());
+    assertEquals(0, sampler.sample());
+    assertEquals(-1, sampler.sample());
+    assertEquals(-1, sampler.sample());
+
+    Thread.sleep(1100);
+
+    assertEquals(2, sampler.sample());
+    assertEquals(0, sampler.sample());
+    assertEquals(-1, sampler.sample());
+  }
+
+  @Test
+  public void testSamplersAreIndependent() {
+    logger.info("=== Test each message type has its own allowance... ===");
+
+    LogSampler.setMaxPerSecond(1);
+    LogSampler lookups = new LogSampler();
+    LogSampler errors = new LogSampler();
+
+    assertEquals(0, lookups.sample());
+    assertEquals(-1, lookups.sample());
+    assertEquals(0, errors.sample());
+  }
+
+  @Test
+  public void testCountOnly() {
+    logger.info("=== Test a limit of 0 logs nothing... ===");
+
+    LogSampler.setMaxPerSecond(0);
+    LogSampler sampler = new LogSampler();
+
+    assertEquals(-1, sampler.sample());
+    assertEquals(-1, sampler.sample());
+  }
+
+  @Test
+  public void testRedact() {
+    logger.info("=== Test patron IDs are masked... ===");
+
+    assertEquals("****449c", PatronIdHelper.redact("6b6b715e-8038-49ba-ab91-faa8fdf7449c"));
+    assertEquals("****.org", PatronIdHelper.redact("patron@folio.org"));
+    assertEquals("****", PatronIdHelper.redact("0000"));
+    assertNull(PatronIdHelper.redact(null));
+  }
+}
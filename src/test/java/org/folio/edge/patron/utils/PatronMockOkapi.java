@@ -20,13 +20,18 @@ import static org.folio.edge.patron.Constants.PARAM_SORT_BY;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Currency;
-import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -120,14 +125,99 @@ public class PatronMockOkapi extends MockOkapi {
           "\"errors\" : []" +
           "}";
 
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private volatile IntToLongFunction latencyModel;
+  private volatile int loginStatus;
+
   public PatronMockOkapi(int port, List<String> knownTenants) {
     super(port, knownTenants);
   }
 
+  /**
+   * Injects latency into every request, on top of any fixed delay.
+   *
+   * @param latencyModel maps the number of requests in flight, including the
+   *          current one, to a delay in ms; null disables injected latency
+   */
+  public void setLatencyModel(IntToLongFunction latencyModel) {
+    this.latencyModel = latencyModel;
+  }
+
+  /**
+   * Makes <code>/authn/login</code> fail with the given status code, or
+   * succeed as usual if 0.
+   */
+  public void setLoginStatus(int loginStatus) {
+    this.loginStatus = loginStatus;
+  }
+
+  /**
+   * @return a latency model that delays every request by the same time
+   */
+  public static IntToLongFunction fixedLatency(long ms) {
+    return inFlight -> ms;
+  }
+
+  /**
+   * @return a latency model with exponentially distributed delays, as of
+   *         independent arrivals
+   */
+  public static IntToLongFunction exponentialLatency(double meanMs) {
+    return inFlight -> Math.round(-meanMs * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+  }
+
+  /**
+   * @param sigma
+   *          the standard deviation of the log of the delay; the higher, the
+   *          longer the tail, e.g. 1 puts the 99th percentile at about 10
+   *          times the median
+   * @return a latency model with log-normally distributed delays, as
+   *         typically measured of real services
+   */
+  public static IntToLongFunction logNormalLatency(double medianMs, double sigma) {
+    return inFlight -> Math.round(medianMs * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+  }
+
+  /**
+   * Parses a latency model: <code>none</code>, <code>fixed:ms</code>,
+   * <code>exponential:meanMs</code> or <code>lognormal:medianMs:sigma</code>.
+   *
+   * @return the latency model, null for <code>none</code>
+   * @throws IllegalArgumentException
+   *           if the model is not one of these
+   */
+  public static IntToLongFunction parseLatencyModel(String model) {
+    String[] parts = model.split(":");
+    try {
+      switch (parts[0]) {
+      case "none":
+        return null;
+      case "fixed":
+        return fixedLatency(Long.parseLong(parts[1]));
+      case "exponential":
+        return exponentialLatency(Double.parseDouble(parts[1]));
+      case "lognormal":
+        return logNormalLatency(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+      default:
+        throw new IllegalArgumentException("Unknown latency model: " + model);
+      }
+    } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid latency model: " + model, e);
+    }
+  }
+
   @Override
   public Router defineRoutes() {
     Router router = super.defineRoutes();
 
+    router.route()
+      .order(-1)
+      .handler(this::injectLatency);
+
+    router.route(HttpMethod.POST, "/authn/login")
+      .order(-1)
+      .handler(this::failLogin);
+
     router.route(HttpMethod.GET, "/users")
       .handler(this::getPatronHandler);
 
@@ -152,6 +242,38 @@ public class PatronMockOkapi extends MockOkapi {
     return router;
   }
 
+  private void injectLatency(RoutingContext ctx) {
+    IntToLongFunction model = latencyModel;
+    if (model == null) {
+      ctx.next();
+      return;
+    }
+    int current = inFlight.incrementAndGet();
+    ctx.addEndHandler(ar -> inFlight.decrementAndGet());
+    long delay = model.applyAsLong(current);
+    if (delay <= 0) {
+      ctx.next();
+      return;
+    }
+    ctx.request().pause();
+    ctx.vertx().setTimer(delay, id -> {
+      ctx.request().resume();
+      ctx.next();
+    });
+  }
+
+  private void failLogin(RoutingContext ctx) {
+    int status = loginStatus;
+    if (status == 0) {
+      ctx.next();
+      return;
+    }
+    ctx.response()
+      .setStatusCode(status)
+      .putHeader(HttpHeaders.CONTENT_TYPE, TEXT_PLAIN)
+      .end("Login failed");
+  }
+
   public void getPatronHandler(RoutingContext ctx) {
     String query = ctx.request().getParam(PARAM_QUERY);
     String token = ctx.request().getHeader(X_OKAPI_TOKEN);
@@ -161,6 +283,18 @@ public class PatronMockOkapi extends MockOkapi {
         .setStatusCode(403)
         .putHeader(HttpHeaders.CONTENT_TYPE, TEXT_PLAIN)
         .end("Access requires permission: users.collection.get");
+    } else if (query.startsWith("externalSystemId==(")) {
+      // batch lookup: externalSystemId==("a" or "b")
+      List<String> extPatronIds = new ArrayList<>();
+      Matcher matcher = Pattern.compile("\"([^\"]*)\"").matcher(query);
+      while (matcher.find()) {
+        extPatronIds.add(matcher.group(1));
+      }
+
+      ctx.response()
+        .setStatusCode(200)
+        .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+        .end(getPatronsJson(extPatronIds));
     } else {
       String[] parts = query.split("==");
       String extPatronId = parts[1];
@@ -432,13 +566,19 @@ public class PatronMockOkapi extends MockOkapi {
   }
 
   public static String getPatronJson(String extPatronId) {
-    JsonArray users = new JsonArray();
     logger.info(extPatronId_notFound);
     logger.info(extPatronId);
-    if (!extPatronId_notFound.equals(extPatronId)) {
-      users.add(new JsonObject()
-        .put("externalSystemId", extPatronId)
-        .put("id", patronId));
+    return getPatronsJson(singletonList(extPatronId));
+  }
+
+  public static String getPatronsJson(List<String> extPatronIds) {
+    JsonArray users = new JsonArray();
+    for (String extPatronId : extPatronIds) {
+      if (!extPatronId_notFound.equals(extPatronId)) {
+        users.add(new JsonObject()
+          .put("externalSystemId", extPatronId)
+          .put("id", patronId));
+      }
     }
 
     JsonObject json = new JsonObject()
@@ -547,9 +687,9 @@ public class PatronMockOkapi extends MockOkapi {
     return Hold.builder()
       .item(getItem(itemId))
       .pickupLocationId(pickupLocationId)
-      .expirationDate(new Date(holdExpTs))
+      .expirationDate(Instant.ofEpochMilli(holdExpTs))
       .queuePosition(queuePosition)
-      .requestDate(new Date(holdReqTs))
+      .requestDate(Instant.ofEpochMilli(holdReqTs))
       .requestId(holdReqId)
       .status(holdStatus)
       .cancellationReasonId(cancellationReasonId)
@@ -558,11 +698,11 @@ public class PatronMockOkapi extends MockOkapi {
       .build();
   }
 
-  public static Hold getHold(String itemId, Date holdReqDate) {
+  public static Hold getHold(String itemId, Instant holdReqDate) {
     return Hold.builder()
       .item(getItem(itemId))
       .pickupLocationId(pickupLocationId)
-      .expirationDate(new Date(holdExpTs))
+      .expirationDate(Instant.ofEpochMilli(holdExpTs))
       .queuePosition(2)
       .requestDate(holdReqDate)
       .requestId(holdReqId)
@@ -576,7 +716,7 @@ public class PatronMockOkapi extends MockOkapi {
       .item(getItem(itemId_overdue))
       .feeFineId(feeFineId)
       .chargeAmount(new Money(1.23f, Currency.getInstance("USD").getCurrencyCode()))
-      .accrualDate(new Date(accrualDateTs))
+      .accrualDate(Instant.ofEpochMilli(accrualDateTs))
       .description("late fee")
       .state("outstanding")
       .reason("overdue item")
@@ -586,8 +726,8 @@ public class PatronMockOkapi extends MockOkapi {
   public static Loan getLoan(String itemId) {
     return Loan.builder()
       .item(getItem(itemId))
-      .loanDate(new Date(checkedOutTs))
-      .dueDate(new Date(dueDateTs))
+      .loanDate(Instant.ofEpochMilli(checkedOutTs))
+      .dueDate(Instant.ofEpochMilli(dueDateTs))
       .overdue(true)
       .build();
   }
@@ -632,8 +772,7 @@ public class PatronMockOkapi extends MockOkapi {
     String ret = null;
     try {
 
-      SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
-      Date canceledDate = format.parse ( "2019-11-27" );
+      Instant canceledDate = LocalDate.parse("2019-11-27").atStartOfDay(ZoneOffset.UTC).toInstant();
 
       HoldCancellation cancellation =  HoldCancellation.builder()
         .holdId(holdId)
@@ -643,7 +782,7 @@ public class PatronMockOkapi extends MockOkapi {
         .canceledByUserId(canceledByUserId)
         .build();
       ret = cancellation.toJson();
-    } catch (JsonProcessingException | ParseException e) {
+    } catch (JsonProcessingException e) {
       logger.warn("Failed to generate Hold JSON", e);
     }
     return ret;
@@ -653,8 +792,7 @@ public class PatronMockOkapi extends MockOkapi {
     String ret = null;
     try {
 
-      SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
-      Date canceledDate = format.parse ( "2019-11-27" );
+      Instant canceledDate = LocalDate.parse("2019-11-27").atStartOfDay(ZoneOffset.UTC).toInstant();
 
       HoldCancellation cancellation =  HoldCancellation.builder()
         .holdId(holdId)
@@ -663,7 +801,7 @@ public class PatronMockOkapi extends MockOkapi {
         .cancellationAdditionalInformation("I don't want it anymore")
         .build();
       ret = cancellation.toJson();
-    } catch (JsonProcessingException | ParseException e) {
+    } catch (JsonProcessingException e) {
       logger.warn("Failed to generate Hold JSON", e);
     }
     return ret;
@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 
 import io.vertx.core.json.JsonObject;
 import org.apache.logging.log4j.LogManager;
@@ -18,6 +19,7 @@ import org.apache.logging.log4j.Logger;
 import org.folio.edge.core.utils.test.TestUtils;
 import org.folio.edge.patron.model.Account;
 import org.folio.edge.patron.model.Hold;
+import org.folio.edge.patron.utils.PatronOkapiClient.LoginRejectedException;
 import org.folio.edge.patron.utils.PatronOkapiClient.PatronLookupException;
 import org.junit.After;
 import org.junit.Before;
@@ -63,6 +65,38 @@ public class PatronOkapiClientTest {
     .onComplete(context.asyncAssertSuccess());
   }
 
+  @Test
+  public void testLoginRejected(TestContext context) {
+    logger.info("=== Test login with credentials Okapi rejects ===");
+
+    mockOkapi.setLoginStatus(422);
+    Async async = context.async();
+    client.login("rejected", "password").whenComplete((token, t) -> {
+      Throwable cause = t instanceof CompletionException ? t.getCause() : t;
+      context.assertTrue(cause instanceof LoginRejectedException);
+      LoginRejectedException e = (LoginRejectedException) cause;
+      context.assertEquals(422, e.getStatusCode());
+      context.assertTrue(e.isInvalidCredentials());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testLoginOkapiUnavailable(TestContext context) {
+    logger.info("=== Test login while Okapi fails ===");
+
+    mockOkapi.setLoginStatus(503);
+    Async async = context.async();
+    client.login("unavailable", "password").whenComplete((token, t) -> {
+      Throwable cause = t instanceof CompletionException ? t.getCause() : t;
+      context.assertTrue(cause instanceof LoginRejectedException);
+      LoginRejectedException e = (LoginRejectedException) cause;
+      context.assertEquals(503, e.getStatusCode());
+      context.assertFalse(e.isInvalidCredentials());
+      async.complete();
+    });
+  }
+
   @Test
   public void testGetPatronExistent(TestContext context) throws Exception {
     logger.info("=== Test getPatron exists ===");
@@ -84,6 +118,7 @@ public class PatronOkapiClientTest {
       if (!(e instanceof PatronLookupException)) {
         fail("Expected " + PatronLookupException.class.getName() + " got " + e.getClass().getName());
       }
+      assertEquals(PatronOkapiClient.MSG_NO_SUCH_USER, e.getMessage());
     }));
   }
 
@@ -99,6 +134,20 @@ public class PatronOkapiClientTest {
     }));
   }
 
+  @Test
+  public void testAccountUrl(TestContext context) {
+    logger.info("=== Test the URLs of account requests ===");
+
+    assertEquals("http://okapi:9130/patron/account/1234?includeLoans=true&includeCharges=false&includeHolds=true",
+        PatronOkapiClient.accountUrl("http://okapi:9130", "1234", true, false, true, null, null, null));
+    assertEquals("http://okapi:9130/patron/account/1234?includeLoans=true&includeCharges=true&includeHolds=true"
+        + "&sortBy=loanDate/sort.descending&limit=10&offset=20",
+        PatronOkapiClient.accountUrl("http://okapi:9130", "1234", true, true, true, "loanDate/sort.descending",
+            "10", "20"));
+    assertEquals("http://okapi:9130/users?query=externalSystemId==5678",
+        PatronOkapiClient.usersUrl("http://okapi:9130", "5678"));
+  }
+
   @Test
   public void testGetAccountWithAll(TestContext context) throws Exception {
     logger.info("=== Test successful getAccount request w/ all data ===");
@@ -0,0 +1,95 @@
+package org.folio.edge.patron.utils;
+
+import static org.folio.edge.patron.Constants.MSG_INVALID_FIELD;
+import static org.folio.edge.patron.Constants.MSG_MISSING_FIELD;
+import static org.folio.edge.patron.Constants.MSG_UNKNOWN_FIELD;
+import static org.folio.edge.patron.Constants.SCHEMA_HOLD;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.patron.model.Hold;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import io.vertx.core.json.JsonObject;
+
+public class SchemaValidatorTest {
+
+  private static final Logger logger = LogManager.getLogger(SchemaValidatorTest.class);
+
+  private static SchemaValidator validator;
+
+  @BeforeClass
+  public static void setUpOnce() {
+    validator = SchemaValidator.builder(SCHEMA_HOLD).build();
+  }
+
+  @Test
+  public void testValidHold() throws Exception {
+    logger.info("=== Test a hold as the discovery services send it... ===");
+
+    Hold hold = PatronMockOkapi.getHold(PatronMockOkapi.itemId, Instant.now());
+    assertNull(validator.validate(new JsonObject(hold.toJson())));
+    assertNull(validator.validate(new JsonObject()
+      .put("pickupLocationId", UUID.randomUUID().toString())
+      .put("expirationDate", "0001-01-01T00:00:00")
+      .putNull("patronComments")));
+  }
+
+  @Test
+  public void testInvalidHold() throws Exception {
+    logger.info("=== Test holds violating the schema... ===");
+
+    JsonObject hold = new JsonObject(PatronMockOkapi.getHold(PatronMockOkapi.itemId, Instant.now()).toJson());
+
+    assertEquals(String.format(MSG_MISSING_FIELD, "pickupLocationId"),
+        validator.validate(hold.copy().putNull("pickupLocationId")));
+    assertEquals(String.format(MSG_INVALID_FIELD, "pickupLocationId"),
+        validator.validate(hold.copy().put("pickupLocationId", "downtown")));
+    assertEquals(String.format(MSG_INVALID_FIELD, "status"),
+        validator.validate(hold.copy().put("status", "Open")));
+    assertEquals(String.format(MSG_INVALID_FIELD, "queuePosition"),
+        validator.validate(hold.copy().put("queuePosition", "first")));
+    assertEquals(String.format(MSG_UNKNOWN_FIELD, "priority"),
+        validator.validate(hold.copy().put("priority", 1)));
+  }
+
+  @Test
+  public void testInvalidNestedItem() throws Exception {
+    logger.info("=== Test the item of a hold is validated against its own schema... ===");
+
+    JsonObject hold = new JsonObject()
+      .put("pickupLocationId", UUID.randomUUID().toString())
+      .put("item", new JsonObject().put("title", "The Stars My Destination"));
+    assertEquals(String.format(MSG_MISSING_FIELD, "item.instanceId"), validator.validate(hold));
+
+    // decoded bodies hold their nested objects as maps
+    hold = new JsonObject(hold.put("item", new JsonObject().put("instanceId", "0000")).encode());
+    assertEquals(String.format(MSG_INVALID_FIELD, "item.instanceId"), validator.validate(hold));
+  }
+
+  @Test
+  public void testRelax() {
+    logger.info("=== Test relaxed fields are only type checked... ===");
+
+    SchemaValidator relaxed = SchemaValidator.builder(SCHEMA_HOLD)
+      .relax("pickupLocationId")
+      .build();
+    assertNull(relaxed.validate(new JsonObject()));
+    assertNull(relaxed.validate(new JsonObject().put("pickupLocationId", "downtown")));
+    assertEquals(String.format(MSG_INVALID_FIELD, "pickupLocationId"),
+        relaxed.validate(new JsonObject().put("pickupLocationId", 1)));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testMissingSchema() {
+    logger.info("=== Test a missing schema fails at startup... ===");
+
+    SchemaValidator.builder("ramls/missing.json").build();
+  }
+}
@@ -0,0 +1,51 @@
+package org.folio.edge.patron.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+public class ValidationHelperTest {
+
+  private static final Logger logger = LogManager.getLogger(ValidationHelperTest.class);
+
+  @Test
+  public void testParseNonNegativeInt() {
+    logger.info("=== Test parsing offset and limit values... ===");
+
+    assertEquals(0, ValidationHelper.parseNonNegativeInt("0"));
+    assertEquals(10, ValidationHelper.parseNonNegativeInt("10"));
+    assertEquals(7, ValidationHelper.parseNonNegativeInt("000000000007"));
+    assertEquals(Integer.MAX_VALUE, ValidationHelper.parseNonNegativeInt("2147483647"));
+
+    assertEquals(-1, ValidationHelper.parseNonNegativeInt(null));
+    assertEquals(-1, ValidationHelper.parseNonNegativeInt(""));
+    assertEquals(-1, ValidationHelper.parseNonNegativeInt("-1"));
+    assertEquals(-1, ValidationHelper.parseNonNegativeInt("1.5"));
+    assertEquals(-1, ValidationHelper.parseNonNegativeInt("ten"));
+    assertEquals(-1, ValidationHelper.parseNonNegativeInt("2147483648"));
+    assertEquals(-1, ValidationHelper.parseNonNegativeInt("99999999999999999999"));
+  }
+
+  @Test
+  public void testIsUuid() {
+    logger.info("=== Test UUIDs are checked against the schema pattern... ===");
+
+    assertTrue(ValidationHelper.isUuid(UUID.randomUUID().toString()));
+    assertTrue(ValidationHelper.isUuid("6B6B715E-8038-49BA-AB91-FAA8FDF7449C"));
+
+    assertFalse(ValidationHelper.isUuid(null));
+    assertFalse(ValidationHelper.isUuid(""));
+    assertFalse(ValidationHelper.isUuid("1-1-1-1-1"));
+    assertFalse(ValidationHelper.isUuid("3a40852d-g9fd-4df2-a1f9-6e2641a6e91f"));
+    assertFalse(ValidationHelper.isUuid("3a40852d49fd-4df2-a1f9-6e2641a6e91f0"));
+    // version 0 and the reserved variant don't match the pattern
+    assertFalse(ValidationHelper.isUuid("3a40852d-49fd-0df2-a1f9-6e2641a6e91f"));
+    assertFalse(ValidationHelper.isUuid("3a40852d-49fd-4df2-c1f9-6e2641a6e91f"));
+  }
+}